@@ -2,9 +2,7 @@ package com.example.apigatewayservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
-import org.springframework.web.client.RestTemplate;
 
 @SpringBootApplication
 public class ApiGatewayServiceApplication {
@@ -13,8 +11,4 @@ public class ApiGatewayServiceApplication {
         SpringApplication.run(com.example.apigatewayservice.ApiGatewayServiceApplication.class, args);
     }
 
-    @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
-    }
 }
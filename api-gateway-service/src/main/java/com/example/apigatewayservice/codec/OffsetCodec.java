@@ -0,0 +1,73 @@
+package com.example.apigatewayservice.codec;
+
+// Packed binary form of a sorted offset list: varint(count) varint(first) varint(delta)...
+// Unsigned LEB128 varints, 7 bits per byte with the high bit set on every byte but the last.
+// Delta coding keeps consecutive offsets of common words to one or two bytes each,
+// where the JSON form needs the full decimal number plus a comma.
+public final class OffsetCodec {
+
+    private OffsetCodec() {
+    }
+
+    public static byte[] encode(int[] offsets, int count) {
+        // size the output exactly in a first pass so no oversized buffer is allocated
+        int size = varintLength(count);
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            size += varintLength(offsets[i] - previous);
+            previous = offsets[i];
+        }
+        byte[] packed = new byte[size];
+        int pos = writeVarint(packed, 0, count);
+        previous = 0;
+        for (int i = 0; i < count; i++) {
+            pos = writeVarint(packed, pos, offsets[i] - previous);
+            previous = offsets[i];
+        }
+        return packed;
+    }
+
+    public static int[] decode(byte[] packed) {
+        int[] position = {0};
+        int count = readVarint(packed, position);
+        int[] offsets = new int[count];
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            previous += readVarint(packed, position);
+            offsets[i] = previous;
+        }
+        return offsets;
+    }
+
+    private static int varintLength(int value) {
+        int length = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    private static int writeVarint(byte[] out, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            out[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static int readVarint(byte[] in, int[] position) {
+        int pos = position[0];
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in[pos++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        position[0] = pos;
+        return value;
+    }
+}
@@ -6,11 +6,16 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -33,14 +38,32 @@ public class ApiGatewayController {
         this.apiGatewayService = apiGatewayService;
     }
 
-    @Operation(summary = "Create a new article", description = "Add a new article and its content to the system. the content pass as byte array")
+    @Operation(summary = "Create a new article", description = "Add a new article and its content to the system. the content pass as byte array. "
+            + "async=true returns 202 with the article id as soon as the article is stored, poll /articles/{id}/status for the indexing result")
     @ApiResponse(responseCode = "201", description = "Successfully created the article")
+    @ApiResponse(responseCode = "202", description = "Article stored and queued for indexing")
     @ApiResponse(responseCode = "400", description = "Invalid article input")
     @ApiResponse(responseCode = "409", description = "Conflict - article with the same name and author already exists")
     @PostMapping("/addarticle")
-    public ResponseEntity<String> addArticle(@RequestBody ArticleDTO articleDTO) {
+    public ResponseEntity<String> addArticle(@RequestBody ArticleDTO articleDTO, @RequestParam(required = false) Boolean async) {
         try {
-            return apiGatewayService.addArticle(articleDTO);
+            if (async == null) {
+                return apiGatewayService.addArticle(articleDTO);
+            }
+            return apiGatewayService.addArticle(articleDTO, async);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @Operation(summary = "Get an article's indexing status", description = "Returns pending, indexed or failed for an article")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved article status")
+    @ApiResponse(responseCode = "404", description = "Article not found")
+    @GetMapping("/articles/{id}/status")
+    public ResponseEntity<String> getArticleStatus(@PathVariable String id) {
+        try {
+            Long articleId = apiGatewayService.validateAndConvertId(id);
+            return apiGatewayService.getArticleStatus(articleId);
         } catch (Exception e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
         }
@@ -59,6 +82,36 @@ public class ApiGatewayController {
         }
     }
 
+    @Operation(summary = "Get the metadata of several articles", description = "Retrieve the metadata of the articles with the given "
+            + "comma separated ids in one call. Articles are returned in request order, ids without an article are listed under missing")
+    @ApiResponse(responseCode = "200", description = "Metadata of the articles found")
+    @ApiResponse(responseCode = "400", description = "Invalid ids or too many ids")
+    @GetMapping("/articles/metadata")
+    public ResponseEntity<String> getArticleMetadataBatch(@RequestParam List<String> ids) {
+        return articleMetadataBatch(ids);
+    }
+
+    @Operation(summary = "Get the metadata of several articles", description = "Like GET /articles/metadata with the ids as a JSON array in the body, "
+            + "for id sets too large for a query string")
+    @ApiResponse(responseCode = "200", description = "Metadata of the articles found")
+    @ApiResponse(responseCode = "400", description = "Invalid ids or too many ids")
+    @PostMapping("/articles/metadata")
+    public ResponseEntity<String> postArticleMetadataBatch(@RequestBody List<String> ids) {
+        return articleMetadataBatch(ids);
+    }
+
+    private ResponseEntity<String> articleMetadataBatch(List<String> ids) {
+        try {
+            List<Long> articleIds = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                articleIds.add(apiGatewayService.validateAndConvertId(id));
+            }
+            return apiGatewayService.getArticleMetadata(articleIds);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
     @Operation(summary = "Get article content by ID", description = "Retrieve content of a specific article by its ID")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved article content")
     @ApiResponse(responseCode = "404", description = "Article not found")
@@ -72,14 +125,43 @@ public class ApiGatewayController {
         }
     }
 
-    @Operation(summary = "Get word mappings", description = "Retrieve the mappings of a specific word and its occurrences in articles")
+    @Operation(summary = "Stream article content", description = "Streams the raw content of an article as application/octet-stream, "
+            + "proxied from the DAL without buffering. Send Range: bytes=start-end to fetch only a slice, e.g. around a word offset")
+    @ApiResponse(responseCode = "200", description = "Whole content")
+    @ApiResponse(responseCode = "206", description = "Requested range")
+    @ApiResponse(responseCode = "404", description = "Article not found")
+    @ApiResponse(responseCode = "416", description = "Range outside the content")
+    @GetMapping("/articles/{id}/content/raw")
+    public void streamArticleContent(@PathVariable String id, @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+                                     HttpServletResponse response) throws IOException {
+        Long articleId;
+        try {
+            articleId = apiGatewayService.validateAndConvertId(id);
+        } catch (Exception e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+            return;
+        }
+        apiGatewayService.streamArticleContent(articleId, range, response);
+    }
+
+    @Operation(summary = "Get word mappings", description = "Retrieve the mappings of a specific word and its occurrences in articles. "
+            + "encoding=json (default) returns offsets as arrays, encoding=packed returns the delta+varint packed offsets as Base64. "
+            + "limit returns one page of articles in article id order; pass the returned next_cursor as cursor for the next page "
+            + "(next_cursor is absent on the last page). maxOffsets keeps at most that many offsets per article, 0 returns article ids only")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved word mappings")
+    @ApiResponse(responseCode = "400", description = "Invalid word, limit, cursor or maxOffsets")
     @ApiResponse(responseCode = "404", description = "Word not found")
     @GetMapping("/word/{word}")
-    public ResponseEntity<?> getWordMappings(@PathVariable String word) {
+    public ResponseEntity<?> getWordMappings(@PathVariable String word, @RequestParam(defaultValue = "json") String encoding,
+                                             @RequestParam(required = false) Integer limit,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(required = false) Integer maxOffsets) {
         try {
             String sanitizedWord = apiGatewayService.sanitizeWord(word);
-            ResponseEntity<Map<String, Object>> response = apiGatewayService.getWordMappings(sanitizedWord);
+            if ((limit != null && limit <= 0) || (maxOffsets != null && maxOffsets < 0)) {
+                throw new IllegalArgumentException("limit must be positive and maxOffsets must not be negative.");
+            }
+            ResponseEntity<Map<String, Object>> response = apiGatewayService.getWordMappings(sanitizedWord, encoding, limit, cursor, maxOffsets);
 
             if (response.getStatusCode() == HttpStatus.NOT_FOUND) {
                 return new ResponseEntity<>("Word not found: " + word, HttpStatus.NOT_FOUND);
@@ -91,15 +173,177 @@ public class ApiGatewayController {
         }
     }
 
-    @Operation(summary = "Delete an article by ID", description = "Remove an article and its related content from the system by its ID")
+    @Operation(summary = "Word snippets", description = "Return the text around the occurrences of a word: context chars on each side "
+            + "of the first maxSnippets occurrences in each article (capped by the DAL), for one page of articles like /word/{word}, "
+            + "or for articleId only. Each snippet has the word's char offset, the char offset its text starts at and the text")
+    @ApiResponse(responseCode = "200", description = "Articles with their snippets, possibly none")
+    @ApiResponse(responseCode = "400", description = "Invalid word, context, maxSnippets, limit or cursor")
+    @GetMapping("/word/{word}/snippets")
+    public ResponseEntity<?> getWordSnippets(@PathVariable String word,
+                                             @RequestParam(required = false) Long articleId,
+                                             @RequestParam(required = false) Integer context,
+                                             @RequestParam(required = false) Integer maxSnippets,
+                                             @RequestParam(required = false) Integer limit,
+                                             @RequestParam(required = false) String cursor) {
+        try {
+            if ((context != null && context < 0) || (maxSnippets != null && maxSnippets <= 0) || (limit != null && limit <= 0)) {
+                throw new IllegalArgumentException("context must not be negative, maxSnippets and limit must be positive.");
+            }
+            return apiGatewayService.findSnippets(apiGatewayService.sanitizeWord(word), articleId, context, maxSnippets, limit, cursor);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @Operation(summary = "Fuzzy word lookup", description = "Find the words within maxEdits (1 or 2) typos of a word: letters "
+            + "inserted, deleted or replaced. Words are listed nearest first and, at the same distance, the most frequent first, "
+            + "the word itself at distance 0 when it exists. Each lists its first limit articles like /word/{word}, next_cursor "
+            + "continues them with /word/{term}?cursor=...; maxTerms caps the number of words, encoding and maxOffsets work as for /word/{word}")
+    @ApiResponse(responseCode = "200", description = "Similar words, possibly none")
+    @ApiResponse(responseCode = "400", description = "Invalid word, maxEdits, maxTerms, limit or maxOffsets")
+    @ApiResponse(responseCode = "503", description = "The word index is still building")
+    @GetMapping("/fuzzy/{word}")
+    public ResponseEntity<?> findFuzzy(@PathVariable String word,
+                                       @RequestParam(defaultValue = "1") int maxEdits,
+                                       @RequestParam(defaultValue = "json") String encoding,
+                                       @RequestParam(required = false) Integer maxTerms,
+                                       @RequestParam(required = false) Integer limit,
+                                       @RequestParam(required = false) Integer maxOffsets) {
+        try {
+            String sanitizedWord = apiGatewayService.sanitizeWord(word);
+            if (maxEdits < 1 || maxEdits > 2) {
+                throw new IllegalArgumentException("maxEdits must be 1 or 2.");
+            }
+            if ((maxTerms != null && maxTerms <= 0) || (limit != null && limit <= 0) || (maxOffsets != null && maxOffsets < 0)) {
+                throw new IllegalArgumentException("maxTerms and limit must be positive and maxOffsets must not be negative.");
+            }
+            return apiGatewayService.findFuzzy(sanitizedWord, maxEdits, encoding, maxTerms, limit, maxOffsets);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @Operation(summary = "Ranked search", description = "Find the k articles most relevant to the words in q (comma separated), "
+            + "ranked with BM25: words that occur more often in an article, words held by fewer articles and shorter articles "
+            + "rank higher. Hits come best first with their score and the offsets of the words they hold; encoding and maxOffsets "
+            + "work as for /word/{word}")
+    @ApiResponse(responseCode = "200", description = "Best articles, possibly none")
+    @ApiResponse(responseCode = "400", description = "Invalid words, too many words, or invalid k or maxOffsets")
+    @ApiResponse(responseCode = "503", description = "The word index is still building")
+    @GetMapping("/search")
+    public ResponseEntity<?> search(@RequestParam List<String> q,
+                                    @RequestParam(required = false) Integer k,
+                                    @RequestParam(defaultValue = "json") String encoding,
+                                    @RequestParam(required = false) Integer maxOffsets) {
+        try {
+            if ((k != null && k <= 0) || (maxOffsets != null && maxOffsets < 0)) {
+                throw new IllegalArgumentException("k must be positive and maxOffsets must not be negative.");
+            }
+            return apiGatewayService.search(sanitizeWords(q, false), k, encoding, maxOffsets);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @Operation(summary = "Boolean word query", description = "Find the articles that contain every word of all, at least one word of any "
+            + "and none of the words of not (comma separated, all or any must be given), e.g. all=search,engine&not=car. "
+            + "Words in any and not may be patterns like index* (see /terms). "
+            + "Each article lists the offsets of its all and any words; encoding, limit, cursor and maxOffsets work as for /word/{word}")
+    @ApiResponse(responseCode = "200", description = "Matching articles, possibly none")
+    @ApiResponse(responseCode = "400", description = "Invalid words, no all or any words, too many words, or invalid limit, cursor or maxOffsets")
+    @GetMapping("/query")
+    public ResponseEntity<?> queryWords(@RequestParam(required = false) List<String> all,
+                                        @RequestParam(required = false) List<String> any,
+                                        @RequestParam(required = false) List<String> not,
+                                        @RequestParam(defaultValue = "json") String encoding,
+                                        @RequestParam(required = false) Integer limit,
+                                        @RequestParam(required = false) String cursor,
+                                        @RequestParam(required = false) Integer maxOffsets) {
+        try {
+            if ((limit != null && limit <= 0) || (maxOffsets != null && maxOffsets < 0)) {
+                throw new IllegalArgumentException("limit must be positive and maxOffsets must not be negative.");
+            }
+            return apiGatewayService.queryWords(sanitizeWords(all, false), sanitizeWords(any, true), sanitizeWords(not, true),
+                    encoding, limit, cursor, maxOffsets);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @Operation(summary = "Phrase query", description = "Find the articles that contain the words of q in this order, one right after the other, "
+            + "e.g. q=new york city. Each article lists how many times it holds the phrase and the [start, end) char spans of the first ones. "
+            + "limit and cursor work as for /word/{word}")
+    @ApiResponse(responseCode = "200", description = "Matching articles, possibly none")
+    @ApiResponse(responseCode = "400", description = "Invalid phrase, too many words, or invalid limit or cursor")
+    @GetMapping("/phrase")
+    public ResponseEntity<?> findPhrase(@RequestParam List<String> q,
+                                        @RequestParam(required = false) Integer limit,
+                                        @RequestParam(required = false) String cursor) {
+        try {
+            if (limit != null && limit <= 0) {
+                throw new IllegalArgumentException("limit must be positive.");
+            }
+            return apiGatewayService.findPhrase(apiGatewayService.sanitizePhrase(q), limit, cursor);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @Operation(summary = "Proximity query", description = "Find the articles that contain the words of q (comma separated) in any order with "
+            + "at most within words between them in total, e.g. q=city,new&within=3. Stored offsets count chars, so within is an estimate "
+            + "of dal.word-phrase.chars-per-word chars per word. Returned like /phrase, the spans are the smallest ones holding every word")
+    @ApiResponse(responseCode = "200", description = "Matching articles, possibly none")
+    @ApiResponse(responseCode = "400", description = "Invalid words, too many words, or invalid within, limit or cursor")
+    @GetMapping("/near")
+    public ResponseEntity<?> findNear(@RequestParam List<String> q,
+                                      @RequestParam(required = false) Integer within,
+                                      @RequestParam(required = false) Integer limit,
+                                      @RequestParam(required = false) String cursor) {
+        try {
+            if ((within != null && within < 0) || (limit != null && limit <= 0)) {
+                throw new IllegalArgumentException("within must not be negative and limit must be positive.");
+            }
+            return apiGatewayService.findNear(sanitizeWords(q, false), within, limit, cursor);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    private List<String> sanitizeWords(List<String> words, boolean patterns) {
+        if (words == null) {
+            return null;
+        }
+        List<String> sanitized = new ArrayList<>(words.size());
+        for (String word : words) {
+            sanitized.add(patterns ? apiGatewayService.sanitizePattern(word) : apiGatewayService.sanitizeWord(word));
+        }
+        return sanitized;
+    }
+
+    @Operation(summary = "Expand a word pattern", description = "List the words matching a prefix or wildcard pattern such as index* "
+            + "or colo?r (* matches any run of letters, ? one letter, the pattern must start with a letter) in sorted order. "
+            + "At most limit words are returned, truncated tells whether more words match")
+    @ApiResponse(responseCode = "200", description = "Matching words, possibly none")
+    @ApiResponse(responseCode = "400", description = "Invalid pattern or limit")
+    @GetMapping("/terms")
+    public ResponseEntity<String> expandPattern(@RequestParam String pattern, @RequestParam(required = false) Integer limit) {
+        try {
+            return apiGatewayService.expandPattern(apiGatewayService.sanitizePattern(pattern), limit);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @Operation(summary = "Delete an article by ID", description = "Remove an article and its related content from the system by its ID. "
+            + "With async=true the article is hidden right away and its word mappings are purged in the background")
+    @ApiResponse(responseCode = "202", description = "Article hidden, its rows are being purged")
     @ApiResponse(responseCode = "204", description = "Successfully deleted the article")
     @ApiResponse(responseCode = "404", description = "Article not found")
     @DeleteMapping("/articles/{id}")
-    public ResponseEntity<String> deleteArticle(@PathVariable String id) {
+    public ResponseEntity<String> deleteArticle(@PathVariable String id, @RequestParam(defaultValue = "false") boolean async) {
         try {
             Long articleId = apiGatewayService.validateAndConvertId(id);
-            apiGatewayService.deleteArticle(articleId);
-            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            return apiGatewayService.deleteArticle(articleId, async);
         } catch (Exception e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
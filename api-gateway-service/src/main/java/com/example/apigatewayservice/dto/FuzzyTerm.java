@@ -0,0 +1,44 @@
+package com.example.apigatewayservice.dto;
+
+import java.util.List;
+
+// A word returned by the DAL's fuzzy lookup with its edit distance and the first page of its mappings
+public class FuzzyTerm {
+    private String term;
+    private int distance;
+    private List<WordsMapping> mappings;
+    private String nextCursor;
+
+    // Getters and Setters
+    public String getTerm() {
+        return term;
+    }
+
+    public void setTerm(String term) {
+        this.term = term;
+    }
+
+    public int getDistance() {
+        return distance;
+    }
+
+    public void setDistance(int distance) {
+        this.distance = distance;
+    }
+
+    public List<WordsMapping> getMappings() {
+        return mappings;
+    }
+
+    public void setMappings(List<WordsMapping> mappings) {
+        this.mappings = mappings;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.apigatewayservice.dto;
+
+import java.util.List;
+
+// One page of the DAL's phrase or proximity query: the matching articles with their number of matches
+// and the [start, end) char spans of the first ones
+public class PositionalResult {
+    private List<Match> matches;
+    private String nextCursor;
+
+    public static class Match {
+        private Long articleId;
+        private int count;
+        private List<int[]> spans;
+
+        public Long getArticleId() {
+            return articleId;
+        }
+
+        public void setArticleId(Long articleId) {
+            this.articleId = articleId;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public List<int[]> getSpans() {
+            return spans;
+        }
+
+        public void setSpans(List<int[]> spans) {
+            this.spans = spans;
+        }
+    }
+
+    // Getters and Setters
+    public List<Match> getMatches() {
+        return matches;
+    }
+
+    public void setMatches(List<Match> matches) {
+        this.matches = matches;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.apigatewayservice.dto;
+
+import java.util.List;
+
+// An article of the DAL's ranked search with its BM25 score and the mappings of the query words it holds
+public class SearchHit {
+    private Long articleId;
+    private double score;
+    private List<WordsMapping> mappings;
+
+    // Getters and Setters
+    public Long getArticleId() {
+        return articleId;
+    }
+
+    public void setArticleId(Long articleId) {
+        this.articleId = articleId;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+
+    public List<WordsMapping> getMappings() {
+        return mappings;
+    }
+
+    public void setMappings(List<WordsMapping> mappings) {
+        this.mappings = mappings;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.apigatewayservice.dto;
+
+import java.util.List;
+
+// One page of the DAL's boolean word query: the matching articles with the mappings of the query words they hold
+public class WordQueryResult {
+    private List<Match> matches;
+    private String nextCursor;
+
+    public static class Match {
+        private Long articleId;
+        private List<WordsMapping> mappings;
+
+        public Long getArticleId() {
+            return articleId;
+        }
+
+        public void setArticleId(Long articleId) {
+            this.articleId = articleId;
+        }
+
+        public List<WordsMapping> getMappings() {
+            return mappings;
+        }
+
+        public void setMappings(List<WordsMapping> mappings) {
+            this.mappings = mappings;
+        }
+    }
+
+    // Getters and Setters
+    public List<Match> getMatches() {
+        return matches;
+    }
+
+    public void setMatches(List<Match> matches) {
+        this.matches = matches;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
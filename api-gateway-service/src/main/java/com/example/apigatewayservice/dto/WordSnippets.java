@@ -0,0 +1,88 @@
+package com.example.apigatewayservice.dto;
+
+import java.util.List;
+
+// One page of the DAL's snippets of a word: the articles holding it with their number of occurrences
+// and the text around the first ones
+public class WordSnippets {
+    private List<Article> articles;
+    private String nextCursor;
+
+    public static class Article {
+        private Long articleId;
+        private int count;
+        private List<Snippet> snippets;
+
+        public Long getArticleId() {
+            return articleId;
+        }
+
+        public void setArticleId(Long articleId) {
+            this.articleId = articleId;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public List<Snippet> getSnippets() {
+            return snippets;
+        }
+
+        public void setSnippets(List<Snippet> snippets) {
+            this.snippets = snippets;
+        }
+    }
+
+    // The word's char offset, the char offset the text starts at and the text
+    public static class Snippet {
+        private int offset;
+        private int start;
+        private String text;
+
+        public int getOffset() {
+            return offset;
+        }
+
+        public void setOffset(int offset) {
+            this.offset = offset;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public void setStart(int start) {
+            this.start = start;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public void setText(String text) {
+            this.text = text;
+        }
+    }
+
+    // Getters and Setters
+    public List<Article> getArticles() {
+        return articles;
+    }
+
+    public void setArticles(List<Article> articles) {
+        this.articles = articles;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
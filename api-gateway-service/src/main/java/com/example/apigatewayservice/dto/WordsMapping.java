@@ -4,6 +4,7 @@ public class WordsMapping {
     private String word;
     private Long articleId;
     private String offsets;
+    private byte[] packedOffsets;
 
     // Getters and Setters
     public String getWord() {
@@ -29,5 +30,12 @@ public class WordsMapping {
     public void setOffsets(String offsets) {
         this.offsets = offsets;
     }
-}
 
+    public byte[] getPackedOffsets() {
+        return packedOffsets;
+    }
+
+    public void setPackedOffsets(byte[] packedOffsets) {
+        this.packedOffsets = packedOffsets;
+    }
+}
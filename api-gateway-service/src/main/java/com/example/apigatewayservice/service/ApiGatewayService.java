@@ -1,23 +1,41 @@
 package com.example.apigatewayservice.service;
 
+import com.example.apigatewayservice.codec.OffsetCodec;
 import com.example.apigatewayservice.dto.ArticleDTO;
 import com.example.apigatewayservice.dto.ArticleContentDTO;
+import com.example.apigatewayservice.dto.FuzzyTerm;
+import com.example.apigatewayservice.dto.PositionalResult;
+import com.example.apigatewayservice.dto.SearchHit;
+import com.example.apigatewayservice.dto.WordQueryResult;
+import com.example.apigatewayservice.dto.WordSnippets;
 import com.example.apigatewayservice.dto.WordsMapping;
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 @Service
 public class ApiGatewayService {
+    // set by the DAL's paged /find responses while more pages follow
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    // Lease owner of an article the DAL just created, see the DAL's ArticleQueueService and the parser's IndexingJobQueue
+    private static final String CREATE_LEASE_OWNER = "create";
+
     private final RestTemplate restTemplate;
     private ObjectMapper objectMapper;
 
@@ -27,6 +45,10 @@ public class ApiGatewayService {
     @Value("${parser.service.url}")
     private String parserServiceUrl;
 
+    // default for /addarticle when the request does not say: true answers 202 once the article is stored
+    @Value("${gateway.ingestion.async:false}")
+    private boolean asyncIngestion;
+
     public ApiGatewayService(RestTemplate restTemplate) {
         this.restTemplate = restTemplate;
         objectMapper = new ObjectMapper();
@@ -37,9 +59,19 @@ public class ApiGatewayService {
     }
 
     public ResponseEntity<String> addArticle(ArticleDTO articleDTO) {
+        return addArticle(articleDTO, asyncIngestion);
+    }
+
+    // async = false keeps the connection open until the article is parsed and indexed,
+    // async = true returns 202 with the article id once it is stored and queued in the parser
+    public ResponseEntity<String> addArticle(ArticleDTO articleDTO, boolean async) {
         if (!validateArticleDTO(articleDTO)) {
             return ResponseEntity.badRequest().body("Invalid input data");
         }
+        if (async) {
+            // the status is what the client polls, it must start as pending
+            articleDTO.setStatus("pending");
+        }
         String url = articleServiceUrl + "/api/articles/create";
 
         ResponseEntity<String> response = restTemplate.postForEntity(url, articleDTO, String.class);
@@ -51,6 +83,9 @@ public class ApiGatewayService {
             // send to parser service
             String contentString = new String(articleDTO.getContent(), StandardCharsets.UTF_8);
             ArticleContentDTO contentDTO = new ArticleContentDTO(articleId, contentString);
+            if (async) {
+                return enqueueIndexingJob(contentDTO);
+            }
             String parserUrl = parserServiceUrl + "/api/parser/parse";
 
             ResponseEntity<String> parserResponse = restTemplate.postForEntity(parserUrl, contentDTO, String.class);
@@ -59,100 +94,470 @@ public class ApiGatewayService {
         return response;
     }
 
-    public ResponseEntity<String> getArticleMetadata(Long id) {
-        String url = articleServiceUrl + "/api/articles/" + id + "/metadata";
-        ResponseEntity<ArticleDTO> response = restTemplate.getForEntity(url, ArticleDTO.class);
-
-        if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-            ArticleDTO dto = response.getBody();
+    private ResponseEntity<String> enqueueIndexingJob(ArticleContentDTO contentDTO) {
+        String parserUrl = parserServiceUrl + "/api/parser/jobs";
+        try {
+            restTemplate.postForEntity(parserUrl, contentDTO, String.class);
+        } catch (HttpServerErrorException | ResourceAccessException e) {
+            // the parser job queue is full, or the parser is down or timed out: the article is stored either way,
+            // so give it to the DAL work queue right away instead of waiting for its creation lease to run out,
+            // a parser claims it once it has capacity. Answering 202 keeps the client from uploading it again.
             try {
-                // Convert dto to json string using ObjectMapper
-                ObjectNode jsonNode = objectMapper.valueToTree(dto);
-                // remove the "content" field
-                jsonNode.remove("content");
-                // convert back to json string
-                String jsonString = objectMapper.writeValueAsString(jsonNode);
-                return new ResponseEntity<>(jsonString, HttpStatus.OK);
-            } catch (Exception e) {
-                // handle json conversion errors
-                return new ResponseEntity<>("Error converting metadata to JSON", HttpStatus.INTERNAL_SERVER_ERROR);
+                restTemplate.postForEntity(articleServiceUrl + "/api/article-queue/" + contentDTO.getArticleId() + "/release?worker=" + CREATE_LEASE_OWNER, null, String.class);
+            } catch (RestClientException releaseError) {
+                // the creation lease runs out on its own, the queue picks the article up then
             }
-        } else if (response.getStatusCode() == HttpStatus.NOT_FOUND) {
+        }
+        String body = "{\"articleId\":" + contentDTO.getArticleId() + ",\"status\":\"pending\"}";
+        return ResponseEntity.status(HttpStatus.ACCEPTED).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    public ResponseEntity<String> getArticleStatus(Long id) {
+        String url = articleServiceUrl + "/api/articles/" + id + "/status";
+        try {
+            ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+            return ResponseEntity.status(response.getStatusCode()).contentType(MediaType.APPLICATION_JSON).body(response.getBody());
+        } catch (HttpClientErrorException.NotFound e) {
+            return new ResponseEntity<>("Article not found", HttpStatus.NOT_FOUND);
+        }
+    }
+
+    public ResponseEntity<String> getArticleMetadata(Long id) {
+        // the DAL answers with the metadata JSON only, it is passed on as it is instead of being
+        // mapped to a DTO and written out again
+        String url = articleServiceUrl + "/api/articles/" + id + "/metadata";
+        try {
+            ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(response.getBody());
+        } catch (HttpClientErrorException.NotFound e) {
             // Return 404
             return new ResponseEntity<>("Article not found", HttpStatus.NOT_FOUND);
-        } else {
+        } catch (HttpStatusCodeException e) {
             return new ResponseEntity<>("An error occurred", HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
-    public ResponseEntity<String> getArticleContent(Long id) {
-        String url = articleServiceUrl + "/api/articles/" + id + "/content";
-        ResponseEntity<byte[]> response = restTemplate.getForEntity(url, byte[].class);
+    // Metadata of several articles through the DAL's batch endpoint, one request and one query for the whole set.
+    // The ids always go in a POST body so large sets do not run into URL length limits between the services.
+    public ResponseEntity<String> getArticleMetadata(List<Long> ids) {
+        String url = articleServiceUrl + "/api/articles/metadata";
+        try {
+            ResponseEntity<String> response = restTemplate.postForEntity(url, ids, String.class);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(response.getBody());
+        } catch (HttpClientErrorException.BadRequest e) {
+            return new ResponseEntity<>("Invalid ids or too many ids", HttpStatus.BAD_REQUEST);
+        } catch (HttpStatusCodeException e) {
+            return new ResponseEntity<>("An error occurred", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
 
-        if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-            try {
-                // parse json response
-                ObjectMapper objectMapper = new ObjectMapper();
-                JsonNode jsonNode = objectMapper.readTree(response.getBody());
-                // extract the encoded content
-                String base64Content = jsonNode.path("content").asText();
-                // decode content to get the original string
-                byte[] decodedBytes = Base64.getDecoder().decode(base64Content);
-                String content = new String(decodedBytes, StandardCharsets.UTF_8);
-
-                // return the decoded content as response
-                return new ResponseEntity<>(content, HttpStatus.OK);
-            } catch (Exception e) {
-                // handle json parsing and Base64 decoding errors
-                return new ResponseEntity<>("Error processing content", HttpStatus.INTERNAL_SERVER_ERROR);
-            }
-        }  else if (response.getStatusCode() == HttpStatus.NOT_FOUND) {
+    public ResponseEntity<String> getArticleContent(Long id) {
+        // the raw endpoint sends the bytes themselves, no JSON wrapper or Base64 to undo
+        String url = articleServiceUrl + "/api/articles/" + id + "/content/raw";
+        try {
+            ResponseEntity<byte[]> response = restTemplate.getForEntity(url, byte[].class);
+            byte[] body = response.getBody() == null ? new byte[0] : response.getBody();
+            return new ResponseEntity<>(new String(body, StandardCharsets.UTF_8), HttpStatus.OK);
+        } catch (HttpClientErrorException.NotFound e) {
             // return 404
             return new ResponseEntity<>("Article content not found", HttpStatus.NOT_FOUND);
-        } else {
+        }
+    }
+
+    // Proxy the DAL content stream (or the requested Range of it) to the client as it arrives,
+    // the body is copied from the DAL connection to the response without being held in memory
+    public void streamArticleContent(Long id, String range, HttpServletResponse response) {
+        String url = articleServiceUrl + "/api/articles/" + id + "/content/raw";
+        try {
+            restTemplate.execute(url, HttpMethod.GET, request -> {
+                if (range != null) {
+                    request.getHeaders().set(HttpHeaders.RANGE, range);
+                }
+            }, dalResponse -> {
+                response.setStatus(dalResponse.getStatusCode().value());
+                copyHeaders(dalResponse.getHeaders(), response);
+                StreamUtils.copy(dalResponse.getBody(), response.getOutputStream());
+                return null;
+            });
+        } catch (HttpStatusCodeException e) {
+            // 404, or 416 with the Content-Range that tells the client the content length
+            response.setStatus(e.getStatusCode().value());
+            if (e.getResponseHeaders() != null) {
+                copyHeaders(e.getResponseHeaders(), response);
+            }
+        }
+    }
+
+    private static void copyHeaders(HttpHeaders from, HttpServletResponse to) {
+        for (String header : List.of(HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_LENGTH, HttpHeaders.CONTENT_RANGE, HttpHeaders.ACCEPT_RANGES)) {
+            String value = from.getFirst(header);
+            if (value != null) {
+                to.setHeader(header, value);
+            }
+        }
+    }
+
+    // encoding "json" decodes the offsets to a JSON array, "packed" passes the DAL's packed bytes through as Base64
+    public ResponseEntity<Map<String, Object>> getWordMappings(String word, String encoding) {
+        return getWordMappings(word, encoding, null, null, null);
+    }
+
+    // limit/cursor fetch one page of the word's articles from the DAL (in article id order), the response carries
+    // next_cursor while more pages follow; maxOffsets keeps at most that many offsets per article, 0 drops them.
+    // Without limit and cursor every article is returned at once.
+    public ResponseEntity<Map<String, Object>> getWordMappings(String word, String encoding, Integer limit, String cursor, Integer maxOffsets) {
+        //  url to call the dal service
+        String url = UriComponentsBuilder.fromHttpUrl(articleServiceUrl + "/api/word-mappings/find/" + word)
+                .queryParamIfPresent("limit", Optional.ofNullable(limit))
+                .queryParamIfPresent("cursor", Optional.ofNullable(cursor))
+                .queryParamIfPresent("maxOffsets", Optional.ofNullable(maxOffsets))
+                .encode().toUriString();
+        ResponseEntity<String> response;
+        try {
+            response = restTemplate.getForEntity(url, String.class);
+        } catch (HttpClientErrorException.NotFound e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        if (response.getStatusCode() == HttpStatus.NOT_FOUND) {
+            // if no word mappings are found, return a 404
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        try {
+            boolean packed = "packed".equalsIgnoreCase(encoding);
+            boolean withOffsets = maxOffsets == null || maxOffsets > 0;
+            List<WordsMapping> wordMappings = objectMapper.readValue(response.getBody(), new TypeReference<List<WordsMapping>>() {});
+            Map<String, Object> formattedResponse = new LinkedHashMap<>();
+            formattedResponse.put("word", word);
+            // prepare the locations
+            formattedResponse.put("locations", locations(wordMappings, packed, withOffsets));
+            String nextCursor = response.getHeaders().getFirst(NEXT_CURSOR_HEADER);
+            if (nextCursor != null) {
+                formattedResponse.put("next_cursor", nextCursor);
+            }
+
+            // return the formatted response
+            return new ResponseEntity<>(formattedResponse, HttpStatus.OK);
+
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // The words within maxEdits edits of word found by the DAL in its term dictionary, nearest first, each with its
+    // first limit articles formatted like getWordMappings' locations and the next_cursor to page on with /word/{term}.
+    // The DAL answers 503 while its word index is not built, which is passed on.
+    public ResponseEntity<Map<String, Object>> findFuzzy(String word, int maxEdits, String encoding, Integer maxTerms,
+                                                         Integer limit, Integer maxOffsets) {
+        String url = UriComponentsBuilder.fromHttpUrl(articleServiceUrl + "/api/word-mappings/fuzzy/" + word)
+                .queryParam("maxEdits", maxEdits)
+                .queryParamIfPresent("maxTerms", Optional.ofNullable(maxTerms))
+                .queryParamIfPresent("limit", Optional.ofNullable(limit))
+                .queryParamIfPresent("maxOffsets", Optional.ofNullable(maxOffsets))
+                .encode().toUriString();
+        ResponseEntity<String> response;
+        try {
+            response = restTemplate.getForEntity(url, String.class);
+        } catch (HttpClientErrorException.BadRequest e) {
+            return new ResponseEntity<>(Map.of("error", e.getResponseBodyAsString()), HttpStatus.BAD_REQUEST);
+        } catch (HttpServerErrorException.ServiceUnavailable e) {
+            return new ResponseEntity<>(Map.of("error", e.getResponseBodyAsString()), HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        try {
+            boolean packed = "packed".equalsIgnoreCase(encoding);
+            boolean withOffsets = maxOffsets == null || maxOffsets > 0;
+            List<FuzzyTerm> fuzzyTerms = objectMapper.readValue(response.getBody(), new TypeReference<List<FuzzyTerm>>() {});
+            Map<String, Object> formattedResponse = new LinkedHashMap<>();
+            formattedResponse.put("word", word);
+            formattedResponse.put("max_edits", maxEdits);
+            List<Map<String, Object>> terms = new ArrayList<>();
+            for (FuzzyTerm fuzzyTerm : fuzzyTerms) {
+                Map<String, Object> term = new LinkedHashMap<>();
+                term.put("term", fuzzyTerm.getTerm());
+                term.put("distance", fuzzyTerm.getDistance());
+                term.put("locations", locations(fuzzyTerm.getMappings(), packed, withOffsets));
+                if (fuzzyTerm.getNextCursor() != null) {
+                    term.put("next_cursor", fuzzyTerm.getNextCursor());
+                }
+                terms.add(term);
+            }
+            formattedResponse.put("terms", terms);
+            return new ResponseEntity<>(formattedResponse, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // The k articles most relevant to the words, ranked by the DAL with BM25 over its in-memory index, best first.
+    // Every hit lists the offsets of the words it holds like queryWords; 503 while the DAL's index is not built.
+    public ResponseEntity<Map<String, Object>> search(List<String> words, Integer k, String encoding, Integer maxOffsets) {
+        String url = UriComponentsBuilder.fromHttpUrl(articleServiceUrl + "/api/word-mappings/search")
+                .queryParam("q", String.join(",", words))
+                .queryParamIfPresent("k", Optional.ofNullable(k))
+                .queryParamIfPresent("maxOffsets", Optional.ofNullable(maxOffsets))
+                .encode().toUriString();
+        ResponseEntity<String> response;
+        try {
+            response = restTemplate.getForEntity(url, String.class);
+        } catch (HttpClientErrorException.BadRequest e) {
+            return new ResponseEntity<>(Map.of("error", e.getResponseBodyAsString()), HttpStatus.BAD_REQUEST);
+        } catch (HttpServerErrorException.ServiceUnavailable e) {
+            return new ResponseEntity<>(Map.of("error", e.getResponseBodyAsString()), HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        try {
+            boolean packed = "packed".equalsIgnoreCase(encoding);
+            boolean withOffsets = maxOffsets == null || maxOffsets > 0;
+            List<SearchHit> searchHits = objectMapper.readValue(response.getBody(), new TypeReference<List<SearchHit>>() {});
+            Map<String, Object> formattedResponse = new LinkedHashMap<>();
+            formattedResponse.put("q", words);
+            List<Map<String, Object>> hits = new ArrayList<>();
+            for (SearchHit searchHit : searchHits) {
+                Map<String, Object> hit = new LinkedHashMap<>();
+                hit.put("article_id", searchHit.getArticleId());
+                hit.put("score", searchHit.getScore());
+                if (withOffsets) {
+                    Map<String, Object> offsets = new LinkedHashMap<>();
+                    for (WordsMapping mapping : searchHit.getMappings()) {
+                        offsets.put(mapping.getWord(), packed ? Base64.getEncoder().encodeToString(packedOffsets(mapping)) : decodeOffsets(mapping));
+                    }
+                    hit.put(packed ? "packed_offsets" : "offsets", offsets);
+                }
+                hits.add(hit);
+            }
+            formattedResponse.put("hits", hits);
+            return new ResponseEntity<>(formattedResponse, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // The words a prefix or wildcard pattern expands to, listed by the DAL from its sorted term dictionary.
+    // The DAL's JSON (pattern, terms, truncated) is passed on as it is.
+    public ResponseEntity<String> expandPattern(String pattern, Integer limit) {
+        String url = UriComponentsBuilder.fromHttpUrl(articleServiceUrl + "/api/word-mappings/terms")
+                .queryParam("pattern", pattern)
+                .queryParamIfPresent("limit", Optional.ofNullable(limit))
+                .encode().toUriString();
+        try {
+            ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(response.getBody());
+        } catch (HttpClientErrorException.BadRequest e) {
+            return new ResponseEntity<>(e.getResponseBodyAsString(), HttpStatus.BAD_REQUEST);
+        } catch (HttpStatusCodeException e) {
             return new ResponseEntity<>("An error occurred", HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
-public ResponseEntity<Map<String, Object>> getWordMappings(String word) {
-    //  url to call the dal service
-    String url = articleServiceUrl + "/api/word-mappings/find/" + word;
-    ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+    // Articles holding every word of all, one of any and none of not, evaluated by the DAL on its posting lists
+    // so only the matches travel. Paged like getWordMappings, every article lists the offsets of its all and any words.
+    public ResponseEntity<Map<String, Object>> queryWords(List<String> all, List<String> any, List<String> not, String encoding,
+                                                          Integer limit, String cursor, Integer maxOffsets) {
+        String url = UriComponentsBuilder.fromHttpUrl(articleServiceUrl + "/api/word-mappings/query")
+                .queryParamIfPresent("all", Optional.ofNullable(all).map(words -> String.join(",", words)))
+                .queryParamIfPresent("any", Optional.ofNullable(any).map(words -> String.join(",", words)))
+                .queryParamIfPresent("not", Optional.ofNullable(not).map(words -> String.join(",", words)))
+                .queryParamIfPresent("limit", Optional.ofNullable(limit))
+                .queryParamIfPresent("cursor", Optional.ofNullable(cursor))
+                .queryParamIfPresent("maxOffsets", Optional.ofNullable(maxOffsets))
+                .encode().toUriString();
+        ResponseEntity<String> response;
+        try {
+            response = restTemplate.getForEntity(url, String.class);
+        } catch (HttpClientErrorException.BadRequest e) {
+            return new ResponseEntity<>(Map.of("error", e.getResponseBodyAsString()), HttpStatus.BAD_REQUEST);
+        } catch (HttpStatusCodeException e) {
+            return dalError(e);
+        }
+        try {
+            boolean packed = "packed".equalsIgnoreCase(encoding);
+            boolean withOffsets = maxOffsets == null || maxOffsets > 0;
+            WordQueryResult result = objectMapper.readValue(response.getBody(), WordQueryResult.class);
+            Map<String, Object> formattedResponse = new LinkedHashMap<>();
+            formattedResponse.put("all", all == null ? List.of() : all);
+            formattedResponse.put("any", any == null ? List.of() : any);
+            formattedResponse.put("not", not == null ? List.of() : not);
+            List<Map<String, Object>> articles = new ArrayList<>();
+            for (WordQueryResult.Match match : result.getMatches()) {
+                Map<String, Object> article = new LinkedHashMap<>();
+                article.put("article_id", match.getArticleId());
+                // maxOffsets=0: the caller only asked which articles match
+                if (withOffsets) {
+                    Map<String, Object> words = new LinkedHashMap<>();
+                    for (WordsMapping mapping : match.getMappings()) {
+                        words.put(mapping.getWord(), packed ? Base64.getEncoder().encodeToString(packedOffsets(mapping)) : decodeOffsets(mapping));
+                    }
+                    article.put(packed ? "packed_offsets" : "offsets", words);
+                }
+                articles.add(article);
+            }
+            formattedResponse.put("articles", articles);
+            if (result.getNextCursor() != null) {
+                formattedResponse.put("next_cursor", result.getNextCursor());
+            }
+            return new ResponseEntity<>(formattedResponse, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Articles holding the words as a phrase, found by the DAL on the stored offsets without reading any content.
+    // Paged like getWordMappings, every article lists its number of matches and the char spans of the first ones.
+    public ResponseEntity<Map<String, Object>> findPhrase(List<String> words, Integer limit, String cursor) {
+        String url = UriComponentsBuilder.fromHttpUrl(articleServiceUrl + "/api/word-mappings/phrase")
+                .queryParam("q", String.join(",", words))
+                .queryParamIfPresent("limit", Optional.ofNullable(limit))
+                .queryParamIfPresent("cursor", Optional.ofNullable(cursor))
+                .encode().toUriString();
+        return positional(url, "phrase", String.join(" ", words));
+    }
 
-    if (response.getStatusCode() == HttpStatus.NOT_FOUND) {
-        // if no word mappings are found, return a 404
-        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    // Articles holding the words in any order with at most within words between them, like findPhrase
+    public ResponseEntity<Map<String, Object>> findNear(List<String> words, Integer within, Integer limit, String cursor) {
+        String url = UriComponentsBuilder.fromHttpUrl(articleServiceUrl + "/api/word-mappings/near")
+                .queryParam("q", String.join(",", words))
+                .queryParamIfPresent("within", Optional.ofNullable(within))
+                .queryParamIfPresent("limit", Optional.ofNullable(limit))
+                .queryParamIfPresent("cursor", Optional.ofNullable(cursor))
+                .encode().toUriString();
+        return positional(url, "q", words);
     }
-    try {
-        ObjectMapper objectMapper = new ObjectMapper();
-        List<WordsMapping> wordMappings = objectMapper.readValue(response.getBody(), new TypeReference<List<WordsMapping>>() {});
-        Map<String, Object> formattedResponse = new LinkedHashMap<>();
-        formattedResponse.put("word", word);
-        // prepare the locations
+
+    private ResponseEntity<Map<String, Object>> positional(String url, String queryKey, Object query) {
+        ResponseEntity<String> response;
+        try {
+            response = restTemplate.getForEntity(url, String.class);
+        } catch (HttpClientErrorException.BadRequest e) {
+            return new ResponseEntity<>(Map.of("error", e.getResponseBodyAsString()), HttpStatus.BAD_REQUEST);
+        } catch (HttpStatusCodeException e) {
+            return dalError(e);
+        }
+        try {
+            PositionalResult result = objectMapper.readValue(response.getBody(), PositionalResult.class);
+            Map<String, Object> formattedResponse = new LinkedHashMap<>();
+            formattedResponse.put(queryKey, query);
+            List<Map<String, Object>> articles = new ArrayList<>();
+            for (PositionalResult.Match match : result.getMatches()) {
+                Map<String, Object> article = new LinkedHashMap<>();
+                article.put("article_id", match.getArticleId());
+                article.put("count", match.getCount());
+                article.put("spans", match.getSpans());
+                articles.add(article);
+            }
+            formattedResponse.put("articles", articles);
+            if (result.getNextCursor() != null) {
+                formattedResponse.put("next_cursor", result.getNextCursor());
+            }
+            return new ResponseEntity<>(formattedResponse, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // The text around the first maxSnippets occurrences of a word in each article holding it, paged like getWordMappings,
+    // or in articleId only. The DAL reads just the content blocks the snippets are in.
+    public ResponseEntity<Map<String, Object>> findSnippets(String word, Long articleId, Integer context, Integer maxSnippets,
+                                                            Integer limit, String cursor) {
+        String url = UriComponentsBuilder.fromHttpUrl(articleServiceUrl + "/api/word-mappings/snippets/" + word)
+                .queryParamIfPresent("articleId", Optional.ofNullable(articleId))
+                .queryParamIfPresent("context", Optional.ofNullable(context))
+                .queryParamIfPresent("maxSnippets", Optional.ofNullable(maxSnippets))
+                .queryParamIfPresent("limit", Optional.ofNullable(limit))
+                .queryParamIfPresent("cursor", Optional.ofNullable(cursor))
+                .encode().toUriString();
+        ResponseEntity<String> response;
+        try {
+            response = restTemplate.getForEntity(url, String.class);
+        } catch (HttpClientErrorException.BadRequest e) {
+            return new ResponseEntity<>(Map.of("error", e.getResponseBodyAsString()), HttpStatus.BAD_REQUEST);
+        } catch (HttpStatusCodeException e) {
+            return dalError(e);
+        }
+        try {
+            WordSnippets result = objectMapper.readValue(response.getBody(), WordSnippets.class);
+            Map<String, Object> formattedResponse = new LinkedHashMap<>();
+            formattedResponse.put("word", word);
+            List<Map<String, Object>> articles = new ArrayList<>();
+            for (WordSnippets.Article match : result.getArticles()) {
+                Map<String, Object> article = new LinkedHashMap<>();
+                article.put("article_id", match.getArticleId());
+                article.put("count", match.getCount());
+                List<Map<String, Object>> snippets = new ArrayList<>();
+                for (WordSnippets.Snippet snippet : match.getSnippets()) {
+                    Map<String, Object> formattedSnippet = new LinkedHashMap<>();
+                    formattedSnippet.put("offset", snippet.getOffset());
+                    formattedSnippet.put("start", snippet.getStart());
+                    formattedSnippet.put("text", snippet.getText());
+                    snippets.add(formattedSnippet);
+                }
+                article.put("snippets", snippets);
+                articles.add(article);
+            }
+            formattedResponse.put("articles", articles);
+            if (result.getNextCursor() != null) {
+                formattedResponse.put("next_cursor", result.getNextCursor());
+            }
+            return new ResponseEntity<>(formattedResponse, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Any other DAL status of the word lookups: 404 and 503 (word index not built) are passed on, everything else
+    // becomes 500. The DAL's message stays internal.
+    private ResponseEntity<Map<String, Object>> dalError(HttpStatusCodeException e) {
+        if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
+            return new ResponseEntity<>(Map.of("error", "Not found"), HttpStatus.NOT_FOUND);
+        }
+        if (e.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE) {
+            return new ResponseEntity<>(Map.of("error", "Service unavailable"), HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        return new ResponseEntity<>(Map.of("error", "An error occurred"), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    // article_id with the offsets of each mapping, maxOffsets=0 (withOffsets false): the caller only asked which articles hold the word
+    private List<Map<String, Object>> locations(List<WordsMapping> wordMappings, boolean packed, boolean withOffsets) throws IOException {
         List<Map<String, Object>> locations = new ArrayList<>();
         for (WordsMapping mapping : wordMappings) {
             Map<String, Object> location = new HashMap<>();
             location.put("article_id", mapping.getArticleId());
-            location.put("offsets", mapping.getOffsets()); // Just return the offsets as a string
+            if (withOffsets && packed) {
+                location.put("packed_offsets", Base64.getEncoder().encodeToString(packedOffsets(mapping)));
+            } else if (withOffsets) {
+                location.put("offsets", decodeOffsets(mapping));
+            }
             locations.add(location);
         }
-
-        formattedResponse.put("locations", locations);
-
-        // return the formatted response
-        return new ResponseEntity<>(formattedResponse, HttpStatus.OK);
-
-    } catch (Exception e) {
-        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        return locations;
     }
-}
 
+    // offsets as an int array, rows not yet migrated by the DAL still carry the json string
+    private int[] decodeOffsets(WordsMapping mapping) throws IOException {
+        if (mapping.getPackedOffsets() != null) {
+            return OffsetCodec.decode(mapping.getPackedOffsets());
+        }
+        return mapping.getOffsets() == null ? new int[0] : objectMapper.readValue(mapping.getOffsets(), int[].class);
+    }
 
+    private byte[] packedOffsets(WordsMapping mapping) throws IOException {
+        if (mapping.getPackedOffsets() != null) {
+            return mapping.getPackedOffsets();
+        }
+        int[] offsets = decodeOffsets(mapping);
+        return OffsetCodec.encode(offsets, offsets.length);
+    }
 
     public ResponseEntity<String> deleteArticle(Long id) {
-        String url = articleServiceUrl + "/api/articles/" + id;
-        restTemplate.delete(url);
-        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        return deleteArticle(id, false);
+    }
+
+    // async=true asks the DAL for a tombstone: the article disappears right away and its rows are purged in the
+    // background, the DAL answers 202 instead of 204
+    public ResponseEntity<String> deleteArticle(Long id, boolean async) {
+        String url = UriComponentsBuilder.fromHttpUrl(articleServiceUrl + "/api/articles/" + id)
+                .queryParam("async", async)
+                .toUriString();
+        ResponseEntity<Void> response = restTemplate.exchange(url, HttpMethod.DELETE, null, Void.class);
+        return new ResponseEntity<>(response.getStatusCode());
     }
 
     // validate the articleCreationDTO input
@@ -185,6 +590,24 @@ public ResponseEntity<Map<String, Object>> getWordMappings(String word) {
         }
     }
 
+    // Like sanitizeWord, keeping the * and ? wildcards of a pattern such as index*
+    public String sanitizePattern(String pattern) {
+        String sanitized = pattern.replaceAll("[^a-zA-Z*?]", " ").trim().split("\\s+")[0].toLowerCase();
+        if (sanitized.isEmpty() || sanitized.charAt(0) == '*' || sanitized.charAt(0) == '?') {
+            throw new IllegalArgumentException("Invalid pattern input, it must start with a letter.");
+        }
+        return sanitized;
+    }
+
+    // Every word of a phrase in order, whatever separates them
+    public List<String> sanitizePhrase(List<String> phrase) {
+        String sanitized = String.join(" ", phrase).replaceAll("[^a-zA-Z]", " ").trim().toLowerCase();
+        if (sanitized.isEmpty()) {
+            throw new IllegalArgumentException("Invalid phrase input.");
+        }
+        return List.of(sanitized.split("\\s+"));
+    }
+
     public String sanitizeWord(String word) {
         String sanitized = word.replaceAll("[^a-zA-Z]", " ").split("\\s+")[0].toLowerCase();
         if (sanitized.isEmpty()) {
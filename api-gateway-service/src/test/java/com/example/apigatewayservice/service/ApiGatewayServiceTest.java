@@ -0,0 +1,226 @@
+package com.example.apigatewayservice.service;
+
+import com.example.apigatewayservice.codec.OffsetCodec;
+import com.example.apigatewayservice.dto.ArticleDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withException;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class ApiGatewayServiceTest {
+
+    private static final String DAL = "http://dal";
+    private static final String PARSER = "http://parser";
+
+    private RestTemplate restTemplate;
+    private MockRestServiceServer server;
+    private ApiGatewayService apiGatewayService;
+
+    @BeforeEach
+    void setUp() {
+        restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        apiGatewayService = new ApiGatewayService(restTemplate);
+        ReflectionTestUtils.setField(apiGatewayService, "articleServiceUrl", DAL);
+        ReflectionTestUtils.setField(apiGatewayService, "parserServiceUrl", PARSER);
+    }
+
+    @Test
+    void testWordMappingsDecodePackedAndLegacyOffsets() {
+        // article 1 is packed, article 2 is a legacy row the DAL has not migrated yet
+        String packed = Base64.getEncoder().encodeToString(OffsetCodec.encode(new int[]{3, 10, 200}, 3));
+        String body = "[{\"word\":\"alpha\",\"articleId\":1,\"packedOffsets\":\"" + packed + "\"},"
+                + "{\"word\":\"alpha\",\"articleId\":2,\"offsets\":\"[5,7]\"}]";
+        server.expect(requestTo(DAL + "/api/word-mappings/find/alpha"))
+                .andRespond(withSuccess(body, MediaType.APPLICATION_JSON));
+
+        ResponseEntity<Map<String, Object>> response = apiGatewayService.getWordMappings("alpha", "json");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<Map<String, Object>> locations = locations(response);
+        assertEquals(2, locations.size());
+        assertEquals(1L, locations.get(0).get("article_id"));
+        assertArrayEquals(new int[]{3, 10, 200}, (int[]) locations.get(0).get("offsets"));
+        assertEquals(2L, locations.get(1).get("article_id"));
+        assertArrayEquals(new int[]{5, 7}, (int[]) locations.get(1).get("offsets"));
+        assertFalse(response.getBody().containsKey("next_cursor"));
+        server.verify();
+    }
+
+    @Test
+    void testWordMappingsPackedEncodingPacksLegacyOffsets() {
+        String packed = Base64.getEncoder().encodeToString(OffsetCodec.encode(new int[]{3, 10}, 2));
+        String body = "[{\"word\":\"alpha\",\"articleId\":1,\"packedOffsets\":\"" + packed + "\"},"
+                + "{\"word\":\"alpha\",\"articleId\":2,\"offsets\":\"[5,7]\"}]";
+        server.expect(requestTo(DAL + "/api/word-mappings/find/alpha"))
+                .andRespond(withSuccess(body, MediaType.APPLICATION_JSON));
+
+        ResponseEntity<Map<String, Object>> response = apiGatewayService.getWordMappings("alpha", "packed");
+
+        List<Map<String, Object>> locations = locations(response);
+        // the DAL's bytes are passed through, the legacy row is packed by the gateway
+        assertEquals(packed, locations.get(0).get("packed_offsets"));
+        byte[] legacy = Base64.getDecoder().decode((String) locations.get(1).get("packed_offsets"));
+        assertArrayEquals(new int[]{5, 7}, OffsetCodec.decode(legacy));
+        assertFalse(locations.get(1).containsKey("offsets"));
+        server.verify();
+    }
+
+    @Test
+    void testWordMappingsPagePassesNextCursorOn() {
+        String body = "[{\"word\":\"alpha\",\"articleId\":4,\"offsets\":\"[1]\"}]";
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Next-Cursor", "4");
+        server.expect(requestTo(DAL + "/api/word-mappings/find/alpha?limit=1&cursor=2&maxOffsets=0"))
+                .andRespond(withSuccess(body, MediaType.APPLICATION_JSON).headers(headers));
+        server.expect(requestTo(DAL + "/api/word-mappings/find/alpha?limit=1&cursor=4&maxOffsets=0"))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+
+        ResponseEntity<Map<String, Object>> firstPage = apiGatewayService.getWordMappings("alpha", "json", 1, "2", 0);
+        assertEquals("4", firstPage.getBody().get("next_cursor"));
+        // maxOffsets=0 lists the articles only
+        assertEquals(Map.of("article_id", 4L), locations(firstPage).get(0));
+
+        ResponseEntity<Map<String, Object>> lastPage = apiGatewayService.getWordMappings("alpha", "json", 1, "4", 0);
+        assertTrue(locations(lastPage).isEmpty());
+        assertFalse(lastPage.getBody().containsKey("next_cursor"));
+        server.verify();
+    }
+
+    @Test
+    void testStreamContentCopiesRangeHeaders() throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_RANGE, "bytes 2-5/12");
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.setContentLength(4);
+        server.expect(requestTo(DAL + "/api/articles/7/content/raw"))
+                .andExpect(method(HttpMethod.GET))
+                .andExpect(header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andRespond(withStatus(HttpStatus.PARTIAL_CONTENT).headers(headers)
+                        .contentType(MediaType.TEXT_PLAIN).body("llo "));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        apiGatewayService.streamArticleContent(7L, "bytes=2-5", response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 2-5/12", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertEquals("4", response.getHeader(HttpHeaders.CONTENT_LENGTH));
+        assertEquals("llo ", response.getContentAsString());
+        server.verify();
+    }
+
+    @Test
+    void testStreamContentPassesUnsatisfiableRangeOn() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_RANGE, "bytes */12");
+        server.expect(requestTo(DAL + "/api/articles/7/content/raw"))
+                .andExpect(header(HttpHeaders.RANGE, "bytes=20-"))
+                .andRespond(withStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        apiGatewayService.streamArticleContent(7L, "bytes=20-", response);
+
+        // the client learns the content length from Content-Range
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */12", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(0, response.getContentAsByteArray().length);
+        server.verify();
+    }
+
+    @Test
+    void testStreamContentNotFound() {
+        server.expect(requestTo(DAL + "/api/articles/8/content/raw"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        apiGatewayService.streamArticleContent(8L, null, response);
+
+        assertEquals(404, response.getStatus());
+        assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE));
+        server.verify();
+    }
+
+    @Test
+    void testAsyncAddArticleAcceptedWhenParserUnreachable() {
+        server.expect(requestTo(DAL + "/api/articles/create"))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(withStatus(HttpStatus.CREATED).contentType(MediaType.APPLICATION_JSON).body("{\"id\":5}"));
+        server.expect(requestTo(PARSER + "/api/parser/jobs"))
+                .andRespond(withException(new SocketTimeoutException("Read timed out")));
+        // the article goes to the DAL work queue right away instead of waiting for its creation lease
+        server.expect(requestTo(DAL + "/api/article-queue/5/release?worker=create"))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(withSuccess());
+
+        ResponseEntity<String> response = apiGatewayService.addArticle(article(), true);
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals("{\"articleId\":5,\"status\":\"pending\"}", response.getBody());
+        server.verify();
+    }
+
+    @Test
+    void testAsyncAddArticleAcceptedWhenReleaseFails() {
+        server.expect(requestTo(DAL + "/api/articles/create"))
+                .andRespond(withStatus(HttpStatus.CREATED).contentType(MediaType.APPLICATION_JSON).body("{\"id\":6}"));
+        server.expect(requestTo(PARSER + "/api/parser/jobs"))
+                .andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+        server.expect(requestTo(DAL + "/api/article-queue/6/release?worker=create"))
+                .andRespond(withStatus(HttpStatus.INTERNAL_SERVER_ERROR));
+
+        ResponseEntity<String> response = apiGatewayService.addArticle(article(), true);
+
+        // the creation lease runs out on its own, the article is stored either way
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        server.verify();
+    }
+
+    @Test
+    void testQueryWordsHidesDalErrors() {
+        server.expect(requestTo(DAL + "/api/word-mappings/query?all=alpha"))
+                .andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE).body("word index is not built"));
+        server.expect(requestTo(DAL + "/api/word-mappings/query?all=beta"))
+                .andRespond(withStatus(HttpStatus.INTERNAL_SERVER_ERROR).body("java.sql.SQLException: ..."));
+
+        ResponseEntity<Map<String, Object>> unavailable = apiGatewayService.queryWords(List.of("alpha"), null, null, "json", null, null, null);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, unavailable.getStatusCode());
+        assertFalse(unavailable.getBody().get("error").toString().contains("word index"));
+
+        ResponseEntity<Map<String, Object>> failed = apiGatewayService.queryWords(List.of("beta"), null, null, "json", null, null, null);
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, failed.getStatusCode());
+        assertFalse(failed.getBody().get("error").toString().contains("SQLException"));
+        server.verify();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> locations(ResponseEntity<Map<String, Object>> response) {
+        return (List<Map<String, Object>>) response.getBody().get("locations");
+    }
+
+    private static ArticleDTO article() {
+        byte[] content = "hello world".getBytes(StandardCharsets.UTF_8);
+        return new ArticleDTO("article", "author", content.length, null, content);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.apigatewayservice.service;
+
+import com.example.apigatewayservice.codec.OffsetCodec;
+import com.example.benchmarks.StubRestTemplate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// Gateway-side response work with the DAL stubbed out: reshaping the DAL word mappings in getWordMappings
+// (json decodes every offset list, packed passes the bytes through as Base64) and turning the raw
+// article body into the response String in getArticleContent.
+// Run with: java -jar benchmarks/target/benchmarks.jar GatewayTransformBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GatewayTransformBenchmark {
+
+    // articles the looked up word appears in, each with offsetsPerArticle offsets
+    @Param({"10", "1000"})
+    private int articles;
+
+    @Param({"100"})
+    private int offsetsPerArticle;
+
+    // article body size in bytes for getArticleContent
+    @Param({"100000", "5000000"})
+    private int contentSize;
+
+    private ApiGatewayService gatewayService;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Random random = new Random(7);
+
+        // DAL /find response: packed offsets are serialized by Jackson as Base64
+        List<Map<String, Object>> mappings = new ArrayList<>();
+        for (int article = 0; article < articles; article++) {
+            int[] offsets = new int[offsetsPerArticle];
+            int offset = 0;
+            for (int i = 0; i < offsets.length; i++) {
+                offset += 1 + random.nextInt(500);
+                offsets[i] = offset;
+            }
+            Map<String, Object> mapping = new LinkedHashMap<>();
+            mapping.put("word", "benchmark");
+            mapping.put("articleId", (long) article);
+            mapping.put("packedOffsets", OffsetCodec.encode(offsets, offsets.length));
+            mappings.add(mapping);
+        }
+        String wordMappingsBody = objectMapper.writeValueAsString(mappings);
+
+        // DAL /content/raw response: the article bytes themselves
+        StringBuilder text = new StringBuilder(contentSize);
+        while (text.length() < contentSize) {
+            text.append("lorem ipsum dolor sit amet ");
+        }
+        text.setLength(contentSize);
+        byte[] contentBody = text.toString().getBytes(StandardCharsets.UTF_8);
+
+        gatewayService = new ApiGatewayService(new StubRestTemplate(url -> {
+            if (url.contains("/api/word-mappings/find/")) {
+                return wordMappingsBody;
+            }
+            if (url.endsWith("/content/raw")) {
+                return contentBody;
+            }
+            return null;
+        }));
+    }
+
+    @Benchmark
+    public void wordMappingsJson(Blackhole blackhole) {
+        blackhole.consume(gatewayService.getWordMappings("benchmark", "json"));
+    }
+
+    @Benchmark
+    public void wordMappingsPacked(Blackhole blackhole) {
+        blackhole.consume(gatewayService.getWordMappings("benchmark", "packed"));
+    }
+
+    @Benchmark
+    public void articleContent(Blackhole blackhole) {
+        blackhole.consume(gatewayService.getArticleContent(1L));
+    }
+}
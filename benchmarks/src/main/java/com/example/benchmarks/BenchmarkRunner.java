@@ -0,0 +1,31 @@
+package com.example.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+// Entry point of target/benchmarks.jar. Takes the usual JMH command line (benchmark regexps, -p, -f, -wi, ...)
+// and, unless -rf/-rff say otherwise, writes the results as JSON to
+// jmh-results/<benchmarks.label>.json so runs of different commits can be diffed.
+// Example: java -Dbenchmarks.label=$(git rev-parse --short HEAD) -jar benchmarks/target/benchmarks.jar GatewayTransform
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            String label = System.getProperty("benchmarks.label", "latest");
+            File directory = new File("jmh-results");
+            directory.mkdirs();
+            options.result(new File(directory, label + ".json").getPath());
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.benchmarks;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.function.Function;
+
+// RestTemplate that never touches the network: GETs answer with a prepared body, POSTs are acknowledged
+// right away. Benchmarks measure the services' own work, not a loopback HTTP round trip.
+public class StubRestTemplate extends RestTemplate {
+
+    private final Function<String, Object> getResponses;
+
+    public StubRestTemplate() {
+        this(url -> null);
+    }
+
+    // getResponses maps a request url to the body returned for it
+    public StubRestTemplate(Function<String, Object> getResponses) {
+        this.getResponses = getResponses;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> getForEntity(String url, Class<T> responseType, Object... uriVariables) {
+        Object body = getResponses.apply(url);
+        return body == null ? new ResponseEntity<>(HttpStatus.NOT_FOUND) : new ResponseEntity<>((T) body, HttpStatus.OK);
+    }
+
+    @Override
+    public <T> ResponseEntity<T> postForEntity(String url, Object request, Class<T> responseType, Object... uriVariables) {
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+}
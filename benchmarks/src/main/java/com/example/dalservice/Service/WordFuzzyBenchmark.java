@@ -0,0 +1,119 @@
+package com.example.dalservice.Service;
+
+import com.example.dalservice.codec.OffsetCodec;
+import com.example.dalservice.entity.WordsMapping;
+import com.example.dalservice.repository.JDBC.WordsMappingJdbcRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+// Time to find the candidate words of a fuzzy lookup (WordIndexService.fuzzy: a Levenshtein automaton run
+// along the sorted term dictionary), as the vocabulary grows. The vocabulary is made of syllables so that,
+// like natural language, many words share prefixes and have neighbours within one or two edits; each lookup
+// is a vocabulary word with one random typo. Only the dictionary walk is measured, not reading the postings.
+// Targets on one core: below 2 ms with maxEdits=1 and below 5 ms with maxEdits=2 up to 3 million words.
+// Run with: java -jar benchmarks/target/benchmarks.jar WordFuzzyBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class WordFuzzyBenchmark {
+    private static final String[] SYLLABLES = {
+            "a", "an", "ar", "as", "at", "ba", "be", "bi", "bo", "ca", "ce", "ch", "co", "da", "de", "di", "do",
+            "e", "el", "en", "er", "es", "ex", "fa", "fe", "fi", "fo", "ga", "ge", "go", "ha", "he", "hi", "ho",
+            "i", "in", "is", "it", "ka", "la", "le", "li", "lo", "ma", "me", "mi", "mo", "na", "ne", "ni", "no",
+            "o", "on", "or", "ou", "pa", "pe", "pi", "po", "qu", "ra", "re", "ri", "ro", "sa", "se", "si", "so",
+            "st", "ta", "te", "th", "ti", "to", "tr", "u", "un", "ur", "va", "ve", "vi", "wa", "we", "ya", "za"};
+
+    // distinct words in the term dictionary
+    @Param({"100000", "1000000", "3000000"})
+    private int vocabulary;
+
+    @Param({"1", "2"})
+    private int maxEdits;
+
+    // dal.word-fuzzy.max-terms
+    @Param("20")
+    private int maxTerms;
+
+    private WordIndexService wordIndexService;
+    private LevenshteinAutomaton[] lookups;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        // an empty words_mapping table, the vocabulary is indexed as if it had just been written
+        WordsMappingJdbcRepository emptyTable = new WordsMappingJdbcRepository(new JdbcTemplate()) {
+            @Override
+            public List<WordsMapping> findPageAfter(String word, long articleId, int limit) {
+                return List.of();
+            }
+
+            @Override
+            public List<long[]> findIndexedArticleSizesAfter(long articleId, int limit) {
+                return List.of();
+            }
+        };
+        wordIndexService = new WordIndexService(emptyTable, new SimpleMeterRegistry(), true, Long.MAX_VALUE, 10000);
+        wordIndexService.build();
+
+        Random random = new Random(7);
+        TreeSet<String> words = new TreeSet<>();
+        while (words.size() < vocabulary) {
+            StringBuilder word = new StringBuilder();
+            for (int i = 1 + random.nextInt(4); i > 0; i--) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            words.add(word.toString());
+        }
+        List<String> wordList = new ArrayList<>(words);
+        byte[] offsets = OffsetCodec.encode(List.of(0));
+        List<WordsMapping> batch = new ArrayList<>();
+        for (String word : wordList) {
+            WordsMapping mapping = new WordsMapping(word, (long) random.nextInt(1000));
+            mapping.setPackedOffsets(offsets);
+            batch.add(mapping);
+            if (batch.size() == 10000) {
+                wordIndexService.indexAfterCommit(batch);
+                batch.clear();
+            }
+        }
+        wordIndexService.indexAfterCommit(batch);
+
+        lookups = new LevenshteinAutomaton[1024];
+        for (int i = 0; i < lookups.length; i++) {
+            lookups[i] = new LevenshteinAutomaton(typo(wordList.get(random.nextInt(wordList.size())), random), maxEdits);
+        }
+        // the first lookup takes the front coded copy of the dictionary
+        wordIndexService.fuzzy(lookups[0], maxTerms);
+        System.out.printf("%n%d words in the dictionary%n", wordIndexService.dictionarySize());
+    }
+
+    // The word with one letter inserted, deleted or replaced
+    private static String typo(String word, Random random) {
+        int at = random.nextInt(word.length());
+        char letter = (char) ('a' + random.nextInt(26));
+        switch (random.nextInt(3)) {
+            case 0:
+                return word.substring(0, at) + letter + word.substring(at);
+            case 1:
+                return word.length() == 1 ? word : word.substring(0, at) + word.substring(at + 1);
+            default:
+                return word.substring(0, at) + letter + word.substring(at + 1);
+        }
+    }
+
+    @Benchmark
+    public Object fuzzy() {
+        LevenshteinAutomaton automaton = lookups[next++ & (lookups.length - 1)];
+        return wordIndexService.fuzzy(automaton, maxTerms);
+    }
+}
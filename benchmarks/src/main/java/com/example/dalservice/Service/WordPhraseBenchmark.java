@@ -0,0 +1,128 @@
+package com.example.dalservice.Service;
+
+import com.example.dalservice.codec.OffsetCodec;
+import com.example.dalservice.entity.WordsMapping;
+import com.example.dalservice.repository.JDBC.WordsMappingJdbcRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Time to answer one page of a phrase or proximity query (WordQueryService.phrase / near) from the word index:
+// the article ids of the words are intersected, then the offsets of every candidate article are decoded and merged
+// by PositionalMatcher. The corpus follows Zipf's law over a 10,000-word vocabulary whose most frequent words are
+// "the", "of", "and", ..., so "of the" is in nearly every article and every word of "one of the" has dozens to
+// hundreds of offsets per article. "new york" is planted once every 2000 words or so: a mid-frequency word
+// followed by a rare one whose few offsets the others gallop over.
+// Run with: java -jar benchmarks/target/benchmarks.jar WordPhraseBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class WordPhraseBenchmark {
+    private static final String[] COMMON = {"the", "of", "and", "to", "a", "in", "is", "it", "that", "for", "was", "on",
+            "are", "as", "with", "he", "they", "at", "be", "this", "from", "one", "have", "or", "by"};
+
+    // comma separated, the words of the phrase
+    @Param({"of,the", "one,of,the", "new,york"})
+    private String phrase;
+
+    // words per article
+    @Param({"1000", "10000"})
+    private int articleWords;
+
+    // articles per page, dal.words-mapping.max-page-size caps it at 1000
+    @Param("100")
+    private int limit;
+
+    private WordQueryService wordQueryService;
+    private List<String> words;
+
+    @Setup
+    public void setUp() {
+        WordsMappingJdbcRepository emptyTable = new WordsMappingJdbcRepository(new JdbcTemplate()) {
+            @Override
+            public List<WordsMapping> findPageAfter(String word, long articleId, int limit) {
+                return List.of();
+            }
+
+            @Override
+            public List<long[]> findIndexedArticleSizesAfter(long articleId, int limit) {
+                return List.of();
+            }
+        };
+        WordIndexService wordIndexService = new WordIndexService(emptyTable, new SimpleMeterRegistry(), true, Long.MAX_VALUE, 10000);
+        wordIndexService.build();
+        wordQueryService = new WordQueryService(wordIndexService, null, null);
+
+        String[] vocabulary = new String[10000];
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = i < COMMON.length ? COMMON[i] : i == 400 ? "new" : i == 2000 ? "york" : name(i);
+        }
+        // cumulative Zipf weights, 1 / rank
+        double[] cumulative = new double[vocabulary.length];
+        double sum = 0;
+        for (int i = 0; i < cumulative.length; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        Random random = new Random(7);
+        // enough articles for the rarest phrase to fill a few pages
+        int articles = 20_000_000 / articleWords;
+        for (long articleId = 1; articleId <= articles; articleId++) {
+            Map<String, List<Integer>> offsets = new HashMap<>();
+            int offset = 0;
+            for (int i = 0; i < articleWords; i++) {
+                int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+                String word = vocabulary[rank < 0 ? -rank - 1 : rank];
+                if (random.nextInt(2000) == 0) {
+                    offsets.computeIfAbsent("new", w -> new ArrayList<>()).add(offset);
+                    offset += "new ".length();
+                    word = "york";
+                }
+                offsets.computeIfAbsent(word, w -> new ArrayList<>()).add(offset);
+                // a space, now and then a comma and a space
+                offset += word.length() + (random.nextInt(10) == 0 ? 2 : 1);
+            }
+            List<WordsMapping> mappings = new ArrayList<>(offsets.size());
+            for (Map.Entry<String, List<Integer>> entry : offsets.entrySet()) {
+                WordsMapping mapping = new WordsMapping(entry.getKey(), articleId);
+                mapping.setPackedOffsets(OffsetCodec.encode(entry.getValue()));
+                mappings.add(mapping);
+            }
+            wordIndexService.indexAfterCommit(mappings);
+        }
+        words = List.of(phrase.split(","));
+        System.out.printf("%n%d articles, first page of the phrase: %d articles%n", articles,
+                wordQueryService.phrase(words, null, limit).getMatches().size());
+    }
+
+    // A letters only word for a rank, "wa", "wb", ...
+    private static String name(int rank) {
+        StringBuilder name = new StringBuilder("w");
+        for (int i = rank; i > 0; i /= 26) {
+            name.append((char) ('a' + i % 26));
+        }
+        return name.toString();
+    }
+
+    @Benchmark
+    public Object phrase() {
+        return wordQueryService.phrase(words, null, limit);
+    }
+
+    // the same words in any order within 5 words
+    @Benchmark
+    public Object near() {
+        return wordQueryService.near(words, 5, null, limit);
+    }
+}
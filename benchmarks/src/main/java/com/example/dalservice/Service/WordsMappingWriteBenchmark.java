@@ -0,0 +1,119 @@
+package com.example.dalservice.Service;
+
+import com.example.dalservice.DalServiceApplication;
+import com.example.dalservice.codec.OffsetCodec;
+import com.example.dalservice.entity.Article;
+import com.example.dalservice.entity.ArticleStatus;
+import com.example.dalservice.entity.WordsMapping;
+import com.example.dalservice.repository.JPA.ArticleJpaRepository;
+import com.example.dalservice.repository.JPA.WordsMappingJpaRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Time to store all word mappings of one article and mark it indexed:
+// "jpa" is the former save-all path (JpaRepository.saveAll, a merge - SELECT + INSERT - per word),
+// "jdbc" is WordsMappingService.saveAllWordsMappings (batched JDBC upserts in one transaction).
+// Boots the DAL without its web layer against an in-memory H2 database by default. For MySQL:
+// java -jar benchmarks/target/benchmarks.jar WordsMappingWriteBenchmark \
+//   -p jdbcUrl='jdbc:mysql://localhost:3306/articles_db?rewriteBatchedStatements=true' -p username=root -p password=...
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class WordsMappingWriteBenchmark {
+
+    // distinct words in the article
+    @Param({"1000", "10000", "100000"})
+    private int words;
+
+    @Param({"jpa", "jdbc"})
+    private String writer;
+
+    @Param("jdbc:h2:mem:benchmarks;DB_CLOSE_DELAY=-1")
+    private String jdbcUrl;
+
+    @Param("sa")
+    private String username;
+
+    @Param("")
+    private String password;
+
+    private ConfigurableApplicationContext context;
+    private WordsMappingService wordsMappingService;
+    private WordsMappingJpaRepository wordsMappingRepository;
+    private ArticleJpaRepository articleRepository;
+    private ArticleService articleService;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
+
+    private Long articleId;
+    private List<WordsMapping> mappings;
+
+    @Setup(Level.Trial)
+    public void startDal() {
+        boolean h2 = jdbcUrl.startsWith("jdbc:h2:");
+        context = new SpringApplicationBuilder(DalServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + jdbcUrl,
+                        "--spring.datasource.username=" + username,
+                        "--spring.datasource.password=" + password,
+                        "--spring.jpa.properties.hibernate.dialect=" + (h2 ? "org.hibernate.dialect.H2Dialect" : "org.hibernate.dialect.MySQLDialect"),
+                        "--spring.jpa.show-sql=false",
+                        "--spring.main.banner-mode=off",
+                        "--dal.offsets.migrate-on-startup=false",
+                        // the teardown deletes rows with plain JDBC behind the in-memory index's back
+                        "--dal.word-index.enabled=false");
+        wordsMappingService = context.getBean(WordsMappingService.class);
+        wordsMappingRepository = context.getBean(WordsMappingJpaRepository.class);
+        articleRepository = context.getBean(ArticleJpaRepository.class);
+        articleService = context.getBean(ArticleService.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopDal() {
+        context.close();
+    }
+
+    // A fresh pending article and its mappings, three packed offsets per word
+    @Setup(Level.Invocation)
+    public void newArticle() {
+        Article article = new Article("Benchmark article " + System.nanoTime(), "benchmarks", words, ArticleStatus.pending);
+        articleId = articleRepository.save(article).getId();
+        mappings = new ArrayList<>(words);
+        for (int i = 0; i < words; i++) {
+            WordsMapping mapping = new WordsMapping("word" + i, articleId);
+            mapping.setPackedOffsets(OffsetCodec.encode(List.of(i, i + words, i + 2 * words)));
+            mappings.add(mapping);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteArticle() {
+        jdbcTemplate.update("DELETE FROM words_mapping WHERE article_id = ?", articleId);
+        jdbcTemplate.update("DELETE FROM articles WHERE id = ?", articleId);
+    }
+
+    @Benchmark
+    public Object saveAll() {
+        if ("jpa".equals(writer)) {
+            return transactionTemplate.execute(status -> {
+                List<WordsMapping> saved = wordsMappingRepository.saveAll(mappings);
+                articleService.updateArticleStatus(articleId, ArticleStatus.indexed);
+                return saved;
+            });
+        }
+        return wordsMappingService.saveAllWordsMappings(mappings);
+    }
+}
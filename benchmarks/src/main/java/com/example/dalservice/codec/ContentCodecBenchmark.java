@@ -0,0 +1,59 @@
+package com.example.dalservice.codec;
+
+import com.example.parserservice.service.ParseChunkBenchmark;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Encode/decode cost of the article content codecs on generated article text, plus a 4 KiB range read
+// that only decompresses the blocks it spans. The compression ratio of each codec is printed during setup.
+// Run with: java -jar benchmarks/target/benchmarks.jar ContentCodecBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContentCodecBenchmark {
+
+    @Param({"1000000", "10000000"})
+    private int size;
+
+    @Param({"raw", "deflate", "lz4"})
+    private String codec;
+
+    // dal.content.block-size
+    @Param("65536")
+    private int blockSize;
+
+    private ContentCodec contentCodec;
+    private byte[] content;
+    private byte[] frame;
+
+    @Setup
+    public void setUp() {
+        contentCodec = ContentCodec.valueOf(codec);
+        content = ParseChunkBenchmark.generateArticle(size, new Random(7)).getBytes(StandardCharsets.UTF_8);
+        frame = ContentFrame.encode(contentCodec, content, blockSize);
+        System.out.printf("%n%s: %d -> %d bytes, ratio %.2f%n", codec, content.length, frame.length,
+                (double) content.length / frame.length);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return ContentFrame.encode(contentCodec, content, blockSize);
+    }
+
+    @Benchmark
+    public byte[] decode() {
+        return ContentFrame.decode(contentCodec, frame);
+    }
+
+    @Benchmark
+    public byte[] decodeRange() {
+        long from = content.length / 2;
+        return ContentFrame.decodeRange(contentCodec, frame, from, from + 4096);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.parserservice.service;
+
+import com.example.parserservice.DTO.ParsedWordMappingDTO;
+import com.example.parserservice.tokenizer.WordOffsetTable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Cost of turning a parsed article into the DAL payload: convertToDTO with json or packed offsets,
+// and the Jackson serialization of the resulting list (what goes over the wire to the DAL).
+// Run with: java -jar benchmarks/target/benchmarks.jar ConvertToDTOBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConvertToDTOBenchmark {
+
+    @Param({"1000000", "5000000"})
+    private int size;
+
+    // parser.offsets.encoding
+    @Param({"json", "packed"})
+    private String encoding;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ArticleParserService parser;
+    private WordOffsetTable table;
+    private List<ParsedWordMappingDTO> dtos;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        ParseEngine parseEngine = new ParseEngine(1, Integer.MAX_VALUE, 1, new SimpleMeterRegistry());
+        parser = new ArticleParserService(null, parseEngine, null);
+        Field offsetsEncoding = ArticleParserService.class.getDeclaredField("offsetsEncoding");
+        offsetsEncoding.setAccessible(true);
+        offsetsEncoding.set(parser, encoding);
+        table = parseEngine.parse(ParseChunkBenchmark.generateArticle(size, new Random(7)));
+        parseEngine.shutdown();
+        dtos = parser.convertToDTO(table, 1L);
+    }
+
+    @Benchmark
+    public void convertToDTO(Blackhole blackhole) {
+        blackhole.consume(parser.convertToDTO(table, 1L));
+    }
+
+    @Benchmark
+    public void serializePayload(Blackhole blackhole) throws Exception {
+        blackhole.consume(objectMapper.writeValueAsBytes(dtos));
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.parserservice.service;
+
+import com.example.benchmarks.StubRestTemplate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// End to end ArticleParserService.parseArticle: windowed fork/join parse, DTO conversion and batched
+// delivery to a stubbed DAL, for several document sizes and engine thread counts.
+// Run with: java -jar benchmarks/target/benchmarks.jar ParseArticleBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseArticleBenchmark {
+
+    // size of the generated article in chars
+    @Param({"100000", "1000000", "10000000"})
+    private int size;
+
+    // fork/join engine parallelism
+    @Param({"1", "2", "4"})
+    private int threads;
+
+    private String content;
+    private ParseEngine parseEngine;
+    private DalBatchPublisher dalBatchPublisher;
+    private ArticleParserService parser;
+
+    @Setup
+    public void setUp() {
+        StubRestTemplate restTemplate = new StubRestTemplate();
+        parseEngine = new ParseEngine(threads, 32768, 64, new SimpleMeterRegistry());
+        dalBatchPublisher = new DalBatchPublisher(restTemplate, "http://dal", 2000, 4, 8);
+        parser = new ArticleParserService(restTemplate, parseEngine, dalBatchPublisher);
+        content = ParseChunkBenchmark.generateArticle(size, new Random(7));
+    }
+
+    @TearDown
+    public void tearDown() {
+        dalBatchPublisher.shutdown();
+        parseEngine.shutdown();
+    }
+
+    @Benchmark
+    public void parseArticle(Blackhole blackhole) {
+        blackhole.consume(parser.parseArticle(content, 1L));
+    }
+}
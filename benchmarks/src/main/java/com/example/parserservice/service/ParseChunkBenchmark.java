@@ -0,0 +1,88 @@
+package com.example.parserservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// JMH comparison of the original parseChunk against the compact in-place tokenizer and the fork/join engine.
+// Run with: java -jar benchmarks/target/benchmarks.jar ParseChunkBenchmark
+// (add -prof gc to the JMH options to see the allocation rate per operation)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseChunkBenchmark {
+
+    // size of the generated article in chars
+    @Param({"100000", "5000000"})
+    private int size;
+
+    private String content;
+    private ArticleParserService parser;
+    private ParseEngine parseEngine;
+
+    @Setup
+    public void setUp() {
+        parseEngine = new ParseEngine(0, 32768, 64, new SimpleMeterRegistry());
+        parser = new ArticleParserService(null, parseEngine, null);
+        content = generateArticle(size, new Random(7));
+    }
+
+    @TearDown
+    public void tearDown() {
+        parseEngine.shutdown();
+    }
+
+    @Benchmark
+    public void legacyParseChunk(Blackhole blackhole) {
+        blackhole.consume(parser.parseChunk(content, 0));
+    }
+
+    @Benchmark
+    public void compactParseChunk(Blackhole blackhole) {
+        blackhole.consume(parser.parseChunkCompact(content, 0, content.length()));
+    }
+
+    @Benchmark
+    public void forkJoinEngine(Blackhole blackhole) {
+        blackhole.consume(parseEngine.parse(content));
+    }
+
+    // English-like text: a Zipf-ish vocabulary of a few thousand words with mixed case and punctuation
+    public static String generateArticle(int size, Random random) {
+        String[] vocabulary = new String[5000];
+        for (int i = 0; i < vocabulary.length; i++) {
+            int length = 2 + random.nextInt(9);
+            StringBuilder word = new StringBuilder(length);
+            for (int j = 0; j < length; j++) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            vocabulary[i] = word.toString();
+        }
+        StringBuilder builder = new StringBuilder(size + 16);
+        while (builder.length() < size) {
+            int rank = (int) Math.min(vocabulary.length - 1, Math.abs(random.nextGaussian()) * 400);
+            String word = vocabulary[rank];
+            builder.append(random.nextInt(10) == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+            builder.append(random.nextInt(12) == 0 ? ". " : " ");
+        }
+        builder.setLength(size);
+        return builder.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ParseChunkBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.parserservice.tokenizer;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// JMH comparison of the scalar WordScanner and the Vector API VectorWordScanner on one thread.
+// unicodePercent is the share of words that contain a non-ASCII letter.
+// Run with: java -jar benchmarks/target/benchmarks.jar TokenizerBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class TokenizerBenchmark {
+
+    @Param({"0", "1", "10", "50"})
+    private int unicodePercent;
+
+    private String content;
+
+    @Setup
+    public void setUp() {
+        content = generateArticle(5_000_000, unicodePercent, new Random(7));
+    }
+
+    @Benchmark
+    public void scalar(Blackhole blackhole) {
+        WordScanner scanner = new WordScanner(new WordOffsetTable(), 0);
+        scanner.scan(content, 0, content.length());
+        scanner.finish();
+        blackhole.consume(scanner.getTable());
+    }
+
+    @Benchmark
+    public void vector(Blackhole blackhole) {
+        VectorWordScanner scanner = new VectorWordScanner(new WordOffsetTable(), 0);
+        scanner.scan(content, 0, content.length());
+        scanner.finish();
+        blackhole.consume(scanner.getTable());
+    }
+
+    static String generateArticle(int size, int unicodePercent, Random random) {
+        String accented = "éèàüößñçøåΣλж";
+        String[] vocabulary = new String[5000];
+        for (int i = 0; i < vocabulary.length; i++) {
+            int length = 2 + random.nextInt(9);
+            StringBuilder word = new StringBuilder(length);
+            for (int j = 0; j < length; j++) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            if (random.nextInt(100) < unicodePercent) {
+                word.setCharAt(random.nextInt(length), accented.charAt(random.nextInt(accented.length())));
+            }
+            vocabulary[i] = word.toString();
+        }
+        StringBuilder builder = new StringBuilder(size + 16);
+        while (builder.length() < size) {
+            String word = vocabulary[(int) Math.min(vocabulary.length - 1, Math.abs(random.nextGaussian()) * 400)];
+            builder.append(random.nextInt(10) == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+            builder.append(random.nextInt(12) == 0 ? ". " : " ");
+        }
+        builder.setLength(size);
+        return builder.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TokenizerBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
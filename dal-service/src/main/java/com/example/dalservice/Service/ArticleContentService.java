@@ -1,18 +1,57 @@
 package com.example.dalservice.Service;
 
+import com.example.dalservice.codec.ContentCodec;
+import com.example.dalservice.codec.ContentFrame;
+import com.example.dalservice.codec.OffsetCodec;
+import com.example.dalservice.dto.SnippetDTO;
+import com.example.dalservice.entity.Article;
 import com.example.dalservice.entity.ArticleContent;
+import com.example.dalservice.repository.JDBC.ArticleContentJdbcRepository;
 import com.example.dalservice.repository.JPA.ArticleContentJpaRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeSet;
 
 @Service
 public class ArticleContentService {
 
     private final ArticleContentJpaRepository articleContentRepository;
+    private final ArticleContentJdbcRepository articleContentJdbcRepository;
+
+    // Codec new content is stored with: raw, deflate or lz4
+    @Value("${dal.content.codec:lz4}")
+    private ContentCodec codec = ContentCodec.lz4;
+
+    // Content bytes per independently compressed block
+    @Value("${dal.content.block-size:65536}")
+    private int blockSize = 65536;
+
+    // Decompressed blocks kept for snippets, in bytes
+    @Value("${dal.snippets.block-cache-bytes:8388608}")
+    private long blockCacheBytes = 8L << 20;
+
+    // Stored bytes read with the head of an article's content, for streams and snippet layouts: the header, an index
+    // of up to a thousand blocks and, for short articles, all of their blocks
+    private static final int HEAD_BYTES = 4096;
+
+    private final ContentBlockCache blockCache = new ContentBlockCache();
+
     // Constructor-based dependency injection
-    public ArticleContentService(ArticleContentJpaRepository articleContentRepository_){
+    public ArticleContentService(ArticleContentJpaRepository articleContentRepository_, ArticleContentJdbcRepository articleContentJdbcRepository){
         this.articleContentRepository = articleContentRepository_;
+        this.articleContentJdbcRepository = articleContentJdbcRepository;
     }
 
     // Save or article content
@@ -20,18 +59,314 @@ public class ArticleContentService {
         return this.articleContentRepository.save(articleContent);
     }
 
-    // Retrieve article content by ID
+    // Compress and store the content of an article with the configured codec
+    public ArticleContent saveContent(Article article, byte[] content) {
+        if (content == null) {
+            return this.articleContentRepository.save(new ArticleContent(article, null));
+        }
+        ArticleContent articleContent = new ArticleContent(article, ContentFrame.encode(codec, content, blockSize));
+        articleContent.setCodec(codec);
+        int[] blockChars = ContentFrame.blockChars(content, blockSize);
+        articleContent.setBlockChars(OffsetCodec.encode(blockChars, blockChars.length));
+        return this.articleContentRepository.save(articleContent);
+    }
+
+    // Retrieve article content by ID, as stored (see readContent)
     public Optional<ArticleContent> getArticleContentById(Long id){//TODO - check what happen if there is no such id
         return this.articleContentRepository.findById(id);
 
     }
+
+    // Retrieve the decompressed content of an article
+    public Optional<byte[]> getContent(Long id) {
+        return getArticleContentById(id).map(ArticleContentService::readContent);
+    }
+
+    // Original bytes of stored content, rows without a codec were stored raw
+    public static byte[] readContent(ArticleContent articleContent) {
+        if (articleContent.getCodec() == null || articleContent.getCompressedContent() == null) {
+            return articleContent.getCompressedContent();
+        }
+        return ContentFrame.decode(articleContent.getCodec(), articleContent.getCompressedContent());
+    }
+
+    // Length of the original content, read from the frame header without loading the content.
+    // Empty when the article has no content row.
+    @Transactional(readOnly = true)
+    public Optional<Long> getContentLength(Long id) {
+        return articleContentJdbcRepository.readHead(id, 4).map(head -> {
+            if (head.getPrefix() == null) {
+                return 0L;
+            }
+            if (head.getCodec() == null) {
+                return head.getLength();
+            }
+            return (long) ContentFrame.rawLength(head.getPrefix());
+        });
+    }
+
+    // Write bytes [from, to) of the original content to out, reading only the stored bytes they span by byte range:
+    // raw rows a block size at a time, compressed rows the header, the index and then one block at a time, each
+    // decompressed before the next is read. Returns false when there is no content row.
+    @Transactional(readOnly = true)
+    public boolean streamContent(Long id, long from, long to, OutputStream out) {
+        Optional<ArticleContentJdbcRepository.ContentHead> stored = articleContentJdbcRepository.readHead(id, HEAD_BYTES);
+        if (stored.isEmpty()) {
+            return false;
+        }
+        ArticleContentJdbcRepository.ContentHead head = stored.get();
+        if (head.getPrefix() == null || from == to) {
+            return true;
+        }
+        ContentFrame.Source source = headSource(id, head.getPrefix());
+        try {
+            if (head.getCodec() == null) {
+                for (long position = from; position < to; position += blockSize) {
+                    out.write(source.read(position, (int) Math.min(blockSize, to - position)));
+                }
+            } else {
+                ContentFrame.copyRange(head.getCodec(), source, from, to, out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    // Text around each char offset of a word of the given length: up to context chars before it, the word and up to
+    // context chars after it, offsets past the content are left out. The layout of the content (where each block is
+    // stored and the chars before it, block_chars) maps the offsets to blocks, so only the blocks holding the snippets
+    // are read - by byte range, in one query - and decompressed, and those go through a small cache of decompressed
+    // blocks (dal.snippets.block-cache-bytes). Empty when the article has no content row.
+    @Transactional
+    public Optional<List<SnippetDTO>> readSnippets(Long id, int[] offsets, int length, int context) {
+        ContentBlockCache.Layout layout = blockCache.layout(id);
+        // the stored bytes read with the layout, the blocks they hold are not read again
+        byte[] head = null;
+        if (layout == null) {
+            Optional<ArticleContentJdbcRepository.ContentHead> stored = articleContentJdbcRepository.readHead(id, HEAD_BYTES);
+            if (stored.isEmpty()) {
+                return Optional.empty();
+            }
+            head = stored.get().getPrefix();
+            layout = readLayout(id, stored.get());
+            if (layout == null) {
+                return Optional.empty();
+            }
+            blockCache.putLayout(id, layout);
+        }
+        int chars = layout.chars();
+        int blockCount = layout.header().getBlockCount();
+        // the blocks of this request are kept here too, the cache may drop them before they are used
+        Map<Integer, byte[]> blocks = new HashMap<>();
+        TreeSet<Integer> needed = new TreeSet<>();
+        for (int offset : offsets) {
+            if (offset >= 0 && offset < chars) {
+                int from = Math.max(0, offset - context);
+                int to = (int) Math.min(chars, (long) offset + length + context);
+                int last = layout.blockOf(to - 1);
+                // the last code point of a block may end in the next block, a snippet ending in it (its last one or
+                // two chars, a surrogate pair) needs that block too
+                if (last + 1 < blockCount && to >= layout.charsBefore(last + 1) - 1) {
+                    last++;
+                }
+                for (int index = layout.blockOf(from); index <= last; index++) {
+                    needed.add(index);
+                }
+            }
+        }
+        List<Integer> missing = new ArrayList<>();
+        for (int index : needed) {
+            byte[] block = blockCache.block(id, index);
+            if (block == null) {
+                missing.add(index);
+            } else {
+                blocks.put(index, block);
+            }
+        }
+        if (!readBlocks(id, layout, head, missing, blocks)) {
+            // deleted since the layout was cached
+            blockCache.evict(id);
+            return Optional.empty();
+        }
+        List<SnippetDTO> snippets = new ArrayList<>();
+        for (int offset : offsets) {
+            if (offset >= 0 && offset < chars) {
+                int from = Math.max(0, offset - context);
+                int to = (int) Math.min(chars, (long) offset + length + context);
+                snippets.add(snippet(layout, blocks, offset, from, to));
+            }
+        }
+        return Optional.of(snippets);
+    }
+
+    // Chars [from, to) of the content, walking the UTF-8 code points from the block holding from
+    private static SnippetDTO snippet(ContentBlockCache.Layout layout, Map<Integer, byte[]> blocks, int offset, int from, int to) {
+        int index = layout.blockOf(from);
+        int blockCount = layout.header().getBlockCount();
+        byte[] block = blocks.get(index);
+        int position = 0;
+        // continuation bytes at the start of a block belong to a code point of the block before
+        while (position < block.length && (block[position] & 0xC0) == 0x80) {
+            position++;
+        }
+        int chars = layout.charsBefore(index);
+        int start = -1;
+        ByteArrayOutputStream text = new ByteArrayOutputStream(to - from);
+        while (chars < to) {
+            if (position == block.length) {
+                if (++index == blockCount) {
+                    break;
+                }
+                block = blocks.get(index);
+                position = 0;
+            }
+            int lead = block[position] & 0xFF;
+            // a stray continuation byte (invalid UTF-8) counts as no char, like ContentFrame.countChars
+            int bytes = (lead & 0xC0) == 0x80 ? 1 : lead >= 0xF0 ? 4 : lead >= 0xE0 ? 3 : lead >= 0xC0 ? 2 : 1;
+            if ((lead & 0xC0) != 0x80) {
+                int units = lead >= 0xF0 ? 2 : 1;
+                if (start < 0 && chars + units > from) {
+                    start = chars;
+                }
+                chars += units;
+            }
+            // the whole code point, its last bytes may be in the next block
+            for (int i = 0; i < bytes; i++) {
+                if (position == block.length) {
+                    if (index + 1 == blockCount) {
+                        break;
+                    }
+                    block = blocks.get(++index);
+                    position = 0;
+                }
+                if (i > 0 && (block[position] & 0xC0) != 0x80) {
+                    break;
+                }
+                if (start >= 0) {
+                    text.write(block[position]);
+                }
+                position++;
+            }
+        }
+        return new SnippetDTO(offset, start < 0 ? from : start, text.toString(StandardCharsets.UTF_8));
+    }
+
+    // Reads the blocks into blocks and the cache: from head when it holds them, the others with one query of a byte
+    // range per run of consecutive blocks. False when the content is gone.
+    private boolean readBlocks(Long id, ContentBlockCache.Layout layout, byte[] head, List<Integer> indexes, Map<Integer, byte[]> blocks) {
+        // first and last block of each run
+        List<int[]> runs = new ArrayList<>();
+        for (int index : indexes) {
+            if (head != null && layout.position(index + 1) <= head.length) {
+                putBlock(id, layout, index, head, (int) layout.position(index), blocks);
+            } else if (!runs.isEmpty() && runs.get(runs.size() - 1)[1] == index - 1) {
+                runs.get(runs.size() - 1)[1] = index;
+            } else {
+                runs.add(new int[]{index, index});
+            }
+        }
+        if (runs.isEmpty()) {
+            return true;
+        }
+        long[] positions = new long[runs.size()];
+        int[] lengths = new int[runs.size()];
+        for (int i = 0; i < runs.size(); i++) {
+            positions[i] = layout.position(runs.get(i)[0]);
+            lengths[i] = (int) (layout.position(runs.get(i)[1] + 1) - positions[i]);
+        }
+        Optional<List<byte[]>> ranges = articleContentJdbcRepository.readRanges(id, positions, lengths);
+        if (ranges.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < runs.size(); i++) {
+            for (int index = runs.get(i)[0]; index <= runs.get(i)[1]; index++) {
+                putBlock(id, layout, index, ranges.get().get(i), (int) (layout.position(index) - positions[i]), blocks);
+            }
+        }
+        return true;
+    }
+
+    // Decompresses the block from its stored bytes at offset in stored
+    private void putBlock(Long id, ContentBlockCache.Layout layout, int index, byte[] stored, int offset, Map<Integer, byte[]> blocks) {
+        int storedLength = (int) (layout.position(index + 1) - layout.position(index));
+        byte[] block = layout.codec() == null
+                ? Arrays.copyOfRange(stored, offset, offset + storedLength)
+                : ContentFrame.decodeBlock(layout.codec(), layout.header(), index, stored, offset, storedLength);
+        blocks.put(index, block);
+        blockCache.putBlock(id, index, block, blockCacheBytes);
+    }
+
+    // Layout of the content from the head of its row, null when the content was deleted while it was read
+    private ContentBlockCache.Layout readLayout(Long id, ArticleContentJdbcRepository.ContentHead head) {
+        ContentCodec contentCodec = head.getCodec();
+        byte[] prefix = head.getPrefix();
+        if (prefix == null) {
+            return new ContentBlockCache.Layout(contentCodec, new ContentFrame.Header(0, blockSize, 0), new long[1], new int[1]);
+        }
+        ContentFrame.Source source = headSource(id, prefix);
+        try {
+            if (contentCodec == null) {
+                // legacy raw rows are read in blocks of the configured size, so their chars are counted from the
+                // content on each layout miss and not stored: that is a copy, there is nothing to decompress
+                int length = (int) (long) head.getLength();
+                int blockCount = (length + blockSize - 1) / blockSize;
+                long[] positions = new long[blockCount + 1];
+                for (int index = 0; index <= blockCount; index++) {
+                    positions[index] = Math.min(length, (long) index * blockSize);
+                }
+                return new ContentBlockCache.Layout(null, new ContentFrame.Header(length, blockSize, blockCount), positions,
+                        ContentFrame.blockChars(source.read(0, length), blockSize));
+            }
+            ContentFrame.Header header = ContentFrame.readHeader(source);
+            long[] positions = ContentFrame.blockPositions(source, header);
+            if (head.getBlockChars() != null) {
+                return new ContentBlockCache.Layout(contentCodec, header, positions, OffsetCodec.decode(head.getBlockChars()));
+            }
+            // stored before block_chars existed: every block is read in one range and counted, and the counts are
+            // stored with the row, so this happens once per article
+            int blockCount = header.getBlockCount();
+            byte[] data = source.read(positions[0], (int) (positions[blockCount] - positions[0]));
+            int[] chars = new int[blockCount + 1];
+            for (int index = 0; index < blockCount; index++) {
+                byte[] block = ContentFrame.decodeBlock(contentCodec, header, index, data, (int) (positions[index] - positions[0]),
+                        (int) (positions[index + 1] - positions[index]));
+                chars[index + 1] = chars[index] + ContentFrame.countChars(block, 0, block.length);
+                blockCache.putBlock(id, index, block, blockCacheBytes);
+            }
+            articleContentJdbcRepository.saveBlockChars(id, OffsetCodec.encode(chars, chars.length));
+            return new ContentBlockCache.Layout(contentCodec, header, positions, chars);
+        } catch (IOException e) {
+            // only headSource throws, when the row is gone
+            return null;
+        }
+    }
+
+    // The stored bytes from prefix when it holds them, otherwise a range query
+    private ContentFrame.Source headSource(Long id, byte[] prefix) {
+        return (position, length) -> {
+            if (position + length <= prefix.length) {
+                return Arrays.copyOfRange(prefix, (int) position, (int) position + length);
+            }
+            return articleContentJdbcRepository.readRanges(id, new long[]{position}, new int[]{length})
+                    .orElseThrow(() -> new IOException("Content of article " + id + " was deleted while it was read"))
+                    .get(0);
+        };
+    }
+
+    // The cache behind readSnippets, for its metrics
+    ContentBlockCache blockCache() {
+        return blockCache;
+    }
+
     // Retrieve all article content
     public List<ArticleContent> getAllArticleContents() {
         return articleContentRepository.findAll();
     }
-    // Delete article content by ID
+    // Delete article content by ID, a single DELETE statement that does not load the BLOB
     public void deleteArticleContentById(Long id) {
-        articleContentRepository.deleteById(id);
+        articleContentRepository.deleteByArticleId(id);
+        blockCache.evict(id);
     }
 
 
@@ -0,0 +1,167 @@
+package com.example.dalservice.Service;
+
+import com.example.dalservice.entity.Article;
+import com.example.dalservice.entity.ArticleStatus;
+import com.example.dalservice.repository.JPA.ArticleJpaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Deletes articles with bulk DELETE statements, either right away or through a tombstone.
+// A tombstone marks the article deleting and drops its content in one short transaction; from then on the
+// article is hidden from lookups. Its word mappings are purged in the background in batches of
+// dal.purge.batch-size rows, each batch in its own transaction so no statement holds locks for long, and the
+// article row goes last. Tombstones left behind by a restart are purged again after startup.
+// Either way the word index only hides the article on the caller's thread; its postings are dropped by one walk
+// over the term dictionary on the purge thread, the walk is too slow for a request with millions of words.
+@Service
+public class ArticleDeletionService {
+    private static final Logger logger = LoggerFactory.getLogger(ArticleDeletionService.class);
+
+    private final ArticleJpaRepository articleRepository;
+    private final ArticleContentService articleContentService;
+    private final WordsMappingService wordsMappingService;
+    private final WordIndexService wordIndexService;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService purger;
+    // articles with a purge queued or running, so a repeated delete does not queue a second one
+    private final Set<Long> purging = ConcurrentHashMap.newKeySet();
+    private final Counter purgedRows;
+
+    @Value("${dal.purge.batch-size:5000}")
+    private int batchSize = 5000;
+
+    public ArticleDeletionService(ArticleJpaRepository articleRepository, ArticleContentService articleContentService,
+                                  WordsMappingService wordsMappingService, WordIndexService wordIndexService,
+                                  TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+        this.articleRepository = articleRepository;
+        this.articleContentService = articleContentService;
+        this.wordsMappingService = wordsMappingService;
+        this.wordIndexService = wordIndexService;
+        this.transactionTemplate = transactionTemplate;
+        this.purger = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "article-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("dal.purge.pending", purging, Set::size).register(meterRegistry);
+        this.purgedRows = Counter.builder("dal.purge.rows").register(meterRegistry);
+    }
+
+    // Delete the article, its content and its word mappings now: one DELETE statement per table
+    public void deleteNow(Long articleId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            wordsMappingService.deleteByArticleId(articleId);
+            articleContentService.deleteArticleContentById(articleId);
+            articleRepository.deleteArticleById(articleId);
+        });
+        purger.execute(() -> wordIndexService.removeArticlesAfterCommit(List.of(articleId)));
+    }
+
+    // Tombstone the article and queue the purge of its rows. Returns false if there is no such article.
+    public boolean tombstone(Long articleId) {
+        Boolean found = transactionTemplate.execute(status -> {
+            Optional<Article> articleOpt = articleRepository.findById(articleId);
+            if (!articleOpt.isPresent()) {
+                return false;
+            }
+            Article article = articleOpt.get();
+            if (article.getStatus() != ArticleStatus.deleting) {
+                article.setStatus(ArticleStatus.deleting);
+                article.setLeaseExpiresAt(null);
+                article.setLeaseOwner(null);
+                articleRepository.save(article);
+                articleContentService.deleteArticleContentById(articleId);
+                // the postings are dropped by the purge
+                wordIndexService.hideArticlesAfterCommit(List.of(articleId));
+            }
+            return true;
+        });
+        if (Boolean.TRUE.equals(found)) {
+            // queued after the commit, the purge transactions must see the tombstone
+            schedulePurge(articleId);
+        }
+        return Boolean.TRUE.equals(found);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePurges() {
+        List<Long> tombstones = articleRepository.findDeletingIds();
+        if (!tombstones.isEmpty()) {
+            logger.info("Resuming the purge of {} deleted articles", tombstones.size());
+            tombstones.forEach(this::schedulePurge);
+        }
+    }
+
+    public void schedulePurge(Long articleId) {
+        if (purging.add(articleId)) {
+            purger.execute(() -> {
+                try {
+                    purge(articleId);
+                } catch (RuntimeException e) {
+                    // the tombstone stays, the purge is retried after the next restart or delete request
+                    logger.error("Could not purge article {}", articleId, e);
+                } finally {
+                    purging.remove(articleId);
+                }
+            });
+        }
+    }
+
+    // Delete a tombstoned article's word mappings batch by batch and then the article itself.
+    // Returns the number of word mapping rows deleted.
+    public long purge(Long articleId) {
+        long deleted = 0;
+        while (true) {
+            Integer rows = transactionTemplate.execute(status -> wordsMappingService.deleteBatchByArticleId(articleId, batchSize));
+            int batch = rows == null ? 0 : rows;
+            deleted += batch;
+            purgedRows.increment(batch);
+            if (batch < batchSize) {
+                break;
+            }
+        }
+        Long leftover = transactionTemplate.execute(status -> {
+            Optional<Article> articleOpt = articleRepository.findById(articleId);
+            if (!articleOpt.isPresent() || articleOpt.get().getStatus() != ArticleStatus.deleting) {
+                return 0L;
+            }
+            // rows from a write that was already running when the article was tombstoned
+            long rows = wordsMappingService.deleteByArticleId(articleId);
+            articleContentService.deleteArticleContentById(articleId);
+            articleRepository.deleteArticleById(articleId);
+            wordIndexService.removeArticlesAfterCommit(List.of(articleId));
+            return rows;
+        });
+        if (leftover != null && leftover > 0) {
+            deleted += leftover;
+            purgedRows.increment(leftover);
+        }
+        return deleted;
+    }
+
+    // Articles with a purge queued or running
+    public int pendingPurges() {
+        return purging.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        purger.shutdownNow();
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.dalservice.Service;
+
+import com.example.dalservice.dto.ClaimedArticleDTO;
+import com.example.dalservice.entity.Article;
+import com.example.dalservice.entity.ArticleStatus;
+import com.example.dalservice.repository.JPA.ArticleJpaRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// Durable work queue over the pending rows of the articles table.
+// A parser claims a batch with SELECT ... FOR UPDATE SKIP LOCKED, so concurrent claims never block on or
+// return the same rows, and stamps each row with a lease. An article whose lease expired (its parser died
+// or hung) is claimable again; indexing it to the end clears the lease, a failed attempt releases it.
+// A worker claims no more than it can start right away, and start renews the lease and hands out the content
+// when its job begins.
+// Only the lease owner may release an article: once its lease expired and another worker claimed it, a late
+// release from the old owner must not clear the new lease or count an attempt against it.
+@Service
+public class ArticleQueueService {
+    // Owner of the lease a new article gets from /api/articles/create, released by the gateway or the parser job.
+    // The gateway's ApiGatewayService and the parser's IndexingJobQueue use the same value.
+    public static final String CREATE_LEASE_OWNER = "create";
+
+    private final ArticleJpaRepository articleRepository;
+    private final ArticleContentService articleContentService;
+    private final Timer claimLatency;
+
+    @Value("${dal.queue.lease-seconds:300}")
+    private long leaseSeconds = 300;
+    @Value("${dal.queue.max-claim-batch:100}")
+    private int maxClaimBatch = 100;
+    @Value("${dal.queue.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    public ArticleQueueService(ArticleJpaRepository articleRepository, ArticleContentService articleContentService,
+                               MeterRegistry meterRegistry) {
+        this.articleRepository = articleRepository;
+        this.articleContentService = articleContentService;
+        this.claimLatency = Timer.builder("dal.queue.claim.latency").register(meterRegistry);
+        Gauge.builder("dal.queue.depth", articleRepository, r -> r.countClaimable(LocalDateTime.now())).register(meterRegistry);
+        Gauge.builder("dal.queue.leased", articleRepository, r -> r.countLeased(LocalDateTime.now())).register(meterRegistry);
+    }
+
+    // Lease and return up to limit pending articles. Their content is handed out by start, when a worker begins
+    // indexing one, so none is read while the claimed rows are locked.
+    @Transactional
+    public List<ClaimedArticleDTO> claim(String worker, int limit) {
+        return claimLatency.record(() -> {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime leaseExpiresAt = now.plusSeconds(leaseSeconds);
+            List<Article> articles = articleRepository.lockClaimable(now, Math.max(0, Math.min(limit, maxClaimBatch)));
+            List<ClaimedArticleDTO> claimed = new ArrayList<>(articles.size());
+            for (Article article : articles) {
+                article.setLeaseExpiresAt(leaseExpiresAt);
+                article.setLeaseOwner(worker);
+                claimed.add(new ClaimedArticleDTO(article.getId(), null, leaseExpiresAt, article.getAttempts()));
+            }
+            articleRepository.saveAll(articles);
+            return claimed;
+        });
+    }
+
+    // Renew the lease of an article when worker starts indexing it and return the article with its content, so the
+    // lease covers the parse and not the time the article waited in the worker's job queue. Throws
+    // IllegalStateException when it is not leased to worker any more (its lease ran out and another worker claimed
+    // it, or it is no longer pending): the job must not run then.
+    public ClaimedArticleDTO start(Long articleId, String worker) {
+        LocalDateTime leaseExpiresAt = LocalDateTime.now().plusSeconds(leaseSeconds);
+        if (articleRepository.renewLease(articleId, worker, leaseExpiresAt) == 0) {
+            throw new IllegalStateException("Article " + articleId + " is not leased to " + worker);
+        }
+        int attempts = articleRepository.findById(articleId).map(Article::getAttempts).orElse(0);
+        byte[] content = articleContentService.getContent(articleId).orElse(new byte[0]);
+        return new ClaimedArticleDTO(articleId, content, leaseExpiresAt, attempts);
+    }
+
+    // A new pending article is leased to whoever created it, so pollers leave it alone while it is indexed
+    // directly; if that never finishes the lease runs out and a poller picks it up
+    public void leaseNewArticle(Article article, String owner) {
+        if (article.getStatus() == ArticleStatus.pending) {
+            article.setLeaseExpiresAt(LocalDateTime.now().plusSeconds(leaseSeconds));
+            article.setLeaseOwner(owner);
+        }
+    }
+
+    // Give an article leased to worker back to the queue. failed = true counts a failed attempt, after max-attempts
+    // the article is marked failed instead of retried. Returns the article's resulting status, throws
+    // IllegalStateException when the lease belongs to another worker (or to nobody) and leaves it alone.
+    @Transactional
+    public ArticleStatus release(Long articleId, String worker, boolean failed) {
+        Article article = articleRepository.lockById(articleId)
+                .orElseThrow(() -> new NoSuchElementException("Article with ID " + articleId + " not found"));
+        if (article.getStatus() != ArticleStatus.pending) {
+            return article.getStatus();
+        }
+        if (!worker.equals(article.getLeaseOwner())) {
+            throw new IllegalStateException("Article " + articleId + " is not leased to " + worker);
+        }
+        article.setLeaseExpiresAt(null);
+        article.setLeaseOwner(null);
+        if (failed) {
+            article.setAttempts(article.getAttempts() + 1);
+            if (article.getAttempts() >= maxAttempts) {
+                article.setStatus(ArticleStatus.failed);
+            }
+        }
+        articleRepository.save(article);
+        return article.getStatus();
+    }
+}
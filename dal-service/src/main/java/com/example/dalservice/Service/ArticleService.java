@@ -7,16 +7,24 @@ import com.example.dalservice.Service.ArticleContentService;
 import com.example.dalservice.Service.WordsMappingService;
 
 
+import com.example.dalservice.dto.ArticleMetadataBatchDTO;
+import com.example.dalservice.dto.ArticleMetadataDTO;
 import com.example.dalservice.entity.Article;
 import com.example.dalservice.entity.ArticleStatus;
 import com.example.dalservice.repository.JPA.ArticleJpaRepository;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -26,6 +34,10 @@ public class ArticleService {
     private static final Logger logger = LoggerFactory.getLogger(ArticleService.class);
 
     private final ArticleJpaRepository articleRepository;
+
+    @Value("${dal.articles.max-batch-size:1000}")
+    private int maxBatchSize = 1000;
+
     // Constructor-based dependency injection
     @Autowired
     public ArticleService(ArticleJpaRepository articleRepository_){
@@ -52,21 +64,58 @@ public class ArticleService {
 
     }
 
+    // retrieve only the metadata of an article, its content is never read
+    public Optional<ArticleMetadataDTO> getArticleMetadata(Long id) {
+        return articleRepository.findMetadataById(id);
+    }
+
+    // Metadata of several articles with a single query, in request order (a repeated id is answered once).
+    // Ids without an article are listed as missing instead of failing the batch.
+    public ArticleMetadataBatchDTO getArticleMetadata(List<Long> ids) {
+        List<Long> requested = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (requested.size() > maxBatchSize) {
+            throw new IllegalArgumentException("At most " + maxBatchSize + " ids per request, got " + requested.size());
+        }
+        Map<Long, ArticleMetadataDTO> found = requested.isEmpty() ? Map.of()
+                : articleRepository.findMetadataByIdIn(requested).stream()
+                        .collect(Collectors.toMap(ArticleMetadataDTO::getId, Function.identity()));
+        List<ArticleMetadataDTO> articles = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : requested) {
+            ArticleMetadataDTO metadata = found.get(id);
+            if (metadata != null) {
+                articles.add(metadata);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new ArticleMetadataBatchDTO(articles, missing);
+    }
+
     // Method to update the article's status
     public void updateArticleStatus(Long articleId, ArticleStatus newStatus) {
         Optional<Article> articleOpt = articleRepository.findById(articleId);
         if (articleOpt.isPresent()) {
             Article article = articleOpt.get();
+            if (article.getStatus() == ArticleStatus.deleting) {
+                // a tombstone is only ever removed by the purge, a late parser report must not bring it back
+                throw new NoSuchElementException("Article with ID " + articleId + " is being deleted");
+            }
             article.setStatus(newStatus);
+            if (newStatus != ArticleStatus.pending) {
+                // a finished article is no longer part of the work queue
+                article.setLeaseExpiresAt(null);
+                article.setLeaseOwner(null);
+            }
             articleRepository.save(article);  // Save the article with updated status
         } else {
             throw new NoSuchElementException("Article with ID " + articleId + " not found");
         }
     }
 
-    // Delete an article by its ID - and also all of this article appearances in db - cascade
+    // Delete an article by its ID with a single DELETE statement, its content and word mappings must be deleted first
     public void deleteArticle(Long id){
-        this.articleRepository.deleteById(id);
+        this.articleRepository.deleteArticleById(id);
     }
 }
 
@@ -0,0 +1,80 @@
+package com.example.dalservice.Service;
+
+import com.example.dalservice.codec.OffsetCodec;
+import com.example.dalservice.dto.ArticleSnippetsDTO;
+import com.example.dalservice.dto.SnippetDTO;
+import com.example.dalservice.dto.WordSnippetsPageDTO;
+import com.example.dalservice.dto.WordsMappingPageDTO;
+import com.example.dalservice.entity.WordsMapping;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Snippets of text around the occurrences of a word, so a client showing where a word occurs does not have to
+// download whole articles. The articles and offsets come from the word's mappings (paged like
+// WordsMappingService.findWordsByWord), the text from the few content blocks that hold the offsets
+// (ArticleContentService.readSnippets). Block cache use is exposed as dal.snippets.block-cache.* metrics.
+@Service
+public class ArticleSnippetService {
+
+    private final WordsMappingService wordsMappingService;
+    private final ArticleContentService articleContentService;
+
+    // Most snippets per article, bigger requests are capped to it
+    @Value("${dal.snippets.max-per-article:5}")
+    private int maxPerArticle = 5;
+
+    // Most chars of context on each side of the word
+    @Value("${dal.snippets.max-context:500}")
+    private int maxContext = 500;
+
+    public ArticleSnippetService(WordsMappingService wordsMappingService, ArticleContentService articleContentService,
+                                 MeterRegistry meterRegistry) {
+        this.wordsMappingService = wordsMappingService;
+        this.articleContentService = articleContentService;
+        ContentBlockCache blockCache = articleContentService.blockCache();
+        FunctionCounter.builder("dal.snippets.block-cache.hits", blockCache, ContentBlockCache::hits).register(meterRegistry);
+        FunctionCounter.builder("dal.snippets.block-cache.misses", blockCache, ContentBlockCache::misses).register(meterRegistry);
+        Gauge.builder("dal.snippets.block-cache.bytes", blockCache, ContentBlockCache::bytes).register(meterRegistry);
+    }
+
+    // One page of the articles holding the word (limit and cursor as in findWordsByWord), or only articleId when it
+    // is given, each with the snippets of its first maxSnippets occurrences (capped at dal.snippets.max-per-article):
+    // context chars on each side of the word. An article without content comes without snippets. Throws
+    // IllegalArgumentException for context outside 0..dal.snippets.max-context, maxSnippets or limit below 1 or an
+    // unknown cursor.
+    public WordSnippetsPageDTO findSnippets(String word, Long articleId, int context, int maxSnippets, String cursor, int limit) {
+        if (context < 0 || context > maxContext) {
+            throw new IllegalArgumentException("context must be between 0 and " + maxContext);
+        }
+        if (maxSnippets <= 0) {
+            throw new IllegalArgumentException("maxSnippets must be positive");
+        }
+        int snippetsPerArticle = Math.min(maxSnippets, maxPerArticle);
+        WordsMappingPageDTO page;
+        if (articleId == null) {
+            page = wordsMappingService.findWordsByWord(word, cursor, limit);
+        } else {
+            // the page right after articleId - 1 starts with articleId when the article holds the word
+            page = wordsMappingService.findWordsByWord(word, WordsMappingService.encodeCursor(articleId - 1), 1);
+            List<WordsMapping> mappings = page.getMappings().stream().filter(mapping -> articleId.equals(mapping.getArticleId())).toList();
+            page = new WordsMappingPageDTO(mappings, null);
+        }
+        List<ArticleSnippetsDTO> articles = new ArrayList<>(page.getMappings().size());
+        for (WordsMapping mapping : page.getMappings()) {
+            byte[] packed = WordsMappingService.packedOffsets(mapping);
+            int[] offsets = packed == null ? new int[0] : OffsetCodec.decode(packed);
+            int[] first = Arrays.copyOf(offsets, Math.min(offsets.length, snippetsPerArticle));
+            List<SnippetDTO> snippets = articleContentService.readSnippets(mapping.getArticleId(), first, mapping.getWord().length(), context)
+                    .orElse(List.of());
+            articles.add(new ArticleSnippetsDTO(mapping.getArticleId(), offsets.length, snippets));
+        }
+        return new WordSnippetsPageDTO(articles, page.getNextCursor());
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.dalservice.Service;
+
+import com.example.dalservice.codec.ContentCodec;
+import com.example.dalservice.codec.ContentFrame;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// A small LRU cache of decompressed content blocks, keyed by article and block index and bounded by their bytes,
+// next to the layout of the articles they belong to (codec, sizes and chars per block). Snippets of one article
+// tend to come in bursts - a page of search hits, then the next - and often fall in the same blocks, so a block is
+// read and decompressed once for all of them. Blocks are never modified, content is only ever added or deleted.
+final class ContentBlockCache {
+    // layouts are a few ints per block of content, a thousand of them stay small
+    private static final int MAX_LAYOUTS = 1024;
+
+    // How an article's content is stored: its frame header (the raw sizes for legacy rows without a codec), where
+    // each block is in the stored bytes (see ContentFrame.blockPositions) and the chars before each block (see
+    // ContentFrame.blockChars)
+    static final class Layout {
+        private final ContentCodec codec;
+        private final ContentFrame.Header header;
+        private final long[] blockPositions;
+        private final int[] blockChars;
+
+        Layout(ContentCodec codec, ContentFrame.Header header, long[] blockPositions, int[] blockChars) {
+            this.codec = codec;
+            this.header = header;
+            this.blockPositions = blockPositions;
+            this.blockChars = blockChars;
+        }
+
+        ContentCodec codec() {
+            return codec;
+        }
+
+        ContentFrame.Header header() {
+            return header;
+        }
+
+        // Start of block in the stored bytes, the stored length for block == blockCount
+        long position(int block) {
+            return blockPositions[block];
+        }
+
+        int chars() {
+            return blockChars[blockChars.length - 1];
+        }
+
+        int charsBefore(int block) {
+            return blockChars[block];
+        }
+
+        // The block holding the code point of char offset, the last block with at most offset chars before it
+        int blockOf(int offset) {
+            int low = 0;
+            int high = header.getBlockCount() - 1;
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+                if (blockChars[middle] <= offset) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return low;
+        }
+    }
+
+    private static final class BlockKey {
+        private final long articleId;
+        private final int index;
+
+        BlockKey(long articleId, int index) {
+            this.articleId = articleId;
+            this.index = index;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof BlockKey key && key.articleId == articleId && key.index == index;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(articleId) * 31 + index;
+        }
+    }
+
+    private final LinkedHashMap<Long, Layout> layouts = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<BlockKey, byte[]> blocks = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+
+    synchronized Layout layout(long articleId) {
+        return layouts.get(articleId);
+    }
+
+    synchronized void putLayout(long articleId, Layout layout) {
+        layouts.put(articleId, layout);
+        if (layouts.size() > MAX_LAYOUTS) {
+            Iterator<Long> eldest = layouts.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    // The cached block, null on a miss
+    synchronized byte[] block(long articleId, int index) {
+        byte[] block = blocks.get(new BlockKey(articleId, index));
+        if (block == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return block;
+    }
+
+    // Caches the block, dropping the least recently used ones while more than maxBytes are held
+    synchronized void putBlock(long articleId, int index, byte[] block, long maxBytes) {
+        byte[] previous = blocks.put(new BlockKey(articleId, index), block);
+        bytes += block.length - (previous == null ? 0 : previous.length);
+        Iterator<byte[]> eldest = blocks.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().length;
+            eldest.remove();
+        }
+    }
+
+    // Forgets the article's layout and blocks, when its content is deleted
+    synchronized void evict(long articleId) {
+        layouts.remove(articleId);
+        Iterator<Map.Entry<BlockKey, byte[]>> entries = blocks.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<BlockKey, byte[]> entry = entries.next();
+            if (entry.getKey().articleId == articleId) {
+                bytes -= entry.getValue().length;
+                entries.remove();
+            }
+        }
+    }
+
+    synchronized long bytes() {
+        return bytes;
+    }
+
+    synchronized long hits() {
+        return hits;
+    }
+
+    synchronized long misses() {
+        return misses;
+    }
+}
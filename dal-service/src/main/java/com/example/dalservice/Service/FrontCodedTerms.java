@@ -0,0 +1,88 @@
+package com.example.dalservice.Service;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+// An immutable copy of sorted words, front coded: each word keeps the length of the prefix it shares with the
+// word before it and only the chars after that prefix, all in one char array. Walking the words in order is a
+// sequential read, and the shared prefix length says directly how much of the previous word still applies,
+// which is what a Levenshtein automaton run along the words needs to reuse its states.
+final class FrontCodedTerms {
+    static final FrontCodedTerms EMPTY = new FrontCodedTerms(new char[0], new int[1], new int[0]);
+
+    private final char[] suffixes;
+    // word i's own chars are suffixes[suffixStarts[i]..suffixStarts[i + 1])
+    private final int[] suffixStarts;
+    private final int[] sharedPrefixes;
+
+    private FrontCodedTerms(char[] suffixes, int[] suffixStarts, int[] sharedPrefixes) {
+        this.suffixes = suffixes;
+        this.suffixStarts = suffixStarts;
+        this.sharedPrefixes = sharedPrefixes;
+    }
+
+    // The words in iteration order, which must be sorted and without duplicates. A concurrent collection may
+    // change while it is copied, words added meanwhile may or may not be included.
+    static FrontCodedTerms of(Collection<String> sortedWords) {
+        int capacity = Math.max(16, sortedWords.size());
+        char[] suffixes = new char[capacity * 4];
+        int[] suffixStarts = new int[capacity + 1];
+        int[] sharedPrefixes = new int[capacity];
+        int size = 0;
+        int length = 0;
+        String previous = "";
+        for (String word : sortedWords) {
+            if (size == sharedPrefixes.length) {
+                suffixStarts = Arrays.copyOf(suffixStarts, size * 2 + 1);
+                sharedPrefixes = Arrays.copyOf(sharedPrefixes, size * 2);
+            }
+            int shared = commonPrefixLength(previous, word);
+            int suffixLength = word.length() - shared;
+            if (length + suffixLength > suffixes.length) {
+                suffixes = Arrays.copyOf(suffixes, Math.max(suffixes.length * 2, length + suffixLength));
+            }
+            word.getChars(shared, word.length(), suffixes, length);
+            sharedPrefixes[size] = shared;
+            suffixStarts[size] = length;
+            length += suffixLength;
+            size++;
+            previous = word;
+        }
+        suffixStarts[size] = length;
+        return new FrontCodedTerms(Arrays.copyOf(suffixes, length), Arrays.copyOf(suffixStarts, size + 1),
+                Arrays.copyOf(sharedPrefixes, size));
+    }
+
+    static int commonPrefixLength(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < length && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    int size() {
+        return sharedPrefixes.length;
+    }
+
+    // Length of the prefix word i shares with word i - 1
+    int sharedPrefix(int i) {
+        return sharedPrefixes[i];
+    }
+
+    int length(int i) {
+        return sharedPrefixes[i] + suffixStarts[i + 1] - suffixStarts[i];
+    }
+
+    // Complete word i in buffer, which must hold word i - 1 (or any word with the same shared prefix)
+    // and have room for length(i) chars
+    void copySuffix(int i, char[] buffer) {
+        System.arraycopy(suffixes, suffixStarts[i], buffer, sharedPrefixes[i], suffixStarts[i + 1] - suffixStarts[i]);
+    }
+
+    // Estimated heap of the copy
+    long bytes() {
+        return 2L * suffixes.length + 8L * sharedPrefixes.length;
+    }
+}
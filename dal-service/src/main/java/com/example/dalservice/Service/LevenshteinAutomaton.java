@@ -0,0 +1,64 @@
+package com.example.dalservice.Service;
+
+// Accepts the words within maxEdits insertions, deletions or substitutions of a target word.
+// A state is the row of edit distances between the input read so far and every prefix of the target,
+// capped at maxEdits + 1 (the distances above maxEdits are all equivalent). Stepping a state costs O(length of
+// the target) and a state with no entry within maxEdits is dead: no word starting with the input read so far
+// can be accepted, which is what lets a sorted dictionary skip the whole range of that prefix.
+public final class LevenshteinAutomaton {
+    private final String target;
+    private final int maxEdits;
+
+    public LevenshteinAutomaton(String target, int maxEdits) {
+        if (maxEdits < 0) {
+            throw new IllegalArgumentException("maxEdits must not be negative");
+        }
+        this.target = target;
+        this.maxEdits = maxEdits;
+    }
+
+    // State before any input: deleting the first j characters of the target costs j
+    public int[] start() {
+        int[] state = new int[target.length() + 1];
+        for (int j = 0; j < state.length; j++) {
+            state[j] = Math.min(j, maxEdits + 1);
+        }
+        return state;
+    }
+
+    // A state holding one row per target character plus one, for step to write into
+    public int[] newState() {
+        return new int[target.length() + 1];
+    }
+
+    // The state after reading c, written into next (a different array than state) and returned
+    public int[] step(int[] state, char c, int[] next) {
+        next[0] = Math.min(state[0] + 1, maxEdits + 1);
+        for (int j = 1; j < state.length; j++) {
+            int substitute = state[j - 1] + (target.charAt(j - 1) == c ? 0 : 1);
+            int insert = state[j] + 1;
+            int delete = next[j - 1] + 1;
+            next[j] = Math.min(Math.min(substitute, insert), Math.min(delete, maxEdits + 1));
+        }
+        return next;
+    }
+
+    // Lower bound of the distance of any word starting with the input read so far: above maxEdits the
+    // state is dead
+    public int minDistance(int[] state) {
+        int min = state[0];
+        for (int distance : state) {
+            min = Math.min(min, distance);
+        }
+        return min;
+    }
+
+    // Edit distance between the input and the target, maxEdits + 1 when it is not accepted
+    public int distance(int[] state) {
+        return state[state.length - 1];
+    }
+
+    public int maxEdits() {
+        return maxEdits;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.dalservice.Service;
+
+import com.example.dalservice.entity.WordsMapping;
+import com.example.dalservice.entity.WordsMappingKey;
+import com.example.dalservice.repository.JPA.WordsMappingJpaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+// Converts rows written before packed_offsets existed: json offsets are packed and the json copy is dropped.
+// Runs once after startup in small transactions, rows that fail to convert are logged and left as json
+// (the gateway still understands both forms).
+@Service
+public class OffsetsMigrationService {
+    private static final Logger logger = LoggerFactory.getLogger(OffsetsMigrationService.class);
+
+    private final WordsMappingJpaRepository wordsMappingRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${dal.offsets.migrate-on-startup:true}")
+    private boolean migrateOnStartup = true;
+
+    @Value("${dal.offsets.migration-batch-size:1000}")
+    private int batchSize = 1000;
+
+    public OffsetsMigrationService(WordsMappingJpaRepository wordsMappingRepository, TransactionTemplate transactionTemplate) {
+        this.wordsMappingRepository = wordsMappingRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (migrateOnStartup) {
+            long migrated = migrateLegacyOffsets();
+            if (migrated > 0) {
+                logger.info("Packed the offsets of {} legacy word mappings", migrated);
+            }
+        }
+    }
+
+    // Pack every remaining json offsets row, returns the number of rows converted
+    public long migrateLegacyOffsets() {
+        long migrated = 0;
+        // the key of the last row seen, rows that fail stay json and must not be read again
+        WordsMappingKey after = new WordsMappingKey("", Long.MIN_VALUE);
+        while (true) {
+            WordsMappingKey from = after;
+            List<WordsMapping> batch = transactionTemplate.execute(status -> migrateBatch(from));
+            if (batch == null || batch.isEmpty()) {
+                return migrated;
+            }
+            for (WordsMapping mapping : batch) {
+                if (mapping.getOffsets() == null) {
+                    migrated++;
+                }
+            }
+            WordsMapping last = batch.get(batch.size() - 1);
+            after = new WordsMappingKey(last.getWord(), last.getArticleId());
+        }
+    }
+
+    // The next batch of json rows after the key, converted and saved
+    private List<WordsMapping> migrateBatch(WordsMappingKey after) {
+        List<WordsMapping> batch = wordsMappingRepository.findWithoutPackedOffsetsAfter(after.getWord(), after.getArticleId(),
+                PageRequest.of(0, batchSize));
+        for (WordsMapping mapping : batch) {
+            try {
+                WordsMappingService.packOffsets(mapping);
+            } catch (RuntimeException e) {
+                logger.error("Could not pack offsets of word {} in article {}", mapping.getWord(), mapping.getArticleId(), e);
+            }
+        }
+        wordsMappingRepository.saveAll(batch);
+        return batch;
+    }
+}
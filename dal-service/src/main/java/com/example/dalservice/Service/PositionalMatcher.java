@@ -0,0 +1,182 @@
+package com.example.dalservice.Service;
+
+import java.util.Arrays;
+
+// Phrase and proximity matching on the stored offsets of one article, without its content.
+// Offsets are the UTF-16 char offsets where each occurrence of a word starts and words are maximal runs of letters,
+// so a word of length n at offset p ends at p + n and the next word starts at least one char later. Any word in
+// between needs a separator, a letter and another separator: a gap of one or two chars between two words proves
+// they are adjacent, a longer gap may hide short words. Spans are returned flat, {start0, end0, start1, end1, ...},
+// with end the offset after the last char of the match.
+//
+// Both matchers walk sorted offset arrays with galloping search: a pointer that falls behind doubles its step until
+// it passes the target and then binary searches the last step, so merging a list of m offsets into one of n costs
+// O(m log(n / m)) instead of O(m + n) - a phrase with a rare word pays for the rare word, not for the common ones.
+public final class PositionalMatcher {
+    private static final int[] NO_SPANS = new int[0];
+
+    private PositionalMatcher() {
+    }
+
+    // The word sequence in order, offsets[i] and lengths[i] being the sorted offsets and the length of its i-th word:
+    // each word starts 1 to maxSeparator chars after the end of the one before it. The partial matches (start of the
+    // first word, offset of the last matched word) are merged with the offsets of the next word one word at a time,
+    // O(sum over the words of m log(n / m)) with m and n the smaller and larger of the two lists. An occurrence of the
+    // last word ends at most one match, the one starting last.
+    public static int[] phrase(int[][] offsets, int[] lengths, int maxSeparator) {
+        int count = offsets[0].length;
+        int[] starts = offsets[0];
+        int[] lasts = offsets[0];
+        for (int word = 1; word < offsets.length && count > 0; word++) {
+            int[] next = offsets[word];
+            // the word before spans [last, last + length), the next one must start in [last + length + 1, last + length + maxSeparator]
+            int length = lengths[word - 1];
+            int[] matchedStarts = new int[Math.min(count, next.length)];
+            int[] matchedLasts = new int[matchedStarts.length];
+            int matched = 0;
+            int x = 0;
+            int j = 0;
+            while (x < count && j < next.length) {
+                if (lasts[x] + length + maxSeparator < next[j]) {
+                    x = gallop(lasts, x, count, next[j] - length - maxSeparator);
+                } else if (lasts[x] + length + 1 > next[j]) {
+                    j = gallop(next, j, next.length, lasts[x] + length + 1);
+                } else {
+                    // the latest partial match still ending early enough, the window holds only a few of them
+                    while (x + 1 < count && lasts[x + 1] + length + 1 <= next[j]) {
+                        x++;
+                    }
+                    if (matched == matchedStarts.length) {
+                        matchedStarts = Arrays.copyOf(matchedStarts, Math.min(next.length, 2 * matched));
+                        matchedLasts = Arrays.copyOf(matchedLasts, matchedStarts.length);
+                    }
+                    matchedStarts[matched] = starts[x];
+                    matchedLasts[matched] = next[j];
+                    matched++;
+                    j++;
+                }
+            }
+            starts = matchedStarts;
+            lasts = matchedLasts;
+            count = matched;
+        }
+        int lastLength = lengths[offsets.length - 1];
+        int[] spans = new int[2 * count];
+        for (int i = 0; i < count; i++) {
+            spans[2 * i] = starts[i];
+            spans[2 * i + 1] = lasts[i] + lastLength;
+        }
+        return spans;
+    }
+
+    // The distinct words in any order with at most maxGap chars in total between them and no other occurrence of
+    // them needed in between. Every smallest window holding all the words holds an occurrence of the word with the
+    // fewest offsets, so only its offsets are anchors: for each anchor every other word galloping forward gives its
+    // nearest occurrence before and after it, and the best split of the words into those taken before and after the
+    // anchor comes from sorting them by how far back they reach. With m the anchors, n the most offsets of a word
+    // and w words, O(w m (log(n / m) + log w)). Spans come sorted by start, without duplicates.
+    public static int[] near(int[][] offsets, int[] lengths, int maxGap) {
+        int words = offsets.length;
+        int anchor = 0;
+        long totalLength = 0;
+        for (int i = 0; i < words; i++) {
+            if (offsets[i].length == 0) {
+                return NO_SPANS;
+            }
+            if (offsets[i].length < offsets[anchor].length) {
+                anchor = i;
+            }
+            totalLength += lengths[i];
+        }
+        int[] positions = new int[words];
+        // how far each other word reaches back (start before the anchor) or ahead (end after the anchor's end)
+        long[] back = new long[words];
+        long[] ahead = new long[words];
+        int[] byBack = new int[words];
+        long[] suffixAhead = new long[words + 1];
+        long[] found = new long[Math.min(offsets[anchor].length, 16)];
+        int foundCount = 0;
+        for (int r : offsets[anchor]) {
+            int end = r + lengths[anchor];
+            for (int i = 0; i < words; i++) {
+                if (i == anchor) {
+                    back[i] = 0;
+                    ahead[i] = 0;
+                    continue;
+                }
+                positions[i] = gallop(offsets[i], positions[i], offsets[i].length, r);
+                back[i] = positions[i] == 0 ? Long.MAX_VALUE / 4 : r - offsets[i][positions[i] - 1];
+                ahead[i] = positions[i] == offsets[i].length ? Long.MAX_VALUE / 4
+                        : Math.max(0, (long) offsets[i][positions[i]] + lengths[i] - end);
+            }
+            // insertion sort, a query has a handful of words
+            for (int i = 0; i < words; i++) {
+                int k = i;
+                while (k > 0 && back[byBack[k - 1]] > back[i]) {
+                    byBack[k] = byBack[k - 1];
+                    k--;
+                }
+                byBack[k] = i;
+            }
+            // the words from split on in byBack are taken after the anchor
+            for (int k = words - 1; k >= 0; k--) {
+                suffixAhead[k] = Math.max(suffixAhead[k + 1], ahead[byBack[k]]);
+            }
+            long bestBack = 0;
+            long bestAhead = suffixAhead[0];
+            for (int split = 1; split <= words; split++) {
+                long reach = back[byBack[split - 1]];
+                if (reach + suffixAhead[split] < bestBack + bestAhead) {
+                    bestBack = reach;
+                    bestAhead = suffixAhead[split];
+                }
+            }
+            if (bestBack + bestAhead + lengths[anchor] - totalLength <= maxGap) {
+                if (foundCount == found.length) {
+                    found = Arrays.copyOf(found, found.length * 2);
+                }
+                found[foundCount++] = (r - bestBack) << 32 | (end + bestAhead);
+            }
+        }
+        // two anchors in one window find it twice, a far reaching window may start before the one of an earlier anchor
+        Arrays.sort(found, 0, foundCount);
+        int[] spans = new int[2 * foundCount];
+        int count = 0;
+        for (int i = 0; i < foundCount; i++) {
+            if (i > 0 && found[i] == found[i - 1]) {
+                continue;
+            }
+            spans[2 * count] = (int) (found[i] >>> 32);
+            spans[2 * count + 1] = (int) found[i];
+            count++;
+        }
+        return Arrays.copyOf(spans, 2 * count);
+    }
+
+    // The first index in [from, to) whose value is at or above target, to when there is none
+    static int gallop(int[] values, int from, int to, int target) {
+        if (from >= to || values[from] >= target) {
+            return from;
+        }
+        // values[low] < target, find a high with values[high] >= target by doubling the step
+        int low = from;
+        int step = 1;
+        int high = from + step;
+        while (high < to && values[high] < target) {
+            low = high;
+            step <<= 1;
+            high = from + step;
+        }
+        high = Math.min(high, to);
+        // values[low] < target <= values[high] (or high == to)
+        while (high - low > 1) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < target) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return high;
+    }
+}
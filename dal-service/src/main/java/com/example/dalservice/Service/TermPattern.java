@@ -0,0 +1,81 @@
+package com.example.dalservice.Service;
+
+// A word pattern with * (any run of characters) and ? (one character), e.g. index* or colo?r.
+// It has to start with at least one literal character: that prefix bounds the range of the sorted term
+// dictionary that is scanned, a leading wildcard would have to look at every term.
+public final class TermPattern {
+    private final String pattern;
+    private final String prefix;
+
+    private TermPattern(String pattern, String prefix) {
+        this.pattern = pattern;
+        this.prefix = prefix;
+    }
+
+    // Throws IllegalArgumentException for an empty pattern or one starting with a wildcard
+    public static TermPattern parse(String pattern) {
+        String normalized = WordsMappingService.normalizeWord(pattern.trim());
+        int wildcard = 0;
+        while (wildcard < normalized.length() && !isWildcard(normalized.charAt(wildcard))) {
+            wildcard++;
+        }
+        if (wildcard == 0) {
+            throw new IllegalArgumentException("A pattern must start with at least one letter: " + pattern);
+        }
+        return new TermPattern(normalized, normalized.substring(0, wildcard));
+    }
+
+    public static boolean isPattern(String word) {
+        return word.indexOf('*') >= 0 || word.indexOf('?') >= 0;
+    }
+
+    private static boolean isWildcard(char c) {
+        return c == '*' || c == '?';
+    }
+
+    public String prefix() {
+        return prefix;
+    }
+
+    // The smallest string above every term starting with the prefix
+    public String prefixEnd() {
+        char last = prefix.charAt(prefix.length() - 1);
+        return prefix.substring(0, prefix.length() - 1) + (char) (last + 1);
+    }
+
+    // True when the pattern is a plain prefix (index*), every term of the prefix range matches
+    public boolean isPrefixOnly() {
+        return pattern.length() == prefix.length() + 1 && pattern.charAt(prefix.length()) == '*';
+    }
+
+    // Glob match with backtracking to the last *, linear for patterns with a single *
+    public boolean matches(String term) {
+        int p = 0;
+        int t = 0;
+        int star = -1;
+        int starMatch = 0;
+        while (t < term.length()) {
+            if (p < pattern.length() && (pattern.charAt(p) == '?' || pattern.charAt(p) == term.charAt(t))) {
+                p++;
+                t++;
+            } else if (p < pattern.length() && pattern.charAt(p) == '*') {
+                star = p++;
+                starMatch = t;
+            } else if (star >= 0) {
+                p = star + 1;
+                t = ++starMatch;
+            } else {
+                return false;
+            }
+        }
+        while (p < pattern.length() && pattern.charAt(p) == '*') {
+            p++;
+        }
+        return p == pattern.length();
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
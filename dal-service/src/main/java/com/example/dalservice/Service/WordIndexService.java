@@ -0,0 +1,741 @@
+package com.example.dalservice.Service;
+
+import com.example.dalservice.entity.WordsMapping;
+import com.example.dalservice.repository.JDBC.WordsMappingJdbcRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// In-process inverted index over words_mapping: a term dictionary of normalized words, each pointing to its
+// postings (article ids ascending, with the OffsetCodec-packed offsets of every article) as they are stored.
+// Built from the table in keyset pages after startup and kept current by the writes of WordsMappingService,
+// which are applied once their transaction commits. Lookups are served from memory; while the index is
+// building, and for cold terms, they go to the database.
+// A term that does not fit into dal.word-index.max-bytes is cold: it is dropped from memory and stays with
+// the database, so any word that is neither indexed nor cold does not exist.
+// Next to it a sorted term dictionary holds every word, cold ones included, so prefix and wildcard patterns
+// expand to their words with one range scan; fuzzy lookups run a Levenshtein automaton along a front coded
+// copy of it (FrontCodedTerms).
+// It also holds the length (Article.size) of every indexed article with their sum, the document lengths of
+// BM25 ranking; the document frequency of a word is the size of its postings, so both follow every write.
+// A deleted article is hidden from lookups as soon as it is deleted, and its postings are dropped later by one walk
+// over the dictionary that runs off the request thread (see ArticleDeletionService). Until then readers step over
+// its id as they go, the postings are not copied without it.
+// Only the writes of this process are seen, so it must stay disabled when several DAL instances share a database.
+@Service
+public class WordIndexService {
+    private static final Logger logger = LoggerFactory.getLogger(WordIndexService.class);
+
+    // Rough heap cost of a term entry (map node, String and its array) and of one posting (id, array slot,
+    // byte[] header) on top of the packed offsets, used for the budget
+    private static final int TERM_OVERHEAD = 96;
+    private static final int POSTING_OVERHEAD = 32;
+    // Recent words a fuzzy lookup walks next to the dictionary copy before it is taken again: at least
+    // MIN_RECENT_TERMS, or one per RECENT_TERMS_RATIO copied words
+    private static final int MIN_RECENT_TERMS = 1024;
+    private static final int RECENT_TERMS_RATIO = 64;
+
+    private final WordsMappingJdbcRepository wordsMappingJdbcRepository;
+    private final boolean enabled;
+    private final long maxBytes;
+    private final int buildBatchSize;
+
+    private final ConcurrentHashMap<String, Postings> terms = new ConcurrentHashMap<>();
+    // Every known word in sorted order, sharing its String with the terms key. Only changed inside a
+    // terms.compute for the same word, so it never disagrees with terms for long.
+    private final ConcurrentSkipListSet<String> dictionary = new ConcurrentSkipListSet<>();
+    // Front coded copy of the dictionary for fuzzy lookups, and the words added since it was taken with the
+    // sequence number of their addition. The copy is taken again once the recent words outgrow a fraction of it.
+    private volatile FrontCodedTerms copiedTerms = FrontCodedTerms.EMPTY;
+    private final ConcurrentSkipListMap<String, Long> recentTerms = new ConcurrentSkipListMap<>();
+    private final AtomicLong recentTermsSequence = new AtomicLong();
+    private final AtomicBoolean copyingTerms = new AtomicBoolean();
+    // Length of every indexed article and their sum, updated with the postings
+    private final ConcurrentHashMap<Long, Long> articleLengths = new ConcurrentHashMap<>();
+    private final AtomicLong totalArticleLength = new AtomicLong();
+    // Terms left to the database because the budget was full when they were indexed or grew
+    private final Set<String> coldTerms = ConcurrentHashMap.newKeySet();
+    // Articles deleted while the build is running, an earlier page may still hold their rows
+    private final Set<Long> deletedDuringBuild = ConcurrentHashMap.newKeySet();
+    // Deleted articles whose postings are still in the dictionary, sorted; lookups leave them out. Replaced as a
+    // whole under the lock of hide/unhide, deletes are rare and readers only pay when it is not empty.
+    private volatile long[] hiddenArticles = new long[0];
+    private final AtomicLong usedBytes = new AtomicLong();
+    private volatile boolean building;
+    private volatile boolean ready;
+
+    private final Counter hits;
+    private final Counter fallbacks;
+    private final Timer fuzzyLatency;
+
+    public WordIndexService(WordsMappingJdbcRepository wordsMappingJdbcRepository,
+                            MeterRegistry meterRegistry,
+                            @Value("${dal.word-index.enabled:false}") boolean enabled,
+                            @Value("${dal.word-index.max-bytes:268435456}") long maxBytes,
+                            @Value("${dal.word-index.build-batch-size:10000}") int buildBatchSize) {
+        if (maxBytes <= 0 || buildBatchSize <= 0) {
+            throw new IllegalArgumentException("dal.word-index.max-bytes and dal.word-index.build-batch-size must be positive");
+        }
+        this.wordsMappingJdbcRepository = wordsMappingJdbcRepository;
+        this.enabled = enabled;
+        this.maxBytes = maxBytes;
+        this.buildBatchSize = buildBatchSize;
+
+        Gauge.builder("dal.word-index.terms", terms, ConcurrentHashMap::size).register(meterRegistry);
+        Gauge.builder("dal.word-index.cold-terms", coldTerms, Set::size).register(meterRegistry);
+        Gauge.builder("dal.word-index.dictionary-terms", dictionary, Set::size).register(meterRegistry);
+        Gauge.builder("dal.word-index.bytes", usedBytes, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("dal.word-index.articles", articleLengths, ConcurrentHashMap::size).register(meterRegistry);
+        this.hits = Counter.builder("dal.word-index.hits").register(meterRegistry);
+        this.fallbacks = Counter.builder("dal.word-index.fallbacks").register(meterRegistry);
+        // p99 is what the fuzzy latency targets are stated against
+        this.fuzzyLatency = Timer.builder("dal.word-index.fuzzy.latency").publishPercentiles(0.5, 0.99).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (enabled) {
+            build();
+        }
+    }
+
+    // Load every row of words_mapping, lookups are answered from memory once this returns
+    public void build() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        building = true;
+        String lastWord = "";
+        long lastArticleId = Long.MIN_VALUE;
+        long rows = 0;
+        while (true) {
+            List<WordsMapping> page = wordsMappingJdbcRepository.findPageAfter(lastWord, lastArticleId, buildBatchSize);
+            for (WordsMapping mapping : page) {
+                if (deletedDuringBuild.contains(mapping.getArticleId())) {
+                    continue;
+                }
+                try {
+                    // a row written since the page was read is already in the index and is newer
+                    put(mapping.getWord(), mapping.getArticleId(), WordsMappingService.packedOffsets(mapping), true);
+                } catch (RuntimeException e) {
+                    // unreadable legacy offsets, the database keeps answering for this word
+                    logger.error("Could not index word {} in article {}", mapping.getWord(), mapping.getArticleId(), e);
+                    markCold(mapping.getWord());
+                }
+            }
+            rows += page.size();
+            if (page.size() < buildBatchSize) {
+                break;
+            }
+            WordsMapping last = page.get(page.size() - 1);
+            lastWord = last.getWord();
+            lastArticleId = last.getArticleId();
+        }
+        long lastIndexedId = Long.MIN_VALUE;
+        while (true) {
+            List<long[]> page = wordsMappingJdbcRepository.findIndexedArticleSizesAfter(lastIndexedId, buildBatchSize);
+            for (long[] article : page) {
+                if (!deletedDuringBuild.contains(article[0])) {
+                    // an article indexed since the page was read is already registered
+                    putLength(article[0], article[1], true);
+                }
+            }
+            if (page.size() < buildBatchSize) {
+                break;
+            }
+            lastIndexedId = page.get(page.size() - 1)[0];
+        }
+        building = false;
+        deletedDuringBuild.clear();
+        copyDictionary();
+        ready = true;
+        logger.info("Word index built from {} rows in {} ms: {} terms, {} cold terms, {} bytes, {} articles", rows,
+                (System.nanoTime() - start) / 1_000_000, terms.size(), coldTerms.size(), usedBytes.get(), articleLengths.size());
+    }
+
+    // Mappings of a normalized word, or empty when the database has to answer: the index is disabled or
+    // still building, or the word is a cold term
+    public Optional<List<WordsMapping>> find(String word) {
+        return findPage(word, Long.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    // At most limit mappings of a normalized word with an article id above afterArticleId, or empty when the
+    // database has to answer (see find)
+    public Optional<List<WordsMapping>> findPage(String word, long afterArticleId, int limit) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        Postings postings = terms.get(word);
+        // a term turns cold before it leaves the dictionary, so a missing term is checked for that second
+        if (postings == null && coldTerms.contains(word)) {
+            fallbacks.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        if (postings == null) {
+            return Optional.of(List.of());
+        }
+        postings = visible(postings);
+        return Optional.of(postings.toMappings(word, postings.indexAfter(afterArticleId), limit));
+    }
+
+    // The postings of a normalized word for query evaluation, or empty when the database has to answer (see find).
+    // The returned version never changes, later writes create a new one.
+    Optional<Postings> findPostings(String word) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        Postings postings = terms.get(word);
+        if (postings == null && coldTerms.contains(word)) {
+            fallbacks.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(postings == null ? Postings.EMPTY : visible(postings));
+    }
+
+    // The postings as readers see them, skipping the hidden articles. A view on the same arrays, nothing is copied.
+    private Postings visible(Postings postings) {
+        return postings.hiding(hiddenArticles);
+    }
+
+    // At most max words of the dictionary matching the pattern, in sorted order, or empty when the database has
+    // to answer because the index is disabled or still building. Only the pattern's prefix range is scanned.
+    // A cold word can be listed after its last article was deleted, its postings are then empty; so can any word
+    // of a deleted article until its postings are dropped.
+    public Optional<List<String>> expand(TermPattern pattern, int max) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        List<String> words = new ArrayList<>();
+        for (String word : dictionary.subSet(pattern.prefix(), true, pattern.prefixEnd(), false)) {
+            if (words.size() >= max) {
+                break;
+            }
+            if (pattern.isPrefixOnly() || pattern.matches(word)) {
+                words.add(word);
+            }
+        }
+        return Optional.of(words);
+    }
+
+    // At most max words of the dictionary within the automaton's edit distance, nearest first and, at the same
+    // distance, held by the most articles first (a cold word counts as the most frequent, its postings are not
+    // in memory), or empty when the index is disabled or still building.
+    // The automaton runs along a front coded copy of the dictionary plus the words added since it was taken:
+    // the states of the prefix a word shares with the previous one are reused, and once a prefix can no longer
+    // match every word starting with it is passed over. With max candidates found it only looks for words no
+    // farther than the farthest of them.
+    Optional<List<FuzzyTerm>> fuzzy(LevenshteinAutomaton automaton, int max) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        long start = System.nanoTime();
+        // recent words first: a refresh drops them only after the copy holding them is published
+        FrontCodedTerms recent = FrontCodedTerms.of(recentTerms.keySet());
+        FrontCodedTerms copied = copiedTerms;
+        if (recent.size() > Math.max(MIN_RECENT_TERMS, copied.size() / RECENT_TERMS_RATIO)) {
+            copied = copyDictionary();
+            recent = FrontCodedTerms.of(recentTerms.keySet());
+        }
+        FuzzyWalk walk = new FuzzyWalk(automaton, max);
+        walk.walk(copied);
+        walk.walk(recent);
+        List<FuzzyTerm> candidates = new ArrayList<>(walk.best);
+        candidates.sort(FuzzyTerm.ORDER);
+        fuzzyLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return Optional.of(candidates);
+    }
+
+    // Take a new front coded copy of the dictionary for fuzzy lookups, unless another thread is already at it
+    private FrontCodedTerms copyDictionary() {
+        if (!copyingTerms.compareAndSet(false, true)) {
+            return copiedTerms;
+        }
+        try {
+            // a word stamped up to here was added to the dictionary before the copy starts, so it is either in
+            // the copy or deleted; a word added again later gets a newer stamp and stays recent
+            long copiedUpTo = recentTermsSequence.get();
+            FrontCodedTerms copy = FrontCodedTerms.of(dictionary);
+            copiedTerms = copy;
+            recentTerms.values().removeIf(sequence -> sequence <= copiedUpTo);
+            return copy;
+        } finally {
+            copyingTerms.set(false);
+        }
+    }
+
+    private void addToDictionary(String word) {
+        if (dictionary.add(word)) {
+            recentTerms.put(word, recentTermsSequence.incrementAndGet());
+        }
+    }
+
+    // Index rows that were just stored: each one holds the whole offsets of its word in its article
+    public void indexAfterCommit(Collection<WordsMapping> wordMappings) {
+        if (!enabled || wordMappings.isEmpty()) {
+            return;
+        }
+        List<WordsMapping> rows = new ArrayList<>(wordMappings);
+        afterCommit(() -> {
+            for (WordsMapping mapping : rows) {
+                put(mapping.getWord(), mapping.getArticleId(), WordsMappingService.packedOffsets(mapping), false);
+            }
+        });
+    }
+
+    // Register the length of an article whose mappings were just stored and that is now indexed
+    public void indexArticleAfterCommit(long articleId, long length) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> putLength(articleId, length, false));
+    }
+
+    // Hide deleted articles from lookups and drop their lengths, without touching the dictionary. Cheap enough for
+    // the request thread: their postings stay until removeArticlesAfterCommit drops them.
+    public void hideArticlesAfterCommit(Collection<Long> articleIds) {
+        if (!enabled || articleIds.isEmpty()) {
+            return;
+        }
+        long[] sorted = articleIds.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+        afterCommit(() -> hide(sorted));
+    }
+
+    // Drop the postings of deleted articles, hiding them first. Deletes are rare next to lookups, so this walks the
+    // whole dictionary instead of keeping an article-to-terms map in memory: with millions of words it must not run
+    // on a request thread, ArticleDeletionService runs it on its purge thread.
+    public void removeArticlesAfterCommit(Collection<Long> articleIds) {
+        if (!enabled || articleIds.isEmpty()) {
+            return;
+        }
+        long[] sorted = articleIds.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+        afterCommit(() -> {
+            hide(sorted);
+            for (String word : terms.keySet()) {
+                terms.computeIfPresent(word, (w, postings) -> {
+                    Postings remaining = postings.without(sorted);
+                    usedBytes.addAndGet((remaining == null ? 0 : remaining.bytes(w)) - postings.bytes(w));
+                    if (remaining == null) {
+                        dictionary.remove(w);
+                    }
+                    return remaining;
+                });
+            }
+            unhide(sorted);
+        });
+    }
+
+    private synchronized void hide(long[] sorted) {
+        if (building) {
+            for (long articleId : sorted) {
+                deletedDuringBuild.add(articleId);
+            }
+        }
+        for (long articleId : sorted) {
+            articleLengths.computeIfPresent(articleId, (id, length) -> {
+                totalArticleLength.addAndGet(-length);
+                return null;
+            });
+        }
+        long[] hidden = Arrays.copyOf(hiddenArticles, hiddenArticles.length + sorted.length);
+        System.arraycopy(sorted, 0, hidden, hiddenArticles.length, sorted.length);
+        Arrays.sort(hidden);
+        hiddenArticles = Arrays.stream(hidden).distinct().toArray();
+    }
+
+    private synchronized void unhide(long[] sorted) {
+        hiddenArticles = Arrays.stream(hiddenArticles).filter(id -> Arrays.binarySearch(sorted, id) < 0).toArray();
+    }
+
+    private boolean isHidden(long articleId) {
+        long[] hidden = hiddenArticles;
+        return hidden.length > 0 && Arrays.binarySearch(hidden, articleId) >= 0;
+    }
+
+    // Number of indexed articles, the collection size of BM25
+    public int articleCount() {
+        return articleLengths.size();
+    }
+
+    // Sum of the lengths of the indexed articles
+    public long totalArticleLength() {
+        return totalArticleLength.get();
+    }
+
+    // Length of an indexed article, -1 when it is not known
+    public long articleLength(long articleId) {
+        Long length = articleLengths.get(articleId);
+        return length == null ? -1 : length;
+    }
+
+    // Number of words in the term dictionary
+    public int dictionarySize() {
+        return dictionary.size();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Estimated heap used by the indexed terms
+    public long usedBytes() {
+        return usedBytes.get();
+    }
+
+    private void put(String word, long articleId, byte[] packedOffsets, boolean keepExisting) {
+        if (packedOffsets == null || coldTerms.contains(word) || isHidden(articleId)) {
+            // a cold word is in the dictionary since it was first seen, a deleted article takes no more postings
+            return;
+        }
+        terms.compute(word, (w, postings) -> {
+            addToDictionary(w);
+            Postings updated = postings == null ? Postings.EMPTY.with(articleId, packedOffsets, false)
+                    : postings.with(articleId, packedOffsets, keepExisting);
+            long before = postings == null ? 0 : postings.bytes(w);
+            long delta = updated.bytes(w) - before;
+            if (usedBytes.get() + delta > maxBytes) {
+                // mark it cold first so a lookup never sees the term missing without seeing it cold
+                coldTerms.add(w);
+                usedBytes.addAndGet(-before);
+                return null;
+            }
+            usedBytes.addAndGet(delta);
+            return updated;
+        });
+    }
+
+    private void putLength(long articleId, long length, boolean keepExisting) {
+        if (isHidden(articleId)) {
+            return;
+        }
+        articleLengths.compute(articleId, (id, previous) -> {
+            if (previous != null && keepExisting) {
+                return previous;
+            }
+            totalArticleLength.addAndGet(length - (previous == null ? 0 : previous));
+            return length;
+        });
+    }
+
+    private void markCold(String word) {
+        addToDictionary(word);
+        coldTerms.add(word);
+        Postings removed = terms.remove(word);
+        if (removed != null) {
+            usedBytes.addAndGet(-removed.bytes(word));
+        }
+    }
+
+    // The index must only ever see committed rows, a rolled back write leaves it untouched
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // One fuzzy lookup: the automaton states along the current word and the best candidates so far
+    private final class FuzzyWalk {
+        private final LevenshteinAutomaton automaton;
+        private final int max;
+        // worst candidate at the head
+        private final PriorityQueue<FuzzyTerm> best = new PriorityQueue<>(FuzzyTerm.ORDER.reversed());
+        // a word can be both in the copy and recent
+        private final Set<String> queued = new HashSet<>();
+        private int bound;
+        // states[i] is the state after the first i chars of the word in buffer
+        private int[][] states = new int[0][];
+        private char[] buffer = new char[0];
+
+        FuzzyWalk(LevenshteinAutomaton automaton, int max) {
+            this.automaton = automaton;
+            this.max = max;
+            this.bound = automaton.maxEdits();
+        }
+
+        void walk(FrontCodedTerms words) {
+            int depth = 0;
+            int i = 0;
+            while (i < words.size()) {
+                int length = words.length(i);
+                ensureCapacity(length);
+                words.copySuffix(i, buffer);
+                depth = Math.min(depth, words.sharedPrefix(i));
+                boolean dead = false;
+                while (depth < length && !dead) {
+                    automaton.step(states[depth], buffer[depth], states[depth + 1]);
+                    depth++;
+                    dead = automaton.minDistance(states[depth]) > bound;
+                }
+                i++;
+                if (dead) {
+                    // pass over the words starting with the dead prefix, they share at least its length
+                    while (i < words.size() && words.sharedPrefix(i) >= depth) {
+                        i++;
+                    }
+                } else if (automaton.distance(states[depth]) <= bound) {
+                    offer(new String(buffer, 0, length), automaton.distance(states[depth]));
+                }
+            }
+        }
+
+        private void offer(String word, int distance) {
+            if (queued.contains(word)) {
+                return;
+            }
+            Postings postings = terms.get(word);
+            int articles = postings == null ? 0 : visible(postings).visibleSize();
+            if (articles == 0 && !coldTerms.contains(word)) {
+                // deleted since the copy was taken
+                return;
+            }
+            FuzzyTerm candidate = new FuzzyTerm(word, distance, articles == 0 ? Integer.MAX_VALUE : articles);
+            if (best.size() < max) {
+                best.add(candidate);
+                queued.add(word);
+            } else if (FuzzyTerm.ORDER.compare(candidate, best.peek()) < 0) {
+                queued.remove(best.poll().word());
+                best.add(candidate);
+                queued.add(word);
+            }
+            if (best.size() == max) {
+                bound = Math.min(bound, best.peek().distance());
+            }
+        }
+
+        private void ensureCapacity(int length) {
+            if (length >= states.length) {
+                int capacity = Math.max(16, length * 2);
+                int filled = states.length;
+                states = Arrays.copyOf(states, capacity + 1);
+                states[0] = automaton.start();
+                for (int i = Math.max(1, filled); i < states.length; i++) {
+                    states[i] = automaton.newState();
+                }
+                buffer = Arrays.copyOf(buffer, capacity);
+            }
+        }
+    }
+
+    // A dictionary word found by a fuzzy lookup with its edit distance and number of articles
+    static final class FuzzyTerm {
+        static final Comparator<FuzzyTerm> ORDER = Comparator.comparingInt(FuzzyTerm::distance)
+                .thenComparing(Comparator.comparingInt(FuzzyTerm::articles).reversed())
+                .thenComparing(FuzzyTerm::word);
+
+        private final String word;
+        private final int distance;
+        private final int articles;
+
+        FuzzyTerm(String word, int distance, int articles) {
+            this.word = word;
+            this.distance = distance;
+            this.articles = articles;
+        }
+
+        String word() {
+            return word;
+        }
+
+        int distance() {
+            return distance;
+        }
+
+        int articles() {
+            return articles;
+        }
+    }
+
+    // Postings of one term, ordered by article id. Readers only ever see a version through the dictionary and
+    // never read past its size, so adding a new highest article id (the usual case: ids grow) writes into the
+    // spare capacity shared with the previous version instead of copying the arrays.
+    // Only called under the dictionary's per-term lock, always on the current version.
+    // Readers get a view that skips the hidden (deleted, not yet purged) articles as they go, see hiding.
+    static final class Postings {
+        private static final long[] NONE = new long[0];
+        static final Postings EMPTY = new Postings(new long[0], new byte[0][], 0, 0);
+
+        private final long[] articleIds;
+        private final byte[][] offsets;
+        private final int size;
+        // packed offsets plus per-posting overhead, without the term entry
+        private final long postingBytes;
+        // sorted article ids readers skip, a few at a time
+        private final long[] hidden;
+
+        private Postings(long[] articleIds, byte[][] offsets, int size, long postingBytes) {
+            this(articleIds, offsets, size, postingBytes, NONE);
+        }
+
+        private Postings(long[] articleIds, byte[][] offsets, int size, long postingBytes, long[] hidden) {
+            this.articleIds = articleIds;
+            this.offsets = offsets;
+            this.size = size;
+            this.postingBytes = postingBytes;
+            this.hidden = hidden;
+        }
+
+        // Postings of one word read from the database, in any order
+        static Postings of(List<WordsMapping> mappings) {
+            List<WordsMapping> sorted = new ArrayList<>(mappings);
+            sorted.sort((a, b) -> Long.compare(a.getArticleId(), b.getArticleId()));
+            long[] ids = new long[sorted.size()];
+            byte[][] packed = new byte[sorted.size()][];
+            long bytes = 0;
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = sorted.get(i).getArticleId();
+                packed[i] = WordsMappingService.packedOffsets(sorted.get(i));
+                bytes += POSTING_OVERHEAD + (packed[i] == null ? 0 : packed[i].length);
+            }
+            return new Postings(ids, packed, ids.length, bytes);
+        }
+
+        long bytes(String word) {
+            return TERM_OVERHEAD + 2L * word.length() + postingBytes;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long articleId(int index) {
+            return articleIds[index];
+        }
+
+        byte[] packedOffsets(int index) {
+            return offsets[index];
+        }
+
+        Postings with(long articleId, byte[] packedOffsets, boolean keepExisting) {
+            int index = Arrays.binarySearch(articleIds, 0, size, articleId);
+            if (index >= 0) {
+                if (keepExisting) {
+                    return this;
+                }
+                byte[][] replaced = Arrays.copyOf(offsets, size);
+                replaced[index] = packedOffsets;
+                return new Postings(Arrays.copyOf(articleIds, size), replaced, size,
+                        postingBytes - offsets[index].length + packedOffsets.length);
+            }
+            long bytes = postingBytes + POSTING_OVERHEAD + packedOffsets.length;
+            int insertAt = -index - 1;
+            if (insertAt == size && size < articleIds.length) {
+                articleIds[size] = articleId;
+                offsets[size] = packedOffsets;
+                return new Postings(articleIds, offsets, size + 1, bytes);
+            }
+            int capacity = Math.max(4, size + (size >> 1) + 1);
+            long[] ids = new long[capacity];
+            byte[][] packed = new byte[capacity][];
+            System.arraycopy(articleIds, 0, ids, 0, insertAt);
+            System.arraycopy(offsets, 0, packed, 0, insertAt);
+            ids[insertAt] = articleId;
+            packed[insertAt] = packedOffsets;
+            System.arraycopy(articleIds, insertAt, ids, insertAt + 1, size - insertAt);
+            System.arraycopy(offsets, insertAt, packed, insertAt + 1, size - insertAt);
+            return new Postings(ids, packed, size + 1, bytes);
+        }
+
+        // This term without the given (sorted) articles, null when nothing is left
+        Postings without(long[] removedIds) {
+            int kept = 0;
+            long[] ids = null;
+            byte[][] packed = null;
+            long bytes = postingBytes;
+            for (int i = 0; i < size; i++) {
+                boolean removed = Arrays.binarySearch(removedIds, articleIds[i]) >= 0;
+                if (removed && ids == null) {
+                    ids = new long[size];
+                    packed = new byte[size][];
+                    System.arraycopy(articleIds, 0, ids, 0, i);
+                    System.arraycopy(offsets, 0, packed, 0, i);
+                    kept = i;
+                }
+                if (removed) {
+                    bytes -= POSTING_OVERHEAD + offsets[i].length;
+                } else if (ids != null) {
+                    ids[kept] = articleIds[i];
+                    packed[kept++] = offsets[i];
+                }
+            }
+            if (ids == null) {
+                return this;
+            }
+            return kept == 0 ? null : new Postings(ids, packed, kept, bytes);
+        }
+
+        // A view of this version that skips the given sorted article ids, sharing its arrays
+        Postings hiding(long[] hiddenIds) {
+            return hiddenIds.length == 0 ? this : new Postings(articleIds, offsets, size, postingBytes, hiddenIds);
+        }
+
+        // Whether readers skip the article at index
+        boolean isHidden(int index) {
+            return hidden.length > 0 && Arrays.binarySearch(hidden, articleIds[index]) >= 0;
+        }
+
+        // Articles readers see, a binary search per hidden id instead of a pass over the postings
+        int visibleSize() {
+            int visible = size;
+            for (long id : hidden) {
+                if (Arrays.binarySearch(articleIds, 0, size, id) >= 0) {
+                    visible--;
+                }
+            }
+            return visible;
+        }
+
+        // Position of the first article id above articleId
+        int indexAfter(long articleId) {
+            int index = Arrays.binarySearch(articleIds, 0, size, articleId);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+
+        // At most limit mappings from index from on, leaving out the hidden articles
+        List<WordsMapping> toMappings(String word, int from, int limit) {
+            List<WordsMapping> mappings = new ArrayList<>(Math.min(limit, size - from));
+            for (int i = from; i < size && mappings.size() < limit; i++) {
+                if (isHidden(i)) {
+                    continue;
+                }
+                WordsMapping mapping = new WordsMapping(word, articleIds[i]);
+                mapping.setPackedOffsets(offsets[i]);
+                mappings.add(mapping);
+            }
+            return mappings;
+        }
+    }
+}
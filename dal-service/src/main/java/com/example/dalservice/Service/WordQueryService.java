@@ -0,0 +1,570 @@
+package com.example.dalservice.Service;
+
+import com.example.dalservice.Service.WordIndexService.FuzzyTerm;
+import com.example.dalservice.Service.WordIndexService.Postings;
+import com.example.dalservice.codec.OffsetCodec;
+import com.example.dalservice.dto.FuzzyTermDTO;
+import com.example.dalservice.dto.PositionalMatchDTO;
+import com.example.dalservice.dto.PositionalResultDTO;
+import com.example.dalservice.dto.SearchHitDTO;
+import com.example.dalservice.dto.TermExpansionDTO;
+import com.example.dalservice.dto.WordQueryMatchDTO;
+import com.example.dalservice.dto.WordQueryResultDTO;
+import com.example.dalservice.entity.WordsMapping;
+import com.example.dalservice.repository.JDBC.WordsMappingJdbcRepository;
+import com.example.dalservice.repository.JPA.WordsMappingJpaRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.BiFunction;
+
+// Boolean queries over several words, evaluated on the sorted article id lists of their postings:
+// an article matches when it holds every word of all, at least one word of any (if given) and no word of not.
+// The all lists are intersected starting from the rarest one, every other list is only advanced to the
+// current candidate, jumping ahead along skip pointers instead of stepping through every posting, so the
+// work follows the rarest list rather than the most frequent word. Matches come out in article id order
+// and are paged with the same cursors as WordsMappingService.findWordsByWord.
+// Words in any and not may be patterns (index*, colo?r, see TermPattern), expanded through the sorted term
+// dictionary of the word index into at most dal.word-query.max-expansions words each.
+// Fuzzy lookups find the words within one or two edits of a word in the same dictionary.
+// Ranked searches score the articles holding any of the words with BM25 and keep the best k in a bounded heap.
+// Phrase and proximity queries intersect the article ids of their words the same way and only then merge the
+// stored offsets of each candidate article (PositionalMatcher), the article content is never read.
+@Service
+public class WordQueryService {
+    private static final long EXHAUSTED = Long.MAX_VALUE;
+    // Highest score first, ties by article id
+    private static final Comparator<SearchHitDTO> HIT_ORDER = Comparator.comparingDouble(SearchHitDTO::getScore).reversed()
+            .thenComparing(SearchHitDTO::getArticleId);
+    private static final int EXPANSION_PAGE_SIZE = 1000;
+    // Beyond two edits nearly every short word is a candidate
+    private static final int MAX_FUZZY_EDITS = 2;
+    private static final int MAX_WITHIN = 1000;
+
+    private final WordIndexService wordIndexService;
+    private final WordsMappingJpaRepository wordsMappingRepository;
+    private final WordsMappingJdbcRepository wordsMappingJdbcRepository;
+
+    @Value("${dal.word-query.max-terms:32}")
+    private int maxTerms = 32;
+
+    @Value("${dal.word-query.max-expansions:256}")
+    private int maxExpansions = 256;
+
+    @Value("${dal.word-fuzzy.max-terms:20}")
+    private int maxFuzzyTerms = 20;
+
+    @Value("${dal.search.max-results:100}")
+    private int maxResults = 100;
+
+    // BM25 term frequency saturation and document length normalization
+    @Value("${dal.search.bm25.k1:1.2}")
+    private double k1 = 1.2;
+
+    @Value("${dal.search.bm25.b:0.75}")
+    private double b = 0.75;
+
+    // chars allowed between two adjacent words of a phrase: up to 2 no other word fits in between, more lets
+    // separators like " - " through but may also let a one letter word through
+    @Value("${dal.word-phrase.max-separator:2}")
+    private int maxSeparator = 2;
+
+    // offsets only give chars, "within N words" allows N times this many chars between the words
+    @Value("${dal.word-phrase.chars-per-word:8}")
+    private int charsPerWord = 8;
+
+    // matches listed per article, all of them are counted
+    @Value("${dal.word-phrase.max-spans:100}")
+    private int maxSpans = 100;
+
+    @Value("${dal.words-mapping.max-page-size:1000}")
+    private int maxPageSize = 1000;
+
+    public WordQueryService(WordIndexService wordIndexService, WordsMappingJpaRepository wordsMappingRepository,
+                            WordsMappingJdbcRepository wordsMappingJdbcRepository) {
+        this.wordIndexService = wordIndexService;
+        this.wordsMappingRepository = wordsMappingRepository;
+        this.wordsMappingJdbcRepository = wordsMappingJdbcRepository;
+    }
+
+    // The words matching a pattern in sorted order, at most limit (capped at dal.word-query.max-expansions).
+    // Throws IllegalArgumentException for a pattern without a leading letter or a limit below 1.
+    public TermExpansionDTO expand(String pattern, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        TermPattern termPattern = TermPattern.parse(pattern);
+        int max = Math.min(limit, maxExpansions);
+        // one word more than asked for tells whether the list is complete
+        List<String> words = expandTerms(termPattern, max + 1);
+        if (words.size() <= max) {
+            return new TermExpansionDTO(termPattern.toString(), words, false);
+        }
+        return new TermExpansionDTO(termPattern.toString(), words.subList(0, max), true);
+    }
+
+    // The words within maxEdits (1 or 2) edits of word, at most maxTerms (capped at dal.word-fuzzy.max-terms) of them
+    // nearest first and, at the same distance, the most frequent first, each with its first limit mappings (capped
+    // at dal.words-mapping.max-page-size). The word itself is included at distance 0 when it exists.
+    // Candidates only come from the term dictionary of the word index, there is no database fallback: without the
+    // dictionary every distinct word would have to be read. Throws IllegalStateException while the index is not
+    // ready and IllegalArgumentException for an empty word or pattern, maxEdits outside 1..2 or maxTerms or limit below 1.
+    public List<FuzzyTermDTO> fuzzy(String word, int maxEdits, int maxTerms, int limit) {
+        if (word == null || word.isBlank() || TermPattern.isPattern(word)) {
+            throw new IllegalArgumentException("A fuzzy lookup needs a single word");
+        }
+        if (maxEdits < 1 || maxEdits > MAX_FUZZY_EDITS) {
+            throw new IllegalArgumentException("maxEdits must be 1 or 2");
+        }
+        if (maxTerms <= 0 || limit <= 0) {
+            throw new IllegalArgumentException("maxTerms and limit must be positive");
+        }
+        LevenshteinAutomaton automaton = new LevenshteinAutomaton(WordsMappingService.normalizeWord(word.trim()), maxEdits);
+        List<FuzzyTerm> candidates = wordIndexService.fuzzy(automaton, Math.min(maxTerms, maxFuzzyTerms))
+                .orElseThrow(() -> new IllegalStateException("Fuzzy lookups are not available until the word index is built"));
+        int pageSize = Math.min(limit, maxPageSize);
+        List<FuzzyTermDTO> terms = new ArrayList<>(candidates.size());
+        for (FuzzyTerm candidate : candidates) {
+            // cold words come from the database, one row more than the page tells whether another page follows
+            List<WordsMapping> rows = wordIndexService.findPage(candidate.word(), Long.MIN_VALUE, pageSize + 1)
+                    .orElseGet(() -> wordsMappingRepository.findByWordAfter(candidate.word(), Long.MIN_VALUE, PageRequest.of(0, pageSize + 1)));
+            if (rows.isEmpty()) {
+                // a cold word whose last article was deleted
+                continue;
+            }
+            if (rows.size() <= pageSize) {
+                terms.add(new FuzzyTermDTO(candidate.word(), candidate.distance(), rows, null));
+            } else {
+                List<WordsMapping> page = rows.subList(0, pageSize);
+                terms.add(new FuzzyTermDTO(candidate.word(), candidate.distance(), page,
+                        WordsMappingService.encodeCursor(page.get(pageSize - 1).getArticleId())));
+            }
+        }
+        return terms;
+    }
+
+    // The k articles (capped at dal.search.max-results) that rank highest for the words with BM25, best first,
+    // each with the mappings of the words it holds. Per word and article:
+    //   idf * tf * (k1 + 1) / (tf + k1 * (1 - b + b * length / average length))
+    // with tf the number of offsets of the word in the article, length the article's size and
+    // idf = ln(1 + (N - df + 0.5) / (df + 0.5)) for N indexed articles, df of them holding the word.
+    // The postings are walked once in article id order and every article is scored as it comes, so only the
+    // k best are ever kept. The word index holds df (the postings size) and the article lengths, so it must be
+    // ready: throws IllegalStateException while it is not, IllegalArgumentException for no words, a pattern,
+    // more than dal.word-query.max-terms words or k below 1.
+    public List<SearchHitDTO> search(Collection<String> words, int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+        List<String> queryWords = normalize(words);
+        if (queryWords.isEmpty()) {
+            throw new IllegalArgumentException("A search needs at least one word");
+        }
+        if (queryWords.stream().anyMatch(TermPattern::isPattern)) {
+            throw new IllegalArgumentException("Patterns are not supported in ranked searches");
+        }
+        if (queryWords.size() > maxTerms) {
+            throw new IllegalArgumentException("At most " + maxTerms + " words per query");
+        }
+        if (!wordIndexService.isReady()) {
+            throw new IllegalStateException("Ranked searches are not available until the word index is built");
+        }
+        int articles = wordIndexService.articleCount();
+        if (articles == 0) {
+            return List.of();
+        }
+        double averageLength = Math.max(1.0, (double) wordIndexService.totalArticleLength() / articles);
+        List<PostingCursor> cursors = cursors(queryWords, new HashMap<>());
+        double[] idf = new double[cursors.size()];
+        for (int i = 0; i < idf.length; i++) {
+            // an article can hold a word before it is counted as indexed, df must not pass N
+            int df = Math.min(cursors.get(i).size(), articles);
+            idf[i] = Math.log(1 + (articles - df + 0.5) / (df + 0.5));
+        }
+
+        int size = Math.min(k, maxResults);
+        // worst hit at the head
+        PriorityQueue<SearchHitDTO> best = new PriorityQueue<>(size + 1, HIT_ORDER.reversed());
+        for (long articleId = union(cursors, Long.MIN_VALUE); articleId < EXHAUSTED; articleId = union(cursors, articleId + 1)) {
+            long length = wordIndexService.articleLength(articleId);
+            double norm = k1 * (1 - b + b * (length < 0 ? averageLength : length) / averageLength);
+            double score = 0;
+            for (int i = 0; i < cursors.size(); i++) {
+                PostingCursor cursor = cursors.get(i);
+                if (cursor.advance(articleId) && cursor.current() == articleId && cursor.packedOffsets() != null) {
+                    int tf = OffsetCodec.count(cursor.packedOffsets());
+                    score += idf[i] * tf * (k1 + 1) / (tf + norm);
+                }
+            }
+            if (best.size() < size || score > best.peek().getScore()) {
+                best.add(new SearchHitDTO(articleId, score, null));
+                if (best.size() > size) {
+                    best.poll();
+                }
+            }
+        }
+        List<SearchHitDTO> hits = new ArrayList<>(best);
+        hits.sort(HIT_ORDER);
+        // the mappings of the k hits only, looked up in the postings again
+        List<SearchHitDTO> withMappings = new ArrayList<>(hits.size());
+        for (SearchHitDTO hit : hits) {
+            List<WordsMapping> mappings = new ArrayList<>();
+            for (PostingCursor cursor : cursors) {
+                WordsMapping mapping = cursor.find(hit.getArticleId());
+                if (mapping != null) {
+                    mappings.add(mapping);
+                }
+            }
+            withMappings.add(new SearchHitDTO(hit.getArticleId(), hit.getScore(), mappings));
+        }
+        return withMappings;
+    }
+
+    // One page of the articles matching the query: at most limit (capped at dal.words-mapping.max-page-size)
+    // after the cursor of the previous page, null for the first page. Each match carries the mappings of the
+    // all and any words found in the article. Throws IllegalArgumentException for a query without all or any
+    // words, more than dal.word-query.max-terms words, a limit below 1 or an unknown cursor.
+    public WordQueryResultDTO query(Collection<String> all, Collection<String> any, Collection<String> not, String cursor, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        List<String> allWords = normalize(all);
+        if (allWords.stream().anyMatch(TermPattern::isPattern)) {
+            throw new IllegalArgumentException("Patterns are only supported in any and not");
+        }
+        List<String> anyWords = normalize(any);
+        List<String> notWords = normalize(not);
+        if (allWords.isEmpty() && anyWords.isEmpty()) {
+            // not on its own would match every other article
+            throw new IllegalArgumentException("A query needs at least one word in all or any");
+        }
+        if (allWords.size() + anyWords.size() + notWords.size() > maxTerms) {
+            throw new IllegalArgumentException("At most " + maxTerms + " words per query");
+        }
+        // a word in both all and any already satisfies any, an any whose patterns match no word satisfies nothing
+        boolean anySatisfied = anyWords.isEmpty() || anyWords.stream().anyMatch(allWords::contains);
+        // patterns count as one word towards max-terms, their expansions are capped on their own
+        anyWords = expandPatterns(anyWords);
+        notWords = expandPatterns(notWords);
+        int pageSize = Math.min(limit, maxPageSize);
+        long after = cursor == null ? Long.MIN_VALUE : WordsMappingService.decodeCursor(cursor);
+
+        Map<String, Postings> postings = new HashMap<>();
+        List<PostingCursor> required = cursors(allWords, postings);
+        List<PostingCursor> optional = cursors(anyWords, postings);
+        List<PostingCursor> excluded = cursors(notWords, postings);
+        // rarest first, it drives the intersection
+        List<PostingCursor> intersection = new ArrayList<>(required);
+        intersection.sort(Comparator.comparingInt(PostingCursor::size));
+
+        // one match more than the page tells whether another page follows
+        List<WordQueryMatchDTO> matches = new ArrayList<>();
+        long candidate = after;
+        while (matches.size() <= pageSize && candidate < EXHAUSTED) {
+            candidate = intersection.isEmpty() ? union(optional, candidate + 1) : intersect(intersection, optional, anySatisfied, candidate + 1);
+            if (candidate < EXHAUSTED && !containedInAny(excluded, candidate)) {
+                matches.add(match(candidate, required, optional));
+            }
+        }
+        if (matches.size() <= pageSize) {
+            return new WordQueryResultDTO(matches, null);
+        }
+        List<WordQueryMatchDTO> page = matches.subList(0, pageSize);
+        return new WordQueryResultDTO(page, WordsMappingService.encodeCursor(page.get(pageSize - 1).getArticleId()));
+    }
+
+    // One page of the articles holding the words as a phrase: in this order, each starting 1 to
+    // dal.word-phrase.max-separator chars after the end of the word before it, a word may occur more than once.
+    // Each match carries the spans [start, end) of the phrase in the article. Paged like query; throws
+    // IllegalArgumentException for no words, a pattern, more than dal.word-query.max-terms words, a limit below 1
+    // or an unknown cursor.
+    public PositionalResultDTO phrase(Collection<String> words, String cursor, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        List<String> sequence = new ArrayList<>();
+        if (words != null) {
+            for (String word : words) {
+                if (word != null && !word.isBlank()) {
+                    sequence.add(WordsMappingService.normalizeWord(word.trim()));
+                }
+            }
+        }
+        checkPositional(sequence);
+        return positional(sequence, (offsets, lengths) -> PositionalMatcher.phrase(offsets, lengths, maxSeparator), cursor, limit);
+    }
+
+    // One page of the articles holding the distinct words in any order within a few words of each other: at most
+    // within words in total between them, taken as within * dal.word-phrase.chars-per-word chars on top of the
+    // separators since the offsets do not count words. Matches carry the smallest spans holding all the words.
+    // Paged like query; throws IllegalArgumentException like phrase and for within outside 0..1000.
+    public PositionalResultDTO near(Collection<String> words, int within, String cursor, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        if (within < 0 || within > MAX_WITHIN) {
+            throw new IllegalArgumentException("within must be between 0 and " + MAX_WITHIN);
+        }
+        List<String> distinct = normalize(words);
+        checkPositional(distinct);
+        int maxGap = (distinct.size() - 1) * maxSeparator + within * charsPerWord;
+        return positional(distinct, (offsets, lengths) -> PositionalMatcher.near(offsets, lengths, maxGap), cursor, limit);
+    }
+
+    private void checkPositional(List<String> words) {
+        if (words.isEmpty()) {
+            throw new IllegalArgumentException("A phrase or proximity query needs at least one word");
+        }
+        if (words.stream().anyMatch(TermPattern::isPattern)) {
+            throw new IllegalArgumentException("Patterns are not supported in phrase and proximity queries");
+        }
+        if (words.size() > maxTerms) {
+            throw new IllegalArgumentException("At most " + maxTerms + " words per query");
+        }
+    }
+
+    // The articles holding every word are found on the article id lists first, as for an all query; only for
+    // those the offsets are decoded and handed to the matcher with the words' lengths, in the order of words.
+    // Decoding is linear in the packed offsets, the merge after it gallops over them.
+    private PositionalResultDTO positional(List<String> words, BiFunction<int[][], int[], int[]> matcher, String cursor, int limit) {
+        int pageSize = Math.min(limit, maxPageSize);
+        long after = cursor == null ? Long.MIN_VALUE : WordsMappingService.decodeCursor(cursor);
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(words));
+        List<PostingCursor> cursors = cursors(distinct, new HashMap<>());
+        List<PostingCursor> intersection = new ArrayList<>(cursors);
+        intersection.sort(Comparator.comparingInt(PostingCursor::size));
+        int[] lengths = new int[words.size()];
+        int[] distinctIndex = new int[words.size()];
+        for (int i = 0; i < lengths.length; i++) {
+            lengths[i] = words.get(i).length();
+            distinctIndex[i] = distinct.indexOf(words.get(i));
+        }
+
+        int[][] decoded = new int[distinct.size()][];
+        int[][] offsets = new int[words.size()][];
+        // one match more than the page tells whether another page follows
+        List<PositionalMatchDTO> matches = new ArrayList<>();
+        long candidate = after;
+        while (matches.size() <= pageSize && candidate < EXHAUSTED) {
+            candidate = intersect(intersection, List.of(), true, candidate + 1);
+            if (candidate == EXHAUSTED) {
+                break;
+            }
+            for (int i = 0; i < decoded.length; i++) {
+                byte[] packed = cursors.get(i).packedOffsets();
+                decoded[i] = packed == null ? new int[0] : OffsetCodec.decode(packed);
+            }
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = decoded[distinctIndex[i]];
+            }
+            int[] spans = matcher.apply(offsets, lengths);
+            if (spans.length > 0) {
+                List<int[]> listed = new ArrayList<>();
+                for (int i = 0; i < spans.length && listed.size() < maxSpans; i += 2) {
+                    listed.add(new int[]{spans[i], spans[i + 1]});
+                }
+                matches.add(new PositionalMatchDTO(candidate, spans.length / 2, listed));
+            }
+        }
+        if (matches.size() <= pageSize) {
+            return new PositionalResultDTO(matches, null);
+        }
+        List<PositionalMatchDTO> page = matches.subList(0, pageSize);
+        return new PositionalResultDTO(page, WordsMappingService.encodeCursor(page.get(pageSize - 1).getArticleId()));
+    }
+
+    // The first article id from target on held by every list (and one of the optional lists unless anySatisfied).
+    // Leapfrog: a list that lands past the target raises it and the lists are aligned again from the rarest one.
+    static long intersect(List<PostingCursor> intersection, List<PostingCursor> optional, boolean anySatisfied, long target) {
+        while (true) {
+            boolean aligned = true;
+            for (PostingCursor cursor : intersection) {
+                if (!cursor.advance(target)) {
+                    return EXHAUSTED;
+                }
+                if (cursor.current() > target) {
+                    target = cursor.current();
+                    aligned = false;
+                    break;
+                }
+            }
+            if (aligned) {
+                if (anySatisfied || containedInAny(optional, target)) {
+                    return target;
+                }
+                target++;
+            }
+        }
+    }
+
+    // The first article id from target on held by any of the lists
+    static long union(List<PostingCursor> optional, long target) {
+        long next = EXHAUSTED;
+        for (PostingCursor cursor : optional) {
+            if (cursor.advance(target)) {
+                next = Math.min(next, cursor.current());
+            }
+        }
+        return next;
+    }
+
+    private static boolean containedInAny(List<PostingCursor> cursors, long articleId) {
+        boolean found = false;
+        for (PostingCursor cursor : cursors) {
+            // every cursor is advanced, so it never falls behind the candidates
+            found |= cursor.advance(articleId) && cursor.current() == articleId;
+        }
+        return found;
+    }
+
+    private static WordQueryMatchDTO match(long articleId, List<PostingCursor> required, List<PostingCursor> optional) {
+        Map<String, WordsMapping> mappings = new LinkedHashMap<>();
+        for (PostingCursor cursor : required) {
+            mappings.putIfAbsent(cursor.word, cursor.mapping());
+        }
+        for (PostingCursor cursor : optional) {
+            if (cursor.advance(articleId) && cursor.current() == articleId) {
+                mappings.putIfAbsent(cursor.word, cursor.mapping());
+            }
+        }
+        return new WordQueryMatchDTO(articleId, new ArrayList<>(mappings.values()));
+    }
+
+    private List<String> expandPatterns(List<String> words) {
+        if (words.stream().noneMatch(TermPattern::isPattern)) {
+            return words;
+        }
+        LinkedHashSet<String> expanded = new LinkedHashSet<>();
+        for (String word : words) {
+            if (!TermPattern.isPattern(word)) {
+                expanded.add(word);
+                continue;
+            }
+            List<String> matching = expandTerms(TermPattern.parse(word), maxExpansions + 1);
+            if (matching.size() > maxExpansions) {
+                // dropping the rest would silently lose matches
+                throw new IllegalArgumentException("Pattern " + word + " matches more than " + maxExpansions + " words");
+            }
+            expanded.addAll(matching);
+        }
+        return new ArrayList<>(expanded);
+    }
+
+    // At most max words matching the pattern, from the term dictionary or, while it is not ready, from the
+    // distinct words of the pattern's prefix range in the database
+    private List<String> expandTerms(TermPattern pattern, int max) {
+        return wordIndexService.expand(pattern, max).orElseGet(() -> {
+            List<String> words = new ArrayList<>();
+            String from = pattern.prefix();
+            boolean firstPage = true;
+            while (words.size() < max) {
+                List<String> page = wordsMappingJdbcRepository.findWordsFrom(from, pattern.prefixEnd(), EXPANSION_PAGE_SIZE);
+                // every page after the first starts with the last word of the previous one
+                for (String word : firstPage ? page : page.subList(1, page.size())) {
+                    if (words.size() < max && (pattern.isPrefixOnly() || pattern.matches(word))) {
+                        words.add(word);
+                    }
+                }
+                if (page.size() < EXPANSION_PAGE_SIZE) {
+                    break;
+                }
+                from = page.get(page.size() - 1);
+                firstPage = false;
+            }
+            return words;
+        });
+    }
+
+    private List<PostingCursor> cursors(List<String> words, Map<String, Postings> postings) {
+        List<PostingCursor> cursors = new ArrayList<>(words.size());
+        for (String word : words) {
+            // each word is read once even if it is in several clauses, every clause gets its own cursor
+            Postings wordPostings = postings.computeIfAbsent(word, w -> wordIndexService.findPostings(w)
+                    .orElseGet(() -> Postings.of(wordsMappingRepository.findByWord(w))));
+            cursors.add(new PostingCursor(word, wordPostings));
+        }
+        return cursors;
+    }
+
+    private static List<String> normalize(Collection<String> words) {
+        LinkedHashSet<String> normalized = new LinkedHashSet<>();
+        if (words != null) {
+            for (String word : words) {
+                if (word != null && !word.isBlank()) {
+                    normalized.add(WordsMappingService.normalizeWord(word.trim()));
+                }
+            }
+        }
+        return new ArrayList<>(normalized);
+    }
+
+    // A forward-only position in one word's postings. Skip pointers every sqrt(n) postings let advance pass
+    // over runs of article ids below the target without looking at each of them.
+    static final class PostingCursor {
+        private final String word;
+        private final Postings postings;
+        private final int visible;
+        private final int skip;
+        private int position;
+
+        PostingCursor(String word, Postings postings) {
+            this.word = word;
+            this.postings = postings;
+            this.visible = postings.visibleSize();
+            this.skip = Math.max(1, (int) Math.sqrt(postings.size()));
+        }
+
+        // Articles holding the word, the hidden ones left out
+        int size() {
+            return visible;
+        }
+
+        // Move to the first article id at or above target, false when there is none left
+        boolean advance(long target) {
+            int size = postings.size();
+            while (position + skip < size && postings.articleId(position + skip) <= target) {
+                position += skip;
+            }
+            // hidden articles are stepped over, there are only ever a few
+            while (position < size && (postings.articleId(position) < target || postings.isHidden(position))) {
+                position++;
+            }
+            return position < size;
+        }
+
+        long current() {
+            return postings.articleId(position);
+        }
+
+        WordsMapping mapping() {
+            WordsMapping mapping = new WordsMapping(word, current());
+            mapping.setPackedOffsets(postings.packedOffsets(position));
+            return mapping;
+        }
+
+        byte[] packedOffsets() {
+            return postings.packedOffsets(position);
+        }
+
+        // The mapping of an article anywhere in the postings, null when the word is not in it. The position is left alone.
+        WordsMapping find(long articleId) {
+            int index = postings.indexAfter(articleId - 1);
+            if (index >= postings.size() || postings.articleId(index) != articleId || postings.isHidden(index)) {
+                return null;
+            }
+            WordsMapping mapping = new WordsMapping(word, articleId);
+            mapping.setPackedOffsets(postings.packedOffsets(index));
+            return mapping;
+        }
+    }
+}
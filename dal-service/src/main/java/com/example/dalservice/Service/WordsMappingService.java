@@ -1,56 +1,221 @@
 package com.example.dalservice.Service;
 
+import com.example.dalservice.codec.OffsetCodec;
+import com.example.dalservice.dto.WordsMappingPageDTO;
 import com.example.dalservice.entity.Article;
 import com.example.dalservice.entity.ArticleStatus;
 import com.example.dalservice.entity.WordsMapping;
+import com.example.dalservice.repository.JDBC.WordsMappingJdbcRepository;
 import com.example.dalservice.repository.JPA.WordsMappingJpaRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 
 @Service
 public class WordsMappingService {
     private final WordsMappingJpaRepository wordsMappingRepository;
+    private final WordsMappingJdbcRepository wordsMappingJdbcRepository;
     private final ArticleService articleService;
+    private final WordIndexService wordIndexService;
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${dal.words-mapping.max-page-size:1000}")
+    private int maxPageSize = 1000;
 
     // Constructor-based dependency injection
-    public WordsMappingService(WordsMappingJpaRepository wordsMappingRepository,ArticleService articleService){
+    public WordsMappingService(WordsMappingJpaRepository wordsMappingRepository,WordsMappingJdbcRepository wordsMappingJdbcRepository,ArticleService articleService,
+                               WordIndexService wordIndexService){
         this.wordsMappingRepository = wordsMappingRepository;
+        this.wordsMappingJdbcRepository = wordsMappingJdbcRepository;
         this.articleService =articleService;
+        this.wordIndexService = wordIndexService;
     }
     // Save a single WordsMapping entity
     public WordsMapping saveWordsMapping(WordsMapping wordsMapping) {
-        return wordsMappingRepository.save(wordsMapping);
+        normalizeWord(wordsMapping);
+        WordsMapping saved = wordsMappingRepository.save(wordsMapping);
+        wordIndexService.indexAfterCommit(List.of(saved));
+        return saved;
     }
-    // Find all word mappings by a specific word
+    // Find all word mappings by a specific word, from the in-memory index when it holds the word
     public List<WordsMapping> findWordsByWord(String word) {
-        return wordsMappingRepository.findByWord(word);
+        String normalized = normalizeWord(word);
+        return wordIndexService.find(normalized).orElseGet(() -> wordsMappingRepository.findByWord(normalized));
+    }
+    // One page of a word's mappings in article id order: at most limit articles (capped at
+    // dal.words-mapping.max-page-size) after the cursor of the previous page, null for the first page.
+    // Throws IllegalArgumentException for a limit below 1 or a cursor this service did not hand out.
+    public WordsMappingPageDTO findWordsByWord(String word, String cursor, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        int pageSize = Math.min(limit, maxPageSize);
+        String normalized = normalizeWord(word);
+        long after = cursor == null ? Long.MIN_VALUE : decodeCursor(cursor);
+        // one row more than the page tells whether another page follows
+        List<WordsMapping> rows = wordIndexService.findPage(normalized, after, pageSize + 1)
+                .orElseGet(() -> wordsMappingRepository.findByWordAfter(normalized, after, PageRequest.of(0, pageSize + 1)));
+        if (rows.size() <= pageSize) {
+            return new WordsMappingPageDTO(rows, null);
+        }
+        List<WordsMapping> page = rows.subList(0, pageSize);
+        return new WordsMappingPageDTO(page, encodeCursor(page.get(pageSize - 1).getArticleId()));
+    }
+
+    // The cursor is the last article id of a page, Base64 so callers treat it as a token rather than an id.
+    // Word queries (WordQueryService) page with the same cursors.
+    static String encodeCursor(long articleId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Long.toString(articleId).getBytes(StandardCharsets.US_ASCII));
+    }
 
+    static long decodeCursor(String cursor) {
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException included
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
     }
+
+    // A copy of the mapping with at most maxOffsets of its first offsets, none at all for 0.
+    // The mapping itself is left alone, it may be a managed entity or shared with the word index.
+    public static WordsMapping limitOffsets(WordsMapping mapping, int maxOffsets) {
+        WordsMapping limited = new WordsMapping(mapping.getWord(), mapping.getArticleId());
+        if (maxOffsets > 0) {
+            byte[] packed = packedOffsets(mapping);
+            if (packed != null && OffsetCodec.count(packed) > maxOffsets) {
+                packed = OffsetCodec.encode(OffsetCodec.decode(packed), maxOffsets);
+            }
+            limited.setPackedOffsets(packed);
+        }
+        return limited;
+    }
+
     public List<WordsMapping> getAllWordsMappings() {
         return this.wordsMappingRepository.findAll();
     }
-    // Save a list of word mappings and update the corresponding article's status
+    // Save a list of word mappings and update the corresponding article's status.
+    // Rows are written as batched JDBC upserts in the same transaction as the status update,
+    // so an article is never marked indexed with only part of its mappings stored.
+    @Transactional
     public List<WordsMapping> saveAllWordsMappings(List<WordsMapping> wordMappings) {
         // Extract the article ID from the first word mapping
         Long articleId = wordMappings.get(0).getArticleId();
 
-        // Check if the article exists
-        Optional<Article> articleOpt = articleService.getArticleById(articleId);
+        // Check if the article exists and is not being deleted
+        Optional<Article> articleOpt = articleService.getArticleById(articleId).filter(WordsMappingService::isLive);
         if (!articleOpt.isPresent()) {
             throw new NoSuchElementException("Article with ID " + articleId + " does not exist");
         }
 
+        // Store offsets only in packed form, whichever format the parser sent
+        for (WordsMapping mapping : wordMappings) {
+            normalizeWord(mapping);
+            packOffsets(mapping);
+        }
         // Save word mappings
-        List<WordsMapping> savedWordMappings = wordsMappingRepository.saveAll(wordMappings);
+        wordsMappingJdbcRepository.upsertAll(wordMappings);
+        wordIndexService.indexAfterCommit(wordMappings);
         // Update the article status to "indexed"
         articleService.updateArticleStatus(articleId, ArticleStatus.indexed);
+        wordIndexService.indexArticleAfterCommit(articleId, articleOpt.get().getSize());
+
+        return wordMappings;
+    }
+    // Append one batch of postings for an article, merging offsets into rows written by earlier batches.
+    // Batches for the same word arrive one at a time from the parser, and merging drops duplicate
+    // offsets, so a retried batch does not duplicate postings. The commit batch marks the article indexed.
+    @Transactional
+    public int appendWordsMappings(Long articleId, List<WordsMapping> wordMappings, boolean commit) {
+        Article article = articleService.getArticleById(articleId).filter(WordsMappingService::isLive)
+                .orElseThrow(() -> new NoSuchElementException("Article with ID " + articleId + " does not exist"));
+        if (!wordMappings.isEmpty()) {
+            Map<String, WordsMapping> incoming = new HashMap<>();
+            for (WordsMapping mapping : wordMappings) {
+                if (!articleId.equals(mapping.getArticleId())) {
+                    throw new IllegalArgumentException("All mappings in a batch must belong to article " + articleId);
+                }
+                normalizeWord(mapping);
+                packOffsets(mapping);
+                WordsMapping previous = incoming.putIfAbsent(mapping.getWord(), mapping);
+                if (previous != null) {
+                    previous.setPackedOffsets(OffsetCodec.merge(previous.getPackedOffsets(), mapping.getPackedOffsets()));
+                }
+            }
+            for (WordsMapping existing : wordsMappingRepository.findByArticleIdAndWordIn(articleId, incoming.keySet())) {
+                WordsMapping mapping = incoming.get(existing.getWord());
+                packOffsets(existing);
+                existing.setPackedOffsets(OffsetCodec.merge(existing.getPackedOffsets(), mapping.getPackedOffsets()));
+                incoming.put(existing.getWord(), existing);
+            }
+            wordsMappingJdbcRepository.upsertAll(incoming.values());
+            wordIndexService.indexAfterCommit(incoming.values());
+        }
+        if (commit) {
+            articleService.updateArticleStatus(articleId, ArticleStatus.indexed);
+            wordIndexService.indexArticleAfterCommit(articleId, article.getSize());
+        }
+        return wordMappings.size();
+    }
+
+    // Delete all of an article's mappings with one DELETE statement, returns the number of rows deleted.
+    // The index only hides the article, the caller drops its postings (WordIndexService.removeArticlesAfterCommit).
+    public int deleteByArticleId(Long articleId) {
+        int deleted = wordsMappingRepository.deleteByArticleId(articleId);
+        wordIndexService.hideArticlesAfterCommit(List.of(articleId));
+        return deleted;
+    }
+
+    // Delete at most limit mappings of an article, used by the background purge of tombstoned articles
+    public int deleteBatchByArticleId(Long articleId, int limit) {
+        return wordsMappingJdbcRepository.deleteBatchByArticleId(articleId, limit);
+    }
 
-        return savedWordMappings;
+    // Tombstoned articles take no more mappings
+    private static boolean isLive(Article article) {
+        return article.getStatus() != ArticleStatus.deleting;
     }
-    public void deleteByArticleId(Long articleId) {
-        wordsMappingRepository.deleteByArticleId(articleId);
+
+    // Words are stored lowercased like the parser produces them (ArticleParserService.convertToLower),
+    // so lookups compare with plain equality instead of LOWER(word)
+    public static String normalizeWord(String word) {
+        return word.toLowerCase(Locale.ROOT);
+    }
+
+    private static void normalizeWord(WordsMapping mapping) {
+        mapping.setWord(normalizeWord(mapping.getWord()));
+    }
+
+    // Move legacy json offsets into packed_offsets and drop the json copy
+    public static void packOffsets(WordsMapping mapping) {
+        mapping.setPackedOffsets(packedOffsets(mapping));
+        mapping.setOffsets(null);
+    }
+
+    // The packed offsets of a mapping, packing legacy json offsets without changing the mapping; null if it has none
+    public static byte[] packedOffsets(WordsMapping mapping) {
+        if (mapping.getPackedOffsets() == null && mapping.getOffsets() != null) {
+            try {
+                List<Integer> offsets = objectMapper.readValue(mapping.getOffsets(), new TypeReference<List<Integer>>() {});
+                return OffsetCodec.encode(offsets);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Invalid offsets for word " + mapping.getWord(), e);
+            }
+        }
+        return mapping.getPackedOffsets();
     }
 }
 
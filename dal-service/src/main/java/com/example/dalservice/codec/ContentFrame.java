@@ -0,0 +1,197 @@
+package com.example.dalservice.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Stored form of compressed article content: the content is cut into fixed-size blocks that are compressed
+// independently, behind a small index, so a byte range can be read by decompressing only the blocks it spans.
+//   int rawLength | int blockSize | int blockCount | int[blockCount] end of each compressed block | blocks
+// Ends are relative to the first block. All ints are big-endian.
+public final class ContentFrame {
+
+    private static final int HEADER_SIZE = 12;
+
+    private ContentFrame() {
+    }
+
+    public static byte[] encode(ContentCodec codec, byte[] content, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        int blockCount = (content.length + blockSize - 1) / blockSize;
+        byte[][] blocks = new byte[blockCount][];
+        int dataSize = 0;
+        for (int block = 0; block < blockCount; block++) {
+            int from = block * blockSize;
+            blocks[block] = codec.compress(content, from, Math.min(blockSize, content.length - from));
+            dataSize += blocks[block].length;
+        }
+        int indexSize = HEADER_SIZE + 4 * blockCount;
+        ByteBuffer frame = ByteBuffer.allocate(indexSize + dataSize);
+        frame.putInt(content.length).putInt(blockSize).putInt(blockCount);
+        int end = 0;
+        for (byte[] block : blocks) {
+            end += block.length;
+            frame.putInt(end);
+        }
+        for (byte[] block : blocks) {
+            frame.put(block);
+        }
+        return frame.array();
+    }
+
+    // Random access to the stored frame, e.g. a JDBC Blob, so a range can be read without loading the whole frame
+    public interface Source {
+        // length bytes starting at the 0-based position
+        byte[] read(long position, int length) throws IOException;
+    }
+
+    public static byte[] decode(ContentCodec codec, byte[] frame) {
+        return decodeRange(codec, frame, 0, rawLength(frame));
+    }
+
+    // Bytes [from, to) of the original content, decompressing only the blocks that hold them
+    public static byte[] decodeRange(ContentCodec codec, byte[] frame, long from, long to) {
+        ByteArrayOutputStream range = new ByteArrayOutputStream((int) Math.max(0, Math.min(to - from, rawLength(frame))));
+        try {
+            copyRange(codec, (position, length) -> Arrays.copyOfRange(frame, (int) position, (int) position + length), from, to, range);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return range.toByteArray();
+    }
+
+    // Write bytes [from, to) of the original content to out, one decompressed block at a time.
+    // Reads the header, the index and then only the compressed blocks the range spans.
+    public static void copyRange(ContentCodec codec, Source source, long from, long to, OutputStream out) throws IOException {
+        ByteBuffer header = ByteBuffer.wrap(source.read(0, HEADER_SIZE));
+        int rawLength = header.getInt();
+        int blockSize = header.getInt();
+        int blockCount = header.getInt();
+        if (from < 0 || to > rawLength || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") outside content of " + rawLength + " bytes");
+        }
+        if (from == to) {
+            return;
+        }
+        int firstBlock = (int) (from / blockSize);
+        int lastBlock = (int) ((to - 1) / blockSize);
+        // ends of the block before the range up to the last block of the range
+        int indexFrom = Math.max(0, firstBlock - 1);
+        ByteBuffer ends = ByteBuffer.wrap(source.read(HEADER_SIZE + 4L * indexFrom, 4 * (lastBlock - indexFrom + 1)));
+        long dataStart = HEADER_SIZE + 4L * blockCount;
+        byte[] block = new byte[blockSize];
+        for (int index = firstBlock; index <= lastBlock; index++) {
+            int start = index == 0 ? 0 : ends.getInt(4 * (index - 1 - indexFrom));
+            int end = ends.getInt(4 * (index - indexFrom));
+            long blockFrom = (long) index * blockSize;
+            int blockLength = (int) Math.min(blockSize, rawLength - blockFrom);
+            byte[] compressed = source.read(dataStart + start, end - start);
+            codec.decompress(compressed, 0, compressed.length, block, 0, blockLength);
+            // write the part of this block that lies inside the range
+            long copyFrom = Math.max(from, blockFrom);
+            long copyTo = Math.min(to, blockFrom + blockLength);
+            out.write(block, (int) (copyFrom - blockFrom), (int) (copyTo - copyFrom));
+        }
+    }
+
+    // Sizes at the start of a stored frame
+    public static final class Header {
+        private final int rawLength;
+        private final int blockSize;
+        private final int blockCount;
+
+        public Header(int rawLength, int blockSize, int blockCount) {
+            this.rawLength = rawLength;
+            this.blockSize = blockSize;
+            this.blockCount = blockCount;
+        }
+
+        public int getRawLength() {
+            return rawLength;
+        }
+
+        public int getBlockSize() {
+            return blockSize;
+        }
+
+        public int getBlockCount() {
+            return blockCount;
+        }
+
+        // Original bytes in block index, only the last block may be shorter than blockSize
+        public int blockLength(int index) {
+            return (int) Math.min(blockSize, rawLength - (long) index * blockSize);
+        }
+    }
+
+    public static Header readHeader(Source source) throws IOException {
+        ByteBuffer header = ByteBuffer.wrap(source.read(0, HEADER_SIZE));
+        return new Header(header.getInt(), header.getInt(), header.getInt());
+    }
+
+    // Where the compressed blocks are in the stored frame: blockCount + 1 positions, block index is the bytes
+    // [positions[index], positions[index + 1]). Reads the index only.
+    public static long[] blockPositions(Source source, Header header) throws IOException {
+        int blockCount = header.getBlockCount();
+        long dataStart = HEADER_SIZE + 4L * blockCount;
+        long[] positions = new long[blockCount + 1];
+        positions[0] = dataStart;
+        if (blockCount > 0) {
+            ByteBuffer ends = ByteBuffer.wrap(source.read(HEADER_SIZE, 4 * blockCount));
+            for (int index = 0; index < blockCount; index++) {
+                positions[index + 1] = dataStart + ends.getInt();
+            }
+        }
+        return positions;
+    }
+
+    // Block index of the original content from its compressed bytes, compressed[offset, offset + length)
+    public static byte[] decodeBlock(ContentCodec codec, Header header, int index, byte[] compressed, int offset, int length) {
+        if (index < 0 || index >= header.getBlockCount()) {
+            throw new IndexOutOfBoundsException("Block " + index + " outside content of " + header.getBlockCount() + " blocks");
+        }
+        byte[] block = new byte[header.blockLength(index)];
+        codec.decompress(compressed, offset, length, block, 0, block.length);
+        return block;
+    }
+
+    // Chars before each block of UTF-8 content and, last, the chars of all of it: blockCount + 1 counts, in the
+    // UTF-16 chars word offsets are counted in. A code point counts towards the block its first byte is in, so the
+    // block holding the char at a word offset is found without decoding the blocks before it.
+    public static int[] blockChars(byte[] content, int blockSize) {
+        int blockCount = (content.length + blockSize - 1) / blockSize;
+        int[] chars = new int[blockCount + 1];
+        for (int block = 0; block < blockCount; block++) {
+            int from = block * blockSize;
+            chars[block + 1] = chars[block] + countChars(content, from, Math.min(content.length, from + blockSize));
+        }
+        return chars;
+    }
+
+    // UTF-16 chars of the code points starting in bytes[from, to): one per leading byte, two for a four byte
+    // sequence (a surrogate pair). Continuation bytes belong to the code point before them. Exact for valid UTF-8.
+    public static int countChars(byte[] bytes, int from, int to) {
+        int chars = 0;
+        for (int i = from; i < to; i++) {
+            int b = bytes[i] & 0xFF;
+            if ((b & 0xC0) != 0x80) {
+                chars += b >= 0xF0 ? 2 : 1;
+            }
+        }
+        return chars;
+    }
+
+    public static int rawLength(Source source) throws IOException {
+        return ByteBuffer.wrap(source.read(0, 4)).getInt();
+    }
+
+    // Length of the original content
+    public static int rawLength(byte[] frame) {
+        return ByteBuffer.wrap(frame).getInt(0);
+    }
+}
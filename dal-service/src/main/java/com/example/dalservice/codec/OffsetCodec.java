@@ -0,0 +1,108 @@
+package com.example.dalservice.codec;
+
+import java.util.List;
+
+// Packed binary form of a sorted offset list: varint(count) varint(first) varint(delta)...
+// Unsigned LEB128 varints, 7 bits per byte with the high bit set on every byte but the last.
+// Delta coding keeps consecutive offsets of common words to one or two bytes each,
+// where the JSON form needs the full decimal number plus a comma.
+public final class OffsetCodec {
+
+    private OffsetCodec() {
+    }
+
+    public static byte[] encode(int[] offsets, int count) {
+        // size the output exactly in a first pass so no oversized buffer is allocated
+        int size = varintLength(count);
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            size += varintLength(offsets[i] - previous);
+            previous = offsets[i];
+        }
+        byte[] packed = new byte[size];
+        int pos = writeVarint(packed, 0, count);
+        previous = 0;
+        for (int i = 0; i < count; i++) {
+            pos = writeVarint(packed, pos, offsets[i] - previous);
+            previous = offsets[i];
+        }
+        return packed;
+    }
+
+    public static byte[] encode(List<Integer> offsets) {
+        int[] values = new int[offsets.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = offsets.get(i);
+        }
+        return encode(values, values.length);
+    }
+
+    // Number of offsets in a packed list, read from the header without decoding the deltas
+    public static int count(byte[] packed) {
+        return readVarint(packed, new int[]{0});
+    }
+
+    public static int[] decode(byte[] packed) {
+        int[] position = {0};
+        int count = readVarint(packed, position);
+        int[] offsets = new int[count];
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            previous += readVarint(packed, position);
+            offsets[i] = previous;
+        }
+        return offsets;
+    }
+
+    // Sorted union of two packed lists; an offset present in both is kept once, so re-sending a batch is harmless
+    public static byte[] merge(byte[] first, byte[] second) {
+        int[] a = decode(first);
+        int[] b = decode(second);
+        int[] merged = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length || j < b.length) {
+            int next;
+            if (j == b.length || (i < a.length && a[i] <= b[j])) {
+                next = a[i++];
+            } else {
+                next = b[j++];
+            }
+            if (n == 0 || merged[n - 1] != next) {
+                merged[n++] = next;
+            }
+        }
+        return encode(merged, n);
+    }
+
+    private static int varintLength(int value) {
+        int length = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    private static int writeVarint(byte[] out, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            out[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static int readVarint(byte[] in, int[] position) {
+        int pos = position[0];
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in[pos++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        position[0] = pos;
+        return value;
+    }
+}
@@ -1,8 +1,13 @@
 package com.example.dalservice.controller;
 import com.example.dalservice.dto.ArticleCreationDTO;
 import com.example.dalservice.dto.ArticleContentDTO;
+import com.example.dalservice.dto.ArticleMetadataBatchDTO;
+import com.example.dalservice.dto.ArticleMetadataDTO;
+import com.example.dalservice.dto.ArticleStatusDTO;
 import com.example.dalservice.Service.ArticleService;
 import com.example.dalservice.Service.ArticleContentService;
+import com.example.dalservice.Service.ArticleDeletionService;
+import com.example.dalservice.Service.ArticleQueueService;
 import com.example.dalservice.Service.WordsMappingService;
 import com.example.dalservice.entity.Article;
 import com.example.dalservice.entity.ArticleContent;
@@ -10,11 +15,16 @@ import com.example.dalservice.entity.ArticleStatus;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
-import org.springframework.transaction.annotation.Transactional;
 
 
 @RestController
@@ -25,13 +35,18 @@ public class ArticleController {
     private final WordsMappingService wordsMappingService;
 
     private final ArticleContentService articleContentService;
+    private final ArticleQueueService articleQueueService;
+    private final ArticleDeletionService articleDeletionService;
 
 
     // Constructor-based dependency injection
-    public ArticleController(ArticleService articleService, ArticleContentService articleContentService,WordsMappingService wordsMappingService ) {
+    public ArticleController(ArticleService articleService, ArticleContentService articleContentService,WordsMappingService wordsMappingService,
+                             ArticleQueueService articleQueueService, ArticleDeletionService articleDeletionService) {
         this.articleService = articleService;
         this.articleContentService = articleContentService;
         this.wordsMappingService = wordsMappingService;
+        this.articleQueueService = articleQueueService;
+        this.articleDeletionService = articleDeletionService;
     }
 
     // Add a new article (metadata and content)
@@ -46,6 +61,10 @@ public class ArticleController {
             ArticleStatus status;
             try {
                 status = ArticleStatus.valueOf(articleDTO.getStatus().toLowerCase());
+                if (status == ArticleStatus.deleting) {
+                    // only a delete request tombstones an article
+                    throw new IllegalArgumentException(articleDTO.getStatus());
+                }
             } catch (IllegalArgumentException e) {
                 return new ResponseEntity<>("Invalid status value: " + articleDTO.getStatus(), HttpStatus.BAD_REQUEST);
             }
@@ -56,10 +75,11 @@ public class ArticleController {
                     articleDTO.getSize(),
                     status
             );
+            // the caller indexes it right away, the queue only takes over if that does not finish in time
+            articleQueueService.leaseNewArticle(article, ArticleQueueService.CREATE_LEASE_OWNER);
             Article savedArticle = articleService.saveArticle(article);
-            // Create and save the article content
-            ArticleContent content = new ArticleContent(savedArticle, articleDTO.getContent());
-            articleContentService.saveArticleContent(content);
+            // Compress and save the article content
+            articleContentService.saveContent(savedArticle, articleDTO.getContent());
             return new ResponseEntity<>("Article created successfully with ID: " + savedArticle.getId(), HttpStatus.CREATED);
         }catch (DataIntegrityViolationException e) {
             // Handle cases like duplicate entries
@@ -75,31 +95,81 @@ public class ArticleController {
     @ApiResponse(responseCode = "200", description = "Successfully retrieved article metadata")
     @ApiResponse(responseCode = "404", description = "Article not found")
     @GetMapping("/{id}/metadata")
-    public ResponseEntity<ArticleCreationDTO> getArticleMetadataById(@PathVariable Long id) {
-        Optional<Article> articleOptional = articleService.getArticleById(id);
-        if (!articleOptional.isPresent()) {
+    public ResponseEntity<ArticleMetadataDTO> getArticleMetadataById(@PathVariable Long id) {
+        // a projection of the articles row, the content BLOB is served by /{id}/content
+        Optional<ArticleMetadataDTO> metadataOptional = articleService.getArticleMetadata(id);
+        if (!metadataOptional.isPresent()) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
+        return new ResponseEntity<>(metadataOptional.get(), HttpStatus.OK);
+    }
 
-        Article article = articleOptional.get();
-        ArticleCreationDTO dto = new ArticleCreationDTO();
-        dto.setName(article.getName());
-        dto.setAuthor(article.getAuthor());
-        dto.setSize(article.getSize());
-        dto.setStatus(article.getStatus().name());
-        dto.setCreatedAt(article.getCreatedAt());
-        dto.setId(article.getId());
+    // Get the metadata of several articles with one query, e.g. for a page of a dashboard
+    @Operation(summary = "Get the metadata of several articles", description = "Retrieve the metadata of the articles with the given "
+            + "comma separated ids with a single query. Articles are returned in request order, ids without an article are listed under missing")
+    @ApiResponse(responseCode = "200", description = "Metadata of the articles found")
+    @ApiResponse(responseCode = "400", description = "Invalid ids or too many ids")
+    @GetMapping("/metadata")
+    public ResponseEntity<ArticleMetadataBatchDTO> getArticleMetadataBatch(@RequestParam List<Long> ids) {
+        return metadataBatch(ids);
+    }
 
-        // Retrieve the content if available
-        Optional<ArticleContent> contentOptional = articleContentService.getArticleContentById(id);
-        if (contentOptional.isPresent()) {
-            dto.setContent(contentOptional.get().getCompressedContent());
-        } else {
-            // If content is not found, you can decide how to handle it.
-            dto.setContent(null); // or handle it based on your application's needs
+    // The same for id sets too large for a query string
+    @Operation(summary = "Get the metadata of several articles", description = "Like GET /metadata with the ids as a JSON array in the body")
+    @ApiResponse(responseCode = "200", description = "Metadata of the articles found")
+    @ApiResponse(responseCode = "400", description = "Invalid ids or too many ids")
+    @PostMapping("/metadata")
+    public ResponseEntity<ArticleMetadataBatchDTO> postArticleMetadataBatch(@RequestBody List<Long> ids) {
+        return metadataBatch(ids);
+    }
+
+    private ResponseEntity<ArticleMetadataBatchDTO> metadataBatch(List<Long> ids) {
+        if (ids == null || ids.contains(null)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            return new ResponseEntity<>(articleService.getArticleMetadata(ids), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
+    }
 
-        return new ResponseEntity<>(dto, HttpStatus.OK);
+    // Get an article's indexing status by its ID
+    @Operation(summary = "Get an article's indexing status", description = "Returns pending, indexed, failed, or deleting while a deleted article is purged")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved article status")
+    @ApiResponse(responseCode = "404", description = "Article not found")
+    @GetMapping("/{id}/status")
+    public ResponseEntity<ArticleStatusDTO> getArticleStatus(@PathVariable Long id) {
+        Optional<Article> articleOptional = articleService.getArticleById(id);
+        if (!articleOptional.isPresent()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(new ArticleStatusDTO(id, articleOptional.get().getStatus().name()), HttpStatus.OK);
+    }
+
+    // Update an article's indexing status, used by the parser to report a failed indexing job
+    @Operation(summary = "Update an article's indexing status", description = "Set the status to pending, indexed or failed")
+    @ApiResponse(responseCode = "200", description = "Status updated")
+    @ApiResponse(responseCode = "400", description = "Invalid article status")
+    @ApiResponse(responseCode = "404", description = "Article not found")
+    @PutMapping("/{id}/status")
+    public ResponseEntity<ArticleStatusDTO> updateArticleStatus(@PathVariable Long id, @RequestParam String status) {
+        ArticleStatus newStatus;
+        try {
+            newStatus = ArticleStatus.valueOf(status.toLowerCase());
+            if (newStatus == ArticleStatus.deleting) {
+                // only a delete request tombstones an article
+                throw new IllegalArgumentException(status);
+            }
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            articleService.updateArticleStatus(id, newStatus);
+            return new ResponseEntity<>(new ArticleStatusDTO(id, newStatus.name()), HttpStatus.OK);
+        } catch (NoSuchElementException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
     }
 
     // Get article content by ID
@@ -114,20 +184,74 @@ public class ArticleController {
         }
         ArticleContent content = contentOptional.get();
         ArticleContentDTO dto = new ArticleContentDTO();
-        dto.setContent(content.getCompressedContent());
+        dto.setContent(ArticleContentService.readContent(content));
 
         return new ResponseEntity<>(dto, HttpStatus.OK);
     }
 
-    // Delete an article by IlD (cascading will delete content and mappings)
-    @Operation(summary = "Deete an article by ID", description = "Deletes the Article with the given id and cascade delete related content and word mappings. If the article is not found in the persistence store it is silently ignored.")
+    // Stream the original content bytes, or one Range of them, without building a DTO
+    @Operation(summary = "Stream article content", description = "Streams the content of an article as application/octet-stream. "
+            + "Supports a single byte range (Range: bytes=start-end, bytes=start- or bytes=-suffix), only the compressed blocks "
+            + "that hold the range are read and decompressed")
+    @ApiResponse(responseCode = "200", description = "Whole content")
+    @ApiResponse(responseCode = "206", description = "Requested range")
+    @ApiResponse(responseCode = "404", description = "Article content not found")
+    @ApiResponse(responseCode = "416", description = "Range outside the content")
+    @GetMapping("/{id}/content/raw")
+    public ResponseEntity<StreamingResponseBody> streamArticleContent(@PathVariable Long id,
+                                                                      @RequestHeader(value = HttpHeaders.RANGE, required = false) String range) {
+        Optional<Long> lengthOptional = articleContentService.getContentLength(id);
+        if (!lengthOptional.isPresent()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        long length = lengthOptional.get();
+        long from = 0;
+        long to = length;
+        HttpStatus status = HttpStatus.OK;
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (range != null) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                // several ranges would need a multipart body, the whole content is a valid answer to them
+                if (ranges.size() == 1) {
+                    from = ranges.get(0).getRangeStart(length);
+                    to = ranges.get(0).getRangeEnd(length) + 1;
+                    if (from >= to) {
+                        // starts at or past the end of the content
+                        throw new IllegalArgumentException("Range not satisfiable: " + range);
+                    }
+                    status = HttpStatus.PARTIAL_CONTENT;
+                    headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + from + "-" + (to - 1) + "/" + length);
+                }
+            } catch (IllegalArgumentException e) {
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return new ResponseEntity<>(headers, HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+            }
+        }
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        headers.setContentLength(to - from);
+        long start = from;
+        long end = to;
+        StreamingResponseBody body = out -> articleContentService.streamContent(id, start, end, out);
+        return new ResponseEntity<>(body, headers, status);
+    }
+
+    // Delete an article by ID with bulk DELETE statements, or tombstone it and purge its rows in the background
+    @Operation(summary = "Delete an article by ID", description = "Deletes the Article with the given id together with its content and word mappings, "
+            + "one DELETE statement per table. With async=true the article is marked deleting and its content removed right away, it is hidden "
+            + "from lookups from then on and its word mappings are purged in the background in bounded batches. "
+            + "If the article is not found in the persistence store it is silently ignored.")
+    @ApiResponse(responseCode = "202", description = "Article tombstoned, its rows are being purged")
     @ApiResponse(responseCode = "204", description = "Article deleted successfully")
     @DeleteMapping("/{id}")
-    @Transactional
-    public ResponseEntity<Void> deleteArticle(@PathVariable Long id) {
-        wordsMappingService.deleteByArticleId(id);
-        articleContentService.deleteArticleContentById(id);
-        articleService.deleteArticle(id);
+    public ResponseEntity<Void> deleteArticle(@PathVariable Long id, @RequestParam(defaultValue = "false") boolean async) {
+        if (async && articleDeletionService.tombstone(id)) {
+            return new ResponseEntity<>(HttpStatus.ACCEPTED);
+        }
+        if (!async) {
+            articleDeletionService.deleteNow(id);
+        }
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
@@ -142,7 +266,7 @@ public class ArticleController {
 
         // Fetch article content if needed
         Optional<ArticleContent> content = articleContentService.getArticleContentById(article.getId());
-        content.ifPresent(articleContent -> dto.setContent(articleContent.getCompressedContent()));
+        content.ifPresent(articleContent -> dto.setContent(ArticleContentService.readContent(articleContent)));
 
         return dto;
     }
@@ -0,0 +1,73 @@
+package com.example.dalservice.controller;
+
+import com.example.dalservice.Service.ArticleQueueService;
+import com.example.dalservice.dto.ArticleStatusDTO;
+import com.example.dalservice.dto.ClaimedArticleDTO;
+import com.example.dalservice.entity.ArticleStatus;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+@RestController
+@RequestMapping("/api/article-queue")
+public class ArticleQueueController {
+
+    private final ArticleQueueService articleQueueService;
+
+    public ArticleQueueController(ArticleQueueService articleQueueService) {
+        this.articleQueueService = articleQueueService;
+    }
+
+    // Claim a batch of pending articles for indexing
+    @Operation(summary = "Claim pending articles", description = "Leases up to limit pending articles to the worker and returns their ids and leases, "
+            + "the content is returned by /start when the worker begins indexing one. "
+            + "Rows claimed by another worker are skipped, articles whose lease expired are returned again.")
+    @ApiResponse(responseCode = "200", description = "Claimed articles, empty when there is no work")
+    @PostMapping("/claim")
+    public ResponseEntity<List<ClaimedArticleDTO>> claim(@RequestParam String worker, @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return new ResponseEntity<>(articleQueueService.claim(worker, limit), HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Start indexing a claimed article
+    @Operation(summary = "Start a claimed article", description = "Renews the worker's lease on the article when it starts indexing it and "
+            + "returns the article with its content, so the lease does not run out while the article waits in the worker's job queue.")
+    @ApiResponse(responseCode = "200", description = "Lease renewed, returns the article with its content")
+    @ApiResponse(responseCode = "409", description = "The article is not leased to this worker any more, the job must not run")
+    @PostMapping("/{id}/start")
+    public ResponseEntity<ClaimedArticleDTO> start(@PathVariable Long id, @RequestParam String worker) {
+        try {
+            return new ResponseEntity<>(articleQueueService.start(id, worker), HttpStatus.OK);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
+    }
+
+    // Give a claimed article back to the queue
+    @Operation(summary = "Release a claimed article", description = "Clears the worker's lease so the article can be claimed again. "
+            + "worker is the id the article was claimed with, or \"create\" for the lease of a newly created article. "
+            + "failed=true counts a failed attempt and marks the article failed after the maximum number of attempts.")
+    @ApiResponse(responseCode = "200", description = "Released, returns the resulting status")
+    @ApiResponse(responseCode = "404", description = "Article not found")
+    @ApiResponse(responseCode = "409", description = "The article is not leased to this worker, e.g. its lease expired and it was claimed again")
+    @PostMapping("/{id}/release")
+    public ResponseEntity<ArticleStatusDTO> release(@PathVariable Long id, @RequestParam String worker,
+                                                    @RequestParam(defaultValue = "false") boolean failed) {
+        try {
+            ArticleStatus status = articleQueueService.release(id, worker, failed);
+            return new ResponseEntity<>(new ArticleStatusDTO(id, status.name()), HttpStatus.OK);
+        } catch (NoSuchElementException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
+    }
+}
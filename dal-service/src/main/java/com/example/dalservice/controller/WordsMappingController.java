@@ -1,7 +1,19 @@
 package com.example.dalservice.controller;
 
+import com.example.dalservice.Service.ArticleSnippetService;
+import com.example.dalservice.Service.WordQueryService;
 import com.example.dalservice.Service.WordsMappingService;
+import com.example.dalservice.dto.FuzzyTermDTO;
+import com.example.dalservice.dto.PositionalResultDTO;
+import com.example.dalservice.dto.SearchHitDTO;
+import com.example.dalservice.dto.TermExpansionDTO;
+import com.example.dalservice.dto.WordMappingBatchDTO;
+import com.example.dalservice.dto.WordQueryMatchDTO;
+import com.example.dalservice.dto.WordQueryResultDTO;
+import com.example.dalservice.dto.WordSnippetsPageDTO;
+import com.example.dalservice.dto.WordsMappingPageDTO;
 import com.example.dalservice.entity.WordsMapping;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -15,34 +27,262 @@ import java.util.NoSuchElementException;
 @RequestMapping("/api/word-mappings")
 public class WordsMappingController {
 
+    // Response header carrying the cursor of the next page of /find
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final WordsMappingService wordsMappingService;
+    private final WordQueryService wordQueryService;
+    private final ArticleSnippetService articleSnippetService;
 
-    public WordsMappingController(WordsMappingService wordsMappingService) {
+    public WordsMappingController(WordsMappingService wordsMappingService, WordQueryService wordQueryService,
+                                  ArticleSnippetService articleSnippetService) {
         this.wordsMappingService = wordsMappingService;
+        this.wordQueryService = wordQueryService;
+        this.articleSnippetService = articleSnippetService;
     }
 
 
     // Find word mappings by word
-    @Operation(summary = "Find word mappings by word", description = "Search for word mappings by the specified word")
+    @Operation(summary = "Find word mappings by word", description = "Search for word mappings by the specified word. "
+            + "With limit or cursor the mappings are returned a page at a time in article id order, the "
+            + NEXT_CURSOR_HEADER + " response header holds the cursor of the next page and is absent on the last one. "
+            + "maxOffsets keeps at most that many offsets per article, 0 leaves the offsets out")
     @ApiResponse(responseCode = "200", description = "Successfully found word mappings")
+    @ApiResponse(responseCode = "400", description = "Invalid limit, cursor or maxOffsets")
     @ApiResponse(responseCode = "404", description = "No word mappings found for the given word")
     @GetMapping("/find/{word}")
-    public ResponseEntity<?> findWordsByWord(@PathVariable String word) {
+    public ResponseEntity<?> findWordsByWord(@PathVariable String word,
+                                             @RequestParam(required = false) Integer limit,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(required = false) Integer maxOffsets) {
         try {
+            if (maxOffsets != null && maxOffsets < 0) {
+                return new ResponseEntity<>("maxOffsets must not be negative", HttpStatus.BAD_REQUEST);
+            }
             // Perform case-insensitive search for the word
-            List<WordsMapping> result = wordsMappingService.findWordsByWord(word);
+            HttpHeaders headers = new HttpHeaders();
+            List<WordsMapping> result;
+            if (limit == null && cursor == null) {
+                result = wordsMappingService.findWordsByWord(word);
+            } else {
+                WordsMappingPageDTO page = wordsMappingService.findWordsByWord(word, cursor, limit == null ? Integer.MAX_VALUE : limit);
+                result = page.getMappings();
+                if (page.getNextCursor() != null) {
+                    headers.set(NEXT_CURSOR_HEADER, page.getNextCursor());
+                }
+            }
 
-            // Check if the result is empty, and throw a custom message if no result is found
-            if (result.isEmpty()) {
+            // Check if the result is empty, and throw a custom message if no result is found.
+            // A later page can come back empty when the remaining articles were deleted meanwhile.
+            if (result.isEmpty() && cursor == null) {
                 return new ResponseEntity<>("No results found for the word: " + word, HttpStatus.NOT_FOUND);
             }
+            if (maxOffsets != null) {
+                result = result.stream().map(mapping -> WordsMappingService.limitOffsets(mapping, maxOffsets)).toList();
+            }
             // Return the result if found
-            return new ResponseEntity<>(result, HttpStatus.OK);
+            return new ResponseEntity<>(result, headers, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             return new ResponseEntity<>("Error occurred while searching for the word.", HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    // Expand a prefix or wildcard pattern to the words it matches
+    @Operation(summary = "Expand a word pattern", description = "List the words matching a pattern such as index* or colo?r "
+            + "(* matches any run of letters, ? one letter; the pattern must start with a letter) in sorted order, from the "
+            + "in-memory term dictionary. At most limit words are returned (capped at dal.word-query.max-expansions), "
+            + "truncated tells whether more words match")
+    @ApiResponse(responseCode = "200", description = "Matching words, possibly none")
+    @ApiResponse(responseCode = "400", description = "Invalid pattern or limit")
+    @GetMapping("/terms")
+    public ResponseEntity<?> expandPattern(@RequestParam String pattern, @RequestParam(defaultValue = "100") int limit) {
+        try {
+            TermExpansionDTO expansion = wordQueryService.expand(pattern, limit);
+            return new ResponseEntity<>(expansion, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return new ResponseEntity<>("Error occurred while expanding the pattern.", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Words within one or two edits of a word, with their mappings
+    @Operation(summary = "Fuzzy word lookup", description = "Find the words within maxEdits (1 or 2) insertions, deletions or "
+            + "substitutions of the given word, from the in-memory term dictionary. At most maxTerms words are returned (capped at "
+            + "dal.word-fuzzy.max-terms), nearest first and, at the same distance, the words found in the most articles first; "
+            + "the word itself is included at distance 0 when it exists. Each comes with its first limit mappings in article id "
+            + "order and the cursor of its next page for /find, null on the last one. maxOffsets keeps at most that many offsets "
+            + "per article, 0 leaves the offsets out")
+    @ApiResponse(responseCode = "200", description = "Matching words, possibly none")
+    @ApiResponse(responseCode = "400", description = "Invalid word, maxEdits, maxTerms, limit or maxOffsets")
+    @ApiResponse(responseCode = "503", description = "The word index is disabled or still building")
+    @GetMapping("/fuzzy/{word}")
+    public ResponseEntity<?> findFuzzy(@PathVariable String word,
+                                       @RequestParam(defaultValue = "1") int maxEdits,
+                                       @RequestParam(defaultValue = "10") int maxTerms,
+                                       @RequestParam(defaultValue = "100") int limit,
+                                       @RequestParam(required = false) Integer maxOffsets) {
+        try {
+            if (maxOffsets != null && maxOffsets < 0) {
+                return new ResponseEntity<>("maxOffsets must not be negative", HttpStatus.BAD_REQUEST);
+            }
+            List<FuzzyTermDTO> terms = wordQueryService.fuzzy(word, maxEdits, maxTerms, limit);
+            if (maxOffsets != null) {
+                terms = terms.stream()
+                        .map(term -> new FuzzyTermDTO(term.getTerm(), term.getDistance(), term.getMappings().stream()
+                                .map(mapping -> WordsMappingService.limitOffsets(mapping, maxOffsets)).toList(), term.getNextCursor()))
+                        .toList();
+            }
+            return new ResponseEntity<>(terms, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (Exception e) {
+            return new ResponseEntity<>("Error occurred while searching for similar words.", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // The articles most relevant to some words
+    @Operation(summary = "Ranked search", description = "Find the k articles (capped at dal.search.max-results) that rank highest "
+            + "with BM25 for the words in q (comma separated): how often each word occurs in an article (its number of offsets), "
+            + "how few articles hold it, and the article's size against the average. Hits come best first with their score and "
+            + "the mappings of the words they hold. maxOffsets keeps at most that many offsets per word, 0 leaves the offsets out")
+    @ApiResponse(responseCode = "200", description = "Best articles, possibly none")
+    @ApiResponse(responseCode = "400", description = "No words, a pattern, too many words, or invalid k or maxOffsets")
+    @ApiResponse(responseCode = "503", description = "The word index is disabled or still building")
+    @GetMapping("/search")
+    public ResponseEntity<?> search(@RequestParam List<String> q,
+                                    @RequestParam(defaultValue = "10") int k,
+                                    @RequestParam(required = false) Integer maxOffsets) {
+        try {
+            if (maxOffsets != null && maxOffsets < 0) {
+                return new ResponseEntity<>("maxOffsets must not be negative", HttpStatus.BAD_REQUEST);
+            }
+            List<SearchHitDTO> hits = wordQueryService.search(q, k);
+            if (maxOffsets != null) {
+                hits = hits.stream()
+                        .map(hit -> new SearchHitDTO(hit.getArticleId(), hit.getScore(), hit.getMappings().stream()
+                                .map(mapping -> WordsMappingService.limitOffsets(mapping, maxOffsets)).toList()))
+                        .toList();
+            }
+            return new ResponseEntity<>(hits, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (Exception e) {
+            return new ResponseEntity<>("Error occurred while ranking the articles.", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Articles matching a boolean query over several words
+    @Operation(summary = "Boolean word query", description = "Find the articles holding every word of all, at least one word of any "
+            + "and none of the words of not (comma separated lists, all or any must be given). Words in any and not may be patterns "
+            + "like index* (see /terms), a pattern matching more than dal.word-query.max-expansions words is rejected. Matches are returned a page of at most "
+            + "limit articles at a time in article id order, each with the mappings of its all and any words; nextCursor is the cursor "
+            + "of the next page and null on the last one. maxOffsets keeps at most that many offsets per word, 0 leaves the offsets out")
+    @ApiResponse(responseCode = "200", description = "Matching articles, possibly none")
+    @ApiResponse(responseCode = "400", description = "No all or any words, too many words, or invalid limit, cursor or maxOffsets")
+    @GetMapping("/query")
+    public ResponseEntity<?> queryWords(@RequestParam(required = false) List<String> all,
+                                        @RequestParam(required = false) List<String> any,
+                                        @RequestParam(required = false) List<String> not,
+                                        @RequestParam(required = false) Integer limit,
+                                        @RequestParam(required = false) String cursor,
+                                        @RequestParam(required = false) Integer maxOffsets) {
+        try {
+            if (maxOffsets != null && maxOffsets < 0) {
+                return new ResponseEntity<>("maxOffsets must not be negative", HttpStatus.BAD_REQUEST);
+            }
+            WordQueryResultDTO result = wordQueryService.query(all, any, not, cursor, limit == null ? Integer.MAX_VALUE : limit);
+            if (maxOffsets != null) {
+                List<WordQueryMatchDTO> limited = result.getMatches().stream()
+                        .map(match -> new WordQueryMatchDTO(match.getArticleId(), match.getMappings().stream()
+                                .map(mapping -> WordsMappingService.limitOffsets(mapping, maxOffsets)).toList()))
+                        .toList();
+                result = new WordQueryResultDTO(limited, result.getNextCursor());
+            }
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return new ResponseEntity<>("Error occurred while evaluating the word query.", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Text around the occurrences of a word
+    @Operation(summary = "Snippets of a word", description = "Return context chars of text on each side of the first maxSnippets "
+            + "occurrences of the word (capped at dal.snippets.max-per-article) in each article holding it, a page of at most limit "
+            + "articles at a time like /find/{word}, or only in articleId when given. Each snippet has the word's char offset, the "
+            + "char offset its text starts at and the text; count is the number of occurrences in the article. Only the content "
+            + "blocks holding the snippets are read")
+    @ApiResponse(responseCode = "200", description = "Articles with their snippets, possibly none")
+    @ApiResponse(responseCode = "400", description = "Invalid context, maxSnippets, limit or cursor")
+    @GetMapping("/snippets/{word}")
+    public ResponseEntity<?> findSnippets(@PathVariable String word,
+                                          @RequestParam(required = false) Long articleId,
+                                          @RequestParam(defaultValue = "40") int context,
+                                          @RequestParam(defaultValue = "3") int maxSnippets,
+                                          @RequestParam(required = false) Integer limit,
+                                          @RequestParam(required = false) String cursor) {
+        try {
+            WordSnippetsPageDTO page = articleSnippetService.findSnippets(word, articleId, context, maxSnippets, cursor,
+                    limit == null ? Integer.MAX_VALUE : limit);
+            return new ResponseEntity<>(page, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return new ResponseEntity<>("Error occurred while reading the snippets.", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Articles holding the words as a phrase
+    @Operation(summary = "Phrase query", description = "Find the articles holding the words of q (comma separated) in this order, "
+            + "each right after the one before it: 1 to dal.word-phrase.max-separator chars apart, so a space or a comma and a space. "
+            + "Evaluated on the stored offsets, the content is not read. Matches are returned a page of at most limit articles at a time "
+            + "in article id order, each with its number of matches and the [start, end) char spans of the first ones; nextCursor is the "
+            + "cursor of the next page and null on the last one")
+    @ApiResponse(responseCode = "200", description = "Matching articles, possibly none")
+    @ApiResponse(responseCode = "400", description = "No words, a pattern, too many words, or invalid limit or cursor")
+    @GetMapping("/phrase")
+    public ResponseEntity<?> phrase(@RequestParam List<String> q,
+                                    @RequestParam(required = false) Integer limit,
+                                    @RequestParam(required = false) String cursor) {
+        try {
+            PositionalResultDTO result = wordQueryService.phrase(q, cursor, limit == null ? Integer.MAX_VALUE : limit);
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return new ResponseEntity<>("Error occurred while evaluating the phrase query.", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Articles holding the words close to each other
+    @Operation(summary = "Proximity query", description = "Find the articles holding the words of q (comma separated) in any order "
+            + "with at most within words between them in total. Offsets count chars, not words: within words are taken as "
+            + "within * dal.word-phrase.chars-per-word chars besides the separators. Paged like /phrase, the spans are the smallest "
+            + "ones holding every word")
+    @ApiResponse(responseCode = "200", description = "Matching articles, possibly none")
+    @ApiResponse(responseCode = "400", description = "No words, a pattern, too many words, or invalid within, limit or cursor")
+    @GetMapping("/near")
+    public ResponseEntity<?> near(@RequestParam List<String> q,
+                                  @RequestParam(defaultValue = "5") int within,
+                                  @RequestParam(required = false) Integer limit,
+                                  @RequestParam(required = false) String cursor) {
+        try {
+            PositionalResultDTO result = wordQueryService.near(q, within, cursor, limit == null ? Integer.MAX_VALUE : limit);
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return new ResponseEntity<>("Error occurred while evaluating the proximity query.", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     // Save multiple word mappings
     @Operation(summary = "Save multiple word mappings", description = "Save a list of word mappings to the database")
     @ApiResponse(responseCode = "201", description = "Word mappings created successfully")
@@ -66,4 +306,28 @@ public class WordsMappingController {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+
+    // Append a batch of word mappings streamed by the parser
+    @Operation(summary = "Append a batch of word mappings", description = "Merge a batch of word mappings into the article's postings. "
+            + "The batch with commit=true is sent last and marks the article as indexed")
+    @ApiResponse(responseCode = "200", description = "Batch appended")
+    @ApiResponse(responseCode = "400", description = "Invalid batch")
+    @ApiResponse(responseCode = "404", description = "Article not found")
+    @PostMapping("/append-batch")
+    public ResponseEntity<String> appendWordsMappings(@RequestBody WordMappingBatchDTO batch) {
+        try {
+            if (batch.getArticleId() == null) {
+                throw new IllegalArgumentException("Article ID must not be null");
+            }
+            int appended = wordsMappingService.appendWordsMappings(batch.getArticleId(), batch.getMappings(), batch.isCommit());
+            String message = "Batch " + batch.getSequence() + " appended " + appended + " word mappings";
+            return new ResponseEntity<>(batch.isCommit() ? message + ", article status updated to indexed" : message, HttpStatus.OK);
+        } catch (NoSuchElementException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
 }
@@ -0,0 +1,23 @@
+package com.example.dalservice.dto;
+
+import java.util.List;
+
+// Metadata of several articles in the order their ids were requested.
+// missing lists the requested ids with no article (unknown or being deleted).
+public class ArticleMetadataBatchDTO {
+    private final List<ArticleMetadataDTO> articles;
+    private final List<Long> missing;
+
+    public ArticleMetadataBatchDTO(List<ArticleMetadataDTO> articles, List<Long> missing) {
+        this.articles = articles;
+        this.missing = missing;
+    }
+
+    public List<ArticleMetadataDTO> getArticles() {
+        return articles;
+    }
+
+    public List<Long> getMissing() {
+        return missing;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.dalservice.dto;
+
+import com.example.dalservice.entity.ArticleStatus;
+
+import java.time.LocalDateTime;
+
+// Article metadata without the content, built by the repository query itself so no entity
+// (and no article_content row) is loaded for it
+public class ArticleMetadataDTO {
+    private Long id;
+    private String name;
+    private String author;
+    private LocalDateTime createdAt;
+    private long size;
+    private String status;
+
+    public ArticleMetadataDTO() {
+    }
+
+    // Used by the JPQL constructor expression in ArticleJpaRepository
+    public ArticleMetadataDTO(Long id, String name, String author, LocalDateTime createdAt, long size, ArticleStatus status) {
+        this.id = id;
+        this.name = name;
+        this.author = author;
+        this.createdAt = createdAt;
+        this.size = size;
+        this.status = status.name();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.dalservice.dto;
+
+import java.util.List;
+
+// The snippets of one article holding a word: count is the number of occurrences of the word in the article,
+// snippets are those of the first ones, at most dal.snippets.max-per-article
+public class ArticleSnippetsDTO {
+    private final Long articleId;
+    private final int count;
+    private final List<SnippetDTO> snippets;
+
+    public ArticleSnippetsDTO(Long articleId, int count, List<SnippetDTO> snippets) {
+        this.articleId = articleId;
+        this.count = count;
+        this.snippets = snippets;
+    }
+
+    public Long getArticleId() {
+        return articleId;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public List<SnippetDTO> getSnippets() {
+        return snippets;
+    }
+}
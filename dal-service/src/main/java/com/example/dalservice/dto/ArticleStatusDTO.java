@@ -0,0 +1,31 @@
+package com.example.dalservice.dto;
+
+public class ArticleStatusDTO {
+    private Long articleId;
+    private String status;
+
+    public ArticleStatusDTO() {
+    }
+
+    public ArticleStatusDTO(Long articleId, String status) {
+        this.articleId = articleId;
+        this.status = status;
+    }
+
+    // Getters and Setters
+    public Long getArticleId() {
+        return articleId;
+    }
+
+    public void setArticleId(Long articleId) {
+        this.articleId = articleId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.dalservice.dto;
+
+import java.time.LocalDateTime;
+
+// An article leased to a worker. content is only sent when the worker starts it, claims return the leases alone.
+public class ClaimedArticleDTO {
+    private Long articleId;
+    private byte[] content;
+    private LocalDateTime leaseExpiresAt;
+    private int attempts;
+
+    public ClaimedArticleDTO() {
+    }
+
+    public ClaimedArticleDTO(Long articleId, byte[] content, LocalDateTime leaseExpiresAt, int attempts) {
+        this.articleId = articleId;
+        this.content = content;
+        this.leaseExpiresAt = leaseExpiresAt;
+        this.attempts = attempts;
+    }
+
+    // Getters and Setters
+    public Long getArticleId() {
+        return articleId;
+    }
+
+    public void setArticleId(Long articleId) {
+        this.articleId = articleId;
+    }
+
+    public byte[] getContent() {
+        return content;
+    }
+
+    public void setContent(byte[] content) {
+        this.content = content;
+    }
+
+    public LocalDateTime getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.dalservice.dto;
+
+import com.example.dalservice.entity.WordsMapping;
+
+import java.util.List;
+
+// A word found by a fuzzy lookup, its edit distance to the looked up word and the first page of its mappings.
+// nextCursor continues the word's mappings through /api/word-mappings/find and is null when there are no more.
+public class FuzzyTermDTO {
+    private final String term;
+    private final int distance;
+    private final List<WordsMapping> mappings;
+    private final String nextCursor;
+
+    public FuzzyTermDTO(String term, int distance, List<WordsMapping> mappings, String nextCursor) {
+        this.term = term;
+        this.distance = distance;
+        this.mappings = mappings;
+        this.nextCursor = nextCursor;
+    }
+
+    public String getTerm() {
+        return term;
+    }
+
+    public int getDistance() {
+        return distance;
+    }
+
+    public List<WordsMapping> getMappings() {
+        return mappings;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
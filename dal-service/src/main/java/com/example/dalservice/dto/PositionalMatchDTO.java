@@ -0,0 +1,29 @@
+package com.example.dalservice.dto;
+
+import java.util.List;
+
+// One article matching a phrase or proximity query: how many times it matches and the spans [start, end)
+// of the first matches in char offsets, at most dal.word-phrase.max-spans of them
+public class PositionalMatchDTO {
+    private final Long articleId;
+    private final int count;
+    private final List<int[]> spans;
+
+    public PositionalMatchDTO(Long articleId, int count, List<int[]> spans) {
+        this.articleId = articleId;
+        this.count = count;
+        this.spans = spans;
+    }
+
+    public Long getArticleId() {
+        return articleId;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public List<int[]> getSpans() {
+        return spans;
+    }
+}
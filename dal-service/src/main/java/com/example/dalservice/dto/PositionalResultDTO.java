@@ -0,0 +1,23 @@
+package com.example.dalservice.dto;
+
+import java.util.List;
+
+// One page of the articles matching a phrase or proximity query, in article id order.
+// nextCursor is opaque to callers and null on the last page.
+public class PositionalResultDTO {
+    private final List<PositionalMatchDTO> matches;
+    private final String nextCursor;
+
+    public PositionalResultDTO(List<PositionalMatchDTO> matches, String nextCursor) {
+        this.matches = matches;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<PositionalMatchDTO> getMatches() {
+        return matches;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.dalservice.dto;
+
+import com.example.dalservice.entity.WordsMapping;
+
+import java.util.List;
+
+// An article of a ranked search with its BM25 score and the mappings of the query words it holds
+public class SearchHitDTO {
+    private final Long articleId;
+    private final double score;
+    private final List<WordsMapping> mappings;
+
+    public SearchHitDTO(Long articleId, double score, List<WordsMapping> mappings) {
+        this.articleId = articleId;
+        this.score = score;
+        this.mappings = mappings;
+    }
+
+    public Long getArticleId() {
+        return articleId;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public List<WordsMapping> getMappings() {
+        return mappings;
+    }
+}
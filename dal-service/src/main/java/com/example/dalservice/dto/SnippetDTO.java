@@ -0,0 +1,27 @@
+package com.example.dalservice.dto;
+
+// Text around one occurrence of a word: the word at char offset with up to context chars on each side.
+// start is the char offset of the first char of text, so the word is at offset - start within it.
+public class SnippetDTO {
+    private final int offset;
+    private final int start;
+    private final String text;
+
+    public SnippetDTO(int offset, int start, String text) {
+        this.offset = offset;
+        this.start = start;
+        this.text = text;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
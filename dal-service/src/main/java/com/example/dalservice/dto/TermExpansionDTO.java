@@ -0,0 +1,28 @@
+package com.example.dalservice.dto;
+
+import java.util.List;
+
+// The words a pattern expands to, in sorted order. truncated is set when more words match than were returned.
+public class TermExpansionDTO {
+    private final String pattern;
+    private final List<String> terms;
+    private final boolean truncated;
+
+    public TermExpansionDTO(String pattern, List<String> terms, boolean truncated) {
+        this.pattern = pattern;
+        this.terms = terms;
+        this.truncated = truncated;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public List<String> getTerms() {
+        return terms;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.dalservice.dto;
+
+import com.example.dalservice.entity.WordsMapping;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// One batch of postings streamed by the parser while it is still parsing an article.
+// The batch with commit=true is sent last, after every other batch was acknowledged.
+public class WordMappingBatchDTO {
+    private Long articleId;
+    private long sequence;
+    private boolean commit;
+    private List<WordsMapping> mappings = new ArrayList<>();
+
+    // Getters and Setters
+    public Long getArticleId() {
+        return articleId;
+    }
+
+    public void setArticleId(Long articleId) {
+        this.articleId = articleId;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public boolean isCommit() {
+        return commit;
+    }
+
+    public void setCommit(boolean commit) {
+        this.commit = commit;
+    }
+
+    public List<WordsMapping> getMappings() {
+        return mappings;
+    }
+
+    public void setMappings(List<WordsMapping> mappings) {
+        this.mappings = mappings;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.dalservice.dto;
+
+import com.example.dalservice.entity.WordsMapping;
+
+import java.util.List;
+
+// One article matching a word query, with the mappings of the query's positive terms found in it
+public class WordQueryMatchDTO {
+    private final Long articleId;
+    private final List<WordsMapping> mappings;
+
+    public WordQueryMatchDTO(Long articleId, List<WordsMapping> mappings) {
+        this.articleId = articleId;
+        this.mappings = mappings;
+    }
+
+    public Long getArticleId() {
+        return articleId;
+    }
+
+    public List<WordsMapping> getMappings() {
+        return mappings;
+    }
+}
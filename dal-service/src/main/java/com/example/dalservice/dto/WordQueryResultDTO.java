@@ -0,0 +1,23 @@
+package com.example.dalservice.dto;
+
+import java.util.List;
+
+// One page of the articles matching a word query, in article id order.
+// nextCursor is opaque to callers and null on the last page.
+public class WordQueryResultDTO {
+    private final List<WordQueryMatchDTO> matches;
+    private final String nextCursor;
+
+    public WordQueryResultDTO(List<WordQueryMatchDTO> matches, String nextCursor) {
+        this.matches = matches;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<WordQueryMatchDTO> getMatches() {
+        return matches;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
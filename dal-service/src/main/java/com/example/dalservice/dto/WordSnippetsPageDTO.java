@@ -0,0 +1,23 @@
+package com.example.dalservice.dto;
+
+import java.util.List;
+
+// One page of the articles holding a word with their snippets, in article id order.
+// nextCursor is opaque to callers and null on the last page.
+public class WordSnippetsPageDTO {
+    private final List<ArticleSnippetsDTO> articles;
+    private final String nextCursor;
+
+    public WordSnippetsPageDTO(List<ArticleSnippetsDTO> articles, String nextCursor) {
+        this.articles = articles;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<ArticleSnippetsDTO> getArticles() {
+        return articles;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.dalservice.dto;
+
+import com.example.dalservice.entity.WordsMapping;
+
+import java.util.List;
+
+// One page of a word's mappings in article id order.
+// nextCursor is opaque to callers and null on the last page.
+public class WordsMappingPageDTO {
+    private final List<WordsMapping> mappings;
+    private final String nextCursor;
+
+    public WordsMappingPageDTO(List<WordsMapping> mappings, String nextCursor) {
+        this.mappings = mappings;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<WordsMapping> getMappings() {
+        return mappings;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
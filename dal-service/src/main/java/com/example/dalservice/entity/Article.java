@@ -3,7 +3,8 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "articles")// maps this class to the 'articles' table in the database
+@Table(name = "articles", // maps this class to the 'articles' table in the database
+        indexes = @Index(name = "idx_articles_status_lease", columnList = "status, lease_expires_at"))
 public class Article {
 
     @Id
@@ -20,9 +21,21 @@ public class Article {
 
     private String author;
     @Enumerated(EnumType.STRING)
-    @Column(nullable = false)  // Maps to the 'status' column (enum 'pending', 'indexed')
+    @Column(nullable = false)  // Maps to the 'status' column (enum 'pending', 'indexed', 'failed', 'deleting')
     private ArticleStatus status;
 
+    // Work queue lease: a pending article leased until this time is being indexed by leaseOwner,
+    // once it passes any parser may claim the article again
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(name = "lease_owner")
+    private String leaseOwner;
+
+    // failed indexing attempts, the article is marked failed after dal.queue.max-attempts
+    @Column(nullable = false)
+    private int attempts;
+
     public Article() {
         this.createdAt = LocalDateTime.now(); // Set default value to the current timestamp
         this.status = ArticleStatus.pending;
@@ -71,6 +84,23 @@ public class Article {
     public ArticleStatus getStatus() {
         return status;
     }
+    public LocalDateTime getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+    public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+    public int getAttempts() {
+        return attempts;
+    }
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
 
 }
-
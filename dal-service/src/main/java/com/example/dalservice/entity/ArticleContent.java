@@ -1,4 +1,5 @@
 package com.example.dalservice.entity;
+import com.example.dalservice.codec.ContentCodec;
 import jakarta.persistence.*;
 
 @Entity
@@ -15,6 +16,17 @@ public class ArticleContent {
 
     @Lob //large object - use byte[]
     private byte[] compressedContent;  // Stores the article content in binary (BLOB format)
+
+    // Codec of compressedContent (a ContentFrame), null for rows stored raw before compression existed
+    @Enumerated(EnumType.STRING)
+    @Column(name = "content_codec", length = 16)
+    private ContentCodec codec;
+
+    // ContentFrame.blockChars of the content packed by OffsetCodec, so a char offset maps to its block.
+    // Null for rows stored before it existed
+    @Lob
+    @Column(name = "block_chars")
+    private byte[] blockChars;
     public ArticleContent() {}
 
     public ArticleContent(Article article, byte[] compressedContent) {
@@ -43,6 +55,22 @@ public class ArticleContent {
         return compressedContent;
     }
 
+    public ContentCodec getCodec() {
+        return codec;
+    }
+
+    public void setCodec(ContentCodec codec) {
+        this.codec = codec;
+    }
+
+    public byte[] getBlockChars() {
+        return blockChars;
+    }
+
+    public void setBlockChars(byte[] blockChars) {
+        this.blockChars = blockChars;
+    }
+
 
 
 }
@@ -1,6 +1,7 @@
 package com.example.dalservice.entity;
 
-// Enum to represent the status of the article ('PENDING', 'INDEXED')
+// Enum to represent the status of the article ('PENDING', 'INDEXED', 'FAILED', 'DELETING')
+// deleting is a tombstone: the article is hidden from lookups while its rows are purged in the background
 public enum ArticleStatus {
-    pending, indexed
+    pending, indexed, failed, deleting
 }
@@ -3,11 +3,14 @@ import jakarta.persistence.*;
 
 
 @Entity
-@Table(name = "words_mapping")
+// Hibernate orders the composite primary key by attribute name, (article_id, word), which cannot serve a lookup by word.
+// idx_words_mapping_word_article leads with word, so a word lookup is an index range scan.
+@Table(name = "words_mapping",
+        indexes = @Index(name = "idx_words_mapping_word_article", columnList = "word, article_id"))
 @IdClass(WordsMappingKey.class)  // Specifies that this entity has a composite key
 public class WordsMapping {
     @Id
-    private String word;
+    private String word; // stored lowercased (Locale.ROOT), see WordsMappingService.normalizeWord
     @Id
     @Column(name = "article_id")  // Ensures this is mapped correctly
     private Long articleId;
@@ -16,9 +19,13 @@ public class WordsMapping {
     @JoinColumn(name = "article_id", insertable = false, updatable = false)
     private Article article;
 
-    @Column(columnDefinition = "JSON") //store the offsets in json format
+    @Column(columnDefinition = "JSON") //legacy json offsets - only rows written before packed_offsets existed
     private String offsets;
 
+    @Lob //offsets packed by OffsetCodec (delta + varint)
+    @Column(name = "packed_offsets")
+    private byte[] packedOffsets;
+
     // Default constructor (required by JPA)
     public WordsMapping() {
     }
@@ -50,4 +57,12 @@ public class WordsMapping {
     public void setOffsets(String offsets1){
         this.offsets = offsets1;
     }
+
+    public byte[] getPackedOffsets(){
+        return this.packedOffsets;
+    }
+
+    public void setPackedOffsets(byte[] packedOffsets1){
+        this.packedOffsets = packedOffsets1;
+    }
 }
@@ -0,0 +1,96 @@
+package com.example.dalservice.repository.JDBC;
+
+import com.example.dalservice.codec.ContentCodec;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+// Reads article content by byte range instead of loading it into the entity, so callers read just the part they need
+@Repository
+public class ArticleContentJdbcRepository {
+
+    // The stored form of one article's content without most of its bytes: the codec, block_chars (null for rows
+    // stored before it existed), the stored length and its first bytes. length and prefix are null without content.
+    public static final class ContentHead {
+        private final ContentCodec codec;
+        private final byte[] blockChars;
+        private final Long length;
+        private final byte[] prefix;
+
+        public ContentHead(ContentCodec codec, byte[] blockChars, Long length, byte[] prefix) {
+            this.codec = codec;
+            this.blockChars = blockChars;
+            this.length = length;
+            this.prefix = prefix;
+        }
+
+        public ContentCodec getCodec() {
+            return codec;
+        }
+
+        public byte[] getBlockChars() {
+            return blockChars;
+        }
+
+        public Long getLength() {
+            return length;
+        }
+
+        public byte[] getPrefix() {
+            return prefix;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ArticleContentJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // The head of the content with its first prefixLength bytes. This and readRanges cut the bytes out with
+    // SUBSTRING on the server: MySQL Connector/J reads the whole Blob into memory on getBlob unless the connection
+    // sets emulateLocators, so reading a few blocks through the Blob would fetch all of them.
+    // Empty when the article has no content row.
+    public Optional<ContentHead> readHead(Long articleId, int prefixLength) {
+        List<ContentHead> results = jdbcTemplate.query("SELECT content_codec, block_chars, OCTET_LENGTH(compressed_content) AS content_length, "
+                        + "SUBSTRING(compressed_content, 1, ?) AS prefix FROM article_content WHERE article_id = ?",
+                (resultSet, rowNum) -> new ContentHead(ContentCodec.fromTag(resultSet.getString("content_codec")),
+                        resultSet.getBytes("block_chars"),
+                        resultSet.getObject("content_length", Long.class),
+                        resultSet.getBytes("prefix")),
+                prefixLength, articleId);
+        return results.stream().findFirst();
+    }
+
+    // The stored bytes [positions[i], positions[i] + lengths[i]) of each range, 0-based, in one query.
+    // Empty when the article has no content row or no content.
+    public Optional<List<byte[]>> readRanges(Long articleId, long[] positions, int[] lengths) {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        Object[] args = new Object[2 * positions.length + 1];
+        for (int i = 0; i < positions.length; i++) {
+            sql.append(i == 0 ? "" : ", ").append("SUBSTRING(compressed_content, ?, ?)");
+            args[2 * i] = positions[i] + 1;
+            args[2 * i + 1] = lengths[i];
+        }
+        sql.append(" FROM article_content WHERE article_id = ? AND compressed_content IS NOT NULL");
+        args[args.length - 1] = articleId;
+        List<List<byte[]>> results = jdbcTemplate.query(sql.toString(), (resultSet, rowNum) -> {
+            List<byte[]> ranges = new ArrayList<>(positions.length);
+            for (int i = 0; i < positions.length; i++) {
+                ranges.add(resultSet.getBytes(i + 1));
+            }
+            return ranges;
+        }, args);
+        return results.stream().findFirst();
+    }
+
+    // Stores block_chars for a row stored before it existed, leaves rows that have it alone
+    public int saveBlockChars(Long articleId, byte[] blockChars) {
+        return jdbcTemplate.update("UPDATE article_content SET block_chars = ? WHERE article_id = ? AND block_chars IS NULL",
+                blockChars, articleId);
+    }
+
+}
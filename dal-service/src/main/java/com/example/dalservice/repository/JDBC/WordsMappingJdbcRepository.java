@@ -0,0 +1,98 @@
+package com.example.dalservice.repository.JDBC;
+
+import com.example.dalservice.entity.WordsMapping;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+// Bulk write path for word mappings that bypasses the entity manager.
+// JpaRepository.saveAll merges every entity, and with the assigned composite key that means a SELECT and an
+// INSERT per word. Here the rows go out as batched upserts instead: one statement per batch-size rows, and on
+// MySQL with rewriteBatchedStatements=true the driver sends each batch as a single multi-row insert.
+// Runs in the caller's transaction (JpaTransactionManager shares its connection with JdbcTemplate).
+@Repository
+public class WordsMappingJdbcRepository {
+
+    private static final String MYSQL_UPSERT = "INSERT INTO words_mapping (word, article_id, packed_offsets, offsets) "
+            + "VALUES (?, ?, ?, NULL) ON DUPLICATE KEY UPDATE packed_offsets = VALUES(packed_offsets), offsets = NULL";
+    // H2 (tests, benchmarks)
+    private static final String MERGE_UPSERT = "MERGE INTO words_mapping (word, article_id, packed_offsets, offsets) "
+            + "KEY (word, article_id) VALUES (?, ?, ?, NULL)";
+
+    // Keyset page in (word, article_id) order, read through idx_words_mapping_word_article.
+    // Rows of tombstoned articles are skipped.
+    private static final String PAGE_AFTER = "SELECT w.word, w.article_id, w.packed_offsets, w.offsets FROM words_mapping w "
+            + "JOIN articles a ON a.id = w.article_id "
+            + "WHERE (w.word > ? OR (w.word = ? AND w.article_id > ?)) AND a.status <> 'deleting' "
+            + "ORDER BY w.word, w.article_id LIMIT ?";
+    // Distinct words of a range in order, answered from idx_words_mapping_word_article (a loose index scan on MySQL)
+    private static final String WORDS_IN_RANGE = "SELECT DISTINCT word FROM words_mapping WHERE word >= ? AND word < ? "
+            + "ORDER BY word LIMIT ?";
+    // Keyset page of the sizes of indexed articles, the document lengths of the in-memory index
+    private static final String INDEXED_SIZES_AFTER = "SELECT id, size FROM articles WHERE status = 'indexed' AND id > ? "
+            + "ORDER BY id LIMIT ?";
+    // Bounded delete for the background purge, MySQL and H2 both accept DELETE ... LIMIT
+    private static final String DELETE_BATCH = "DELETE FROM words_mapping WHERE article_id = ? LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile String upsertSql;
+
+    @Value("${dal.words-mapping.jdbc-batch-size:1000}")
+    private int batchSize = 1000;
+
+    public WordsMappingJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Insert the mappings, or replace the offsets of rows that already exist. Offsets must already be packed.
+    public void upsertAll(Collection<WordsMapping> wordMappings) {
+        if (wordMappings.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(upsertSql(), wordMappings, batchSize, (statement, mapping) -> {
+            statement.setString(1, mapping.getWord());
+            statement.setLong(2, mapping.getArticleId());
+            statement.setBytes(3, mapping.getPackedOffsets());
+        });
+    }
+
+    // Up to limit rows that sort after (word, articleId), for walking the whole table in bounded pages.
+    // Start with ("", Long.MIN_VALUE) and continue from the last row of each page.
+    public List<WordsMapping> findPageAfter(String word, long articleId, int limit) {
+        return jdbcTemplate.query(PAGE_AFTER, (rs, rowNum) -> {
+            WordsMapping mapping = new WordsMapping(rs.getString("word"), rs.getLong("article_id"));
+            mapping.setPackedOffsets(rs.getBytes("packed_offsets"));
+            mapping.setOffsets(rs.getString("offsets"));
+            return mapping;
+        }, word, word, articleId, limit);
+    }
+
+    // Up to limit distinct words from fromWord (inclusive) to toWord (exclusive), for expanding a word pattern
+    // while the in-memory term dictionary is not available
+    public List<String> findWordsFrom(String fromWord, String toWord, int limit) {
+        return jdbcTemplate.queryForList(WORDS_IN_RANGE, String.class, fromWord, toWord, limit);
+    }
+
+    // Up to limit {id, size} pairs of indexed articles with an id above articleId, in id order
+    public List<long[]> findIndexedArticleSizesAfter(long articleId, int limit) {
+        return jdbcTemplate.query(INDEXED_SIZES_AFTER, (rs, rowNum) -> new long[]{rs.getLong("id"), rs.getLong("size")}, articleId, limit);
+    }
+
+    // Delete at most limit rows of an article, returns the number deleted. Each call is a short statement
+    // with a bounded lock footprint, callers repeat it (each in its own transaction) until it returns less than limit.
+    public int deleteBatchByArticleId(Long articleId, int limit) {
+        return jdbcTemplate.update(DELETE_BATCH, articleId, limit);
+    }
+
+    private String upsertSql() {
+        if (upsertSql == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            upsertSql = "MySQL".equalsIgnoreCase(product) ? MYSQL_UPSERT : MERGE_UPSERT;
+        }
+        return upsertSql;
+    }
+}
@@ -2,7 +2,9 @@ package com.example.dalservice.repository.JPA;
 
 import com.example.dalservice.entity.ArticleContent;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -17,5 +19,8 @@ public interface ArticleContentJpaRepository extends JpaRepository<ArticleConten
     @Query(value = "SELECT * FROM article_content ORDER BY LENGTH(compressed_content) ASC LIMIT 1", nativeQuery = true)
     Optional<ArticleContent> findTopByOrderByCompressedContentLengthAsc();
 
-
+    // One DELETE statement, the BLOB is not loaded first
+    @Modifying
+    @Query("DELETE FROM ArticleContent c WHERE c.articleId = :articleId")
+    int deleteByArticleId(@Param("articleId") Long articleId);
 }
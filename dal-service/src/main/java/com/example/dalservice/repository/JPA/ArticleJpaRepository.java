@@ -1,8 +1,18 @@
 package com.example.dalservice.repository.JPA;
 
+import com.example.dalservice.dto.ArticleMetadataDTO;
 import com.example.dalservice.entity.Article;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -15,7 +25,49 @@ public interface ArticleJpaRepository extends JpaRepository<Article,Long> {
 
     Optional<Article> findByNameAndAuthor(String name, String author);
 
+    // Metadata columns only, the article_content table is not joined or loaded. Tombstoned articles are not returned.
+    @Query("SELECT new com.example.dalservice.dto.ArticleMetadataDTO(a.id, a.name, a.author, a.createdAt, a.size, a.status) "
+            + "FROM Article a WHERE a.id = :id AND a.status <> com.example.dalservice.entity.ArticleStatus.deleting")
+    Optional<ArticleMetadataDTO> findMetadataById(@Param("id") Long id);
 
+    // Metadata of several articles in one IN query, in no particular order
+    @Query("SELECT new com.example.dalservice.dto.ArticleMetadataDTO(a.id, a.name, a.author, a.createdAt, a.size, a.status) "
+            + "FROM Article a WHERE a.id IN :ids AND a.status <> com.example.dalservice.entity.ArticleStatus.deleting")
+    List<ArticleMetadataDTO> findMetadataByIdIn(@Param("ids") Collection<Long> ids);
 
+    // Tombstoned articles whose rows still have to be purged
+    @Query("SELECT a.id FROM Article a WHERE a.status = com.example.dalservice.entity.ArticleStatus.deleting ORDER BY a.id")
+    List<Long> findDeletingIds();
 
+    // One DELETE statement, nothing is loaded into the persistence context first
+    @Modifying
+    @Query("DELETE FROM Article a WHERE a.id = :id")
+    int deleteArticleById(@Param("id") Long id);
+
+    // Lock up to limit claimable pending articles, rows locked by another claim are skipped instead of waited for.
+    // Must run inside a transaction, the locks are held until it commits the new leases.
+    @Query(value = "SELECT * FROM articles WHERE status = 'pending' AND (lease_expires_at IS NULL OR lease_expires_at < :now) "
+            + "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Article> lockClaimable(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // The article with its row locked until the transaction ends, so a claim cannot change its lease in between
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Article a WHERE a.id = :id")
+    Optional<Article> lockById(@Param("id") Long id);
+
+    // One UPDATE that extends the lease of a pending article only while it is leased to worker, 0 when it is not
+    @Transactional
+    @Modifying
+    @Query("UPDATE Article a SET a.leaseExpiresAt = :leaseExpiresAt WHERE a.id = :id AND a.leaseOwner = :worker "
+            + "AND a.status = com.example.dalservice.entity.ArticleStatus.pending")
+    int renewLease(@Param("id") Long id, @Param("worker") String worker, @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+    // Pending articles no parser holds a live lease on
+    @Query("SELECT COUNT(a) FROM Article a WHERE a.status = com.example.dalservice.entity.ArticleStatus.pending "
+            + "AND (a.leaseExpiresAt IS NULL OR a.leaseExpiresAt < :now)")
+    long countClaimable(@Param("now") LocalDateTime now);
+
+    @Query("SELECT COUNT(a) FROM Article a WHERE a.status = com.example.dalservice.entity.ArticleStatus.pending "
+            + "AND a.leaseExpiresAt >= :now")
+    long countLeased(@Param("now") LocalDateTime now);
 }
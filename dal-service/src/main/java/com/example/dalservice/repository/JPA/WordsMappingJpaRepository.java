@@ -1,19 +1,49 @@
 package com.example.dalservice.repository.JPA;
 
+import java.util.Collection;
 import java.util.List;
 import com.example.dalservice.entity.WordsMapping;
 import com.example.dalservice.entity.WordsMappingKey;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface WordsMappingJpaRepository extends JpaRepository<WordsMapping, WordsMappingKey> {
-    @Query("SELECT w FROM WordsMapping w WHERE LOWER(w.word) = LOWER(:word)")
-
+    // Plain equality so the lookup uses idx_words_mapping_word_article - words are stored normalized,
+    // callers pass WordsMappingService.normalizeWord(word). Rows of tombstoned articles are left out.
+    @Query("SELECT w FROM WordsMapping w JOIN w.article a WHERE w.word = :word "
+            + "AND a.status <> com.example.dalservice.entity.ArticleStatus.deleting")
     List<WordsMapping> findByWord(@Param("word")String word);
 
-    void deleteByArticleId(Long articleId);
+    // One keyset page of a word's postings in article id order, a range scan of idx_words_mapping_word_article
+    // that starts right after the previous page's last article instead of skipping an OFFSET
+    @Query("SELECT w FROM WordsMapping w JOIN w.article a WHERE w.word = :word AND w.articleId > :afterArticleId "
+            + "AND a.status <> com.example.dalservice.entity.ArticleStatus.deleting ORDER BY w.articleId")
+    List<WordsMapping> findByWordAfter(@Param("word") String word, @Param("afterArticleId") Long afterArticleId, Pageable pageable);
+
+    // One DELETE statement for all of an article's rows. The derived deleteByArticleId loaded every row
+    // and removed them one by one.
+    @Modifying
+    @Query("DELETE FROM WordsMapping w WHERE w.articleId = :articleId")
+    int deleteByArticleId(@Param("articleId") Long articleId);
+
+    // Loaded read-only: the merged rows are written back by WordsMappingJdbcRepository, so these entities
+    // must not be dirty-checked and flushed a second time
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<WordsMapping> findByArticleIdAndWordIn(Long articleId, Collection<String> words);
+
+    // Rows still holding only the legacy json offsets, used by the packed offsets migration. Keyset paged on the
+    // primary key after (afterWord, afterArticleId), so rows that could not be converted are passed over
+    @Query("SELECT w FROM WordsMapping w WHERE w.packedOffsets IS NULL AND w.offsets IS NOT NULL "
+            + "AND (w.word > :afterWord OR (w.word = :afterWord AND w.articleId > :afterArticleId)) ORDER BY w.word, w.articleId")
+    List<WordsMapping> findWithoutPackedOffsetsAfter(@Param("afterWord") String afterWord, @Param("afterArticleId") Long afterArticleId,
+                                                     Pageable pageable);
 
 }
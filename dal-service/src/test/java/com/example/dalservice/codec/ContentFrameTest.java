@@ -0,0 +1,63 @@
+package com.example.dalservice.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentFrameTest {
+
+    private static byte[] text(int length) {
+        String[] words = {"the", "gateway", "parser", "article", "offset", "index", "word", "content"};
+        StringBuilder text = new StringBuilder(length + 16);
+        Random random = new Random(3);
+        while (text.length() < length) {
+            text.append(words[random.nextInt(words.length)]).append(random.nextInt(10) == 0 ? ".\n" : " ");
+        }
+        return text.substring(0, length).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testRoundTripEveryCodec() {
+        byte[] content = text(300_000);
+        for (ContentCodec codec : ContentCodec.values()) {
+            byte[] frame = ContentFrame.encode(codec, content, 4096);
+
+            assertArrayEquals(content, ContentFrame.decode(codec, frame), codec.name());
+            assertEquals(content.length, ContentFrame.rawLength(frame));
+        }
+    }
+
+    @Test
+    void testCompressesText() {
+        byte[] content = text(300_000);
+
+        assertTrue(ContentFrame.encode(ContentCodec.lz4, content, 65536).length < content.length / 2);
+        assertTrue(ContentFrame.encode(ContentCodec.deflate, content, 65536).length < content.length / 3);
+    }
+
+    // Ranges inside one block, across block boundaries and at both ends
+    @Test
+    void testDecodeRange() {
+        byte[] content = text(10_000);
+        for (ContentCodec codec : ContentCodec.values()) {
+            byte[] frame = ContentFrame.encode(codec, content, 1000);
+            long[][] ranges = {{0, 10}, {990, 1010}, {1500, 4321}, {9000, 10_000}, {0, 10_000}, {5000, 5000}};
+            for (long[] range : ranges) {
+                assertArrayEquals(Arrays.copyOfRange(content, (int) range[0], (int) range[1]),
+                        ContentFrame.decodeRange(codec, frame, range[0], range[1]), codec + " " + Arrays.toString(range));
+            }
+            assertThrows(IndexOutOfBoundsException.class, () -> ContentFrame.decodeRange(codec, frame, 9000, 10_001));
+        }
+    }
+
+    @Test
+    void testEmptyContent() {
+        byte[] frame = ContentFrame.encode(ContentCodec.deflate, new byte[0], 1024);
+
+        assertArrayEquals(new byte[0], ContentFrame.decode(ContentCodec.deflate, frame));
+    }
+}
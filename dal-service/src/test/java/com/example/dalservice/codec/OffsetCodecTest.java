@@ -0,0 +1,44 @@
+package com.example.dalservice.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffsetCodecTest {
+
+    @Test
+    void testRoundTripFromList() {
+        byte[] packed = OffsetCodec.encode(List.of(0, 10, 20, 300, 70_000));
+
+        assertArrayEquals(new int[]{0, 10, 20, 300, 70_000}, OffsetCodec.decode(packed));
+        assertEquals(5, OffsetCodec.count(packed));
+    }
+
+    @Test
+    void testPackedIsSmallerThanJson() {
+        int[] offsets = new int[1000];
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = 5_000_000 + i * 37;
+            json.append(i > 0 ? "," : "").append(offsets[i]);
+        }
+        json.append(']');
+
+        byte[] packed = OffsetCodec.encode(offsets, offsets.length);
+
+        // one byte per delta against eight bytes per offset in json
+        assertTrue(packed.length * 7 < json.length());
+    }
+
+    @Test
+    void testMergeIsSortedAndDropsDuplicates() {
+        byte[] first = OffsetCodec.encode(List.of(1, 7, 30));
+        byte[] second = OffsetCodec.encode(List.of(3, 7, 40));
+
+        assertArrayEquals(new int[]{1, 3, 7, 30, 40}, OffsetCodec.decode(OffsetCodec.merge(first, second)));
+        // merging a list into itself changes nothing
+        assertArrayEquals(first, OffsetCodec.merge(first, first));
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.dalservice.repository.jdbc;
+
+import com.example.dalservice.codec.OffsetCodec;
+import com.example.dalservice.entity.Article;
+import com.example.dalservice.entity.ArticleStatus;
+import com.example.dalservice.entity.WordsMapping;
+import com.example.dalservice.entity.WordsMappingKey;
+import com.example.dalservice.repository.JDBC.WordsMappingJdbcRepository;
+import com.example.dalservice.repository.JPA.ArticleJpaRepository;
+import com.example.dalservice.repository.JPA.WordsMappingJpaRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(WordsMappingJdbcRepository.class)
+public class WordsMappingJdbcRepositoryTest {
+
+    @Autowired
+    private ArticleJpaRepository articleRepository;
+
+    @Autowired
+    private WordsMappingJpaRepository wordsMappingRepository;
+
+    @Autowired
+    private WordsMappingJdbcRepository wordsMappingJdbcRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Long saveArticle(String name) {
+        Article article = new Article();
+        article.setName(name);
+        article.setStatus(ArticleStatus.pending);
+        return articleRepository.saveAndFlush(article).getId();
+    }
+
+    private static WordsMapping mapping(String word, Long articleId, Integer... offsets) {
+        WordsMapping mapping = new WordsMapping(word, articleId);
+        mapping.setPackedOffsets(OffsetCodec.encode(List.of(offsets)));
+        return mapping;
+    }
+
+    // More rows than one JDBC batch, all of them stored
+    @Test
+    void testUpsertAllInsertsEveryRow() {
+        Long articleId = saveArticle("Bulk Insert Article");
+        List<WordsMapping> mappings = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            mappings.add(mapping("word" + i, articleId, i, i + 10));
+        }
+
+        wordsMappingJdbcRepository.upsertAll(mappings);
+        entityManager.clear();
+
+        assertEquals(2500, wordsMappingRepository.count());
+        WordsMapping stored = wordsMappingRepository.findById(new WordsMappingKey("word1234", articleId)).orElseThrow();
+        assertArrayEquals(new int[]{1234, 1244}, OffsetCodec.decode(stored.getPackedOffsets()));
+    }
+
+    // An existing row gets the new offsets and loses its legacy json copy
+    @Test
+    void testUpsertAllReplacesExistingRows() {
+        Long articleId = saveArticle("Bulk Upsert Article");
+        WordsMapping legacy = new WordsMapping("alpha", articleId);
+        legacy.setOffsets("[1, 2]");
+        wordsMappingRepository.saveAndFlush(legacy);
+        entityManager.clear();
+
+        wordsMappingJdbcRepository.upsertAll(List.of(mapping("alpha", articleId, 1, 2, 3), mapping("beta", articleId, 7)));
+        entityManager.clear();
+
+        WordsMapping alpha = wordsMappingRepository.findById(new WordsMappingKey("alpha", articleId)).orElseThrow();
+        assertNull(alpha.getOffsets());
+        assertArrayEquals(new int[]{1, 2, 3}, OffsetCodec.decode(alpha.getPackedOffsets()));
+        assertEquals(2, wordsMappingRepository.count());
+    }
+
+    // Keyset pages walk the table in (word, article_id) order without skipping or repeating a row
+    @Test
+    void testFindPageAfterWalksAllRows() {
+        Long first = saveArticle("Paging Article 1");
+        Long second = saveArticle("Paging Article 2");
+        wordsMappingJdbcRepository.upsertAll(List.of(mapping("beta", first, 1), mapping("alpha", second, 2),
+                mapping("alpha", first, 3), mapping("gamma", second, 4), mapping("beta", second, 5)));
+
+        List<String> seen = new ArrayList<>();
+        String word = "";
+        long articleId = Long.MIN_VALUE;
+        while (true) {
+            List<WordsMapping> page = wordsMappingJdbcRepository.findPageAfter(word, articleId, 2);
+            page.forEach(m -> seen.add(m.getWord() + ":" + (m.getArticleId().equals(first) ? 1 : 2)));
+            if (page.size() < 2) {
+                break;
+            }
+            word = page.get(1).getWord();
+            articleId = page.get(1).getArticleId();
+        }
+
+        assertEquals(List.of("alpha:1", "alpha:2", "beta:1", "beta:2", "gamma:2"), seen);
+    }
+
+    @Test
+    void testFindWordsFromListsDistinctWordsOfRange() {
+        Long first = saveArticle("Range Article 1");
+        Long second = saveArticle("Range Article 2");
+        wordsMappingJdbcRepository.upsertAll(List.of(mapping("index", first, 1), mapping("index", second, 2),
+                mapping("indexing", second, 3), mapping("indigo", first, 4), mapping("inert", first, 5), mapping("ind", first, 6)));
+
+        assertEquals(List.of("index", "indexing"), wordsMappingJdbcRepository.findWordsFrom("index", "indey", 10));
+        assertEquals(List.of("ind", "index"), wordsMappingJdbcRepository.findWordsFrom("ind", "ine", 2));
+    }
+}
@@ -1,19 +1,28 @@
 package com.example.dalservice.repository.jpa;
 
+import com.example.dalservice.dto.ArticleMetadataDTO;
 import com.example.dalservice.entity.Article;
+import com.example.dalservice.entity.ArticleContent;
 import com.example.dalservice.entity.ArticleStatus;
+import com.example.dalservice.repository.JPA.ArticleContentJpaRepository;
 import com.example.dalservice.repository.JPA.ArticleJpaRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-@DataJpaTest
+// SqlRecorder sees every statement Hibernate sends, so a test can tell which tables a query touched
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.dalservice.repository.jpa.ArticleJpaRepositoryTest$SqlRecorder")
 @ActiveProfiles("test") // This will ensure it picks up application-test.properties
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE) // Use NONE for real DB or Replace.ANY for embedded
 public class ArticleJpaRepositoryTest {
@@ -21,6 +30,22 @@ public class ArticleJpaRepositoryTest {
     @Autowired
     private ArticleJpaRepository articleRepository;
 
+    @Autowired
+    private ArticleContentJpaRepository articleContentRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    public static class SqlRecorder implements StatementInspector {
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql.toLowerCase());
+            return sql;
+        }
+    }
+
     @Test
     void testSaveAndFindArticle() {
         Article article = new Article();
@@ -63,4 +88,52 @@ public class ArticleJpaRepositoryTest {
         assertTrue(foundArticle.isPresent());
         assertEquals("Updated Name", foundArticle.get().getName());
     }
+
+    @Test
+    void testFindMetadataByIdDoesNotReadContent() {
+        Article article = new Article("Metadata Article", "Author M", 3, ArticleStatus.indexed);
+        Article savedArticle = articleRepository.save(article);
+        articleContentRepository.save(new ArticleContent(savedArticle, new byte[1 << 20]));
+        entityManager.flush();
+        entityManager.clear();
+
+        SqlRecorder.statements.clear();
+        Optional<ArticleMetadataDTO> metadata = articleRepository.findMetadataById(savedArticle.getId());
+
+        assertTrue(metadata.isPresent());
+        assertEquals("Metadata Article", metadata.get().getName());
+        assertEquals("Author M", metadata.get().getAuthor());
+        assertEquals(3, metadata.get().getSize());
+        assertEquals("indexed", metadata.get().getStatus());
+        assertNotNull(metadata.get().getCreatedAt());
+        // one select on articles, the content row (and its BLOB) is never read
+        assertEquals(1, SqlRecorder.statements.size(), SqlRecorder.statements.toString());
+        assertTrue(SqlRecorder.statements.get(0).contains("articles"));
+        assertFalse(SqlRecorder.statements.get(0).contains("article_content"));
+        assertFalse(SqlRecorder.statements.get(0).contains("compressed_content"));
+    }
+
+    @Test
+    void testFindMetadataByIdMissingArticle() {
+        assertFalse(articleRepository.findMetadataById(-1L).isPresent());
+    }
+
+    @Test
+    void testFindMetadataByIdInUsesOneQuery() {
+        Article first = articleRepository.save(new Article("Batch One", "Author B", 1, ArticleStatus.indexed));
+        Article second = articleRepository.save(new Article("Batch Two", "Author B", 2, ArticleStatus.pending));
+        Article deleted = articleRepository.save(new Article("Batch Deleted", "Author B", 3, ArticleStatus.deleting));
+        articleContentRepository.save(new ArticleContent(first, new byte[1 << 16]));
+        entityManager.flush();
+        entityManager.clear();
+
+        SqlRecorder.statements.clear();
+        List<ArticleMetadataDTO> metadata = articleRepository.findMetadataByIdIn(
+                List.of(second.getId(), first.getId(), deleted.getId(), -1L));
+
+        // tombstoned and unknown ids are left out
+        assertEquals(List.of(first.getId(), second.getId()), metadata.stream().map(ArticleMetadataDTO::getId).sorted().toList());
+        assertEquals(1, SqlRecorder.statements.size(), SqlRecorder.statements.toString());
+        assertFalse(SqlRecorder.statements.get(0).contains("article_content"));
+    }
 }
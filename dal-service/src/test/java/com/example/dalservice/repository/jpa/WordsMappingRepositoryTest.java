@@ -10,9 +10,15 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -27,6 +33,44 @@ public class WordsMappingRepositoryTest {
     @Autowired
     private WordsMappingJpaRepository wordsMappingRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private void addWords(Long articleId, List<String> words) {
+        jdbcTemplate.batchUpdate("INSERT INTO words_mapping (word, article_id) VALUES (?, ?)", words, words.size(),
+                (statement, word) -> {
+                    statement.setString(1, word);
+                    statement.setLong(2, articleId);
+                });
+    }
+
+    private void addFillerWords(List<Long> articleIds, int wordsPerArticle) {
+        for (Long articleId : articleIds) {
+            List<String> words = new ArrayList<>();
+            for (int i = 0; i < wordsPerArticle; i++) {
+                words.add("filler" + wordsPerArticle + "x" + i);
+            }
+            addWords(articleId, words);
+        }
+    }
+
+    // Plan and row counts of the SQL findByWord runs
+    private String explainLookup(String word) {
+        return jdbcTemplate.queryForObject("EXPLAIN ANALYZE SELECT word, article_id, packed_offsets FROM words_mapping WHERE word = ?",
+                String.class, word);
+    }
+
+    private static long scanCount(String plan) {
+        Matcher matcher = Pattern.compile("scanCount: (\\d+)").matcher(plan);
+        assertTrue(matcher.find(), plan);
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private String explainLegacyLookup(String word) {
+        return jdbcTemplate.queryForObject("EXPLAIN ANALYZE SELECT word, article_id, packed_offsets FROM words_mapping WHERE LOWER(word) = LOWER(?)",
+                String.class, word);
+    }
+
     @Test
     void testSaveAndFindWordsMapping() {
         // First, save an article
@@ -99,4 +143,58 @@ public class WordsMappingRepositoryTest {
         Optional<WordsMapping> foundMapping = wordsMappingRepository.findById(new WordsMappingKey(savedMapping.getWord(), savedMapping.getArticleId()));
         assertFalse(foundMapping.isPresent());  // Ensure the mapping was deleted
     }
+
+    // The lookup by word is an index range scan: the rows H2 reads stay the matching rows while the corpus grows
+    @Test
+    void testFindByWordUsesWordIndex() {
+        List<Long> articleIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Article article = new Article();
+            article.setName("Lookup Article " + i);
+            article.setStatus(ArticleStatus.indexed);
+            articleIds.add(articleRepository.saveAndFlush(article).getId());
+        }
+        for (Long articleId : articleIds) {
+            addWords(articleId, List.of("needle"));
+        }
+
+        addFillerWords(articleIds, 100);
+        String smallCorpusPlan = explainLookup("needle");
+        addFillerWords(articleIds, 3000);
+        String largeCorpusPlan = explainLookup("needle");
+        String legacyPlan = explainLegacyLookup("needle");
+
+        assertTrue(largeCorpusPlan.contains("IDX_WORDS_MAPPING_WORD_ARTICLE"), largeCorpusPlan);
+        assertFalse(largeCorpusPlan.contains("tableScan"), largeCorpusPlan);
+        // 3 matching rows (+1 read that ends the range) whether the table holds 300 or 9300 other rows
+        assertEquals(scanCount(smallCorpusPlan), scanCount(largeCorpusPlan));
+        assertTrue(scanCount(largeCorpusPlan) <= 4, largeCorpusPlan);
+        // the former LOWER(word) predicate reads the whole table
+        assertTrue(legacyPlan.contains("tableScan"), legacyPlan);
+        assertTrue(scanCount(legacyPlan) > 9000, legacyPlan);
+        assertEquals(3, wordsMappingRepository.findByWord("needle").size());
+    }
+
+    // Keyset pages continue after the last article of the previous page, in article id order
+    @Test
+    void testFindByWordAfterPages() {
+        List<Long> articleIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Article article = new Article();
+            article.setName("Paged Article " + i);
+            article.setStatus(ArticleStatus.indexed);
+            articleIds.add(articleRepository.saveAndFlush(article).getId());
+        }
+        for (Long articleId : articleIds) {
+            addWords(articleId, List.of("hot", "other"));
+        }
+
+        List<WordsMapping> first = wordsMappingRepository.findByWordAfter("hot", Long.MIN_VALUE, PageRequest.of(0, 2));
+        List<WordsMapping> second = wordsMappingRepository.findByWordAfter("hot", first.get(1).getArticleId(), PageRequest.of(0, 2));
+        List<WordsMapping> last = wordsMappingRepository.findByWordAfter("hot", second.get(1).getArticleId(), PageRequest.of(0, 2));
+
+        assertEquals(articleIds.subList(0, 2), first.stream().map(WordsMapping::getArticleId).toList());
+        assertEquals(articleIds.subList(2, 4), second.stream().map(WordsMapping::getArticleId).toList());
+        assertEquals(articleIds.subList(4, 5), last.stream().map(WordsMapping::getArticleId).toList());
+    }
 }
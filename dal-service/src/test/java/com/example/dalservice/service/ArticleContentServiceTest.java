@@ -1,20 +1,26 @@
 package com.example.dalservice.service;
 
 import com.example.dalservice.Service.ArticleContentService;
+import com.example.dalservice.codec.ContentCodec;
+import com.example.dalservice.entity.Article;
 import com.example.dalservice.entity.ArticleContent;
+import com.example.dalservice.repository.JDBC.ArticleContentJdbcRepository;
 import com.example.dalservice.repository.JPA.ArticleContentJpaRepository;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
 class ArticleContentServiceTest {
 
     private ArticleContentJpaRepository articleContentRepository = Mockito.mock(ArticleContentJpaRepository.class);
-    private ArticleContentService articleContentService = new ArticleContentService(articleContentRepository);
+    private ArticleContentJdbcRepository articleContentJdbcRepository = Mockito.mock(ArticleContentJdbcRepository.class);
+    private ArticleContentService articleContentService = new ArticleContentService(articleContentRepository, articleContentJdbcRepository);
 
     @Test
     void testGetArticleContentById() {
@@ -47,4 +53,27 @@ class ArticleContentServiceTest {
         // Assert: Check that the service returned the saved content
         assertArrayEquals(new byte[]{1, 2, 3}, savedContent.getCompressedContent());
     }
+
+    @Test
+    void testSaveContentCompresses() {
+        byte[] content = "the parser and the gateway and the parser and the gateway".repeat(100).getBytes(StandardCharsets.UTF_8);
+        when(articleContentRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ArticleContent saved = articleContentService.saveContent(new Article(), content);
+
+        // stored compressed and tagged, read back as the original bytes
+        assertEquals(ContentCodec.lz4, saved.getCodec());
+        assertTrue(saved.getCompressedContent().length < content.length / 4);
+        assertArrayEquals(content, ArticleContentService.readContent(saved));
+    }
+
+    @Test
+    void testLegacyRawContentIsReadAsIs() {
+        // a row stored before compression existed has no codec
+        ArticleContent legacy = new ArticleContent();
+        legacy.setCompressedContent("plain text".getBytes(StandardCharsets.UTF_8));
+        when(articleContentRepository.findById(2L)).thenReturn(Optional.of(legacy));
+
+        assertArrayEquals("plain text".getBytes(StandardCharsets.UTF_8), articleContentService.getContent(2L).orElseThrow());
+    }
 }
@@ -0,0 +1,198 @@
+package com.example.dalservice.service;
+
+import com.example.dalservice.Service.ArticleContentService;
+import com.example.dalservice.codec.ContentCodec;
+import com.example.dalservice.codec.ContentFrame;
+import com.example.dalservice.codec.OffsetCodec;
+import com.example.dalservice.dto.SnippetDTO;
+import com.example.dalservice.entity.Article;
+import com.example.dalservice.entity.ArticleContent;
+import com.example.dalservice.entity.ArticleStatus;
+import com.example.dalservice.repository.JDBC.ArticleContentJdbcRepository;
+import com.example.dalservice.repository.JPA.ArticleContentJpaRepository;
+import com.example.dalservice.repository.JPA.ArticleJpaRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Range reads and snippets from the stored bytes, for compressed and for legacy raw rows
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ArticleContentService.class, ArticleContentJdbcRepository.class})
+@TestPropertySource(properties = {"dal.content.codec=deflate", "dal.content.block-size=1024"})
+class ArticleContentStreamingTest {
+
+    @Autowired
+    private ArticleContentService articleContentService;
+
+    @Autowired
+    private ArticleJpaRepository articleRepository;
+
+    @Autowired
+    private ArticleContentJpaRepository articleContentRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private static byte[] text() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; text.length() < 10_000; i++) {
+            text.append("word").append(i).append(' ');
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Article article(String name) {
+        return articleRepository.save(new Article(name, "Stream Author", 0, ArticleStatus.indexed));
+    }
+
+    private byte[] stream(Long id, long from, long to) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(articleContentService.streamContent(id, from, to, out));
+        return out.toByteArray();
+    }
+
+    @Test
+    void testStreamsRangesOfCompressedContent() {
+        byte[] content = text();
+        Article article = article("Compressed Stream Article");
+        ArticleContent saved = articleContentService.saveContent(article, content);
+        entityManager.flush();
+
+        assertEquals(ContentCodec.deflate, saved.getCodec());
+        assertEquals(content.length, articleContentService.getContentLength(article.getId()).orElseThrow());
+        assertArrayEquals(content, stream(article.getId(), 0, content.length));
+        // inside one block, and across block boundaries
+        assertArrayEquals(Arrays.copyOfRange(content, 100, 200), stream(article.getId(), 100, 200));
+        assertArrayEquals(Arrays.copyOfRange(content, 1000, 5000), stream(article.getId(), 1000, 5000));
+
+        // blocks past the bytes read with the header
+        byte[] random = new byte[20_000];
+        new Random(7).nextBytes(random);
+        Article randomArticle = article("Random Stream Article");
+        articleContentService.saveContent(randomArticle, random);
+        entityManager.flush();
+        assertEquals(random.length, articleContentService.getContentLength(randomArticle.getId()).orElseThrow());
+        assertArrayEquals(Arrays.copyOfRange(random, 9000, 15000), stream(randomArticle.getId(), 9000, 15000));
+    }
+
+    @Test
+    void testStreamsLegacyRawContent() {
+        byte[] content = "plain stored text".getBytes(StandardCharsets.UTF_8);
+        Article article = article("Raw Stream Article");
+        articleContentRepository.save(new ArticleContent(article, content));
+        entityManager.flush();
+
+        assertEquals(content.length, articleContentService.getContentLength(article.getId()).orElseThrow());
+        assertArrayEquals("stored".getBytes(StandardCharsets.UTF_8), stream(article.getId(), 6, 12));
+
+        // several block sizes of a longer row
+        byte[] text = text();
+        Article longArticle = article("Long Raw Stream Article");
+        articleContentRepository.save(new ArticleContent(longArticle, text));
+        entityManager.flush();
+        assertEquals(text.length, articleContentService.getContentLength(longArticle.getId()).orElseThrow());
+        assertArrayEquals(Arrays.copyOfRange(text, 500, 7000), stream(longArticle.getId(), 500, 7000));
+    }
+
+    @Test
+    void testMissingContent() {
+        assertTrue(articleContentService.getContentLength(-1L).isEmpty());
+        assertFalse(articleContentService.streamContent(-1L, 0, 0, new ByteArrayOutputStream()));
+        assertTrue(articleContentService.readSnippets(-1L, new int[]{0}, 1, 10).isEmpty());
+    }
+
+    // Text with two, three and four byte code points, so code points and surrogate pairs straddle block boundaries
+    private static String multibyteText() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; text.length() < 10_000; i++) {
+            text.append("café ").append(i % 7 == 0 ? "\uD83D\uDE00 " : "").append("日本語 target").append(i).append(' ');
+        }
+        return text.toString();
+    }
+
+    private static int[] offsetsOf(String text, String word) {
+        List<Integer> offsets = new ArrayList<>();
+        for (int offset = text.indexOf(word); offset >= 0; offset = text.indexOf(word, offset + 1)) {
+            offsets.add(offset);
+        }
+        return offsets.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // Each snippet is the text around its offset, widened to whole code points at both ends
+    private static void assertSnippets(String text, int[] offsets, int length, int context, List<SnippetDTO> snippets) {
+        assertEquals(offsets.length, snippets.size());
+        for (int i = 0; i < offsets.length; i++) {
+            SnippetDTO snippet = snippets.get(i);
+            int from = Math.max(0, offsets[i] - context);
+            int to = Math.min(text.length(), offsets[i] + length + context);
+            assertEquals(offsets[i], snippet.getOffset());
+            assertEquals(Character.isLowSurrogate(text.charAt(from)) ? from - 1 : from, snippet.getStart());
+            int end = to < text.length() && Character.isLowSurrogate(text.charAt(to)) ? to + 1 : to;
+            assertEquals(text.substring(snippet.getStart(), end), snippet.getText());
+        }
+    }
+
+    @Test
+    void testSnippetsOfCompressedContent() {
+        String text = multibyteText();
+        Article article = article("Compressed Snippet Article");
+        articleContentService.saveContent(article, text.getBytes(StandardCharsets.UTF_8));
+        entityManager.flush();
+
+        int[] offsets = offsetsOf(text, "target");
+        for (int context : new int[]{0, 1, 7, 40, 700}) {
+            assertSnippets(text, offsets, "target".length(), context,
+                    articleContentService.readSnippets(article.getId(), offsets, "target".length(), context).orElseThrow());
+        }
+        // the emoji, context ending inside the next surrogate pair, and offsets outside the content
+        int emoji = text.indexOf("\uD83D\uDE00");
+        assertSnippets(text, new int[]{emoji}, 2, 0, articleContentService.readSnippets(article.getId(), new int[]{emoji}, 2, 0).orElseThrow());
+        int before = text.indexOf("\uD83D\uDE00", emoji + 1) - 3;
+        assertSnippets(text, new int[]{before}, 2, 2, articleContentService.readSnippets(article.getId(), new int[]{before}, 2, 2).orElseThrow());
+        assertEquals(List.of(), articleContentService.readSnippets(article.getId(), new int[]{-1, text.length()}, 6, 10).orElseThrow());
+
+        articleContentService.deleteArticleContentById(article.getId());
+        entityManager.flush();
+        assertTrue(articleContentService.readSnippets(article.getId(), offsets, "target".length(), 10).isEmpty());
+    }
+
+    @Test
+    void testSnippetsOfLegacyRows() {
+        String text = multibyteText();
+        int[] offsets = offsetsOf(text, "target");
+        // a raw row, and a frame stored before block_chars existed
+        Article raw = article("Raw Snippet Article");
+        articleContentRepository.save(new ArticleContent(raw, text.getBytes(StandardCharsets.UTF_8)));
+        Article framed = article("Framed Snippet Article");
+        articleContentService.saveContent(framed, text.getBytes(StandardCharsets.UTF_8));
+        entityManager.flush();
+        entityManager.createNativeQuery("UPDATE article_content SET block_chars = NULL WHERE article_id = ?")
+                .setParameter(1, framed.getId())
+                .executeUpdate();
+
+        for (Article article : List.of(raw, framed)) {
+            assertSnippets(text, offsets, "target".length(), 30,
+                    articleContentService.readSnippets(article.getId(), offsets, "target".length(), 30).orElseThrow());
+        }
+        // the frame's chars per block were counted once and stored with it
+        entityManager.clear();
+        byte[] blockChars = articleContentRepository.findById(framed.getId()).orElseThrow().getBlockChars();
+        assertArrayEquals(ContentFrame.blockChars(text.getBytes(StandardCharsets.UTF_8), 1024), OffsetCodec.decode(blockChars));
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.dalservice.service;
+
+import com.example.dalservice.Service.ArticleContentService;
+import com.example.dalservice.Service.ArticleDeletionService;
+import com.example.dalservice.Service.ArticleService;
+import com.example.dalservice.Service.WordIndexService;
+import com.example.dalservice.Service.WordsMappingService;
+import com.example.dalservice.codec.OffsetCodec;
+import com.example.dalservice.entity.Article;
+import com.example.dalservice.entity.ArticleContent;
+import com.example.dalservice.entity.ArticleStatus;
+import com.example.dalservice.entity.WordsMapping;
+import com.example.dalservice.repository.JDBC.ArticleContentJdbcRepository;
+import com.example.dalservice.repository.JDBC.WordsMappingJdbcRepository;
+import com.example.dalservice.repository.JPA.ArticleContentJpaRepository;
+import com.example.dalservice.repository.JPA.ArticleJpaRepository;
+import com.example.dalservice.repository.JPA.WordsMappingJpaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs without the test transaction: the purge commits batch by batch on its own thread like it does in production
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ArticleDeletionServiceTest {
+
+    @Autowired
+    private ArticleJpaRepository articleRepository;
+
+    @Autowired
+    private ArticleContentJpaRepository articleContentRepository;
+
+    @Autowired
+    private WordsMappingJpaRepository wordsMappingRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transactionTemplate;
+    private WordsMappingJdbcRepository wordsMappingJdbcRepository;
+    private WordIndexService wordIndexService;
+    private WordsMappingService wordsMappingService;
+    private ArticleService articleService;
+    private ArticleDeletionService deletionService;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        wordsMappingJdbcRepository = new WordsMappingJdbcRepository(jdbcTemplate);
+        wordIndexService = new WordIndexService(wordsMappingJdbcRepository, meterRegistry, true, 1 << 24, 1000);
+        articleService = new ArticleService(articleRepository);
+        wordsMappingService = new WordsMappingService(wordsMappingRepository, wordsMappingJdbcRepository, articleService, wordIndexService);
+        ArticleContentService articleContentService = new ArticleContentService(articleContentRepository, new ArticleContentJdbcRepository(jdbcTemplate));
+        deletionService = new ArticleDeletionService(articleRepository, articleContentService, wordsMappingService,
+                wordIndexService, transactionTemplate, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        deletionService.shutdown();
+        jdbcTemplate.update("DELETE FROM words_mapping");
+        articleContentRepository.deleteAll();
+        articleRepository.deleteAll();
+    }
+
+    // An indexed article with its content and words "shared" plus extraWords words of its own
+    private Long indexedArticle(String name, int extraWords) {
+        Long articleId = transactionTemplate.execute(status -> {
+            Article article = articleRepository.save(new Article(name, "Deletion Author", 5, ArticleStatus.indexed));
+            articleContentRepository.save(new ArticleContent(article, ("body of " + name).getBytes(StandardCharsets.UTF_8)));
+            return article.getId();
+        });
+        List<WordsMapping> mappings = new ArrayList<>();
+        mappings.add(mapping("shared", articleId));
+        for (int i = 0; i < extraWords; i++) {
+            mappings.add(mapping(name.toLowerCase() + "x" + i, articleId));
+        }
+        wordsMappingJdbcRepository.upsertAll(mappings);
+        return articleId;
+    }
+
+    private static WordsMapping mapping(String word, Long articleId) {
+        WordsMapping mapping = new WordsMapping(word, articleId);
+        mapping.setPackedOffsets(OffsetCodec.encode(List.of(0, 4)));
+        return mapping;
+    }
+
+    private long mappingRows(Long articleId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM words_mapping WHERE article_id = ?", Long.class, articleId);
+    }
+
+    private void awaitPurged(Long articleId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (articleRepository.existsById(articleId) || deletionService.pendingPurges() > 0) {
+            assertTrue(System.currentTimeMillis() < deadline, "purge of article " + articleId + " did not finish");
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    void testDeleteNowRemovesEveryRow() throws InterruptedException {
+        Long deleted = indexedArticle("Gone", 100);
+        Long kept = indexedArticle("Kept", 10);
+
+        wordIndexService.build();
+        int words = wordIndexService.dictionarySize();
+
+        deletionService.deleteNow(deleted);
+
+        // hidden from the index at once, its words leave the dictionary on the purge thread
+        assertEquals(List.of(kept), wordIndexService.find("shared").orElseThrow().stream().map(WordsMapping::getArticleId).toList());
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (wordIndexService.dictionarySize() != words - 100) {
+            assertTrue(System.currentTimeMillis() < deadline, "the words of article " + deleted + " were not dropped");
+            Thread.sleep(20);
+        }
+        assertFalse(articleRepository.existsById(deleted));
+        assertFalse(articleContentRepository.existsById(deleted));
+        assertEquals(0, mappingRows(deleted));
+        assertEquals(11, mappingRows(kept));
+        assertTrue(articleContentRepository.existsById(kept));
+    }
+
+    // The state between the tombstone and the end of the purge: the rows still exist but no lookup returns them
+    @Test
+    void testTombstonedArticleIsHiddenFromLookups() {
+        Long tombstoned = indexedArticle("Hidden", 5);
+        Long live = indexedArticle("Visible", 5);
+        transactionTemplate.executeWithoutResult(status -> {
+            Article article = articleRepository.findById(tombstoned).orElseThrow();
+            article.setStatus(ArticleStatus.deleting);
+            articleRepository.save(article);
+        });
+        wordIndexService.build();
+
+        assertEquals(List.of(live), wordsMappingRepository.findByWord("shared").stream().map(WordsMapping::getArticleId).toList());
+        assertEquals(List.of(live), wordsMappingRepository.findByWordAfter("shared", Long.MIN_VALUE, PageRequest.of(0, 10))
+                .stream().map(WordsMapping::getArticleId).toList());
+        assertEquals(List.of(live), wordIndexService.find("shared").orElseThrow().stream().map(WordsMapping::getArticleId).toList());
+        assertTrue(wordIndexService.find("hiddenx0").orElseThrow().isEmpty());
+        assertFalse(articleRepository.findMetadataById(tombstoned).isPresent());
+        assertTrue(articleRepository.findMetadataById(live).isPresent());
+        // no writer can bring the article back
+        assertThrows(NoSuchElementException.class, () -> wordsMappingService.appendWordsMappings(tombstoned, List.of(), true));
+        assertThrows(NoSuchElementException.class, () -> articleService.updateArticleStatus(tombstoned, ArticleStatus.indexed));
+        assertEquals(6, mappingRows(tombstoned));
+    }
+
+    @Test
+    void testTombstonePurgesInBackground() throws InterruptedException {
+        // more rows than one purge batch (5000)
+        Long deleted = indexedArticle("Large", 12_000);
+        Long kept = indexedArticle("Small", 10);
+        wordIndexService.build();
+
+        assertTrue(deletionService.tombstone(deleted));
+        // the content goes with the tombstone and the index stops returning the article right away
+        assertFalse(articleContentRepository.existsById(deleted));
+        assertEquals(List.of(kept), wordIndexService.find("shared").orElseThrow().stream().map(WordsMapping::getArticleId).toList());
+        awaitPurged(deleted);
+
+        assertEquals(0, mappingRows(deleted));
+        assertEquals(11, mappingRows(kept));
+        assertEquals(12_001, meterRegistry.get("dal.purge.rows").counter().count());
+        assertFalse(deletionService.tombstone(deleted));
+    }
+
+    @Test
+    void testResumePurgesAfterRestart() throws InterruptedException {
+        Long deleted = indexedArticle("Interrupted", 20);
+        transactionTemplate.executeWithoutResult(status -> {
+            Article article = articleRepository.findById(deleted).orElseThrow();
+            article.setStatus(ArticleStatus.deleting);
+            articleRepository.save(article);
+        });
+
+        deletionService.resumePurges();
+        awaitPurged(deleted);
+
+        assertEquals(0, mappingRows(deleted));
+        assertFalse(articleContentRepository.existsById(deleted));
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.dalservice.service;
+
+import com.example.dalservice.Service.ArticleContentService;
+import com.example.dalservice.Service.ArticleQueueService;
+import com.example.dalservice.dto.ClaimedArticleDTO;
+import com.example.dalservice.entity.Article;
+import com.example.dalservice.entity.ArticleContent;
+import com.example.dalservice.entity.ArticleStatus;
+import com.example.dalservice.repository.JDBC.ArticleContentJdbcRepository;
+import com.example.dalservice.repository.JPA.ArticleContentJpaRepository;
+import com.example.dalservice.repository.JPA.ArticleJpaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs without the test transaction, every claim commits like it does in production
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ArticleQueueServiceTest {
+
+    @Autowired
+    private ArticleJpaRepository articleRepository;
+
+    @Autowired
+    private ArticleContentJpaRepository articleContentRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transactionTemplate;
+    private ArticleQueueService queueService;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        queueService = new ArticleQueueService(articleRepository, new ArticleContentService(articleContentRepository, new ArticleContentJdbcRepository(jdbcTemplate)), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        articleContentRepository.deleteAll();
+        articleRepository.deleteAll();
+    }
+
+    private Article pendingArticle(String name) {
+        return transactionTemplate.execute(status -> {
+            Article article = articleRepository.save(new Article(name, "Queue Author", 5, ArticleStatus.pending));
+            articleContentRepository.save(new ArticleContent(article, ("body of " + name).getBytes(StandardCharsets.UTF_8)));
+            return article;
+        });
+    }
+
+    private List<ClaimedArticleDTO> claim(String worker, int limit) {
+        return transactionTemplate.execute(status -> queueService.claim(worker, limit));
+    }
+
+    private ArticleStatus release(Long articleId, String worker, boolean failed) {
+        return transactionTemplate.execute(status -> queueService.release(articleId, worker, failed));
+    }
+
+    @Test
+    void testClaimLeasesPendingArticlesOnce() {
+        Article first = pendingArticle("Queue One");
+        pendingArticle("Queue Two");
+        Article indexed = articleRepository.save(new Article("Queue Done", "Queue Author", 5, ArticleStatus.indexed));
+
+        List<ClaimedArticleDTO> claimed = claim("parser-a", 10);
+
+        assertEquals(2, claimed.size());
+        assertEquals(first.getId(), claimed.get(0).getArticleId());
+        // the content comes with start, not with the claim
+        assertNull(claimed.get(0).getContent());
+        assertFalse(claimed.stream().anyMatch(c -> c.getArticleId().equals(indexed.getId())));
+        // leased articles are not handed out again
+        assertTrue(claim("parser-b", 10).isEmpty());
+        assertEquals(0.0, meterRegistry.get("dal.queue.depth").gauge().value());
+        assertEquals(2.0, meterRegistry.get("dal.queue.leased").gauge().value());
+        assertEquals(2, meterRegistry.get("dal.queue.claim.latency").timer().count());
+    }
+
+    @Test
+    void testExpiredLeaseIsClaimedAgain() {
+        Article article = pendingArticle("Queue Expired");
+        article.setLeaseOwner("crashed-parser");
+        article.setLeaseExpiresAt(LocalDateTime.now().minusSeconds(1));
+        articleRepository.save(article);
+
+        List<ClaimedArticleDTO> claimed = claim("parser-b", 10);
+
+        assertEquals(1, claimed.size());
+        assertEquals("parser-b", articleRepository.findById(article.getId()).orElseThrow().getLeaseOwner());
+    }
+
+    // A second claim running while the first still holds its row locks skips those rows instead of blocking
+    @Test
+    void testConcurrentClaimsSkipLockedRows() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            pendingArticle("Queue Concurrent " + i);
+        }
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<ClaimedArticleDTO>> slowClaim = executor.submit(() -> transactionTemplate.execute(status -> {
+                List<ClaimedArticleDTO> claimed = queueService.claim("parser-a", 2);
+                locked.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return claimed;
+            }));
+            assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+            // returns immediately instead of waiting for parser-a's transaction. MySQL returns the 3 unlocked rows,
+            // H2 also skips rows the locking scan of parser-a passed over, so only disjointness is checked here
+            List<ClaimedArticleDTO> fastClaim = claim("parser-b", 10);
+            release.countDown();
+            List<ClaimedArticleDTO> slowClaimed = slowClaim.get(10, TimeUnit.SECONDS);
+
+            Set<Long> ids = new HashSet<>();
+            slowClaimed.forEach(c -> ids.add(c.getArticleId()));
+            fastClaim.forEach(c -> assertTrue(ids.add(c.getArticleId())));
+            assertEquals(2, slowClaimed.size());
+            // whatever was skipped is still claimable once the locks are gone
+            claim("parser-c", 10).forEach(c -> assertTrue(ids.add(c.getArticleId())));
+            assertEquals(5, ids.size());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFailedReleasesEndInFailedStatus() {
+        Article article = pendingArticle("Queue Failing");
+
+        for (int attempt = 1; attempt < 3; attempt++) {
+            assertEquals(1, claim("parser-a", 10).size());
+            assertEquals(ArticleStatus.pending, release(article.getId(), "parser-a", true));
+        }
+        assertEquals(1, claim("parser-a", 10).size());
+        assertEquals(ArticleStatus.failed, release(article.getId(), "parser-a", true));
+        assertTrue(claim("parser-a", 10).isEmpty());
+    }
+
+    // A worker whose lease expired and was claimed by another worker cannot release the article any more
+    @Test
+    void testStaleReleaseIsRejected() {
+        Article article = pendingArticle("Queue Stale");
+        assertEquals(1, claim("parser-a", 10).size());
+        transactionTemplate.executeWithoutResult(status -> {
+            Article leased = articleRepository.findById(article.getId()).orElseThrow();
+            leased.setLeaseExpiresAt(LocalDateTime.now().minusSeconds(1));
+            articleRepository.save(leased);
+        });
+        assertEquals(1, claim("parser-b", 10).size());
+
+        assertThrows(IllegalStateException.class, () -> release(article.getId(), "parser-a", true));
+
+        Article stillLeased = articleRepository.findById(article.getId()).orElseThrow();
+        assertEquals("parser-b", stillLeased.getLeaseOwner());
+        assertNotNull(stillLeased.getLeaseExpiresAt());
+        assertEquals(0, stillLeased.getAttempts());
+        assertEquals(ArticleStatus.pending, release(article.getId(), "parser-b", false));
+        assertNull(articleRepository.findById(article.getId()).orElseThrow().getLeaseOwner());
+    }
+
+    // Starting a job renews the lease and returns the content, only for the worker holding the lease
+    @Test
+    void testStartRenewsLeaseOfItsWorker() {
+        Article article = pendingArticle("Queue Started");
+        LocalDateTime claimedUntil = claim("parser-a", 10).get(0).getLeaseExpiresAt();
+        transactionTemplate.executeWithoutResult(status -> {
+            Article leased = articleRepository.findById(article.getId()).orElseThrow();
+            leased.setLeaseExpiresAt(LocalDateTime.now().plusSeconds(1));
+            articleRepository.save(leased);
+        });
+
+        assertThrows(IllegalStateException.class, () -> queueService.start(article.getId(), "parser-b"));
+        ClaimedArticleDTO started = queueService.start(article.getId(), "parser-a");
+
+        assertEquals("body of Queue Started", new String(started.getContent(), StandardCharsets.UTF_8));
+        assertFalse(started.getLeaseExpiresAt().isBefore(claimedUntil));
+        Article renewed = articleRepository.findById(article.getId()).orElseThrow();
+        assertEquals("parser-a", renewed.getLeaseOwner());
+        assertTrue(renewed.getLeaseExpiresAt().isAfter(LocalDateTime.now().plusSeconds(60)));
+        // nothing to start once the article is released
+        release(article.getId(), "parser-a", false);
+        assertThrows(IllegalStateException.class, () -> queueService.start(article.getId(), "parser-a"));
+    }
+}
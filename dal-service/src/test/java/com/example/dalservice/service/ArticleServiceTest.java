@@ -1,14 +1,24 @@
 package com.example.dalservice.service;
 
 import com.example.dalservice.Service.ArticleService;
+import com.example.dalservice.dto.ArticleMetadataBatchDTO;
+import com.example.dalservice.dto.ArticleMetadataDTO;
 import com.example.dalservice.entity.Article;
+import com.example.dalservice.entity.ArticleStatus;
 import com.example.dalservice.repository.JPA.ArticleJpaRepository;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class ArticleServiceTest {
@@ -52,4 +62,46 @@ class ArticleServiceTest {
             fail("Exception occurred while saving the article: " + e.getMessage());
         }
     }
+
+    @Test
+    void testUpdateArticleStatusToFailed() {
+        // Arrange: a pending article
+        Article article = new Article();
+        when(articleRepository.findById(1L)).thenReturn(Optional.of(article));
+
+        // Act: the parser reports a failed indexing job
+        articleService.updateArticleStatus(1L, ArticleStatus.failed);
+
+        // Assert: the new status is saved, unknown articles are rejected
+        assertEquals(ArticleStatus.failed, article.getStatus());
+        verify(articleRepository).save(article);
+        assertThrows(NoSuchElementException.class, () -> articleService.updateArticleStatus(2L, ArticleStatus.failed));
+    }
+
+    @Test
+    void testGetArticleMetadataBatchKeepsRequestOrder() {
+        // Arrange: the query returns the rows in its own order, article 3 does not exist
+        when(articleRepository.findMetadataByIdIn(List.of(5L, 3L, 1L))).thenReturn(List.of(
+                new ArticleMetadataDTO(1L, "First", "Author", LocalDateTime.now(), 10, ArticleStatus.indexed),
+                new ArticleMetadataDTO(5L, "Fifth", "Author", LocalDateTime.now(), 50, ArticleStatus.pending)));
+
+        // Act: article 5 is asked for twice
+        ArticleMetadataBatchDTO batch = articleService.getArticleMetadata(List.of(5L, 3L, 1L, 5L));
+
+        // Assert: one query, the articles in request order and the unknown id reported
+        assertEquals(List.of(5L, 1L), batch.getArticles().stream().map(ArticleMetadataDTO::getId).toList());
+        assertEquals(List.of(3L), batch.getMissing());
+        verify(articleRepository).findMetadataByIdIn(List.of(5L, 3L, 1L));
+    }
+
+    @Test
+    void testGetArticleMetadataBatchLimits() {
+        ReflectionTestUtils.setField(articleService, "maxBatchSize", 2);
+
+        ArticleMetadataBatchDTO empty = articleService.getArticleMetadata(List.of());
+        assertTrue(empty.getArticles().isEmpty());
+        assertTrue(empty.getMissing().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> articleService.getArticleMetadata(List.of(1L, 2L, 3L)));
+        verify(articleRepository, never()).findMetadataByIdIn(anyCollection());
+    }
 }
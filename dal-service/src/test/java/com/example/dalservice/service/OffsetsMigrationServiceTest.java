@@ -0,0 +1,88 @@
+package com.example.dalservice.service;
+
+import com.example.dalservice.Service.OffsetsMigrationService;
+import com.example.dalservice.codec.OffsetCodec;
+import com.example.dalservice.entity.Article;
+import com.example.dalservice.entity.ArticleStatus;
+import com.example.dalservice.entity.WordsMapping;
+import com.example.dalservice.entity.WordsMappingKey;
+import com.example.dalservice.repository.JPA.ArticleJpaRepository;
+import com.example.dalservice.repository.JPA.WordsMappingJpaRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class OffsetsMigrationServiceTest {
+
+    @Autowired
+    private ArticleJpaRepository articleRepository;
+
+    @Autowired
+    private WordsMappingJpaRepository wordsMappingRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void testLegacyJsonOffsetsArePacked() {
+        Article article = new Article();
+        article.setName("Legacy Offsets Article");
+        article.setStatus(ArticleStatus.indexed);
+        Article savedArticle = articleRepository.save(article);
+        for (int i = 0; i < 5; i++) {
+            WordsMapping legacy = new WordsMapping("legacy" + i, savedArticle.getId());
+            legacy.setOffsets("[" + i + ", " + (i + 100) + "]");
+            wordsMappingRepository.save(legacy);
+        }
+
+        OffsetsMigrationService migrationService = new OffsetsMigrationService(wordsMappingRepository, new TransactionTemplate(transactionManager));
+        long migrated = migrationService.migrateLegacyOffsets();
+
+        assertEquals(5, migrated);
+        WordsMapping converted = wordsMappingRepository.findById(new WordsMappingKey("legacy3", savedArticle.getId())).orElseThrow();
+        assertNull(converted.getOffsets());
+        assertArrayEquals(new int[]{3, 103}, OffsetCodec.decode(converted.getPackedOffsets()));
+        // nothing left to convert on a second run
+        assertEquals(0, migrationService.migrateLegacyOffsets());
+    }
+
+    // Rows that cannot be packed must not hold back the rows after them, even when they fill whole batches
+    @Test
+    void testBadRowsDoNotStopTheMigration() {
+        Article article = new Article();
+        article.setName("Bad Offsets Article");
+        article.setStatus(ArticleStatus.indexed);
+        Article savedArticle = articleRepository.save(article);
+        // "bad..." sorts before "good...", so the bad rows come first
+        for (int i = 0; i < 7; i++) {
+            WordsMapping bad = new WordsMapping("bad" + i, savedArticle.getId());
+            bad.setOffsets("[\"not an offset\"]");
+            wordsMappingRepository.save(bad);
+        }
+        for (int i = 0; i < 4; i++) {
+            WordsMapping good = new WordsMapping("good" + i, savedArticle.getId());
+            good.setOffsets("[" + i + "]");
+            wordsMappingRepository.save(good);
+        }
+
+        OffsetsMigrationService migrationService = new OffsetsMigrationService(wordsMappingRepository, new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(migrationService, "batchSize", 3);
+
+        assertEquals(4, migrationService.migrateLegacyOffsets());
+        assertArrayEquals(new int[]{3}, OffsetCodec.decode(
+                wordsMappingRepository.findById(new WordsMappingKey("good3", savedArticle.getId())).orElseThrow().getPackedOffsets()));
+        WordsMapping bad = wordsMappingRepository.findById(new WordsMappingKey("bad0", savedArticle.getId())).orElseThrow();
+        assertNull(bad.getPackedOffsets());
+        assertNotNull(bad.getOffsets());
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.dalservice.service;
+
+import com.example.dalservice.Service.TermPattern;
+import com.example.dalservice.Service.WordIndexService;
+import com.example.dalservice.codec.OffsetCodec;
+import com.example.dalservice.entity.WordsMapping;
+import com.example.dalservice.repository.JDBC.WordsMappingJdbcRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+class WordIndexServiceTest {
+
+    private WordsMappingJdbcRepository wordsMappingJdbcRepository = Mockito.mock(WordsMappingJdbcRepository.class);
+
+    private static WordsMapping mapping(String word, long articleId, Integer... offsets) {
+        WordsMapping mapping = new WordsMapping(word, articleId);
+        mapping.setPackedOffsets(OffsetCodec.encode(List.of(offsets)));
+        return mapping;
+    }
+
+    private static List<Long> articleIds(List<WordsMapping> mappings) {
+        return mappings.stream().map(WordsMapping::getArticleId).toList();
+    }
+
+    private WordIndexService index(long maxBytes) {
+        return new WordIndexService(wordsMappingJdbcRepository, new SimpleMeterRegistry(), true, maxBytes, 2);
+    }
+
+    @Test
+    void testBuildReadsAllPages() {
+        // pages of two rows, continued from the last (word, article_id) of the previous page
+        when(wordsMappingJdbcRepository.findPageAfter("", Long.MIN_VALUE, 2))
+                .thenReturn(List.of(mapping("alpha", 1, 0, 7), mapping("alpha", 2, 4)));
+        when(wordsMappingJdbcRepository.findPageAfter("alpha", 2, 2))
+                .thenReturn(List.of(mapping("beta", 1, 2)));
+        WordIndexService index = index(1 << 20);
+
+        assertTrue(index.find("alpha").isEmpty()); // not built yet, the database answers
+        index.build();
+
+        List<WordsMapping> alpha = index.find("alpha").orElseThrow();
+        assertEquals(List.of(1L, 2L), articleIds(alpha));
+        assertArrayEquals(new int[]{0, 7}, OffsetCodec.decode(alpha.get(0).getPackedOffsets()));
+        assertEquals(List.of(1L), articleIds(index.find("beta").orElseThrow()));
+        // a word that is neither indexed nor cold does not exist
+        assertEquals(Optional.of(List.of()), index.find("gamma"));
+    }
+
+    @Test
+    void testBuildPacksLegacyJsonOffsets() {
+        WordsMapping legacy = new WordsMapping("alpha", 1L);
+        legacy.setOffsets("[1,2,3]");
+        when(wordsMappingJdbcRepository.findPageAfter(anyString(), anyLong(), anyInt())).thenReturn(List.of(legacy));
+        WordIndexService index = index(1 << 20);
+        index.build();
+
+        assertArrayEquals(new int[]{1, 2, 3}, OffsetCodec.decode(index.find("alpha").orElseThrow().get(0).getPackedOffsets()));
+    }
+
+    @Test
+    void testUpdatesReplaceAndInsertPostings() {
+        when(wordsMappingJdbcRepository.findPageAfter(anyString(), anyLong(), anyInt())).thenReturn(List.of());
+        WordIndexService index = index(1 << 20);
+        index.build();
+
+        index.indexAfterCommit(List.of(mapping("alpha", 5, 1), mapping("alpha", 9, 2), mapping("alpha", 1, 3)));
+        assertEquals(List.of(1L, 5L, 9L), articleIds(index.find("alpha").orElseThrow()));
+
+        // a later write holds the whole offsets of the word in that article
+        index.indexAfterCommit(List.of(mapping("alpha", 5, 1, 8)));
+        List<WordsMapping> alpha = index.find("alpha").orElseThrow();
+        assertEquals(List.of(1L, 5L, 9L), articleIds(alpha));
+        assertArrayEquals(new int[]{1, 8}, OffsetCodec.decode(alpha.get(1).getPackedOffsets()));
+    }
+
+    @Test
+    void testRemoveArticles() {
+        when(wordsMappingJdbcRepository.findPageAfter(anyString(), anyLong(), anyInt())).thenReturn(List.of());
+        WordIndexService index = index(1 << 20);
+        index.build();
+        index.indexAfterCommit(List.of(mapping("alpha", 1, 0), mapping("alpha", 2, 0), mapping("beta", 2, 5)));
+        long before = index.usedBytes();
+
+        index.removeArticlesAfterCommit(List.of(2L));
+
+        assertEquals(List.of(1L), articleIds(index.find("alpha").orElseThrow()));
+        assertEquals(Optional.of(List.of()), index.find("beta"));
+        assertTrue(index.usedBytes() < before);
+    }
+
+    // Hidden articles leave every lookup right away, their postings stay until they are removed
+    @Test
+    void testHiddenArticlesAreLeftOutUntilRemoved() {
+        when(wordsMappingJdbcRepository.findPageAfter(anyString(), anyLong(), anyInt())).thenReturn(List.of());
+        WordIndexService index = index(1 << 20);
+        index.build();
+        index.indexAfterCommit(List.of(mapping("alpha", 1, 0), mapping("alpha", 2, 0), mapping("alpha", 3, 0), mapping("beta", 2, 5)));
+        index.indexArticleAfterCommit(2, 40);
+        long before = index.usedBytes();
+
+        index.hideArticlesAfterCommit(List.of(2L));
+
+        assertEquals(List.of(1L, 3L), articleIds(index.find("alpha").orElseThrow()));
+        assertEquals(List.of(3L), articleIds(index.findPage("alpha", 1, 1).orElseThrow()));
+        // a page holds limit visible articles
+        assertEquals(List.of(1L, 3L), articleIds(index.findPage("alpha", Long.MIN_VALUE, 2).orElseThrow()));
+        assertEquals(Optional.of(List.of()), index.find("beta"));
+        assertEquals(-1, index.articleLength(2));
+        // a late write of the deleted article is not indexed
+        index.indexAfterCommit(List.of(mapping("gamma", 2, 0)));
+        assertEquals(Optional.of(List.of()), index.find("gamma"));
+        assertEquals(2, index.dictionarySize());
+        assertEquals(before, index.usedBytes());
+
+        index.removeArticlesAfterCommit(List.of(2L));
+
+        assertEquals(List.of(1L, 3L), articleIds(index.find("alpha").orElseThrow()));
+        assertEquals(1, index.dictionarySize());
+        assertTrue(index.usedBytes() < before);
+    }
+
+    @Test
+    void testTermsBeyondBudgetFallBackToDatabase() {
+        when(wordsMappingJdbcRepository.findPageAfter(anyString(), anyLong(), anyInt())).thenReturn(List.of());
+        // room for about one small term
+        WordIndexService index = index(200);
+        index.build();
+
+        index.indexAfterCommit(List.of(mapping("alpha", 1, 0)));
+        index.indexAfterCommit(List.of(mapping("beta", 1, 0), mapping("beta", 2, 0)));
+
+        assertTrue(index.find("alpha").isPresent());
+        // cold: the caller has to ask the database
+        assertTrue(index.find("beta").isEmpty());
+        assertTrue(index.usedBytes() <= 200);
+        // a cold term stays cold, later writes do not bring back a partial posting list
+        index.removeArticlesAfterCommit(List.of(1L));
+        index.indexAfterCommit(List.of(mapping("beta", 3, 0)));
+        assertTrue(index.find("beta").isEmpty());
+    }
+
+    @Test
+    void testDisabledIndexNeverAnswers() {
+        WordIndexService index = new WordIndexService(wordsMappingJdbcRepository, new SimpleMeterRegistry(), false, 1 << 20, 2);
+        index.build();
+        index.indexAfterCommit(List.of(mapping("alpha", 1, 0)));
+
+        assertFalse(index.isReady());
+        assertTrue(index.find("alpha").isEmpty());
+        Mockito.verify(wordsMappingJdbcRepository, Mockito.never()).findPageAfter(anyString(), anyLong(), anyInt());
+    }
+
+    @Test
+    void testFindPageStartsAfterArticle() {
+        when(wordsMappingJdbcRepository.findPageAfter(anyString(), anyLong(), anyInt())).thenReturn(List.of());
+        WordIndexService index = index(1 << 20);
+        index.build();
+        index.indexAfterCommit(List.of(mapping("alpha", 1, 0), mapping("alpha", 3, 0), mapping("alpha", 5, 0), mapping("alpha", 7, 0)));
+
+        assertEquals(List.of(1L, 3L), articleIds(index.findPage("alpha", Long.MIN_VALUE, 2).orElseThrow()));
+        assertEquals(List.of(5L, 7L), articleIds(index.findPage("alpha", 3, 2).orElseThrow()));
+        // the cursor does not have to be an article of the term
+        assertEquals(List.of(5L, 7L), articleIds(index.findPage("alpha", 4, 10).orElseThrow()));
+        assertEquals(List.of(), index.findPage("alpha", 7, 2).orElseThrow());
+    }
+
+    @Test
+    void testTermDictionaryFollowsWritesAndDeletes() {
+        when(wordsMappingJdbcRepository.findPageAfter("", Long.MIN_VALUE, 2))
+                .thenReturn(List.of(mapping("index", 1, 0), mapping("indexing", 1, 4)));
+        // room for the built terms only, later terms go cold
+        WordIndexService index = index(300);
+        TermPattern pattern = TermPattern.parse("index*");
+        assertTrue(index.expand(pattern, 10).isEmpty()); // not built yet, the database answers
+
+        index.build();
+        index.indexAfterCommit(List.of(mapping("indexer", 2, 0), mapping("indexes", 2, 3), mapping("zebra", 2, 1)));
+
+        // cold words are listed too, their postings are read from the database
+        assertEquals(List.of("index", "indexer", "indexes", "indexing"), index.expand(pattern, 10).orElseThrow());
+        assertEquals(List.of("index", "indexer"), index.expand(pattern, 2).orElseThrow());
+        assertEquals(5, index.dictionarySize());
+        // a word leaves the dictionary with the last article holding it
+        index.removeArticlesAfterCommit(List.of(1L));
+        assertEquals(List.of("indexer", "indexes"), index.expand(pattern, 10).orElseThrow());
+    }
+
+    @Test
+    void testArticleLengthsFollowIndexingAndDeletes() {
+        when(wordsMappingJdbcRepository.findPageAfter(anyString(), anyLong(), anyInt())).thenReturn(List.of());
+        when(wordsMappingJdbcRepository.findIndexedArticleSizesAfter(Long.MIN_VALUE, 2))
+                .thenReturn(List.of(new long[]{1, 100}, new long[]{2, 300}));
+        when(wordsMappingJdbcRepository.findIndexedArticleSizesAfter(2, 2)).thenReturn(List.of(new long[]{3, 50}));
+        WordIndexService index = index(1 << 20);
+        index.build();
+
+        assertEquals(3, index.articleCount());
+        assertEquals(450, index.totalArticleLength());
+        assertEquals(300, index.articleLength(2));
+        assertEquals(-1, index.articleLength(4));
+
+        index.indexArticleAfterCommit(4, 10);
+        // a re-indexed article counts once, with its new length
+        index.indexArticleAfterCommit(2, 200);
+        index.removeArticlesAfterCommit(List.of(1L));
+        assertEquals(3, index.articleCount());
+        assertEquals(260, index.totalArticleLength());
+        assertEquals(-1, index.articleLength(1));
+    }
+}
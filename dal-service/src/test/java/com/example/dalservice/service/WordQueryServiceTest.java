@@ -0,0 +1,619 @@
+package com.example.dalservice.service;
+
+import com.example.dalservice.Service.TermPattern;
+import com.example.dalservice.Service.WordIndexService;
+import com.example.dalservice.Service.WordQueryService;
+import com.example.dalservice.codec.OffsetCodec;
+import com.example.dalservice.dto.FuzzyTermDTO;
+import com.example.dalservice.dto.PositionalMatchDTO;
+import com.example.dalservice.dto.PositionalResultDTO;
+import com.example.dalservice.dto.SearchHitDTO;
+import com.example.dalservice.dto.TermExpansionDTO;
+import com.example.dalservice.dto.WordQueryMatchDTO;
+import com.example.dalservice.dto.WordQueryResultDTO;
+import com.example.dalservice.entity.WordsMapping;
+import com.example.dalservice.repository.JDBC.WordsMappingJdbcRepository;
+import com.example.dalservice.repository.JPA.WordsMappingJpaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class WordQueryServiceTest {
+
+    private WordsMappingJdbcRepository wordsMappingJdbcRepository = Mockito.mock(WordsMappingJdbcRepository.class);
+    private WordsMappingJpaRepository wordsMappingRepository = Mockito.mock(WordsMappingJpaRepository.class);
+
+    private static WordsMapping mapping(String word, long articleId, Integer... offsets) {
+        WordsMapping mapping = new WordsMapping(word, articleId);
+        mapping.setPackedOffsets(OffsetCodec.encode(List.of(offsets)));
+        return mapping;
+    }
+
+    private static List<WordsMapping> postings(String word, LongStream articleIds) {
+        return articleIds.mapToObj(id -> mapping(word, id, (int) id)).toList();
+    }
+
+    private static List<Long> articleIds(WordQueryResultDTO result) {
+        return result.getMatches().stream().map(WordQueryMatchDTO::getArticleId).toList();
+    }
+
+    // A built (empty) index holding the given rows
+    private WordQueryService service(List<WordsMapping> rows) {
+        WordIndexService index = new WordIndexService(wordsMappingJdbcRepository, new SimpleMeterRegistry(), true, 1 << 26, 1000);
+        index.build();
+        index.indexAfterCommit(rows);
+        return new WordQueryService(index, wordsMappingRepository, wordsMappingJdbcRepository);
+    }
+
+    @Test
+    void testAllIntersectsStartingFromRarestWord() {
+        List<WordsMapping> rows = new ArrayList<>();
+        rows.addAll(postings("alpha", LongStream.rangeClosed(1, 1000)));
+        rows.addAll(postings("beta", LongStream.rangeClosed(1, 1000).filter(id -> id % 7 == 0)));
+        rows.addAll(postings("gamma", LongStream.of(14, 21, 700, 1001)));
+        WordQueryService service = service(rows);
+
+        WordQueryResultDTO result = service.query(List.of("Alpha", "beta", "gamma"), null, null, null, 100);
+
+        assertEquals(List.of(14L, 21L, 700L), articleIds(result));
+        assertNull(result.getNextCursor());
+        // the mappings of the query words in request order, with their offsets
+        WordQueryMatchDTO first = result.getMatches().get(0);
+        assertEquals(List.of("alpha", "beta", "gamma"), first.getMappings().stream().map(WordsMapping::getWord).toList());
+        assertArrayEquals(new int[]{14}, OffsetCodec.decode(first.getMappings().get(2).getPackedOffsets()));
+        // a word no article holds empties an intersection
+        assertTrue(service.query(List.of("alpha", "missing"), null, null, null, 100).getMatches().isEmpty());
+    }
+
+    @Test
+    void testAnyAndNot() {
+        List<WordsMapping> rows = new ArrayList<>();
+        rows.addAll(postings("alpha", LongStream.of(1, 2, 3, 4, 5, 6)));
+        rows.addAll(postings("beta", LongStream.of(2, 4, 9)));
+        rows.addAll(postings("gamma", LongStream.of(3, 4, 10)));
+        rows.addAll(postings("delta", LongStream.of(4, 9)));
+        WordQueryService service = service(rows);
+
+        // union
+        assertEquals(List.of(2L, 3L, 4L, 9L, 10L), articleIds(service.query(null, List.of("beta", "gamma"), null, null, 100)));
+        // union minus exclusions
+        assertEquals(List.of(2L, 3L, 10L), articleIds(service.query(null, List.of("beta", "gamma"), List.of("delta"), null, 100)));
+        // all of alpha, one of beta or gamma, not delta
+        WordQueryResultDTO result = service.query(List.of("alpha"), List.of("beta", "gamma"), List.of("delta"), null, 100);
+        assertEquals(List.of(2L, 3L), articleIds(result));
+        // only the any words the article holds come with it
+        assertEquals(List.of("alpha", "gamma"), result.getMatches().get(1).getMappings().stream().map(WordsMapping::getWord).toList());
+        // a word in both all and any satisfies any on its own
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L), articleIds(service.query(List.of("alpha"), List.of("alpha", "missing"), null, null, 100)));
+    }
+
+    // Deleted articles not yet purged from the index are stepped over by every cursor
+    @Test
+    void testHiddenArticlesAreSkipped() {
+        List<WordsMapping> rows = new ArrayList<>();
+        rows.addAll(postings("alpha", LongStream.rangeClosed(1, 100)));
+        rows.addAll(postings("beta", LongStream.of(2, 4, 50, 99)));
+        rows.addAll(postings("gamma", LongStream.of(4, 98)));
+        rows.addAll(postings("gamme", LongStream.of(7)));
+        WordIndexService index = new WordIndexService(wordsMappingJdbcRepository, new SimpleMeterRegistry(), true, 1 << 26, 1000);
+        index.build();
+        index.indexAfterCommit(rows);
+        WordQueryService service = new WordQueryService(index, wordsMappingRepository, wordsMappingJdbcRepository);
+
+        index.hideArticlesAfterCommit(List.of(4L, 50L, 98L));
+
+        assertEquals(List.of(2L, 99L), articleIds(service.query(List.of("alpha", "beta"), null, null, null, 100)));
+        assertEquals(List.of(2L, 99L), articleIds(service.query(null, List.of("beta", "gamma"), null, null, 100)));
+        assertEquals(95, service.query(List.of("alpha"), null, List.of("beta"), null, 1000).getMatches().size());
+        // a term all of whose articles are hidden is no fuzzy candidate
+        assertEquals(List.of("gamme"), service.fuzzy("gamma", 1, 10, 10).stream().map(FuzzyTermDTO::getTerm).toList());
+    }
+
+    @Test
+    void testMatchesBruteForceAcrossPages() {
+        Random random = new Random(42);
+        List<WordsMapping> rows = new ArrayList<>();
+        List<Set<Long>> sets = new ArrayList<>();
+        // word densities from very frequent to rare
+        double[] densities = {0.9, 0.5, 0.2, 0.05, 0.3};
+        for (int w = 0; w < densities.length; w++) {
+            Set<Long> ids = new TreeSet<>();
+            for (long id = 1; id <= 5000; id++) {
+                if (random.nextDouble() < densities[w]) {
+                    ids.add(id);
+                }
+            }
+            sets.add(ids);
+            List<WordsMapping> wordRows = new ArrayList<>(postings("w" + w, ids.stream().mapToLong(Long::longValue)));
+            // indexing order must not matter
+            Collections.shuffle(wordRows, random);
+            rows.addAll(wordRows);
+        }
+        WordQueryService service = service(rows);
+
+        // all w0 w1, any w2 w3, not w4
+        List<Long> expected = LongStream.rangeClosed(1, 5000).boxed()
+                .filter(id -> sets.get(0).contains(id) && sets.get(1).contains(id))
+                .filter(id -> sets.get(2).contains(id) || sets.get(3).contains(id))
+                .filter(id -> !sets.get(4).contains(id))
+                .collect(Collectors.toList());
+        List<Long> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            WordQueryResultDTO page = service.query(List.of("w0", "w1"), List.of("w2", "w3"), List.of("w4"), cursor, 37);
+            assertTrue(page.getMatches().size() <= 37);
+            paged.addAll(articleIds(page));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, paged);
+    }
+
+    @Test
+    void testFallsBackToDatabaseWhenIndexIsNotReady() {
+        WordIndexService disabled = new WordIndexService(wordsMappingJdbcRepository, new SimpleMeterRegistry(), false, 1 << 20, 1000);
+        WordQueryService service = new WordQueryService(disabled, wordsMappingRepository, wordsMappingJdbcRepository);
+        // rows from the database come in no particular order
+        when(wordsMappingRepository.findByWord("alpha")).thenReturn(List.of(mapping("alpha", 9), mapping("alpha", 3), mapping("alpha", 5)));
+        when(wordsMappingRepository.findByWord("beta")).thenReturn(List.of(mapping("beta", 5), mapping("beta", 9)));
+
+        assertEquals(List.of(5L, 9L), articleIds(service.query(List.of("alpha", "beta"), null, null, null, 10)));
+    }
+
+    @Test
+    void testRejectsInvalidQueries() {
+        WordQueryService service = service(List.of(mapping("alpha", 1, 0)));
+
+        assertThrows(IllegalArgumentException.class, () -> service.query(null, null, List.of("alpha"), null, 10));
+        assertThrows(IllegalArgumentException.class, () -> service.query(List.of(" "), List.of(), null, null, 10));
+        assertThrows(IllegalArgumentException.class, () -> service.query(List.of("alpha"), null, null, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> service.query(List.of("alpha"), null, null, "not a cursor", 10));
+        List<String> tooMany = LongStream.range(0, 33).mapToObj(i -> "w" + i).toList();
+        assertThrows(IllegalArgumentException.class, () -> service.query(tooMany, null, null, null, 10));
+    }
+
+    @Test
+    void testTermPatternMatching() {
+        TermPattern prefix = TermPattern.parse("Index*");
+        assertEquals("index", prefix.prefix());
+        assertEquals("indey", prefix.prefixEnd());
+        assertTrue(prefix.isPrefixOnly());
+        TermPattern wildcard = TermPattern.parse("co?o*r");
+        assertEquals("co", wildcard.prefix());
+        assertFalse(wildcard.isPrefixOnly());
+        assertTrue(wildcard.matches("color"));
+        assertTrue(wildcard.matches("colour"));
+        assertTrue(wildcard.matches("colorer"));
+        assertFalse(wildcard.matches("colors"));
+        assertFalse(wildcard.matches("coir"));
+        assertFalse(wildcard.matches("cor"));
+        assertThrows(IllegalArgumentException.class, () -> TermPattern.parse("*ing"));
+        assertThrows(IllegalArgumentException.class, () -> TermPattern.parse(" "));
+    }
+
+    @Test
+    void testExpandFromTermDictionary() {
+        List<WordsMapping> rows = new ArrayList<>();
+        for (String word : List.of("in", "index", "indexed", "indexing", "indices", "indigo", "inert", "zebra")) {
+            rows.add(mapping(word, 1, 0));
+        }
+        WordQueryService service = service(rows);
+
+        assertEquals(List.of("index", "indexed", "indexing"), service.expand("index*", 10).getTerms());
+        assertEquals(List.of("indexed"), service.expand("ind?*ed", 10).getTerms());
+        assertEquals(List.of("index"), service.expand("ind*x", 10).getTerms());
+        assertEquals(List.of("indigo"), service.expand("indi?o", 10).getTerms());
+        assertEquals(List.of("in"), service.expand("in", 10).getTerms());
+        TermExpansionDTO capped = service.expand("in*", 3);
+        assertEquals(List.of("in", "index", "indexed"), capped.getTerms());
+        assertTrue(capped.isTruncated());
+        assertFalse(service.expand("zebra*", 3).isTruncated());
+        assertTrue(service.expand("q*", 3).getTerms().isEmpty());
+    }
+
+    @Test
+    void testPatternsInQueries() {
+        List<WordsMapping> rows = new ArrayList<>();
+        rows.addAll(postings("search", LongStream.of(1, 2, 3, 4)));
+        rows.addAll(postings("index", LongStream.of(1)));
+        rows.addAll(postings("indexing", LongStream.of(3)));
+        rows.addAll(postings("indigo", LongStream.of(4)));
+        rows.addAll(postings("car", LongStream.of(3)));
+        WordQueryService service = service(rows);
+
+        WordQueryResultDTO result = service.query(List.of("search"), List.of("index*"), null, null, 10);
+        assertEquals(List.of(1L, 3L), articleIds(result));
+        assertEquals(List.of("search", "indexing"), result.getMatches().get(1).getMappings().stream().map(WordsMapping::getWord).toList());
+        assertEquals(List.of(1L, 4L), articleIds(service.query(null, List.of("ind*"), List.of("ca?"), null, 10)));
+        // an any pattern matching no word matches no article
+        assertTrue(service.query(List.of("search"), List.of("zz*"), null, null, 10).getMatches().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> service.query(List.of("ind*"), null, null, null, 10));
+    }
+
+    private static int levenshtein(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            for (int j = 0; j <= b.length(); j++) {
+                d[i][j] = i == 0 ? j : j == 0 ? i : Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1),
+                        d[i - 1][j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1));
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    @Test
+    void testFuzzyRanksByDistanceThenFrequency() {
+        List<WordsMapping> rows = new ArrayList<>();
+        rows.addAll(postings("color", LongStream.of(1)));
+        rows.addAll(postings("colour", LongStream.of(2, 3)));
+        rows.addAll(postings("colon", LongStream.of(4, 5, 6)));
+        rows.addAll(postings("colors", LongStream.of(7)));
+        rows.addAll(postings("cooler", LongStream.of(8)));
+        rows.addAll(postings("dolor", LongStream.of(9)));
+        rows.addAll(postings("cold", LongStream.of(10)));
+        WordQueryService service = service(rows);
+
+        List<FuzzyTermDTO> terms = service.fuzzy("Color", 1, 10, 10);
+        assertEquals(List.of("color", "colon", "colour", "colors", "dolor"), terms.stream().map(FuzzyTermDTO::getTerm).toList());
+        assertEquals(List.of(0, 1, 1, 1, 1), terms.stream().map(FuzzyTermDTO::getDistance).toList());
+        assertEquals(List.of(4L, 5L, 6L), terms.get(1).getMappings().stream().map(WordsMapping::getArticleId).toList());
+        // two edits reach cooler (insert o, substitute e) and cold (delete o, substitute d)
+        List<String> twoEdits = service.fuzzy("color", 2, 10, 10).stream().map(FuzzyTermDTO::getTerm).toList();
+        assertTrue(twoEdits.containsAll(List.of("cooler", "cold")));
+        // capped to the nearest and most frequent words
+        assertEquals(List.of("color", "colon"), service.fuzzy("color", 2, 2, 10).stream().map(FuzzyTermDTO::getTerm).toList());
+        // the first page of each word with the cursor of the next one
+        FuzzyTermDTO colon = service.fuzzy("colon", 1, 1, 2).get(0);
+        assertEquals(List.of(4L, 5L), colon.getMappings().stream().map(WordsMapping::getArticleId).toList());
+        assertNotNull(colon.getNextCursor());
+        assertTrue(service.fuzzy("zzzzzz", 2, 10, 10).isEmpty());
+    }
+
+    @Test
+    void testFuzzyMatchesBruteForce() {
+        Random random = new Random(42);
+        Set<String> vocabulary = new TreeSet<>();
+        while (vocabulary.size() < 3000) {
+            StringBuilder word = new StringBuilder();
+            for (int i = 1 + random.nextInt(8); i > 0; i--) {
+                word.append((char) ('a' + random.nextInt(5)));
+            }
+            vocabulary.add(word.toString());
+        }
+        List<WordsMapping> rows = new ArrayList<>();
+        long articleId = 1;
+        for (String word : vocabulary) {
+            rows.add(mapping(word, articleId++, 0));
+        }
+        Collections.shuffle(rows, random);
+        WordIndexService index = new WordIndexService(wordsMappingJdbcRepository, new SimpleMeterRegistry(), true, 1 << 26, 1000);
+        index.build();
+        WordQueryService service = new WordQueryService(index, wordsMappingRepository, wordsMappingJdbcRepository);
+        ReflectionTestUtils.setField(service, "maxFuzzyTerms", Integer.MAX_VALUE);
+        // most words are in the copy of the dictionary taken by the first lookup, the rest arrive after it
+        index.indexAfterCommit(rows.subList(0, 2500));
+        service.fuzzy("a", 1, 1, 1);
+        index.indexAfterCommit(rows.subList(2500, rows.size()));
+        // and a deleted word is still in the copy
+        WordsMapping deleted = rows.get(0);
+        index.removeArticlesAfterCommit(List.of(deleted.getArticleId()));
+        vocabulary.remove(deleted.getWord());
+
+        for (int query = 0; query < 50; query++) {
+            StringBuilder word = new StringBuilder();
+            for (int i = 1 + random.nextInt(8); i > 0; i--) {
+                word.append((char) ('a' + random.nextInt(6)));
+            }
+            for (int maxEdits = 1; maxEdits <= 2; maxEdits++) {
+                String target = word.toString();
+                int edits = maxEdits;
+                // every word holds one article, so the order is distance then word
+                List<String> expected = vocabulary.stream().filter(w -> levenshtein(w, target) <= edits)
+                        .sorted(Comparator.comparingInt((String w) -> levenshtein(w, target)).thenComparing(w -> w))
+                        .toList();
+                List<FuzzyTermDTO> terms = service.fuzzy(target, maxEdits, Integer.MAX_VALUE, 1);
+                assertEquals(expected, terms.stream().map(FuzzyTermDTO::getTerm).toList(), target + "~" + maxEdits);
+                for (FuzzyTermDTO term : terms) {
+                    assertEquals(levenshtein(term.getTerm(), target), term.getDistance());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testFuzzyNeedsTheWordIndex() {
+        WordIndexService disabled = new WordIndexService(wordsMappingJdbcRepository, new SimpleMeterRegistry(), false, 1 << 20, 1000);
+        WordQueryService unavailable = new WordQueryService(disabled, wordsMappingRepository, wordsMappingJdbcRepository);
+        assertThrows(IllegalStateException.class, () -> unavailable.fuzzy("color", 1, 10, 10));
+
+        WordQueryService service = service(List.of(mapping("color", 1, 0)));
+        assertThrows(IllegalArgumentException.class, () -> service.fuzzy("color", 0, 10, 10));
+        assertThrows(IllegalArgumentException.class, () -> service.fuzzy("color", 3, 10, 10));
+        assertThrows(IllegalArgumentException.class, () -> service.fuzzy("colo*", 1, 10, 10));
+        assertThrows(IllegalArgumentException.class, () -> service.fuzzy(" ", 1, 10, 10));
+        assertThrows(IllegalArgumentException.class, () -> service.fuzzy("color", 1, 0, 10));
+    }
+
+    private static double bm25(int tf, int df, int articles, double length, double averageLength) {
+        double idf = Math.log(1 + (articles - df + 0.5) / (df + 0.5));
+        return idf * tf * 2.2 / (tf + 1.2 * (0.25 + 0.75 * length / averageLength));
+    }
+
+    private static List<Long> hitIds(List<SearchHitDTO> hits) {
+        return hits.stream().map(SearchHitDTO::getArticleId).toList();
+    }
+
+    @Test
+    void testSearchRanksWithBm25() {
+        WordIndexService index = new WordIndexService(wordsMappingJdbcRepository, new SimpleMeterRegistry(), true, 1 << 26, 1000);
+        index.build();
+        WordQueryService service = new WordQueryService(index, wordsMappingRepository, wordsMappingJdbcRepository);
+        index.indexAfterCommit(List.of(mapping("alpha", 1, 0), mapping("alpha", 2, 0, 5, 9), mapping("alpha", 3, 0, 5, 9),
+                mapping("beta", 1, 3), mapping("gamma", 4, 1)));
+        index.indexArticleAfterCommit(1, 100);
+        index.indexArticleAfterCommit(2, 100);
+        index.indexArticleAfterCommit(3, 300);
+        index.indexArticleAfterCommit(4, 100);
+
+        // more occurrences first, and the same occurrences count more in a shorter article
+        List<SearchHitDTO> hits = service.search(List.of("Alpha"), 10);
+        assertEquals(List.of(2L, 3L, 1L), hitIds(hits));
+        assertEquals(bm25(3, 3, 4, 100, 150), hits.get(0).getScore(), 1e-9);
+        assertEquals(List.of("alpha"), hits.get(0).getMappings().stream().map(WordsMapping::getWord).toList());
+        // the rare word outweighs the frequent one
+        List<SearchHitDTO> both = service.search(List.of("alpha", "beta"), 1);
+        assertEquals(List.of(1L), hitIds(both));
+        assertEquals(bm25(1, 3, 4, 100, 150) + bm25(1, 1, 4, 100, 150), both.get(0).getScore(), 1e-9);
+        assertEquals(List.of("alpha", "beta"), both.get(0).getMappings().stream().map(WordsMapping::getWord).toList());
+        assertTrue(service.search(List.of("missing"), 10).isEmpty());
+    }
+
+    @Test
+    void testSearchKeepsTheBestK() {
+        Random random = new Random(42);
+        WordIndexService index = new WordIndexService(wordsMappingJdbcRepository, new SimpleMeterRegistry(), true, 1 << 26, 1000);
+        index.build();
+        WordQueryService service = new WordQueryService(index, wordsMappingRepository, wordsMappingJdbcRepository);
+        List<WordsMapping> rows = new ArrayList<>();
+        long[] lengths = new long[2001];
+        int[][] tf = new int[3][2001];
+        for (int articleId = 1; articleId <= 2000; articleId++) {
+            lengths[articleId] = 50 + random.nextInt(5000);
+            index.indexArticleAfterCommit(articleId, lengths[articleId]);
+            for (int w = 0; w < 3; w++) {
+                // word w is in about one article out of 2^(w + 1)
+                if (random.nextInt(2 << w) == 0) {
+                    tf[w][articleId] = 1 + random.nextInt(20);
+                    Integer[] offsets = new Integer[tf[w][articleId]];
+                    for (int i = 0; i < offsets.length; i++) {
+                        offsets[i] = i * 10;
+                    }
+                    rows.add(mapping("w" + w, articleId, offsets));
+                }
+            }
+        }
+        index.indexAfterCommit(rows);
+
+        double averageLength = (double) LongStream.of(lengths).sum() / 2000;
+        int[] df = new int[3];
+        for (int w = 0; w < 3; w++) {
+            int[] wordTf = tf[w];
+            df[w] = (int) LongStream.rangeClosed(1, 2000).filter(id -> wordTf[(int) id] > 0).count();
+        }
+        List<Long> expected = LongStream.rangeClosed(1, 2000).boxed()
+                .filter(id -> tf[0][id.intValue()] + tf[1][id.intValue()] + tf[2][id.intValue()] > 0)
+                .sorted(Comparator.comparingDouble((Long id) -> {
+                    double score = 0;
+                    for (int w = 0; w < 3; w++) {
+                        if (tf[w][id.intValue()] > 0) {
+                            score += bm25(tf[w][id.intValue()], df[w], 2000, lengths[id.intValue()], averageLength);
+                        }
+                    }
+                    return -score;
+                }).thenComparing(id -> id))
+                .limit(25)
+                .toList();
+        assertEquals(expected, hitIds(service.search(List.of("w0", "w1", "w2"), 25)));
+    }
+
+    @Test
+    void testSearchNeedsTheWordIndex() {
+        WordIndexService disabled = new WordIndexService(wordsMappingJdbcRepository, new SimpleMeterRegistry(), false, 1 << 20, 1000);
+        WordQueryService unavailable = new WordQueryService(disabled, wordsMappingRepository, wordsMappingJdbcRepository);
+        assertThrows(IllegalStateException.class, () -> unavailable.search(List.of("alpha"), 10));
+
+        WordQueryService service = service(List.of(mapping("alpha", 1, 0)));
+        assertThrows(IllegalArgumentException.class, () -> service.search(List.of("alpha"), 0));
+        assertThrows(IllegalArgumentException.class, () -> service.search(List.of(" "), 10));
+        assertThrows(IllegalArgumentException.class, () -> service.search(List.of("alp*"), 10));
+    }
+
+    @Test
+    void testExpandFromDatabaseWhileIndexIsNotReady() {
+        WordIndexService disabled = new WordIndexService(wordsMappingJdbcRepository, new SimpleMeterRegistry(), false, 1 << 20, 1000);
+        WordQueryService service = new WordQueryService(disabled, wordsMappingRepository, wordsMappingJdbcRepository);
+        when(wordsMappingJdbcRepository.findWordsFrom("colo", "colp", 1000)).thenReturn(List.of("colo", "colon", "color", "colour"));
+
+        assertEquals(List.of("color", "colour"), service.expand("colo*r", 10).getTerms());
+    }
+
+    // The mappings the parser sends for a text: every word with the offsets where it starts
+    private static List<WordsMapping> parse(long articleId, String text) {
+        Map<String, List<Integer>> offsets = new TreeMap<>();
+        Matcher words = Pattern.compile("\\p{L}+").matcher(text);
+        while (words.find()) {
+            offsets.computeIfAbsent(words.group().toLowerCase(Locale.ROOT), word -> new ArrayList<>()).add(words.start());
+        }
+        return offsets.entrySet().stream()
+                .map(entry -> mapping(entry.getKey(), articleId, entry.getValue().toArray(new Integer[0])))
+                .toList();
+    }
+
+    private static List<Integer> span(String text, String phrase) {
+        int start = text.indexOf(phrase);
+        return List.of(start, start + phrase.length());
+    }
+
+    private static List<List<Integer>> spans(PositionalMatchDTO match) {
+        return match.getSpans().stream().map(span -> List.of(span[0], span[1])).toList();
+    }
+
+    private static List<Long> articleIds(PositionalResultDTO result) {
+        return result.getMatches().stream().map(PositionalMatchDTO::getArticleId).toList();
+    }
+
+    @Test
+    void testPhraseAndNearOnOffsets() {
+        String first = "New York City is not York, New Hampshire. In new  york the city never sleeps";
+        String second = "City life in the new places - york";
+        List<WordsMapping> rows = new ArrayList<>(parse(1, first));
+        rows.addAll(parse(2, second));
+        WordQueryService service = service(rows);
+
+        // in this order, a space, two spaces or a comma and a space apart
+        PositionalResultDTO newYork = service.phrase(List.of("New", "york"), null, 10);
+        assertEquals(List.of(1L), articleIds(newYork));
+        assertEquals(2, newYork.getMatches().get(0).getCount());
+        assertEquals(List.of(span(first, "New York"), span(first, "new  york")), spans(newYork.getMatches().get(0)));
+        assertEquals(List.of(span(first, "York, New")), spans(service.phrase(List.of("york", "new"), null, 10).getMatches().get(0)));
+        assertEquals(List.of(span(first, "New York City")), spans(service.phrase(List.of("new", "york", "city"), null, 10).getMatches().get(0)));
+        // " - " is longer than dal.word-phrase.max-separator, "new places" is not followed by york
+        assertTrue(service.phrase(List.of("places", "york"), null, 10).getMatches().isEmpty());
+        assertTrue(service.phrase(List.of("new", "places", "york"), null, 10).getMatches().isEmpty());
+
+        // any order, within * 8 chars between the words besides the separators
+        assertTrue(service.near(List.of("city", "new"), 0, null, 10).getMatches().isEmpty());
+        PositionalResultDTO withinOne = service.near(List.of("city", "new"), 1, null, 10);
+        assertEquals(List.of(1L), articleIds(withinOne));
+        assertEquals(List.of(span(first, "New York City")), spans(withinOne.getMatches().get(0)));
+        PositionalResultDTO withinThree = service.near(List.of("new", "city"), 3, null, 10);
+        assertEquals(List.of(1L, 2L), articleIds(withinThree));
+        assertEquals(List.of(span(second, "City life in the new")), spans(withinThree.getMatches().get(1)));
+
+        assertThrows(IllegalArgumentException.class, () -> service.phrase(List.of(" "), null, 10));
+        assertThrows(IllegalArgumentException.class, () -> service.phrase(List.of("new", "yo*"), null, 10));
+        assertThrows(IllegalArgumentException.class, () -> service.phrase(List.of("new", "york"), null, 0));
+        assertThrows(IllegalArgumentException.class, () -> service.near(List.of("new", "york"), -1, null, 10));
+        assertThrows(IllegalArgumentException.class, () -> service.near(List.of("new", "york"), 1001, null, 10));
+    }
+
+    @Test
+    void testPhraseAndNearMatchBruteForce() {
+        Random random = new Random(42);
+        String[] vocabulary = {"a", "of", "the", "in", "state", "new", "york", "and"};
+        // up to two chars between words make a phrase, the longer separators break it
+        String[] separators = {" ", " ", " ", ", ", ". ", " - ", "\n\n\n"};
+        List<WordsMapping> rows = new ArrayList<>();
+        List<List<String>> tokens = new ArrayList<>();
+        List<List<Integer>> starts = new ArrayList<>();
+        for (int articleId = 1; articleId <= 300; articleId++) {
+            StringBuilder text = new StringBuilder();
+            List<String> articleTokens = new ArrayList<>();
+            List<Integer> articleStarts = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                if (i > 0) {
+                    text.append(separators[random.nextInt(separators.length)]);
+                }
+                String word = vocabulary[random.nextInt(vocabulary.length)];
+                articleTokens.add(word);
+                articleStarts.add(text.length());
+                text.append(word);
+            }
+            tokens.add(articleTokens);
+            starts.add(articleStarts);
+            rows.addAll(parse(articleId, text.toString()));
+        }
+        WordQueryService service = service(rows);
+
+        for (List<String> phrase : List.of(List.of("of", "the"), List.of("new", "york"), List.of("the", "new", "york"), List.of("a", "a"))) {
+            List<List<Object>> expected = new ArrayList<>();
+            for (int article = 0; article < tokens.size(); article++) {
+                List<String> articleTokens = tokens.get(article);
+                List<Integer> articleStarts = starts.get(article);
+                List<List<Integer>> expectedSpans = new ArrayList<>();
+                for (int k = 0; k + phrase.size() <= articleTokens.size(); k++) {
+                    boolean matches = true;
+                    for (int i = 0; i < phrase.size() && matches; i++) {
+                        matches = articleTokens.get(k + i).equals(phrase.get(i)) && (i == 0
+                                || articleStarts.get(k + i) - articleStarts.get(k + i - 1) - phrase.get(i - 1).length() <= 2);
+                    }
+                    if (matches) {
+                        int last = k + phrase.size() - 1;
+                        expectedSpans.add(List.of(articleStarts.get(k), articleStarts.get(last) + articleTokens.get(last).length()));
+                    }
+                }
+                if (!expectedSpans.isEmpty()) {
+                    expected.add(List.of((long) article + 1, expectedSpans));
+                }
+            }
+            List<List<Object>> paged = new ArrayList<>();
+            String cursor = null;
+            do {
+                PositionalResultDTO page = service.phrase(phrase, cursor, 7);
+                assertTrue(page.getMatches().size() <= 7);
+                for (PositionalMatchDTO match : page.getMatches()) {
+                    paged.add(List.of(match.getArticleId(), spans(match)));
+                }
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+            assertFalse(expected.isEmpty(), phrase.toString());
+            assertEquals(expected, paged, phrase.toString());
+        }
+
+        for (int within : new int[]{0, 1, 3}) {
+            List<String> words = List.of("state", "new", "and");
+            int maxGap = 2 * 2 + within * 8;
+            List<Long> expected = new ArrayList<>();
+            for (int article = 0; article < tokens.size(); article++) {
+                List<String> articleTokens = tokens.get(article);
+                List<Integer> articleStarts = starts.get(article);
+                boolean found = false;
+                // one occurrence of each word, every combination
+                for (int x = 0; x < articleTokens.size() && !found; x++) {
+                    for (int y = 0; y < articleTokens.size() && !found; y++) {
+                        for (int z = 0; z < articleTokens.size() && !found; z++) {
+                            if (articleTokens.get(x).equals("state") && articleTokens.get(y).equals("new") && articleTokens.get(z).equals("and")) {
+                                int from = Math.min(x, Math.min(y, z));
+                                int to = Math.max(x, Math.max(y, z));
+                                int width = articleStarts.get(to) + articleTokens.get(to).length() - articleStarts.get(from);
+                                found = width - "statenewand".length() <= maxGap;
+                            }
+                        }
+                    }
+                }
+                if (found) {
+                    expected.add((long) article + 1);
+                }
+            }
+            PositionalResultDTO result = service.near(words, within, null, 1000);
+            assertFalse(expected.isEmpty());
+            assertEquals(expected, articleIds(result), "within " + within);
+            for (PositionalMatchDTO match : result.getMatches()) {
+                assertEquals(match.getCount(), match.getSpans().size());
+                for (int[] span : match.getSpans()) {
+                    assertTrue(span[1] - span[0] - "statenewand".length() <= maxGap);
+                }
+            }
+        }
+    }
+}
@@ -1,10 +1,17 @@
 package com.example.dalservice.service;
 
 import com.example.dalservice.Service.ArticleService;
+import com.example.dalservice.Service.WordIndexService;
 import com.example.dalservice.Service.WordsMappingService;
+import com.example.dalservice.codec.OffsetCodec;
+import com.example.dalservice.dto.WordsMappingPageDTO;
+import com.example.dalservice.entity.Article;
+import com.example.dalservice.entity.ArticleStatus;
 import com.example.dalservice.entity.WordsMapping;
+import com.example.dalservice.repository.JDBC.WordsMappingJdbcRepository;
 import com.example.dalservice.repository.JPA.ArticleJpaRepository;
 import com.example.dalservice.repository.JPA.WordsMappingJpaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
@@ -13,13 +20,20 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class WordsMappingServiceTest {
 
     private WordsMappingJpaRepository wordsMappingRepository = Mockito.mock(WordsMappingJpaRepository.class);
+    private WordsMappingJdbcRepository wordsMappingJdbcRepository = Mockito.mock(WordsMappingJdbcRepository.class);
     private ArticleService articleService= Mockito.mock(ArticleService.class);
-    private WordsMappingService wordsMappingService = new WordsMappingService(wordsMappingRepository,articleService);
+    // disabled index: every lookup goes to the repository
+    private WordIndexService wordIndexService = new WordIndexService(wordsMappingJdbcRepository, new SimpleMeterRegistry(), false, 1 << 20, 100);
+    private WordsMappingService wordsMappingService = new WordsMappingService(wordsMappingRepository,wordsMappingJdbcRepository,articleService,wordIndexService);
 
     @Test
     void testSaveWordsMapping() {
@@ -95,4 +109,148 @@ class WordsMappingServiceTest {
         assertEquals(1L, result.get(0).getArticleId());
         assertEquals(2L, result.get(1).getArticleId());
     }
+
+    @Test
+    void testSaveAllPacksJsonOffsets() {
+        // Arrange: a mapping sent in the legacy json format
+        WordsMapping wordsMapping = new WordsMapping("testword", 1L);
+        wordsMapping.setOffsets("[0,5,10]");
+        List<WordsMapping> mappings = List.of(wordsMapping);
+        when(articleService.getArticleById(1L)).thenReturn(Optional.of(new Article()));
+
+        // Act
+        wordsMappingService.saveAllWordsMappings(mappings);
+
+        // Assert: only the packed form is stored and the article is marked indexed
+        assertNull(wordsMapping.getOffsets());
+        assertArrayEquals(new int[]{0, 5, 10}, OffsetCodec.decode(wordsMapping.getPackedOffsets()));
+        verify(wordsMappingJdbcRepository).upsertAll(mappings);
+        verify(wordsMappingRepository, never()).saveAll(any());
+        verify(articleService).updateArticleStatus(1L, ArticleStatus.indexed);
+    }
+
+    @Test
+    void testAppendMergesIntoExistingRows() {
+        // Arrange: "alpha" already has postings from an earlier batch, "beta" is new
+        WordsMapping existing = new WordsMapping("alpha", 1L);
+        existing.setPackedOffsets(OffsetCodec.encode(List.of(0, 10)));
+        WordsMapping alpha = new WordsMapping("alpha", 1L);
+        alpha.setPackedOffsets(OffsetCodec.encode(List.of(10, 50)));
+        WordsMapping beta = new WordsMapping("beta", 1L);
+        beta.setPackedOffsets(OffsetCodec.encode(List.of(5)));
+        when(articleService.getArticleById(1L)).thenReturn(Optional.of(new Article()));
+        when(wordsMappingRepository.findByArticleIdAndWordIn(any(), any())).thenReturn(List.of(existing));
+
+        // Act: a non-final batch
+        wordsMappingService.appendWordsMappings(1L, List.of(alpha, beta), false);
+
+        // Assert: offsets merged without the duplicate, article not yet indexed
+        assertArrayEquals(new int[]{0, 10, 50}, OffsetCodec.decode(existing.getPackedOffsets()));
+        verify(articleService, never()).updateArticleStatus(any(), any());
+    }
+
+    @Test
+    void testAppendCommitMarksArticleIndexed() {
+        when(articleService.getArticleById(1L)).thenReturn(Optional.of(new Article()));
+
+        wordsMappingService.appendWordsMappings(1L, List.of(), true);
+
+        verify(articleService).updateArticleStatus(1L, ArticleStatus.indexed);
+    }
+
+    @Test
+    void testAppendRejectsMappingOfAnotherArticle() {
+        WordsMapping other = new WordsMapping("alpha", 2L);
+        other.setPackedOffsets(OffsetCodec.encode(List.of(1)));
+        when(articleService.getArticleById(1L)).thenReturn(Optional.of(new Article()));
+
+        assertThrows(IllegalArgumentException.class, () -> wordsMappingService.appendWordsMappings(1L, List.of(other), false));
+    }
+
+    @Test
+    void testWordsAreNormalized() {
+        WordsMapping mixedCase = new WordsMapping("TestWord", 1L);
+        mixedCase.setPackedOffsets(OffsetCodec.encode(List.of(0)));
+        when(articleService.getArticleById(1L)).thenReturn(Optional.of(new Article()));
+
+        wordsMappingService.saveAllWordsMappings(List.of(mixedCase));
+        wordsMappingService.findWordsByWord("TESTWORD");
+
+        // stored lowercased, and looked up with the lowercased word
+        assertEquals("testword", mixedCase.getWord());
+        verify(wordsMappingRepository).findByWord("testword");
+    }
+
+    @Test
+    void testFindWordsByWordServedFromIndex() {
+        WordIndexService enabledIndex = new WordIndexService(wordsMappingJdbcRepository, new SimpleMeterRegistry(), true, 1 << 20, 100);
+        WordsMappingService service = new WordsMappingService(wordsMappingRepository, wordsMappingJdbcRepository, articleService, enabledIndex);
+        enabledIndex.build();
+        WordsMapping mapping = new WordsMapping("Indexed", 1L);
+        mapping.setPackedOffsets(OffsetCodec.encode(List.of(3, 9)));
+        when(articleService.getArticleById(1L)).thenReturn(Optional.of(new Article()));
+
+        service.saveAllWordsMappings(List.of(mapping));
+        List<WordsMapping> result = service.findWordsByWord("INDEXED");
+
+        assertEquals(1, result.size());
+        assertArrayEquals(new int[]{3, 9}, OffsetCodec.decode(result.get(0).getPackedOffsets()));
+        verify(wordsMappingRepository, never()).findByWord(any());
+    }
+
+    @Test
+    void testFindWordsByWordPages() {
+        WordIndexService enabledIndex = new WordIndexService(wordsMappingJdbcRepository, new SimpleMeterRegistry(), true, 1 << 20, 100);
+        WordsMappingService service = new WordsMappingService(wordsMappingRepository, wordsMappingJdbcRepository, articleService, enabledIndex);
+        enabledIndex.build();
+        for (long articleId = 1; articleId <= 5; articleId++) {
+            WordsMapping mapping = new WordsMapping("hot", articleId);
+            mapping.setPackedOffsets(OffsetCodec.encode(List.of(0)));
+            enabledIndex.indexAfterCommit(List.of(mapping));
+        }
+
+        WordsMappingPageDTO first = service.findWordsByWord("hot", null, 2);
+        WordsMappingPageDTO second = service.findWordsByWord("hot", first.getNextCursor(), 2);
+        WordsMappingPageDTO last = service.findWordsByWord("hot", second.getNextCursor(), 2);
+
+        assertEquals(List.of(1L, 2L), first.getMappings().stream().map(WordsMapping::getArticleId).toList());
+        assertEquals(List.of(3L, 4L), second.getMappings().stream().map(WordsMapping::getArticleId).toList());
+        assertEquals(List.of(5L), last.getMappings().stream().map(WordsMapping::getArticleId).toList());
+        assertNotNull(first.getNextCursor());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void testFindWordsByWordPageFromRepository() {
+        // disabled index: the keyset query is asked for one row more than the page
+        when(wordsMappingRepository.findByWordAfter(eq("hot"), eq(Long.MIN_VALUE), any()))
+                .thenReturn(List.of(new WordsMapping("hot", 1L), new WordsMapping("hot", 2L)));
+        when(wordsMappingRepository.findByWordAfter(eq("hot"), eq(1L), any()))
+                .thenReturn(List.of(new WordsMapping("hot", 2L)));
+
+        WordsMappingPageDTO first = wordsMappingService.findWordsByWord("hot", null, 1);
+        WordsMappingPageDTO second = wordsMappingService.findWordsByWord("hot", first.getNextCursor(), 1);
+
+        assertEquals(1, first.getMappings().size());
+        assertEquals(List.of(2L), second.getMappings().stream().map(WordsMapping::getArticleId).toList());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void testFindWordsByWordRejectsBadCursorAndLimit() {
+        assertThrows(IllegalArgumentException.class, () -> wordsMappingService.findWordsByWord("hot", "not a cursor", 10));
+        assertThrows(IllegalArgumentException.class, () -> wordsMappingService.findWordsByWord("hot", null, 0));
+    }
+
+    @Test
+    void testLimitOffsets() {
+        WordsMapping mapping = new WordsMapping("hot", 1L);
+        mapping.setPackedOffsets(OffsetCodec.encode(List.of(1, 5, 9, 12)));
+
+        assertArrayEquals(new int[]{1, 5}, OffsetCodec.decode(WordsMappingService.limitOffsets(mapping, 2).getPackedOffsets()));
+        assertArrayEquals(new int[]{1, 5, 9, 12}, OffsetCodec.decode(WordsMappingService.limitOffsets(mapping, 10).getPackedOffsets()));
+        assertNull(WordsMappingService.limitOffsets(mapping, 0).getPackedOffsets());
+        // the original mapping keeps every offset
+        assertEquals(4, OffsetCodec.count(mapping.getPackedOffsets()));
+    }
 }
@@ -15,6 +15,9 @@ public class ArticleContentDTO {
     public String getContent() {
         return content;
     }
+    public void setContent(String content) {
+        this.content = content;
+    }
 
     @Override
     public String toString() {
@@ -0,0 +1,41 @@
+package com.example.parserservice.DTO;
+
+// An article leased to this parser by the DAL work queue, content is only set in the answer to /start
+public class ClaimedArticleDTO {
+    private Long articleId;
+    private byte[] content;
+    private String leaseExpiresAt;
+    private int attempts;
+
+    public Long getArticleId() {
+        return articleId;
+    }
+
+    public void setArticleId(Long articleId) {
+        this.articleId = articleId;
+    }
+
+    public byte[] getContent() {
+        return content;
+    }
+
+    public void setContent(byte[] content) {
+        this.content = content;
+    }
+
+    public String getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void setLeaseExpiresAt(String leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+}
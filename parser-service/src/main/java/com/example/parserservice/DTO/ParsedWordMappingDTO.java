@@ -1,15 +1,27 @@
 package com.example.parserservice.DTO;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class ParsedWordMappingDTO {
     private String word;
     private Long articleId;
+    // offsets as a JSON array string - only sent when parser.offsets.encoding=json
     private String offsets;
+    // offsets packed by OffsetCodec (delta + varint), Base64 on the wire
+    private byte[] packedOffsets;
     public ParsedWordMappingDTO(String word_, Long articleId_, String lst){
         this.word = word_;
         this.articleId = articleId_;
         this.offsets = lst;
     }
 
+    public ParsedWordMappingDTO(String word_, Long articleId_, byte[] packed){
+        this.word = word_;
+        this.articleId = articleId_;
+        this.packedOffsets = packed;
+    }
+
     public String getWord() {
         return word;
     }
@@ -18,9 +30,12 @@ public class ParsedWordMappingDTO {
         return offsets;
     }
 
+    public byte[] getPackedOffsets() {
+        return packedOffsets;
+    }
+
     public Long getArticleId() {
         return this.articleId;
     }
 }
 
-
@@ -0,0 +1,31 @@
+package com.example.parserservice.DTO;
+
+public class StreamParseSummaryDTO {
+    private Long articleId;
+    private long characters;
+    private int distinctWords;
+    private long postings;
+
+    public StreamParseSummaryDTO(Long articleId, long characters, int distinctWords, long postings) {
+        this.articleId = articleId;
+        this.characters = characters;
+        this.distinctWords = distinctWords;
+        this.postings = postings;
+    }
+
+    public Long getArticleId() {
+        return articleId;
+    }
+
+    public long getCharacters() {
+        return characters;
+    }
+
+    public int getDistinctWords() {
+        return distinctWords;
+    }
+
+    public long getPostings() {
+        return postings;
+    }
+}
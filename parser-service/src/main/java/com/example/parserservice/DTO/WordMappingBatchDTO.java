@@ -0,0 +1,35 @@
+package com.example.parserservice.DTO;
+
+import java.util.List;
+
+// One bounded slice of an article's word mappings for the DAL append-batch endpoint.
+// The batch with commit = true carries no mappings and is sent after every other batch was acknowledged.
+public class WordMappingBatchDTO {
+    private Long articleId;
+    private long sequence;
+    private boolean commit;
+    private List<ParsedWordMappingDTO> mappings;
+
+    public WordMappingBatchDTO(Long articleId, long sequence, boolean commit, List<ParsedWordMappingDTO> mappings) {
+        this.articleId = articleId;
+        this.sequence = sequence;
+        this.commit = commit;
+        this.mappings = mappings;
+    }
+
+    public Long getArticleId() {
+        return articleId;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public boolean isCommit() {
+        return commit;
+    }
+
+    public List<ParsedWordMappingDTO> getMappings() {
+        return mappings;
+    }
+}
@@ -3,19 +3,27 @@ package com.example.parserservice.controller;
 
 import com.example.parserservice.DTO.ArticleContentDTO;
 import com.example.parserservice.DTO.ParsedWordMappingDTO;
+import com.example.parserservice.DTO.StreamParseSummaryDTO;
 import com.example.parserservice.service.ArticleParserService;
+import com.example.parserservice.service.IndexingJobQueue;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/parser")
 public class ArticleParserController {
     private final ArticleParserService articleParserService;
+    private final IndexingJobQueue indexingJobQueue;
 
-    public ArticleParserController(ArticleParserService articleParserService) {
+    public ArticleParserController(ArticleParserService articleParserService, IndexingJobQueue indexingJobQueue) {
         this.articleParserService = articleParserService;
+        this.indexingJobQueue = indexingJobQueue;
     }
     // POST endpoint to parse article content and return word mappings
     @PostMapping("/parse")
@@ -25,10 +33,40 @@ public class ArticleParserController {
             List<ParsedWordMappingDTO> wordMappings = articleParserService.parseArticle(articleContentDTO.getContent(), articleContentDTO.getArticleId());
             // Return the parsed word mappings as the response
             return new ResponseEntity<>(wordMappings, HttpStatus.OK);
+        } catch (RejectedExecutionException e) {
+            // The parse engine queue is full - ask the caller to retry later
+            return new ResponseEntity<>(null, HttpStatus.SERVICE_UNAVAILABLE);
         } catch (Exception e) {
             // In case of any error, return a bad request statusparser
             System.err.println("Error parsing article content: " + e.getMessage());
             return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
         }
     }
+
+    // POST endpoint to parse a raw UTF-8 body incrementally, without buffering the whole article
+    @PostMapping(value = "/parse-stream", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<StreamParseSummaryDTO> parseArticleStream(@RequestParam Long articleId, InputStream content) {
+        try {
+            StreamParseSummaryDTO summary = articleParserService.parseArticleStream(content, articleId);
+            return new ResponseEntity<>(summary, HttpStatus.OK);
+        } catch (Exception e) {
+            System.err.println("Error parsing article stream: " + e.getMessage());
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // POST endpoint to queue an article for asynchronous indexing, the DAL status tells when it is done
+    @PostMapping("/jobs")
+    public ResponseEntity<Map<String, Object>> submitIndexingJob(@RequestBody ArticleContentDTO articleContentDTO) {
+        if (articleContentDTO.getArticleId() == null || articleContentDTO.getContent() == null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            indexingJobQueue.submit(articleContentDTO, IndexingJobQueue.CREATE_LEASE_OWNER);
+            return new ResponseEntity<>(Map.of("articleId", articleContentDTO.getArticleId(), "status", "pending"), HttpStatus.ACCEPTED);
+        } catch (RejectedExecutionException e) {
+            // The job queue is full - ask the caller to retry later
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
 }
@@ -3,102 +3,144 @@ package com.example.parserservice.service;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.example.parserservice.DTO.ParsedWordMappingDTO;
+import com.example.parserservice.codec.OffsetCodec;
+import com.example.parserservice.DTO.StreamParseSummaryDTO;
+import com.example.parserservice.tokenizer.StreamingWordParser;
+import com.example.parserservice.tokenizer.WordOffsetTable;
+import com.example.parserservice.tokenizer.WordScanner;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
-import java.util.concurrent.*;
 @Service
 public class ArticleParserService {
 
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private final ExecutorService executorService = Executors.newCachedThreadPool();  // Dynamic thread pool
+    private final ParseEngine parseEngine;
+    private final DalBatchPublisher dalBatchPublisher;
 
     @Value("${dal.service.url}")
     private String articleServiceUrl;
-    // Minimum chunk size to justify using multiple threads
-    private static final int MIN_CHUNK_SIZE = 500;
-
-    public ArticleParserService(RestTemplate restTemplate) {
+    // "compact" scans into a WordOffsetTable on the ParseEngine, "legacy" keeps the original
+    // HashMap<String, List<Integer>> path (single threaded, kept as a reference implementation)
+    @Value("${parser.tokenizer:compact}")
+    private String tokenizer = "compact";
+    // "packed" sends OffsetCodec bytes to the DAL, "json" the original JSON array strings (for an older DAL)
+    @Value("${parser.offsets.encoding:packed}")
+    private String offsetsEncoding = "packed";
+    // chars decoded per read of a streamed body, and offsets collected before a segment is flushed
+    @Value("${parser.stream.buffer-size:65536}")
+    private int streamBufferSize = 65536;
+    @Value("${parser.stream.flush-postings:1000000}")
+    private long streamFlushPostings = 1_000_000;
+    // "batched" streams mappings to the DAL append-batch endpoint while parsing, "single" posts them all
+    // to save-all once the parse is done (for an older DAL)
+    @Value("${parser.dal.delivery:batched}")
+    private String dalDelivery = "batched";
+    // chars parsed before the window's mappings are handed to the DAL publisher
+    @Value("${parser.dal.window-size:4194304}")
+    private int dalWindowSize = 4 * 1024 * 1024;
+
+    public ArticleParserService(RestTemplate restTemplate, ParseEngine parseEngine, DalBatchPublisher dalBatchPublisher) {
         this.restTemplate = restTemplate;
+        this.parseEngine = parseEngine;
+        this.dalBatchPublisher = dalBatchPublisher;
     }
 
-    //parse the article to map each word's offset using concurrency if applicable
-    public List<ParsedWordMappingDTO> parseArticle(String content, Long articleId) throws InterruptedException, ExecutionException {
-        int contentLength = content.length();
-        // If the content is small, process in a single thread
-        if (contentLength < MIN_CHUNK_SIZE) {
-            return parseSingleThread(content, articleId);
-        }
-        int numThreads = Math.min(Runtime.getRuntime().availableProcessors(), contentLength / MIN_CHUNK_SIZE);
-        int chunkSize = contentLength / numThreads;
-        List<Future<Map<String, List<Integer>>>> futures = new ArrayList<>();
-
-        // parse each task different thread
-        for (int i = 0; i < numThreads; i++) {
-            final int start = adjustChunkStart(content, i * chunkSize);
-            final int end;
-            if(i== numThreads-1) {
-                end = contentLength;
-            }
-            else{
-                end = adjustChunkEnd(content, (i+1)*chunkSize);
+    //parse the article to map each word's offset, the engine splits large content across its pool
+    public List<ParsedWordMappingDTO> parseArticle(String content, Long articleId) {
+        List<ParsedWordMappingDTO> result;
+        if (!batchedDelivery()) {
+            if ("legacy".equalsIgnoreCase(tokenizer)) {
+                result = convertToDTO(parseChunk(content, 0), articleId);
+            } else {
+                result = convertToDTO(parseEngine.parse(content), articleId);
             }
-            String chunk = content.substring(start, end);
-            futures.add(executorService.submit(() -> parseChunk(chunk, start)));
+            // Send parsed word mappings to the DAL service
+            sendParsedDataToDal(result);
+            return result;
         }
-
-        // Merge to one map
-        Map<String, List<Integer>> wordMappings = new HashMap<>();
-        //for eah future - from each task
-        for (Future<Map<String, List<Integer>>> future : futures) {
-            Map<String, List<Integer>> result = future.get();
-            // iterate this future map words and add it to the big wordsmapping
-            for (Map.Entry<String, List<Integer>> entry : result.entrySet()) {
-                String word = entry.getKey();
-                List<Integer> offsets = entry.getValue();
-                wordMappings.putIfAbsent(word, new ArrayList<>());
-                wordMappings.get(word).addAll(offsets);
-            }
+        DalBatchPublisher.Session session = dalBatchPublisher.open(articleId);
+        if ("legacy".equalsIgnoreCase(tokenizer)) {
+            result = convertToDTO(parseChunk(content, 0), articleId);
+            session.publish(result);
+        } else {
+            // each window goes out to the DAL while the next one is parsed, windows are in document order. The caller
+            // gets every mapping back, so they are collected too; indexArticle does not keep them.
+            WordOffsetTable wordMappings = new WordOffsetTable();
+            parseEngine.parseWindows(content, dalWindowSize, window -> {
+                session.publish(convertToDTO(window, articleId));
+                wordMappings.addAll(window);
+            });
+            result = convertToDTO(wordMappings, articleId);
         }
-        //convert the map value from List<Integer> to string - to send ath DTO to the dal
-        List<ParsedWordMappingDTO> result = convertToDTO(wordMappings, articleId);
-        // Send parsed word mappings to the DAL service
-        sendParsedDataToDal(result);
+        session.commit();
         return result;
     }
 
-    // Adjust chunk end to ensure no word is split
-    private int adjustChunkEnd(String content, int chunkEnd) {
-        // Edge case: If we're at the end of the content, return the full length
-        if (chunkEnd >= content.length()) {
-            return content.length();
+    // Parse and deliver the article like parseArticle for callers that only need to know it is done, the indexing
+    // jobs: with batched delivery only the windows in flight are held, never the postings of the whole article.
+    public StreamParseSummaryDTO indexArticle(String content, Long articleId) {
+        if ("legacy".equalsIgnoreCase(tokenizer)) {
+            Map<String, List<Integer>> wordMappings = parseChunk(content, 0);
+            List<ParsedWordMappingDTO> result = convertToDTO(wordMappings, articleId);
+            if (batchedDelivery()) {
+                DalBatchPublisher.Session session = dalBatchPublisher.open(articleId);
+                session.publish(result);
+                session.commit();
+            } else {
+                sendParsedDataToDal(result);
+            }
+            return new StreamParseSummaryDTO(articleId, content.length(), wordMappings.size(),
+                    wordMappings.values().stream().mapToLong(List::size).sum());
         }
-        while (chunkEnd > 0 && content.charAt(chunkEnd) != ' ') {
-            chunkEnd--;
+        if (!batchedDelivery()) {
+            WordOffsetTable wordMappings = parseEngine.parse(content);
+            sendParsedDataToDal(convertToDTO(wordMappings, articleId));
+            return new StreamParseSummaryDTO(articleId, content.length(), wordMappings.size(), wordMappings.postingCount());
         }
-        return chunkEnd;
+        // windows are published as they are parsed, only the distinct words are remembered
+        DalBatchPublisher.Session session = dalBatchPublisher.open(articleId);
+        Set<String> distinctWords = new HashSet<>();
+        long[] postings = new long[1];
+        parseEngine.parseWindows(content, dalWindowSize, window -> {
+            session.publish(convertToDTO(window, articleId));
+            window.forEach((word, offsets, count) -> distinctWords.add(word));
+            postings[0] += window.postingCount();
+        });
+        session.commit();
+        return new StreamParseSummaryDTO(articleId, content.length(), distinctWords.size(), postings[0]);
     }
 
-    private int adjustChunkStart(String content, int chunkStart) {
-        while (chunkStart < content.length() && content.charAt(chunkStart) != ' ') {
-            chunkStart++;
+    // Parse a raw UTF-8 body as it arrives, the full document is never held in memory.
+    // Offsets are identical to parseArticle(new String(bytes, UTF_8), articleId).
+    public StreamParseSummaryDTO parseArticleStream(InputStream content, Long articleId) throws IOException {
+        StreamingWordParser parser = new StreamingWordParser(streamBufferSize, streamFlushPostings);
+        if (!batchedDelivery()) {
+            WordOffsetTable wordMappings = new WordOffsetTable();
+            // segments arrive in document order, appending keeps offsets sorted
+            long characters = parser.parse(content, wordMappings::addAll);
+            sendParsedDataToDal(convertToDTO(wordMappings, articleId));
+            return new StreamParseSummaryDTO(articleId, characters, wordMappings.size(), wordMappings.postingCount());
         }
-        return chunkStart + 1;  // Move past the space
-    }
-
-    // Parse in a single thread for small content
-    private List<ParsedWordMappingDTO> parseSingleThread(String content, Long articleId) {
-        Map<String, List<Integer>> wordMappings = parseChunk(content, 0);
-        // Convert map to list of ParsedWordMappingDTO objects
-        List<ParsedWordMappingDTO> result = convertToDTO(wordMappings, articleId);
-        sendParsedDataToDal(result);
-        return result;
+        // segments are published as soon as they are flushed, only the distinct words are remembered
+        DalBatchPublisher.Session session = dalBatchPublisher.open(articleId);
+        Set<String> distinctWords = new HashSet<>();
+        long[] postings = new long[1];
+        long characters = parser.parse(content, segment -> {
+            session.publish(convertToDTO(segment, articleId));
+            segment.forEach((word, offsets, count) -> distinctWords.add(word));
+            postings[0] += segment.postingCount();
+        });
+        session.commit();
+        return new StreamParseSummaryDTO(articleId, characters, distinctWords.size(), postings[0]);
     }
 
     // Parse a chunk of the article content and return word mappings
-    private Map<String, List<Integer>> parseChunk(String content, int offsetBase) {
+    protected Map<String, List<Integer>> parseChunk(String content, int offsetBase) {
         Map<String, List<Integer>> wordMappings = new HashMap<>();
         StringBuilder currentWord = new StringBuilder();
         int wordStart = -1;
@@ -125,6 +167,15 @@ public class ArticleParserService {
         return wordMappings;
     }
 
+    // Scan content[from, to) without copying it into a substring; offsets are absolute
+    protected WordOffsetTable parseChunkCompact(String content, int from, int to) {
+        WordOffsetTable wordMappings = new WordOffsetTable();
+        WordScanner scanner = new WordScanner(wordMappings, from);
+        scanner.scan(content, from, to);
+        scanner.finish();
+        return wordMappings;
+    }
+
     //add word to wordMappings
     private void addWordToMappings(Map<String, List<Integer>> wordMappings, String word, int offset) {
         word = convertToLower(word); // Convert to lowercase
@@ -135,9 +186,14 @@ public class ArticleParserService {
     }
 
     // Convert word mappings to DTO list
-    private List<ParsedWordMappingDTO> convertToDTO(Map<String, List<Integer>> wordMappings, Long articleId) {
+    protected List<ParsedWordMappingDTO> convertToDTO(Map<String, List<Integer>> wordMappings, Long articleId) {
         List<ParsedWordMappingDTO> ans = new ArrayList<>();
         for (Map.Entry<String, List<Integer>> entry : wordMappings.entrySet()) {
+            if (sendPackedOffsets()) {
+                int[] offsets = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+                ans.add(new ParsedWordMappingDTO(entry.getKey(), articleId, OffsetCodec.encode(offsets, offsets.length)));
+                continue;
+            }
             try {
                 String offsetsAsJson = objectMapper.writeValueAsString(entry.getValue());
                 ParsedWordMappingDTO wordMappingDTO = new ParsedWordMappingDTO(entry.getKey(), articleId, offsetsAsJson);
@@ -149,6 +205,38 @@ public class ArticleParserService {
         return ans;
     }
 
+    // Convert a WordOffsetTable to the DTO list, encoding the offsets straight from the int arrays
+    protected List<ParsedWordMappingDTO> convertToDTO(WordOffsetTable wordMappings, Long articleId) {
+        List<ParsedWordMappingDTO> ans = new ArrayList<>(wordMappings.size());
+        if (sendPackedOffsets()) {
+            wordMappings.forEach((word, offsets, count) ->
+                    ans.add(new ParsedWordMappingDTO(word, articleId, OffsetCodec.encode(offsets, count))));
+            return ans;
+        }
+        StringBuilder json = new StringBuilder();
+        wordMappings.forEach((word, offsets, count) -> {
+            json.setLength(0);
+            json.append('[');
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append(offsets[i]);
+            }
+            json.append(']');
+            ans.add(new ParsedWordMappingDTO(word, articleId, json.toString()));
+        });
+        return ans;
+    }
+
+    private boolean batchedDelivery() {
+        return !"single".equalsIgnoreCase(dalDelivery);
+    }
+
+    private boolean sendPackedOffsets() {
+        return !"json".equalsIgnoreCase(offsetsEncoding);
+    }
+
     // Send the parsed word mappings to the DAL service
     protected void sendParsedDataToDal(List<ParsedWordMappingDTO> wordMappings) {
         String dalServiceUrl = this.articleServiceUrl  +"/api/word-mappings/save-all";
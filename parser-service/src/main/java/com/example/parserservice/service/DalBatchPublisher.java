@@ -0,0 +1,136 @@
+package com.example.parserservice.service;
+
+import com.example.parserservice.DTO.ParsedWordMappingDTO;
+import com.example.parserservice.DTO.WordMappingBatchDTO;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Streams an article's word mappings to the DAL append-batch endpoint in bounded batches while it is parsed.
+// Words are spread over one lane per in-flight batch by hash and each lane sends its batches one after the
+// other, so two batches holding the same word are never written concurrently. A session may have at most
+// max-in-flight-batches unacknowledged batches; publish blocks the parsing thread until the DAL catches up.
+@Component
+public class DalBatchPublisher {
+
+    private final RestTemplate restTemplate;
+    private final String appendUrl;
+    private final int batchSize;
+    private final int maxInFlightBatches;
+    private final ExecutorService senders;
+
+    public DalBatchPublisher(RestTemplate restTemplate,
+                             @Value("${dal.service.url}") String dalServiceUrl,
+                             @Value("${parser.dal.batch-size:2000}") int batchSize,
+                             @Value("${parser.dal.max-in-flight-batches:4}") int maxInFlightBatches,
+                             @Value("${parser.dal.sender-threads:8}") int senderThreads) {
+        if (batchSize <= 0 || maxInFlightBatches <= 0 || senderThreads <= 0) {
+            throw new IllegalArgumentException("parser.dal batch size, in-flight batches and sender threads must be positive");
+        }
+        this.restTemplate = restTemplate;
+        this.appendUrl = dalServiceUrl + "/api/word-mappings/append-batch";
+        this.batchSize = batchSize;
+        this.maxInFlightBatches = maxInFlightBatches;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(senderThreads, task -> {
+            Thread thread = new Thread(task, "dal-sender-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Start delivering the mappings of one article
+    public Session open(Long articleId) {
+        return new Session(articleId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdown();
+    }
+
+    // Not thread safe: one parse publishes through its own session from a single thread
+    public final class Session {
+        private final Long articleId;
+        private final AtomicLong sequence = new AtomicLong();
+        private final Semaphore inFlight = new Semaphore(maxInFlightBatches);
+        private final List<List<ParsedWordMappingDTO>> pending = new ArrayList<>(maxInFlightBatches);
+        private final CompletableFuture<?>[] lanes = new CompletableFuture<?>[maxInFlightBatches];
+
+        private Session(Long articleId) {
+            this.articleId = articleId;
+            for (int lane = 0; lane < maxInFlightBatches; lane++) {
+                pending.add(new ArrayList<>());
+                lanes[lane] = CompletableFuture.completedFuture(null);
+            }
+        }
+
+        // Queue mappings for delivery, sends every batch that reached batch-size.
+        // Mappings must be published in document order so each word's offsets arrive sorted.
+        public void publish(List<ParsedWordMappingDTO> wordMappings) {
+            for (ParsedWordMappingDTO mapping : wordMappings) {
+                int lane = Math.floorMod(mapping.getWord().hashCode(), maxInFlightBatches);
+                List<ParsedWordMappingDTO> batch = pending.get(lane);
+                batch.add(mapping);
+                if (batch.size() >= batchSize) {
+                    send(lane);
+                }
+            }
+        }
+
+        // Flush the partial batches, wait for every acknowledgement and then send the commit batch,
+        // which is what lets the DAL mark the article indexed
+        public void commit() {
+            for (int lane = 0; lane < maxInFlightBatches; lane++) {
+                if (!pending.get(lane).isEmpty()) {
+                    send(lane);
+                }
+            }
+            awaitLanes();
+            restTemplate.postForEntity(appendUrl,
+                    new WordMappingBatchDTO(articleId, sequence.getAndIncrement(), true, List.of()), String.class);
+        }
+
+        private void send(int lane) {
+            failFast();
+            // backpressure: wait until the DAL acknowledged enough earlier batches
+            inFlight.acquireUninterruptibly();
+            WordMappingBatchDTO batch = new WordMappingBatchDTO(articleId, sequence.getAndIncrement(), false, pending.get(lane));
+            pending.set(lane, new ArrayList<>());
+            lanes[lane] = lanes[lane]
+                    .thenRunAsync(() -> restTemplate.postForEntity(appendUrl, batch, String.class), senders)
+                    .whenComplete((ignored, error) -> inFlight.release());
+        }
+
+        // Stop parsing as soon as a batch failed instead of sending the rest of the article
+        private void failFast() {
+            for (CompletableFuture<?> lane : lanes) {
+                if (lane.isCompletedExceptionally()) {
+                    awaitLanes();
+                }
+            }
+        }
+
+        private void awaitLanes() {
+            try {
+                CompletableFuture.allOf(lanes).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+}
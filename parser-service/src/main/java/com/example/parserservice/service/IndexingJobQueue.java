@@ -0,0 +1,136 @@
+package com.example.parserservice.service;
+
+import com.example.parserservice.DTO.ArticleContentDTO;
+import com.example.parserservice.DTO.ClaimedArticleDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Bounded in-process queue of asynchronous indexing jobs.
+// At most parser.jobs.workers articles are parsed at once and parser.jobs.queue-capacity more may wait,
+// a burst beyond that is rejected (the caller answers 503) instead of piling up in memory.
+// The DAL marks the article indexed on the final commit batch; a job that fails gives the article back to
+// the DAL work queue as a failed attempt, the DAL retries it or marks it failed after too many attempts.
+// Every job carries the owner of the article's DAL lease, the DAL only takes a release from that owner.
+// Jobs for claimed articles fetch their content when they start, which also renews the lease, so a queued job
+// holds no content and its lease counts from the start of the parse.
+@Component
+public class IndexingJobQueue {
+    // Lease owner of an article the gateway just created and submitted directly, see the DAL's ArticleQueueService
+    // and the gateway's ApiGatewayService
+    public static final String CREATE_LEASE_OWNER = "create";
+
+    private final ArticleParserService articleParserService;
+    private final RestTemplate restTemplate;
+    private final String articleServiceUrl;
+    private final ThreadPoolExecutor workers;
+    private final Counter rejectedJobs;
+    private final Counter failedJobs;
+
+    public IndexingJobQueue(ArticleParserService articleParserService,
+                            RestTemplate restTemplate,
+                            @Value("${dal.service.url}") String articleServiceUrl,
+                            @Value("${parser.jobs.workers:2}") int workerCount,
+                            @Value("${parser.jobs.queue-capacity:100}") int queueCapacity,
+                            MeterRegistry meterRegistry) {
+        if (workerCount <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("parser.jobs.workers and parser.jobs.queue-capacity must be positive");
+        }
+        this.articleParserService = articleParserService;
+        this.restTemplate = restTemplate;
+        this.articleServiceUrl = articleServiceUrl;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> {
+            Thread thread = new Thread(task, "indexing-job-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("parser.jobs.queue.depth", workers, w -> w.getQueue().size()).register(meterRegistry);
+        Gauge.builder("parser.jobs.queue.capacity", () -> queueCapacity).register(meterRegistry);
+        Gauge.builder("parser.jobs.active", workers, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        this.rejectedJobs = Counter.builder("parser.jobs.rejected").register(meterRegistry);
+        this.failedJobs = Counter.builder("parser.jobs.failed").register(meterRegistry);
+    }
+
+    // Queue an article leased to leaseOwner for indexing, throws RejectedExecutionException when the queue is full
+    public void submit(ArticleContentDTO article, String leaseOwner) {
+        try {
+            workers.execute(() -> run(article, leaseOwner));
+        } catch (RejectedExecutionException e) {
+            rejectedJobs.increment();
+            throw new RejectedExecutionException("Indexing queue is full, article " + article.getArticleId() + " was not queued", e);
+        }
+    }
+
+    // Queue an article claimed from the DAL work queue by leaseOwner, its content is fetched when the job starts.
+    // Throws RejectedExecutionException when the queue is full.
+    public void submitClaimed(Long articleId, String leaseOwner) {
+        try {
+            workers.execute(() -> start(articleId, leaseOwner));
+        } catch (RejectedExecutionException e) {
+            rejectedJobs.increment();
+            throw new RejectedExecutionException("Indexing queue is full, article " + articleId + " was not queued", e);
+        }
+    }
+
+    private void start(Long articleId, String leaseOwner) {
+        ClaimedArticleDTO started;
+        try {
+            started = restTemplate.postForObject(articleServiceUrl + "/api/article-queue/" + articleId + "/start?worker=" + leaseOwner,
+                    null, ClaimedArticleDTO.class);
+        } catch (Exception e) {
+            // a 409 means the lease ran out and another worker claimed the article; when the DAL is unreachable the
+            // lease runs out on its own and the article is claimed again
+            System.err.println("Could not start article " + articleId + ": " + e.getMessage());
+            return;
+        }
+        ArticleContentDTO article = new ArticleContentDTO();
+        article.setArticleId(articleId);
+        article.setContent(new String(started.getContent(), StandardCharsets.UTF_8));
+        run(article, leaseOwner);
+    }
+
+    private void run(ArticleContentDTO article, String leaseOwner) {
+        try {
+            articleParserService.indexArticle(article.getContent(), article.getArticleId());
+        } catch (Exception e) {
+            failedJobs.increment();
+            System.err.println("Indexing article " + article.getArticleId() + " failed: " + e.getMessage());
+            release(article.getArticleId(), leaseOwner, true);
+        }
+    }
+
+    // Hand an article leased to leaseOwner back to the DAL queue, failed counts it as a failed attempt
+    public void release(Long articleId, String leaseOwner, boolean failed) {
+        try {
+            restTemplate.postForEntity(articleServiceUrl + "/api/article-queue/" + articleId + "/release?worker=" + leaseOwner
+                    + "&failed=" + failed, null, String.class);
+        } catch (Exception e) {
+            // the lease runs out on its own, the article is claimed again then; a 409 means another worker holds it now
+            System.err.println("Could not release article " + articleId + ": " + e.getMessage());
+        }
+    }
+
+    // Workers that would start a job right away: neither busy nor spoken for by a queued job
+    public int idleWorkers() {
+        return Math.max(0, workers.getMaximumPoolSize() - workers.getActiveCount() - workers.getQueue().size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+}
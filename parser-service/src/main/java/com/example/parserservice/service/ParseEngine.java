@@ -0,0 +1,173 @@
+package com.example.parserservice.service;
+
+import com.example.parserservice.tokenizer.VectorSupport;
+import com.example.parserservice.tokenizer.VectorWordScanner;
+import com.example.parserservice.tokenizer.WordOffsetTable;
+import com.example.parserservice.tokenizer.WordScanner;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+// Shared, bounded work-stealing engine for parsing article content.
+// A parse splits its index range in half on a word boundary until a range is below the split threshold,
+// scans the leaves in place and merges the per-range tables on the way back up the fork/join tree,
+// so merging runs in parallel on the pool instead of on the request thread.
+@Component
+public class ParseEngine {
+
+    private final ForkJoinPool pool;
+    private final int splitThreshold;
+    private final int maxQueuedParses;
+    // one permit per parse that may be running or waiting for the pool
+    private final Semaphore admissions;
+    private final Counter rejectedParses;
+    // leaves are scanned with VectorWordScanner instead of WordScanner
+    private final boolean vectorized;
+
+    public ParseEngine(int parallelism, int splitThreshold, int maxQueuedParses, MeterRegistry meterRegistry) {
+        this(parallelism, splitThreshold, maxQueuedParses, "compact", meterRegistry);
+    }
+
+    @Autowired
+    public ParseEngine(@Value("${parser.engine.parallelism:0}") int parallelism,
+                       @Value("${parser.engine.split-threshold:32768}") int splitThreshold,
+                       @Value("${parser.engine.max-queued-parses:64}") int maxQueuedParses,
+                       @Value("${parser.tokenizer:compact}") String tokenizer,
+                       MeterRegistry meterRegistry) {
+        if (splitThreshold <= 0) {
+            throw new IllegalArgumentException("parser.engine.split-threshold must be positive");
+        }
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(threads, pool -> {
+            var worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            worker.setName("parse-engine-" + worker.getPoolIndex());
+            return worker;
+        }, null, false);
+        this.splitThreshold = splitThreshold;
+        this.maxQueuedParses = maxQueuedParses;
+        this.admissions = new Semaphore(maxQueuedParses);
+        this.vectorized = "vector".equalsIgnoreCase(tokenizer) && VectorSupport.isAvailable();
+        if ("vector".equalsIgnoreCase(tokenizer) && !vectorized) {
+            System.err.println("parser.tokenizer=vector needs --add-modules jdk.incubator.vector, using the compact tokenizer");
+        }
+
+        Gauge.builder("parser.engine.parallelism", pool, ForkJoinPool::getParallelism).register(meterRegistry);
+        Gauge.builder("parser.engine.pool.size", pool, ForkJoinPool::getPoolSize).register(meterRegistry);
+        Gauge.builder("parser.engine.active.threads", pool, ForkJoinPool::getActiveThreadCount).register(meterRegistry);
+        Gauge.builder("parser.engine.queued.tasks", pool, ForkJoinPool::getQueuedTaskCount).register(meterRegistry);
+        Gauge.builder("parser.engine.steals", pool, ForkJoinPool::getStealCount).register(meterRegistry);
+        Gauge.builder("parser.engine.split.threshold", () -> this.splitThreshold).register(meterRegistry);
+        Gauge.builder("parser.engine.queue.capacity", () -> this.maxQueuedParses).register(meterRegistry);
+        Gauge.builder("parser.engine.vectorized", () -> this.vectorized ? 1 : 0).register(meterRegistry);
+        Gauge.builder("parser.engine.queue.depth", admissions, s -> this.maxQueuedParses - s.availablePermits())
+                .register(meterRegistry);
+        this.rejectedParses = Counter.builder("parser.engine.rejected").register(meterRegistry);
+    }
+
+    // Parse content into a word -> offsets table, throws RejectedExecutionException when the engine is saturated
+    public WordOffsetTable parse(String content) {
+        admit();
+        try {
+            return pool.invoke(new ParseTask(content, 0, content.length()));
+        } finally {
+            admissions.release();
+        }
+    }
+
+    // Parse content window by window in document order, handing each window's table to the sink on the
+    // calling thread before the next window starts. The whole article holds a single admission, so it
+    // cannot be rejected halfway through.
+    public void parseWindows(String content, int windowSize, Consumer<WordOffsetTable> windowSink) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size must be positive");
+        }
+        admit();
+        try {
+            int from = 0;
+            while (from < content.length()) {
+                int to = adjustSplitPoint(content, (int) Math.min((long) from + windowSize, content.length()), content.length());
+                windowSink.accept(pool.invoke(new ParseTask(content, from, to)));
+                from = to;
+            }
+        } finally {
+            admissions.release();
+        }
+    }
+
+    public boolean isVectorized() {
+        return vectorized;
+    }
+
+    public int getSplitThreshold() {
+        return splitThreshold;
+    }
+
+    private void admit() {
+        if (!admissions.tryAcquire()) {
+            rejectedParses.increment();
+            throw new RejectedExecutionException("Parser is busy: " + maxQueuedParses + " parses already queued");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    // Move a split point forward until it is not inside a word, so no word straddles two ranges
+    static int adjustSplitPoint(String content, int split, int to) {
+        while (split < to && WordScanner.isLetter(content.charAt(split))) {
+            split++;
+        }
+        return split;
+    }
+
+    private final class ParseTask extends RecursiveTask<WordOffsetTable> {
+        private final String content;
+        private final int from;
+        private final int to;
+
+        ParseTask(String content, int from, int to) {
+            this.content = content;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected WordOffsetTable compute() {
+            if (to - from > splitThreshold) {
+                int split = adjustSplitPoint(content, from + (to - from) / 2, to);
+                if (split < to) {
+                    ParseTask left = new ParseTask(content, from, split);
+                    left.fork();
+                    WordOffsetTable right = new ParseTask(content, split, to).compute();
+                    WordOffsetTable merged = left.join();
+                    // left covers the lower offsets, appending right keeps every offset list sorted
+                    merged.addAll(right);
+                    return merged;
+                }
+            }
+            WordOffsetTable table = new WordOffsetTable();
+            if (vectorized) {
+                VectorWordScanner scanner = new VectorWordScanner(table, from);
+                scanner.scan(content, from, to);
+                scanner.finish();
+                return table;
+            }
+            WordScanner scanner = new WordScanner(table, from);
+            scanner.scan(content, from, to);
+            scanner.finish();
+            return table;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.parserservice.service;
+
+import com.example.parserservice.DTO.ClaimedArticleDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.RejectedExecutionException;
+
+// Pulls pending articles from the DAL work queue into the local IndexingJobQueue.
+// Claims are leased to this instance and never larger than its idle workers, so any number of parser instances can
+// poll the same DAL without coordinating and without claiming work that would wait out its lease in the queue.
+@Component
+public class PendingArticlePoller {
+
+    private final RestTemplate restTemplate;
+    private final IndexingJobQueue indexingJobQueue;
+    private final String claimUrl;
+    private final Timer claimLatency;
+    private final Counter claimedArticles;
+
+    @Value("${parser.queue.enabled:true}")
+    private boolean enabled = true;
+    @Value("${parser.queue.claim-batch:10}")
+    private int claimBatch = 10;
+    @Value("${parser.queue.worker-id:}")
+    private String workerId = "";
+
+    public PendingArticlePoller(RestTemplate restTemplate, IndexingJobQueue indexingJobQueue,
+                                @Value("${dal.service.url}") String articleServiceUrl, MeterRegistry meterRegistry) {
+        this.restTemplate = restTemplate;
+        this.indexingJobQueue = indexingJobQueue;
+        this.claimUrl = articleServiceUrl + "/api/article-queue/claim";
+        this.claimLatency = Timer.builder("parser.queue.claim.latency").register(meterRegistry);
+        this.claimedArticles = Counter.builder("parser.queue.claimed").register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${parser.queue.poll-interval-ms:2000}", fixedDelayString = "${parser.queue.poll-interval-ms:2000}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        int limit = Math.min(claimBatch, indexingJobQueue.idleWorkers());
+        if (limit <= 0) {
+            return;
+        }
+        ClaimedArticleDTO[] claimed;
+        try {
+            claimed = claimLatency.record(() ->
+                    restTemplate.postForObject(claimUrl + "?worker=" + workerId() + "&limit=" + limit, null, ClaimedArticleDTO[].class));
+        } catch (Exception e) {
+            System.err.println("Claiming pending articles failed: " + e.getMessage());
+            return;
+        }
+        if (claimed == null) {
+            return;
+        }
+        for (ClaimedArticleDTO article : claimed) {
+            claimedArticles.increment();
+            try {
+                indexingJobQueue.submitClaimed(article.getArticleId(), workerId());
+            } catch (RejectedExecutionException e) {
+                // filled up by direct submissions since the claim, let another instance take it
+                indexingJobQueue.release(article.getArticleId(), workerId(), false);
+            }
+        }
+    }
+
+    // parser.queue.worker-id, or pid@host which is unique per running instance
+    private String workerId() {
+        return workerId.isEmpty() ? ManagementFactory.getRuntimeMXBean().getName() : workerId;
+    }
+}
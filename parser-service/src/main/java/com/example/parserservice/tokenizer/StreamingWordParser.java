@@ -0,0 +1,47 @@
+package com.example.parserservice.tokenizer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+// Tokenizes UTF-8 content incrementally as it is read from a stream.
+// Only one char buffer of the document is held at a time; offsets are absolute UTF-16 char offsets,
+// the same ones parseArticle reports for new String(bytes, UTF_8).
+// Postings are handed to the sink in segments whenever the current segment reaches flushPostings offsets,
+// segments are emitted in document order so every word's offsets across segments stay sorted.
+public class StreamingWordParser {
+
+    private final int bufferSize;
+    private final long flushPostings;
+
+    public StreamingWordParser(int bufferSize, long flushPostings) {
+        if (bufferSize <= 0 || flushPostings <= 0) {
+            throw new IllegalArgumentException("Buffer size and flush threshold must be positive");
+        }
+        this.bufferSize = bufferSize;
+        this.flushPostings = flushPostings;
+    }
+
+    // Parse the whole stream, returns the number of chars read
+    public long parse(InputStream in, Consumer<WordOffsetTable> segmentSink) throws IOException {
+        // the decoder keeps partial multi-byte sequences between reads
+        Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+        char[] buffer = new char[bufferSize];
+        WordScanner scanner = new WordScanner(new WordOffsetTable(), 0);
+        int read;
+        while ((read = reader.read(buffer, 0, buffer.length)) != -1) {
+            scanner.feed(buffer, 0, read);
+            if (scanner.getTable().postingCount() >= flushPostings) {
+                segmentSink.accept(scanner.replaceTable(new WordOffsetTable()));
+            }
+        }
+        scanner.finish();
+        if (!scanner.getTable().isEmpty()) {
+            segmentSink.accept(scanner.getTable());
+        }
+        return scanner.getPosition();
+    }
+}
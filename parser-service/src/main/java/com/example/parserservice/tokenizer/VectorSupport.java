@@ -0,0 +1,14 @@
+package com.example.parserservice.tokenizer;
+
+// Whether VectorWordScanner can run in this JVM. Kept apart from VectorWordScanner because that class resolves
+// jdk.incubator.vector types when it is initialized, which fails without the module - this one references none.
+public final class VectorSupport {
+
+    private VectorSupport() {
+    }
+
+    // True when the incubator module was added to the running JVM
+    public static boolean isAvailable() {
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    }
+}
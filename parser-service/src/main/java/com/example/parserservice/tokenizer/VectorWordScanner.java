@@ -0,0 +1,150 @@
+package com.example.parserservice.tokenizer;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+// WordScanner variant built on jdk.incubator.vector: each step loads 16 (AVX2) or 32 (AVX-512) chars,
+// classifies them into a letter mask, lowercases ASCII letters in bulk and walks the word boundaries
+// as bits of the mask. Steps that contain any non-ASCII char fall back to the scalar Character.isLetter path,
+// so the produced table is identical to WordScanner's.
+// Needs --add-modules jdk.incubator.vector at runtime, check VectorSupport.isAvailable() before touching this class.
+public class VectorWordScanner {
+
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    private static final int BLOCK_SIZE = 8192;
+
+    private final WordOffsetTable table;
+    private final char[] block = new char[BLOCK_SIZE];
+    // block with ASCII letters lowercased, words are recorded from here
+    private final char[] lowered = new char[BLOCK_SIZE];
+    // Letters of a word that started in an earlier block and has not ended yet
+    private char[] carry = new char[32];
+    private int carryLength;
+    private int carryOffset;
+    // Absolute offset of block[0]
+    private int position;
+
+    public VectorWordScanner(WordOffsetTable table, int startOffset) {
+        this.table = table;
+        this.position = startOffset;
+    }
+
+    // Chars classified per vector step
+    public static int lanes() {
+        return LANES;
+    }
+
+    // Scan content[from, to) by copying it through a reused block buffer - no substring is created
+    public void scan(String content, int from, int to) {
+        for (int pos = from; pos < to; pos += BLOCK_SIZE) {
+            int length = Math.min(BLOCK_SIZE, to - pos);
+            content.getChars(pos, pos + length, block, 0);
+            scanBlock(length);
+            position += length;
+        }
+    }
+
+    // Flush the last word if the text ended with a letter
+    public void finish() {
+        if (carryLength > 0) {
+            table.addLowercase(carry, 0, carryLength, carryOffset);
+            carryLength = 0;
+        }
+    }
+
+    public WordOffsetTable getTable() {
+        return table;
+    }
+
+    private void scanBlock(int length) {
+        // a word carried from the previous block continues at index 0
+        int wordStart = carryLength > 0 ? 0 : -1;
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += LANES) {
+            ShortVector chars = ShortVector.fromCharArray(SPECIES, block, i);
+            if (chars.and((short) 0xFF80).compare(VectorOperators.NE, (short) 0).anyTrue()) {
+                wordStart = scanScalar(i, i + LANES, wordStart);
+                continue;
+            }
+            VectorMask<Short> upper = chars.compare(VectorOperators.GE, (short) 'A')
+                    .and(chars.compare(VectorOperators.LE, (short) 'Z'));
+            ShortVector lower = chars.lanewise(VectorOperators.OR, (short) 0x20, upper);
+            lower.intoCharArray(lowered, i);
+            long letters = lower.compare(VectorOperators.GE, (short) 'a')
+                    .and(lower.compare(VectorOperators.LE, (short) 'z')).toLong();
+            wordStart = scanMask(letters, i, wordStart);
+        }
+        wordStart = scanScalar(i, length, wordStart);
+        if (wordStart >= 0) {
+            if (wordStart == 0 && carryLength > 0) {
+                appendCarry(0, length);
+            } else {
+                carryOffset = position + wordStart;
+                appendCarry(wordStart, length - wordStart);
+            }
+        }
+    }
+
+    // Walk the word starts and ends of one step; bit k of letters is lane k
+    private int scanMask(long letters, int base, int wordStart) {
+        long previous = (letters << 1) | (wordStart >= 0 ? 1L : 0L);
+        long starts = letters & ~previous;
+        long ends = ~letters & previous & laneMask();
+        long events = starts | ends;
+        while (events != 0) {
+            int lane = Long.numberOfTrailingZeros(events);
+            if ((ends & (1L << lane)) != 0) {
+                emit(wordStart, base + lane);
+                wordStart = -1;
+            } else {
+                wordStart = base + lane;
+            }
+            events &= events - 1;
+        }
+        return wordStart;
+    }
+
+    private int scanScalar(int from, int to, int wordStart) {
+        for (int i = from; i < to; i++) {
+            char c = block[i];
+            lowered[i] = (c >= 'A' && c <= 'Z') ? (char) (c | 0x20) : c;
+            if (WordScanner.isLetter(c)) {
+                if (wordStart < 0) {
+                    wordStart = i;
+                }
+            } else if (wordStart >= 0) {
+                emit(wordStart, i);
+                wordStart = -1;
+            }
+        }
+        return wordStart;
+    }
+
+    private void emit(int start, int end) {
+        if (start == 0 && carryLength > 0) {
+            // the word began in an earlier block
+            appendCarry(0, end);
+            table.addLowercase(carry, 0, carryLength, carryOffset);
+            carryLength = 0;
+            return;
+        }
+        table.addLowercase(lowered, start, end - start, position + start);
+    }
+
+    private static long laneMask() {
+        return LANES == 64 ? -1L : (1L << LANES) - 1;
+    }
+
+    private void appendCarry(int from, int length) {
+        if (carryLength + length > carry.length) {
+            carry = Arrays.copyOf(carry, Math.max(carry.length * 2, carryLength + length));
+        }
+        System.arraycopy(lowered, from, carry, carryLength, length);
+        carryLength += length;
+    }
+}
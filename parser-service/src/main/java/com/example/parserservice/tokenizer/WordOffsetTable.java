@@ -0,0 +1,245 @@
+package com.example.parserservice.tokenizer;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+// Open-addressing map from lowercase word to a growable int array of its offsets.
+// ASCII words are hashed and compared straight from the scanned char buffer, so a String is only
+// created the first time a word is seen. Words with non-ASCII letters go through toLowerCase(Locale.ROOT)
+// exactly like ArticleParserService.convertToLower, so both paths produce the same keys.
+public final class WordOffsetTable {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int INITIAL_OFFSETS = 4;
+
+    private String[] keys;
+    private int[] hashes;
+    private int[][] offsets;
+    private int[] counts;
+    private int mask;
+    private int size;
+    private long postingCount;
+
+    public WordOffsetTable() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public WordOffsetTable(int expectedWords) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedWords * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    // Callback used to walk the table without exposing its internal arrays
+    @FunctionalInterface
+    public interface Visitor {
+        void visit(String word, int[] offsets, int count);
+    }
+
+    // Record a word that occupies src[start, start + length) at the given absolute offset
+    public void add(char[] src, int start, int length, int offset) {
+        int hash = 0;
+        for (int i = start, end = start + length; i < end; i++) {
+            char c = src[i];
+            if (c >= 0x80) {
+                // Non-ASCII folding is locale/context sensitive (e.g. final sigma), leave it to String
+                add(new String(src, start, length).toLowerCase(Locale.ROOT), offset);
+                return;
+            }
+            hash = 31 * hash + toLowerAscii(c);
+        }
+        int slot = spread(hash) & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && matchesAscii(keys[slot], src, start, length)) {
+                append(slot, offset);
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        insert(slot, hash, new String(src, start, length).toLowerCase(Locale.ROOT), offset);
+    }
+
+    // Same as add(char[], ...) for words whose ASCII letters are already lowercase, skips the per-char folding
+    public void addLowercase(char[] src, int start, int length, int offset) {
+        int hash = 0;
+        for (int i = start, end = start + length; i < end; i++) {
+            char c = src[i];
+            if (c >= 0x80) {
+                add(new String(src, start, length).toLowerCase(Locale.ROOT), offset);
+                return;
+            }
+            hash = 31 * hash + c;
+        }
+        int slot = spread(hash) & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && matches(keys[slot], src, start, length)) {
+                append(slot, offset);
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        insert(slot, hash, new String(src, start, length), offset);
+    }
+
+    // Record an already lowercased word at the given absolute offset
+    public void add(String word, int offset) {
+        int hash = word.hashCode();
+        int slot = spread(hash) & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && keys[slot].equals(word)) {
+                append(slot, offset);
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        insert(slot, hash, word, offset);
+    }
+
+    // Append every posting of other after the postings already stored here.
+    // Callers merge tables in document order so offsets stay sorted.
+    public void addAll(WordOffsetTable other) {
+        for (int slot = 0; slot < other.keys.length; slot++) {
+            String word = other.keys[slot];
+            if (word != null) {
+                appendAll(word, other.hashes[slot], other.offsets[slot], other.counts[slot]);
+            }
+        }
+    }
+
+    public void forEach(Visitor visitor) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != null) {
+                visitor.visit(keys[slot], offsets[slot], counts[slot]);
+            }
+        }
+    }
+
+    // Number of distinct words
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Total number of offsets stored across all words
+    public long postingCount() {
+        return postingCount;
+    }
+
+    private void appendAll(String word, int hash, int[] src, int count) {
+        postingCount += count;
+        int slot = spread(hash) & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && keys[slot].equals(word)) {
+                int[] dst = ensureCapacity(slot, counts[slot] + count);
+                System.arraycopy(src, 0, dst, counts[slot], count);
+                counts[slot] += count;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = word;
+        hashes[slot] = hash;
+        offsets[slot] = Arrays.copyOf(src, Math.max(count, INITIAL_OFFSETS));
+        counts[slot] = count;
+        if (++size * 2 > keys.length) {
+            rehash();
+        }
+    }
+
+    private void insert(int slot, int hash, String word, int offset) {
+        postingCount++;
+        keys[slot] = word;
+        hashes[slot] = hash;
+        int[] list = new int[INITIAL_OFFSETS];
+        list[0] = offset;
+        offsets[slot] = list;
+        counts[slot] = 1;
+        // keep the load factor at or below 0.5 so linear probe chains stay short
+        if (++size * 2 > keys.length) {
+            rehash();
+        }
+    }
+
+    private void append(int slot, int offset) {
+        postingCount++;
+        int count = counts[slot];
+        int[] list = offsets[slot];
+        if (count == list.length) {
+            list = ensureCapacity(slot, count + 1);
+        }
+        list[count] = offset;
+        counts[slot] = count + 1;
+    }
+
+    private int[] ensureCapacity(int slot, int required) {
+        int[] list = offsets[slot];
+        if (required > list.length) {
+            list = Arrays.copyOf(list, Math.max(required, list.length + (list.length >> 1) + 1));
+            offsets[slot] = list;
+        }
+        return list;
+    }
+
+    private void rehash() {
+        String[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        int[][] oldOffsets = offsets;
+        int[] oldCounts = counts;
+        allocate(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = spread(oldHashes[i]) & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                hashes[slot] = oldHashes[i];
+                offsets[slot] = oldOffsets[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        hashes = new int[capacity];
+        offsets = new int[capacity][];
+        counts = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private static boolean matchesAscii(String key, char[] src, int start, int length) {
+        if (key.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (key.charAt(i) != toLowerAscii(src[start + i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(String key, char[] src, int start, int length) {
+        if (key.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (key.charAt(i) != src[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char toLowerAscii(char c) {
+        return (c >= 'A' && c <= 'Z') ? (char) (c | 0x20) : c;
+    }
+
+    // String.hashCode has weak low bits for short words, mix the high bits in before masking
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
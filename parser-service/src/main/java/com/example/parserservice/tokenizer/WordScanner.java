@@ -0,0 +1,113 @@
+package com.example.parserservice.tokenizer;
+
+import java.util.Arrays;
+
+// Splits text into words (maximal runs of Character.isLetter chars) and records each word's
+// absolute start offset in a WordOffsetTable. Text can be fed in any number of blocks: a word that
+// crosses a block boundary is carried over, so offsets are the same as scanning the text in one piece.
+public class WordScanner {
+
+    private static final int BLOCK_SIZE = 8192;
+
+    private WordOffsetTable table;
+    private char[] block;
+    // Letters of a word that started in an earlier block and has not ended yet
+    private char[] carry = new char[32];
+    private int carryLength;
+    private int carryOffset;
+    // Absolute offset of the next char that will be fed
+    private int position;
+
+    public WordScanner(WordOffsetTable table, int startOffset) {
+        this.table = table;
+        this.position = startOffset;
+    }
+
+    // Scan content[from, to) by copying it through a reused block buffer - no substring is created
+    public void scan(String content, int from, int to) {
+        if (block == null) {
+            block = new char[BLOCK_SIZE];
+        }
+        for (int pos = from; pos < to; pos += BLOCK_SIZE) {
+            int length = Math.min(BLOCK_SIZE, to - pos);
+            content.getChars(pos, pos + length, block, 0);
+            feed(block, 0, length);
+        }
+    }
+
+    // Scan buf[from, to), continuing from wherever the previous call stopped
+    public void feed(char[] buf, int from, int to) {
+        int base = position - from;
+        int i = from;
+        if (carryLength > 0) {
+            // finish the word carried over from the previous block
+            while (i < to && isLetter(buf[i])) {
+                i++;
+            }
+            appendCarry(buf, from, i - from);
+            if (i == to) {
+                position = base + to;
+                return;
+            }
+            table.add(carry, 0, carryLength, carryOffset);
+            carryLength = 0;
+        }
+        int wordStart = -1;
+        for (; i < to; i++) {
+            if (isLetter(buf[i])) {
+                if (wordStart < 0) {
+                    wordStart = i;
+                }
+            } else if (wordStart >= 0) {
+                table.add(buf, wordStart, i - wordStart, base + wordStart);
+                wordStart = -1;
+            }
+        }
+        if (wordStart >= 0) {
+            carryOffset = base + wordStart;
+            appendCarry(buf, wordStart, to - wordStart);
+        }
+        position = base + to;
+    }
+
+    // Flush the last word if the text ended with a letter
+    public void finish() {
+        if (carryLength > 0) {
+            table.add(carry, 0, carryLength, carryOffset);
+            carryLength = 0;
+        }
+    }
+
+    public WordOffsetTable getTable() {
+        return table;
+    }
+
+    // Start recording into a new table; a word still being carried is recorded in the new one
+    public WordOffsetTable replaceTable(WordOffsetTable next) {
+        WordOffsetTable previous = table;
+        table = next;
+        return previous;
+    }
+
+    // Absolute offset of the next char that will be fed
+    public int getPosition() {
+        return position;
+    }
+
+    // Same result as Character.isLetter, without the table lookup for ASCII
+    public static boolean isLetter(char c) {
+        if (c < 0x80) {
+            int folded = (c | 0x20) - 'a';
+            return folded >= 0 && folded < 26;
+        }
+        return Character.isLetter(c);
+    }
+
+    private void appendCarry(char[] buf, int from, int length) {
+        if (carryLength + length > carry.length) {
+            carry = Arrays.copyOf(carry, Math.max(carry.length * 2, carryLength + length));
+        }
+        System.arraycopy(buf, from, carry, carryLength, length);
+        carryLength += length;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.parserservice.codec;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffsetCodecTest {
+
+    @Test
+    public void testRoundTrip() {
+        int[] offsets = {0, 5, 127, 128, 16_384, 2_000_000, Integer.MAX_VALUE};
+
+        byte[] packed = OffsetCodec.encode(offsets, offsets.length);
+
+        assertArrayEquals(offsets, OffsetCodec.decode(packed));
+    }
+
+    @Test
+    public void testOnlyCountIsEncoded() {
+        int[] offsets = {3, 9, 100};
+
+        // only the first two offsets are used
+        assertArrayEquals(new int[]{3, 9}, OffsetCodec.decode(OffsetCodec.encode(offsets, 2)));
+        assertArrayEquals(new int[0], OffsetCodec.decode(OffsetCodec.encode(offsets, 0)));
+    }
+
+    @Test
+    public void testDeltasOfCloseOffsetsTakeOneByte() {
+        int[] offsets = new int[100];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = 1_000_000 + i * 50;
+        }
+
+        byte[] packed = OffsetCodec.encode(offsets, offsets.length);
+
+        // 1 byte count + 3 bytes first offset + 99 one-byte deltas
+        assertEquals(1 + 3 + 99, packed.length);
+    }
+}
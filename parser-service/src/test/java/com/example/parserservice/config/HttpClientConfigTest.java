@@ -0,0 +1,81 @@
+package com.example.parserservice.config;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpClientConfigTest {
+
+    private HttpServer server;
+    // client ports seen by the server, one per TCP connection
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient;
+    private RestTemplate restTemplate;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+
+        HttpClientConfig config = new HttpClientConfig();
+        ReflectionTestUtils.setField(config, "maxTotal", 20);
+        ReflectionTestUtils.setField(config, "maxPerRoute", 5);
+        ReflectionTestUtils.setField(config, "connectTimeoutMs", 2000L);
+        ReflectionTestUtils.setField(config, "readTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(config, "poolTimeoutMs", 2000L);
+        ReflectionTestUtils.setField(config, "idleEvictSeconds", 30L);
+        connectionManager = config.httpConnectionManager(meterRegistry);
+        httpClient = config.httpClient(connectionManager);
+        restTemplate = config.restTemplate(new RestTemplateBuilder(), httpClient);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        httpClient.close();
+        server.stop(0);
+    }
+
+    // Sequential calls to one host go over a single kept-alive connection
+    @Test
+    public void testConnectionIsReused() {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/ping";
+        for (int i = 0; i < 10; i++) {
+            assertEquals("ok", restTemplate.getForObject(url, String.class));
+        }
+
+        assertEquals(1, clientPorts.size());
+        assertEquals(5, connectionManager.getDefaultMaxPerRoute());
+        assertEquals(20, connectionManager.getMaxTotal());
+        assertEquals(1, connectionManager.getTotalStats().getAvailable());
+    }
+
+    @Test
+    public void testPoolMetricsAreRegistered() {
+        assertNotNull(meterRegistry.find("httpcomponents.httpclient.pool.total.max").gauge());
+        assertEquals(20, meterRegistry.get("httpcomponents.httpclient.pool.total.max").gauge().value());
+        assertNotNull(meterRegistry.find("httpcomponents.httpclient.pool.total.pending").gauge());
+    }
+}
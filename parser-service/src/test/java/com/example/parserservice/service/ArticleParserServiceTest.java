@@ -1,14 +1,29 @@
 package com.example.parserservice.service;
 import com.example.parserservice.DTO.ParsedWordMappingDTO;
+import com.example.parserservice.DTO.StreamParseSummaryDTO;
+import com.example.parserservice.DTO.WordMappingBatchDTO;
+import com.example.parserservice.codec.OffsetCodec;
 import com.example.parserservice.service.ArticleParserService;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Collectors;
 import java.util.concurrent.ExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -19,12 +34,49 @@ public class ArticleParserServiceTest {
     @Mock
     private RestTemplate restTemplate;
 
-    @InjectMocks
     private ArticleParserService articleParserService;
+    private DalBatchPublisher dalBatchPublisher;
 
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);  // Initialize Mockito annotations before each test
+        // small split threshold so the multi-threaded tests really fork
+        ParseEngine parseEngine = new ParseEngine(4, 256, 8, new SimpleMeterRegistry());
+        // small batches so the tests send several of them
+        dalBatchPublisher = new DalBatchPublisher(restTemplate, "http://dal", 50, 2, 2);
+        articleParserService = new ArticleParserService(restTemplate, parseEngine, dalBatchPublisher);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        dalBatchPublisher.shutdown();
+    }
+
+    // Collect every offset the DAL received for one article, merged per word the way append-batch does
+    private List<WordMappingBatchDTO> sentBatches() {
+        ArgumentCaptor<WordMappingBatchDTO> sent = ArgumentCaptor.forClass(WordMappingBatchDTO.class);
+        verify(restTemplate, atLeastOnce()).postForEntity(eq("http://dal/api/word-mappings/append-batch"), sent.capture(), eq(String.class));
+        return sent.getAllValues();
+    }
+
+    private Map<String, String> sentOffsets(Long articleId) {
+        Map<String, List<Integer>> merged = new HashMap<>();
+        for (WordMappingBatchDTO batch : sentBatches()) {
+            if (!batch.getArticleId().equals(articleId)) {
+                continue;
+            }
+            for (ParsedWordMappingDTO mapping : batch.getMappings()) {
+                List<Integer> offsets = merged.computeIfAbsent(mapping.getWord(), w -> new ArrayList<>());
+                IntStream.of(OffsetCodec.decode(mapping.getPackedOffsets())).forEach(offsets::add);
+            }
+        }
+        return merged.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey,
+                e -> Arrays.toString(e.getValue().stream().sorted().mapToInt(Integer::intValue).toArray())));
+    }
+
+    // Decode the packed offsets of a DTO for comparisons
+    private static String offsetsOf(ParsedWordMappingDTO dto) {
+        return Arrays.toString(OffsetCodec.decode(dto.getPackedOffsets()));
     }
 
     // Test small content that should trigger single-threaded parsing
@@ -57,7 +109,7 @@ public class ArticleParserServiceTest {
         Long articleId = 1L;
 
         List<ParsedWordMappingDTO> result = articleParserService.parseArticle(content, articleId);
-        result.forEach(w -> System.out.println("Word: " + w.getWord() + ", Offsets: " + w.getOffsets()));
+        result.forEach(w -> System.out.println("Word: " + w.getWord() + ", Offsets: " + offsetsOf(w)));
 
 
         // Verify that the result contains the expected number of unique words (500 words)
@@ -70,6 +122,114 @@ public class ArticleParserServiceTest {
     }
 
 
+    // Test that the compact tokenizer produces exactly the same mappings as the legacy one
+    @Test
+    public void testCompactTokenizerMatchesLegacy() throws ExecutionException, InterruptedException {
+        StringBuilder contentBuilder = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            contentBuilder.append("Alpha").append(i % 7 == 0 ? ", beta" : " gamma").append(" Ünïcode ΣΟΦΙΑ delta").append(i).append(' ');
+        }
+        String content = contentBuilder.toString();
+
+        ReflectionTestUtils.setField(articleParserService, "tokenizer", "legacy");
+        Map<String, String> legacy = articleParserService.parseArticle(content, 1L).stream()
+                .collect(Collectors.toMap(ParsedWordMappingDTO::getWord, ArticleParserServiceTest::offsetsOf));
+        ReflectionTestUtils.setField(articleParserService, "tokenizer", "compact");
+        Map<String, String> compact = articleParserService.parseArticle(content, 1L).stream()
+                .collect(Collectors.toMap(ParsedWordMappingDTO::getWord, ArticleParserServiceTest::offsetsOf));
+
+        assertEquals(legacy, compact);
+    }
+
+    // Test that the streaming endpoint reports the same offsets as parseArticle
+    @Test
+    public void testParseArticleStreamMatchesParseArticle() throws IOException {
+        StringBuilder contentBuilder = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            contentBuilder.append("Ein schöner Tag, ").append(i % 2 == 0 ? "ÉCOLE " : "école ").append("day").append(i).append('\n');
+        }
+        String content = contentBuilder.toString();
+        ReflectionTestUtils.setField(articleParserService, "streamBufferSize", 7);
+        ReflectionTestUtils.setField(articleParserService, "streamFlushPostings", 100L);
+
+        Map<String, String> expected = articleParserService.parseArticle(content, 1L).stream()
+                .collect(Collectors.toMap(ParsedWordMappingDTO::getWord, ArticleParserServiceTest::offsetsOf));
+        StreamParseSummaryDTO summary = articleParserService.parseArticleStream(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), 2L);
+
+        assertEquals(expected, sentOffsets(1L));
+        assertEquals(expected, sentOffsets(2L));
+        assertEquals(content.length(), summary.getCharacters());
+        assertEquals(expected.size(), summary.getDistinctWords());
+    }
+
+    // Test that a parse is delivered in bounded batches over several windows, ending with one commit batch
+    @Test
+    public void testBatchedDeliveryEndsWithCommit() {
+        StringBuilder contentBuilder = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            contentBuilder.append("term").append((char) ('a' + i % 26)).append((char) ('a' + i / 26 % 26)).append(' ');
+        }
+        String content = contentBuilder.toString();
+        ReflectionTestUtils.setField(articleParserService, "dalWindowSize", 1000);
+
+        List<ParsedWordMappingDTO> result = articleParserService.parseArticle(content, 1L);
+
+        List<WordMappingBatchDTO> batches = sentBatches();
+        assertTrue(batches.size() > 2);
+        assertTrue(batches.stream().allMatch(b -> b.getMappings().size() <= 50));
+        WordMappingBatchDTO last = batches.get(batches.size() - 1);
+        assertTrue(last.isCommit());
+        assertEquals(1, batches.stream().filter(WordMappingBatchDTO::isCommit).count());
+        assertEquals(result.stream().collect(Collectors.toMap(ParsedWordMappingDTO::getWord, ArticleParserServiceTest::offsetsOf)),
+                sentOffsets(1L));
+        verify(restTemplate, never()).postForEntity(anyString(), anyList(), eq(Void.class));
+    }
+
+    // Test that indexArticle delivers the same batches as parseArticle and only reports a summary
+    @Test
+    public void testIndexArticleDeliversLikeParseArticle() {
+        StringBuilder contentBuilder = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            contentBuilder.append("term").append((char) ('a' + i % 26)).append((char) ('a' + i / 26 % 26)).append(' ');
+        }
+        String content = contentBuilder.toString();
+        ReflectionTestUtils.setField(articleParserService, "dalWindowSize", 1000);
+
+        Map<String, String> expected = articleParserService.parseArticle(content, 1L).stream()
+                .collect(Collectors.toMap(ParsedWordMappingDTO::getWord, ArticleParserServiceTest::offsetsOf));
+        StreamParseSummaryDTO summary = articleParserService.indexArticle(content, 2L);
+
+        assertEquals(expected, sentOffsets(2L));
+        assertEquals(content.length(), summary.getCharacters());
+        assertEquals(expected.size(), summary.getDistinctWords());
+        assertEquals(3000, summary.getPostings());
+        assertEquals(1, sentBatches().stream().filter(b -> b.getArticleId().equals(2L) && b.isCommit()).count());
+    }
+
+    // Test that single delivery still posts everything to save-all once
+    @Test
+    public void testSingleDelivery() {
+        ReflectionTestUtils.setField(articleParserService, "dalDelivery", "single");
+
+        List<ParsedWordMappingDTO> result = articleParserService.parseArticle("to be or not to be", 1L);
+
+        verify(restTemplate, times(1)).postForEntity(anyString(), eq(result), eq(Void.class));
+        verify(restTemplate, never()).postForEntity(anyString(), any(WordMappingBatchDTO.class), eq(String.class));
+    }
+
+    // Test that the json encoding still sends the original JSON array strings
+    @Test
+    public void testJsonOffsetsEncoding() {
+        ReflectionTestUtils.setField(articleParserService, "offsetsEncoding", "json");
+
+        List<ParsedWordMappingDTO> result = articleParserService.parseArticle("to be or not to be", 1L);
+
+        ParsedWordMappingDTO to = result.stream().filter(w -> w.getWord().equals("to")).findFirst().orElseThrow();
+        assertEquals("[0,13]", to.getOffsets());
+        assertNull(to.getPackedOffsets());
+    }
+
     // Test that parsed word mappings are correctly sent to the DAL service
     @Test
     public void testSendParsedDataToDal() {
@@ -0,0 +1,88 @@
+package com.example.parserservice.service;
+
+import com.example.parserservice.DTO.ParsedWordMappingDTO;
+import com.example.parserservice.DTO.WordMappingBatchDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DalBatchPublisherTest {
+
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+    private DalBatchPublisher publisher;
+
+    @AfterEach
+    public void tearDown() {
+        publisher.shutdown();
+    }
+
+    private static List<ParsedWordMappingDTO> mappings(int count) {
+        List<ParsedWordMappingDTO> mappings = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            mappings.add(new ParsedWordMappingDTO("word" + i, 1L, new byte[]{1, (byte) i}));
+        }
+        return mappings;
+    }
+
+    // A slow DAL must stall the publisher instead of letting batches pile up
+    @Test
+    public void testInFlightBatchesAreBounded() {
+        publisher = new DalBatchPublisher(restTemplate, "http://dal", 10, 2, 8);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<WordMappingBatchDTO> received = new ArrayList<>();
+        when(restTemplate.postForEntity(anyString(), any(WordMappingBatchDTO.class), eq(String.class))).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(5);
+            synchronized (received) {
+                received.add(invocation.getArgument(1));
+            }
+            inFlight.decrementAndGet();
+            return null;
+        });
+
+        DalBatchPublisher.Session session = publisher.open(1L);
+        session.publish(mappings(500));
+        session.commit();
+
+        assertTrue(maxInFlight.get() <= 2);
+        WordMappingBatchDTO last = received.get(received.size() - 1);
+        assertTrue(last.isCommit());
+        assertEquals(500, received.stream().mapToInt(b -> b.getMappings().size()).sum());
+        assertTrue(received.stream().allMatch(b -> b.getMappings().size() <= 10));
+    }
+
+    // A rejected batch fails the parse and the article is never committed
+    @Test
+    public void testFailedBatchPreventsCommit() {
+        publisher = new DalBatchPublisher(restTemplate, "http://dal", 10, 2, 2);
+        AtomicInteger commits = new AtomicInteger();
+        when(restTemplate.postForEntity(anyString(), any(WordMappingBatchDTO.class), eq(String.class))).thenAnswer(invocation -> {
+            WordMappingBatchDTO batch = invocation.getArgument(1);
+            if (batch.isCommit()) {
+                commits.incrementAndGet();
+            }
+            throw new RestClientException("DAL unavailable");
+        });
+
+        DalBatchPublisher.Session session = publisher.open(1L);
+
+        assertThrows(RestClientException.class, () -> {
+            session.publish(mappings(100));
+            session.commit();
+        });
+        assertEquals(0, commits.get());
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.parserservice.service;
+
+import com.example.parserservice.DTO.ArticleContentDTO;
+import com.example.parserservice.DTO.ClaimedArticleDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class IndexingJobQueueTest {
+
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+    private final ArticleParserService articleParserService = mock(ArticleParserService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private IndexingJobQueue queue;
+
+    @AfterEach
+    public void tearDown() {
+        queue.shutdown();
+    }
+
+    private static ArticleContentDTO article(long id) {
+        ArticleContentDTO dto = new ArticleContentDTO();
+        dto.setArticleId(id);
+        dto.setContent("some content");
+        return dto;
+    }
+
+    // One worker and one queue slot: the third concurrent upload is rejected
+    @Test
+    public void testBurstBeyondCapacityIsRejected() throws InterruptedException {
+        queue = new IndexingJobQueue(articleParserService, restTemplate, "http://dal", 1, 1, meterRegistry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(articleParserService.indexArticle(anyString(), anyLong())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return null;
+        });
+
+        queue.submit(article(1), "parser-1");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        queue.submit(article(2), "parser-1");
+
+        assertThrows(RejectedExecutionException.class, () -> queue.submit(article(3), "parser-1"));
+        assertEquals(1.0, meterRegistry.get("parser.jobs.rejected").counter().count());
+        assertEquals(1.0, meterRegistry.get("parser.jobs.queue.depth").gauge().value());
+        release.countDown();
+    }
+
+    // A job that fails is released back to the DAL queue as a failed attempt, under the lease it was submitted with
+    @Test
+    public void testFailedJobIsReleasedAsFailedAttempt() {
+        queue = new IndexingJobQueue(articleParserService, restTemplate, "http://dal", 1, 4, meterRegistry);
+        when(articleParserService.indexArticle(anyString(), anyLong())).thenThrow(new RestClientException("DAL unavailable"));
+
+        queue.submit(article(7), IndexingJobQueue.CREATE_LEASE_OWNER);
+
+        verify(restTemplate, timeout(5000)).postForEntity("http://dal/api/article-queue/7/release?worker=create&failed=true", null, String.class);
+        assertEquals(1.0, meterRegistry.get("parser.jobs.failed").counter().count());
+    }
+
+    // A claimed job fetches its content and renews its lease when it starts, and does not run once the lease is lost
+    @Test
+    public void testClaimedJobStartsItsLease() {
+        queue = new IndexingJobQueue(articleParserService, restTemplate, "http://dal", 1, 4, meterRegistry);
+        ClaimedArticleDTO started = new ClaimedArticleDTO();
+        started.setArticleId(3L);
+        started.setContent("héllo world".getBytes(StandardCharsets.UTF_8));
+        when(restTemplate.postForObject("http://dal/api/article-queue/3/start?worker=parser-1", null, ClaimedArticleDTO.class))
+                .thenReturn(started);
+        when(restTemplate.postForObject("http://dal/api/article-queue/4/start?worker=parser-1", null, ClaimedArticleDTO.class))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.CONFLICT, "Conflict", HttpHeaders.EMPTY, null, null));
+
+        queue.submitClaimed(4L, "parser-1");
+        queue.submitClaimed(3L, "parser-1");
+
+        verify(articleParserService, timeout(5000)).indexArticle("héllo world", 3L);
+        verify(articleParserService, never()).indexArticle(anyString(), eq(4L));
+        verify(restTemplate, never()).postForEntity(contains("/4/release"), any(), eq(String.class));
+    }
+
+    @Test
+    public void testIdleWorkers() throws InterruptedException {
+        queue = new IndexingJobQueue(articleParserService, restTemplate, "http://dal", 2, 4, meterRegistry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(articleParserService.indexArticle(anyString(), anyLong())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return null;
+        });
+        assertEquals(2, queue.idleWorkers());
+
+        queue.submit(article(1), "parser-1");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertEquals(1, queue.idleWorkers());
+        release.countDown();
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.parserservice.service;
+
+import com.example.parserservice.tokenizer.VectorSupport;
+import com.example.parserservice.tokenizer.WordOffsetTable;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParseEngineTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ParseEngine parseEngine;
+
+    @AfterEach
+    public void tearDown() {
+        if (parseEngine != null) {
+            parseEngine.shutdown();
+        }
+    }
+
+    private static Map<String, List<Integer>> toMap(WordOffsetTable table) {
+        Map<String, List<Integer>> map = new HashMap<>();
+        table.forEach((word, offsets, count) -> {
+            List<Integer> list = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                list.add(offsets[i]);
+            }
+            map.put(word, list);
+        });
+        return map;
+    }
+
+    // Test that splitting on word boundaries gives the same offsets as one sequential scan
+    @Test
+    public void testParallelParseMatchesSequentialScan() {
+        parseEngine = new ParseEngine(4, 64, 4, meterRegistry);
+        Random random = new Random(1);
+        String[] words = {"the", "Quick", "brown", "FOX", "jumps", "övér", "lazy", "dogs"};
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            builder.append(words[random.nextInt(words.length)]).append(random.nextInt(5) == 0 ? ", " : " ");
+        }
+        String content = builder.toString();
+
+        ParseEngine sequential = new ParseEngine(1, Integer.MAX_VALUE, 1, new SimpleMeterRegistry());
+        try {
+            assertEquals(toMap(sequential.parse(content)), toMap(parseEngine.parse(content)));
+        } finally {
+            sequential.shutdown();
+        }
+    }
+
+    // The vector tokenizer is a drop-in replacement for the engine's leaves
+    @Test
+    public void testVectorTokenizerMatchesCompact() {
+        parseEngine = new ParseEngine(4, 64, 4, "vector", meterRegistry);
+        String content = "Ünïcode and ASCII, ΣΟΦΙΑΣ mixed With CAPS ".repeat(500);
+
+        ParseEngine compact = new ParseEngine(4, 64, 4, new SimpleMeterRegistry());
+        try {
+            assertEquals(VectorSupport.isAvailable(), parseEngine.isVectorized());
+            assertEquals(toMap(compact.parse(content)), toMap(parseEngine.parse(content)));
+        } finally {
+            compact.shutdown();
+        }
+    }
+
+    // The first word and words near split points must not be dropped
+    // Started in a JVM without jdk.incubator.vector by testVectorTokenizerFallsBackWithoutModule
+    public static class VectorFallbackMain {
+        public static void main(String[] args) {
+            ParseEngine parseEngine = new ParseEngine(1, 64, 4, "vector", new SimpleMeterRegistry());
+            try {
+                System.out.println(parseEngine.isVectorized() + " " + new TreeMap<>(toMap(parseEngine.parse("Hello hello world"))));
+            } finally {
+                parseEngine.shutdown();
+            }
+        }
+    }
+
+    // Test that parser.tokenizer=vector falls back to the compact tokenizer when the module is missing instead of failing
+    @Test
+    public void testVectorTokenizerFallsBackWithoutModule() throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), VectorFallbackMain.class.getName())
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+        assertTrue(process.waitFor(60, TimeUnit.SECONDS));
+        assertEquals(0, process.exitValue(), output);
+        assertEquals("false {hello=[0, 6], world=[12]}", output);
+    }
+
+    @Test
+    public void testNoWordLostAtSplitPoints() {
+        parseEngine = new ParseEngine(2, 8, 4, meterRegistry);
+        String content = "firstword aaaaaaaaaaaaaaaaaaaaaaaa b cc ddd lastword";
+
+        Map<String, List<Integer>> result = toMap(parseEngine.parse(content));
+
+        assertEquals(List.of(0), result.get("firstword"));
+        assertEquals(List.of(10), result.get("aaaaaaaaaaaaaaaaaaaaaaaa"));
+        assertEquals(List.of(44), result.get("lastword"));
+        assertEquals(6, result.size());
+    }
+
+    @Test
+    public void testAdjustSplitPointSkipsToWordEnd() {
+        String content = "hello world";
+
+        assertEquals(5, ParseEngine.adjustSplitPoint(content, 2, content.length()));
+        assertEquals(5, ParseEngine.adjustSplitPoint(content, 5, content.length()));
+        assertEquals(11, ParseEngine.adjustSplitPoint(content, 8, content.length()));
+    }
+
+    // A saturated engine rejects instead of queueing without bound
+    @Test
+    public void testRejectsWhenQueueIsFull() {
+        parseEngine = new ParseEngine(1, 64, 0, meterRegistry);
+
+        assertThrows(RejectedExecutionException.class, () -> parseEngine.parse("some content"));
+        assertEquals(1.0, meterRegistry.get("parser.engine.rejected").counter().count());
+        assertEquals(64.0, meterRegistry.get("parser.engine.split.threshold").gauge().value());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.parserservice.service;
+
+import com.example.parserservice.DTO.ClaimedArticleDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class PendingArticlePollerTest {
+
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+    private final IndexingJobQueue indexingJobQueue = mock(IndexingJobQueue.class);
+    private final PendingArticlePoller poller = new PendingArticlePoller(restTemplate, indexingJobQueue, "http://dal", new SimpleMeterRegistry());
+
+    private static ClaimedArticleDTO claimed(long id) {
+        ClaimedArticleDTO dto = new ClaimedArticleDTO();
+        dto.setArticleId(id);
+        return dto;
+    }
+
+    // Never claims more than the idle workers can start, and queues what it claimed
+    @Test
+    public void testClaimsUpToIdleWorkers() {
+        ReflectionTestUtils.setField(poller, "workerId", "parser-1");
+        when(indexingJobQueue.idleWorkers()).thenReturn(3);
+        when(restTemplate.postForObject(anyString(), isNull(), eq(ClaimedArticleDTO[].class)))
+                .thenReturn(new ClaimedArticleDTO[]{claimed(4), claimed(5)});
+
+        poller.poll();
+
+        verify(restTemplate).postForObject(eq("http://dal/api/article-queue/claim?worker=parser-1&limit=3"), isNull(), eq(ClaimedArticleDTO[].class));
+        verify(indexingJobQueue).submitClaimed(4L, "parser-1");
+        verify(indexingJobQueue).submitClaimed(5L, "parser-1");
+    }
+
+    @Test
+    public void testBusyWorkersDoNotClaim() {
+        when(indexingJobQueue.idleWorkers()).thenReturn(0);
+
+        poller.poll();
+
+        verifyNoInteractions(restTemplate);
+    }
+
+    // A claimed article that no longer fits is released without counting an attempt
+    @Test
+    public void testRejectedClaimIsReleased() {
+        ReflectionTestUtils.setField(poller, "workerId", "parser-1");
+        when(indexingJobQueue.idleWorkers()).thenReturn(1);
+        when(restTemplate.postForObject(anyString(), isNull(), eq(ClaimedArticleDTO[].class)))
+                .thenReturn(new ClaimedArticleDTO[]{claimed(9)});
+        doThrow(new RejectedExecutionException("full")).when(indexingJobQueue).submitClaimed(anyLong(), anyString());
+
+        poller.poll();
+
+        verify(indexingJobQueue).release(9L, "parser-1", false);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.parserservice.tokenizer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamingWordParserTest {
+
+    // Returns at most a few bytes per read so multi-byte chars and words are split across reads
+    private static InputStream trickle(byte[] bytes) {
+        return new ByteArrayInputStream(bytes) {
+            private final Random random = new Random(3);
+
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 1 + random.nextInt(7)));
+            }
+        };
+    }
+
+    private static Map<String, List<Integer>> toMap(WordOffsetTable table) {
+        Map<String, List<Integer>> map = new HashMap<>();
+        table.forEach((word, offsets, count) -> {
+            List<Integer> list = map.computeIfAbsent(word, k -> new ArrayList<>());
+            for (int i = 0; i < count; i++) {
+                list.add(offsets[i]);
+            }
+        });
+        return map;
+    }
+
+    @Test
+    public void testStreamedOffsetsMatchInMemoryScan() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            builder.append("Grüße ").append(i % 3 == 0 ? "😀 " : "").append("naïve café Word").append(i).append(". ");
+        }
+        byte[] bytes = builder.toString().getBytes(StandardCharsets.UTF_8);
+        String decoded = new String(bytes, StandardCharsets.UTF_8);
+
+        WordOffsetTable expected = new WordOffsetTable();
+        WordScanner scanner = new WordScanner(expected, 0);
+        scanner.scan(decoded, 0, decoded.length());
+        scanner.finish();
+
+        List<WordOffsetTable> segments = new ArrayList<>();
+        long characters = new StreamingWordParser(13, 500).parse(trickle(bytes), segments::add);
+
+        WordOffsetTable merged = new WordOffsetTable();
+        segments.forEach(merged::addAll);
+        assertEquals(decoded.length(), characters);
+        assertEquals(toMap(expected), toMap(merged));
+        // the flush threshold must have produced more than one segment
+        assertTrue(segments.size() > 1);
+    }
+
+    @Test
+    public void testEmptyStreamProducesNoSegments() throws IOException {
+        List<WordOffsetTable> segments = new ArrayList<>();
+
+        long characters = new StreamingWordParser(16, 10).parse(new ByteArrayInputStream(new byte[0]), segments::add);
+
+        assertEquals(0, characters);
+        assertTrue(segments.isEmpty());
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.parserservice.tokenizer;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class VectorWordScannerTest {
+
+    @BeforeAll
+    public static void requireVectorModule() {
+        assumeTrue(VectorSupport.isAvailable(), "run with --add-modules jdk.incubator.vector");
+    }
+
+    private static Map<String, List<Integer>> toMap(WordOffsetTable table) {
+        Map<String, List<Integer>> map = new HashMap<>();
+        table.forEach((word, offsets, count) -> {
+            List<Integer> list = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                list.add(offsets[i]);
+            }
+            map.put(word, list);
+        });
+        return map;
+    }
+
+    private static Map<String, List<Integer>> scalar(String content, int from, int to) {
+        WordOffsetTable table = new WordOffsetTable();
+        WordScanner scanner = new WordScanner(table, from);
+        scanner.scan(content, from, to);
+        scanner.finish();
+        return toMap(table);
+    }
+
+    private static Map<String, List<Integer>> vector(String content, int from, int to) {
+        WordOffsetTable table = new WordOffsetTable();
+        VectorWordScanner scanner = new VectorWordScanner(table, from);
+        scanner.scan(content, from, to);
+        scanner.finish();
+        return toMap(table);
+    }
+
+    @Test
+    public void testAsciiWordsAreLowercasedAndOffsetsKept() {
+        String content = "The QUICK brown Fox, the quick-brown fox!";
+
+        Map<String, List<Integer>> result = vector(content, 0, content.length());
+
+        assertEquals(List.of(0, 21), result.get("the"));
+        assertEquals(List.of(4, 25), result.get("quick"));
+        assertEquals(List.of(16, 37), result.get("fox"));
+        assertEquals(scalar(content, 0, content.length()), result);
+    }
+
+    // Non-ASCII lanes (accents, Greek final sigma, CJK, surrogate pairs) must give the scalar result
+    @Test
+    public void testMixedAsciiAndUnicodeMatchesScalar() {
+        Random random = new Random(3);
+        String[] words = {"école", "ÉCOLE", "ΣΟΦΙΑΣ", "straße", "Naïve", "日本語", "plain", "Words", "x", "𝐀bc"};
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 30_000; i++) {
+            builder.append(words[random.nextInt(words.length)]);
+            builder.append(random.nextInt(4) == 0 ? "; " : random.nextInt(3) == 0 ? " " : " ");
+        }
+        String content = builder.toString();
+
+        assertEquals(scalar(content, 0, content.length()), vector(content, 0, content.length()));
+    }
+
+    // Words longer than a vector step and crossing the 8192 char block boundary
+    @Test
+    public void testLongWordsAcrossBlocks() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 700; i++) {
+            builder.append("A".repeat(1 + i % 97)).append(i % 5 == 0 ? "Ä" : "").append(' ');
+        }
+        builder.append("Lastword");
+        String content = builder.toString();
+
+        assertEquals(scalar(content, 0, content.length()), vector(content, 0, content.length()));
+        // a range that starts and ends mid-content keeps absolute offsets
+        assertEquals(scalar(content, 5000, 20000), vector(content, 5000, 20000));
+    }
+}
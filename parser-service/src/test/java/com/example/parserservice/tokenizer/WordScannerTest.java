@@ -0,0 +1,116 @@
+package com.example.parserservice.tokenizer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WordScannerTest {
+
+    // Collect a table into word -> offsets for easy comparison
+    private static Map<String, List<Integer>> toMap(WordOffsetTable table) {
+        Map<String, List<Integer>> map = new HashMap<>();
+        table.forEach((word, offsets, count) -> {
+            List<Integer> list = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                list.add(offsets[i]);
+            }
+            map.put(word, list);
+        });
+        return map;
+    }
+
+    // Reference implementation - the original parseChunk logic
+    private static Map<String, List<Integer>> reference(String content) {
+        Map<String, List<Integer>> map = new HashMap<>();
+        StringBuilder word = new StringBuilder();
+        int start = -1;
+        for (int i = 0; i <= content.length(); i++) {
+            if (i < content.length() && Character.isLetter(content.charAt(i))) {
+                if (start == -1) {
+                    start = i;
+                }
+                word.append(content.charAt(i));
+            } else if (word.length() > 0) {
+                map.computeIfAbsent(word.toString().toLowerCase(Locale.ROOT), k -> new ArrayList<>()).add(start);
+                word.setLength(0);
+                start = -1;
+            }
+        }
+        return map;
+    }
+
+    private static WordOffsetTable scan(String content) {
+        WordOffsetTable table = new WordOffsetTable(16);
+        WordScanner scanner = new WordScanner(table, 0);
+        scanner.scan(content, 0, content.length());
+        scanner.finish();
+        return table;
+    }
+
+    @Test
+    public void testCaseFoldingAndOffsets() {
+        Map<String, List<Integer>> result = toMap(scan("Hello world, HELLO again hello"));
+
+        assertEquals(3, result.size());
+        assertEquals(List.of(0, 13, 25), result.get("hello"));
+        assertEquals(List.of(6), result.get("world"));
+        assertEquals(List.of(19), result.get("again"));
+    }
+
+    @Test
+    public void testNonAsciiWordsMatchStringLowerCase() {
+        String content = "ΟΔΟΣ οδος Straße STRASSE Émile émile İstanbul";
+
+        assertEquals(reference(content), toMap(scan(content)));
+    }
+
+    @Test
+    public void testWordsAcrossBlockBoundaries() {
+        WordOffsetTable table = new WordOffsetTable(16);
+        WordScanner scanner = new WordScanner(table, 100);
+        char[] text = "alpha beta gamma".toCharArray();
+        // split inside "alpha", exactly after "beta" and inside "gamma"
+        scanner.feed(text, 0, 3);
+        scanner.feed(text, 3, 10);
+        scanner.feed(text, 10, 13);
+        scanner.feed(text, 13, text.length);
+        scanner.finish();
+
+        Map<String, List<Integer>> result = toMap(table);
+        assertEquals(List.of(100), result.get("alpha"));
+        assertEquals(List.of(106), result.get("beta"));
+        assertEquals(List.of(111), result.get("gamma"));
+        assertEquals(116, scanner.getPosition());
+    }
+
+    @Test
+    public void testMatchesReferenceOnRandomText() {
+        Random random = new Random(42);
+        String alphabet = "abcXYZ  ,.\n0éÉßΣσ";
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 50_000; i++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        String content = builder.toString();
+
+        assertEquals(reference(content), toMap(scan(content)));
+    }
+
+    @Test
+    public void testAddAllKeepsOffsetsInOrder() {
+        WordOffsetTable left = scan("one two");
+        WordOffsetTable right = new WordOffsetTable(16);
+        WordScanner scanner = new WordScanner(right, 8);
+        scanner.scan("one three", 0, 9);
+        scanner.finish();
+
+        left.addAll(right);
+
+        Map<String, List<Integer>> result = toMap(left);
+        assertEquals(List.of(0, 8), result.get("one"));
+        assertEquals(List.of(12), result.get("three"));
+        assertEquals(3, left.size());
+    }
+}